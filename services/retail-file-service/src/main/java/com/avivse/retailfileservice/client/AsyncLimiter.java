@@ -0,0 +1,74 @@
+package com.avivse.retailfileservice.client;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/**
+ * Caps how many asynchronous calls are in flight without blocking the caller. Calls beyond the
+ * limit wait in a queue and are started as earlier ones complete, so any number of callers can
+ * be waiting without holding a thread each.
+ */
+public class AsyncLimiter {
+
+    private final int maxInFlight;
+    private final Semaphore permits;
+    private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+
+    public AsyncLimiter(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * Start the call now if a slot is free, otherwise once one frees up. The returned future
+     * completes with the call's result.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        waiting.add(() -> start(call, result));
+        drain();
+        return result;
+    }
+
+    public int inFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    public int queued() {
+        return waiting.size();
+    }
+
+    private void drain() {
+        // Re-checked after giving a permit back, so a call queued meanwhile is not stranded
+        while (!waiting.isEmpty() && permits.tryAcquire()) {
+            Runnable next = waiting.poll();
+            if (next == null) {
+                permits.release();
+            } else {
+                next.run();
+            }
+        }
+    }
+
+    private <T> void start(Supplier<CompletableFuture<T>> call, CompletableFuture<T> result) {
+        // Whatever the call throws, Errors included, must give the permit back and fail the result
+        CompletableFuture<T> started;
+        try {
+            started = call.get();
+        } catch (Throwable e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((value, error) -> {
+            permits.release();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+            drain();
+        });
+    }
+}
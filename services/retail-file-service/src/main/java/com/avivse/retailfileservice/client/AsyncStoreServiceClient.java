@@ -0,0 +1,260 @@
+package com.avivse.retailfileservice.client;
+
+import com.avivse.retailfileservice.dto.CreateStoreDto;
+import com.avivse.retailfileservice.dto.StoreDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Non-blocking counterpart of {@link StoreServiceClient} for store resolution. Calls return
+ * futures completed on the HTTP client's threads, and at most max-in-flight requests are sent
+ * at once; the rest wait in a queue rather than on a thread. A missing store (404) and a
+ * creation conflict (409) are handled as in {@link StoreServiceClient}, and both clients share
+ * the store ID cache.
+ */
+@Component
+public class AsyncStoreServiceClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncStoreServiceClient.class);
+
+    private static final String JSON = "application/json";
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final StoreIdCache storeIdCache;
+    private final String storeServiceBaseUrl;
+    private final Duration readTimeout;
+    private final AsyncLimiter limiter;
+    private final SingleFlight<StoreKey, UUID> storeIdRequests;
+
+    public AsyncStoreServiceClient(ObjectMapper objectMapper,
+                                   StoreIdCache storeIdCache,
+                                   @Value("${app.store-service.base-url:http://localhost:9090}") String storeServiceBaseUrl,
+                                   @Value("${app.store-service.async.max-in-flight:256}") int maxInFlight,
+                                   @Value("${app.store-service.http.connect-timeout:2s}") Duration connectTimeout,
+                                   @Value("${app.store-service.http.read-timeout:5s}") Duration readTimeout,
+                                   MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.storeIdCache = storeIdCache;
+        this.storeServiceBaseUrl = storeServiceBaseUrl;
+        this.readTimeout = readTimeout;
+        this.limiter = new AsyncLimiter(maxInFlight);
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(connectTimeout)
+                .build();
+
+        this.storeIdRequests = new SingleFlight<>(Counter.builder("store_client_async_coalesced_requests_total")
+                .description("Asynchronous store ID resolutions that joined an in-flight request for the same store")
+                .register(meterRegistry));
+
+        Gauge.builder("store_client_async_in_flight", limiter, AsyncLimiter::inFlight)
+                .description("Asynchronous store service requests currently sent")
+                .register(meterRegistry);
+
+        Gauge.builder("store_client_async_queued", limiter, AsyncLimiter::queued)
+                .description("Asynchronous store service requests waiting for an in-flight slot")
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<Optional<StoreDto>> getStoreByChainIdAndStoreNumber(String chainId, Integer storeNumber) {
+        logger.debug("Getting store by chainId: {} and storeNumber: {}", chainId, storeNumber);
+
+        URI uri = UriComponentsBuilder.fromUriString(storeServiceBaseUrl)
+                .path("/api/v1/stores/by-natural-key")
+                .queryParam("chain_id", chainId)
+                .queryParam("store_number", storeNumber)
+                .encode()
+                .build()
+                .toUri();
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(readTimeout)
+                .header("Accept", JSON)
+                .GET()
+                .build();
+
+        StoreKey key = new StoreKey(chainId, storeNumber);
+        return send(request)
+                .thenApply(response -> {
+                    if (response.statusCode() == 404) {
+                        logger.debug("Store not found for chainId: {} and storeNumber: {}", chainId, storeNumber);
+                        storeIdCache.putMissing(key);
+                        return Optional.<StoreDto>empty();
+                    }
+                    StoreDto store = readStore(response, 200, "Unexpected response when getting store");
+                    if (store == null) {
+                        return Optional.<StoreDto>empty();
+                    }
+                    logger.debug("Found existing store with ID: {}", store.getId());
+                    storeIdCache.put(key, store.getId());
+                    return Optional.of(store);
+                })
+                .exceptionally(error -> {
+                    logger.error("Error getting store by chainId: {} and storeNumber: {}", chainId, storeNumber, error);
+                    throw failure("Failed to get store from store service", error);
+                });
+    }
+
+    public CompletableFuture<Optional<StoreDto>> getStoreById(UUID storeId) {
+        logger.debug("Getting store by ID: {}", storeId);
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(storeServiceBaseUrl + "/api/v1/stores/" + storeId))
+                .timeout(readTimeout)
+                .header("Accept", JSON)
+                .GET()
+                .build();
+
+        return send(request)
+                .thenApply(response -> {
+                    if (response.statusCode() == 404) {
+                        logger.debug("Store not found for ID: {}", storeId);
+                        return Optional.<StoreDto>empty();
+                    }
+                    return Optional.ofNullable(readStore(response, 200, "Unexpected response when getting store"));
+                })
+                .exceptionally(error -> {
+                    logger.error("Error getting store by ID: {}", storeId, error);
+                    throw failure("Failed to get store from store service", error);
+                });
+    }
+
+    public CompletableFuture<StoreDto> createStore(CreateStoreDto createStoreDto) {
+        logger.info("Creating store with chainId: {} and storeNumber: {}",
+                createStoreDto.getChainId(), createStoreDto.getStoreNumber());
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(storeServiceBaseUrl + "/api/v1/stores"))
+                .timeout(readTimeout)
+                .header("Content-Type", JSON)
+                .header("Accept", JSON)
+                .header("X-Service-Name", "retail-file-service")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(writeJson(createStoreDto)))
+                .build();
+
+        StoreKey key = new StoreKey(createStoreDto.getChainId(), createStoreDto.getStoreNumber());
+        return send(request)
+                .thenApply(response -> {
+                    // A null result marks a conflict, resolved below by looking the store up
+                    if (response.statusCode() == 409) {
+                        return null;
+                    }
+                    StoreDto store = readStore(response, 201, "Unexpected response when creating store");
+                    if (store == null) {
+                        throw new RuntimeException("Unexpected response when creating store");
+                    }
+                    logger.info("Created new store with ID: {}", store.getId());
+                    storeIdCache.put(key, store.getId());
+                    return store;
+                })
+                .exceptionally(error -> {
+                    logger.error("Error creating store with chainId: {} and storeNumber: {}",
+                            createStoreDto.getChainId(), createStoreDto.getStoreNumber(), error);
+                    throw failure("Failed to create store in store service", error);
+                })
+                .thenCompose(created -> created != null
+                        ? CompletableFuture.completedFuture(created)
+                        : getExistingStore(createStoreDto));
+    }
+
+    private CompletableFuture<StoreDto> getExistingStore(CreateStoreDto createStoreDto) {
+        logger.warn("Store already exists for chainId: {} and storeNumber: {}, attempting to get existing store",
+                createStoreDto.getChainId(), createStoreDto.getStoreNumber());
+        return getStoreByChainIdAndStoreNumber(createStoreDto.getChainId(), createStoreDto.getStoreNumber())
+                .thenApply(existingStore -> existingStore.orElseThrow(
+                        () -> new RuntimeException("Store exists but couldn't retrieve it")));
+    }
+
+    /**
+     * Look up a store ID by natural key, answering from the local cache when possible.
+     * Both found and not-found results are cached.
+     */
+    public CompletableFuture<Optional<UUID>> findStoreId(String chainId, Integer storeNumber) {
+        Optional<UUID> cached = storeIdCache.getIfPresent(new StoreKey(chainId, storeNumber));
+        if (cached != null) {
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        return getStoreByChainIdAndStoreNumber(chainId, storeNumber)
+                .thenApply(store -> store.map(StoreDto::getId));
+    }
+
+    /**
+     * Resolve a store ID by natural key, creating the store if it doesn't exist.
+     * Concurrent calls for the same store share a single lookup/create round trip.
+     */
+    public CompletableFuture<UUID> getOrCreateStoreId(String chainId, Integer storeNumber) {
+        StoreKey key = new StoreKey(chainId, storeNumber);
+        Optional<UUID> cached = storeIdCache.getIfPresent(key);
+        if (cached != null && cached.isPresent()) {
+            return CompletableFuture.completedFuture(cached.get());
+        }
+
+        return storeIdRequests.executeAsync(key, () -> lookupOrCreateStoreId(chainId, storeNumber));
+    }
+
+    private CompletableFuture<UUID> lookupOrCreateStoreId(String chainId, Integer storeNumber) {
+        // Re-check the cache: a request that just finished may already have resolved this store
+        return findStoreId(chainId, storeNumber).thenCompose(existingStoreId -> {
+            if (existingStoreId.isPresent()) {
+                return CompletableFuture.completedFuture(existingStoreId.get());
+            }
+
+            CreateStoreDto createStoreDto = new CreateStoreDto();
+            createStoreDto.setStoreNumber(storeNumber);
+            createStoreDto.setChainId(chainId);
+
+            return createStore(createStoreDto).thenApply(StoreDto::getId);
+        });
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> send(HttpRequest request) {
+        return limiter.submit(() -> httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    // Returns null for an empty body, like RestTemplate does
+    private StoreDto readStore(HttpResponse<byte[]> response, int expectedStatus, String unexpectedMessage) {
+        if (response.statusCode() != expectedStatus) {
+            throw new RuntimeException(unexpectedMessage + " (status " + response.statusCode() + ")");
+        }
+        if (response.body() == null || response.body().length == 0) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(response.body(), StoreDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] writeJson(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static CompletionException failure(String message, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return new CompletionException(new RuntimeException(message, cause));
+    }
+}
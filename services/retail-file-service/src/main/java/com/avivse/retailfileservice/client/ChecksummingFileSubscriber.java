@@ -0,0 +1,98 @@
+package com.avivse.retailfileservice.client;
+
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow;
+
+/**
+ * Writes a response body to a file and feeds the same buffers into a digest on the way,
+ * so the checksum is known as soon as the last byte is written without reading the file back.
+ * The digest is reset before use, so callers can reuse one instance per download thread.
+ */
+public class ChecksummingFileSubscriber implements HttpResponse.BodySubscriber<DownloadedContent> {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final Path path;
+    private final MessageDigest digest;
+    private final CompletableFuture<DownloadedContent> result = new CompletableFuture<>();
+
+    private FileChannel channel;
+    private Flow.Subscription subscription;
+    private long size;
+
+    public ChecksummingFileSubscriber(Path path, MessageDigest digest) {
+        this.path = path;
+        this.digest = digest;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        this.subscription = subscription;
+        try {
+            digest.reset();
+            channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            subscription.request(1);
+        } catch (IOException e) {
+            subscription.cancel();
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public void onNext(List<ByteBuffer> buffers) {
+        try {
+            for (ByteBuffer buffer : buffers) {
+                digest.update(buffer.duplicate());
+                while (buffer.hasRemaining()) {
+                    size += channel.write(buffer);
+                }
+            }
+            subscription.request(1);
+        } catch (IOException e) {
+            subscription.cancel();
+            fail(e);
+        }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        fail(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+        try {
+            channel.close();
+            result.complete(new DownloadedContent(size, HEX.formatHex(digest.digest())));
+        } catch (IOException e) {
+            result.completeExceptionally(e);
+        }
+    }
+
+    @Override
+    public CompletionStage<DownloadedContent> getBody() {
+        return result;
+    }
+
+    private void fail(Throwable throwable) {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException e) {
+            throwable.addSuppressed(e);
+        }
+        result.completeExceptionally(throwable);
+    }
+}
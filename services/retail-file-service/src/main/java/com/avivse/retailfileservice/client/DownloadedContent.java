@@ -0,0 +1,7 @@
+package com.avivse.retailfileservice.client;
+
+/**
+ * Size and hex SHA-256 checksum of a downloaded file, computed while it was written.
+ */
+public record DownloadedContent(long size, String checksum) {
+}
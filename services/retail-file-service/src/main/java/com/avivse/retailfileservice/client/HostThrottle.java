@@ -0,0 +1,72 @@
+package com.avivse.retailfileservice.client;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-host limits for outbound downloads: at most maxConcurrentPerHost requests in flight
+ * to a host, and request starts to the same host spaced at least minInterval apart.
+ */
+public class HostThrottle {
+
+    private final int maxConcurrentPerHost;
+    private final long minIntervalNanos;
+    private final ConcurrentMap<String, HostState> hosts = new ConcurrentHashMap<>();
+
+    public HostThrottle(int maxConcurrentPerHost, double requestsPerSecondPerHost) {
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.minIntervalNanos = requestsPerSecondPerHost > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / requestsPerSecondPerHost)
+                : 0L;
+    }
+
+    /**
+     * Block until a request to the host may start. The returned permit must be closed
+     * once the request has finished.
+     */
+    public Permit acquire(String host) throws InterruptedException {
+        HostState state = hosts.computeIfAbsent(host, h -> new HostState(maxConcurrentPerHost));
+        state.permits.acquire();
+        try {
+            long waitNanos = state.reserveSlot(minIntervalNanos);
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        } catch (InterruptedException e) {
+            state.permits.release();
+            throw e;
+        }
+        return state.permits::release;
+    }
+
+    public int inFlight(String host) {
+        HostState state = hosts.get(host);
+        return state == null ? 0 : maxConcurrentPerHost - state.permits.availablePermits();
+    }
+
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final class HostState {
+
+        private final Semaphore permits;
+        private long nextSlotNanos = System.nanoTime();
+
+        private HostState(int maxConcurrent) {
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        // Reserve the next start slot and return how long to wait for it
+        private synchronized long reserveSlot(long minIntervalNanos) {
+            long now = System.nanoTime();
+            long start = Math.max(now, nextSlotNanos);
+            nextSlotNanos = start + minIntervalNanos;
+            return start - now;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.avivse.retailfileservice.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Bounded in-process cache of store IDs by natural key.
+ * Known stores are kept for a long TTL, while stores confirmed missing are
+ * remembered for a short TTL so repeated lookups don't hit the store service.
+ */
+@Component
+public class StoreIdCache {
+
+    private final Cache<StoreKey, Optional<UUID>> cache;
+
+    public StoreIdCache(@Value("${app.store-service.cache.maximum-size:100000}") long maximumSize,
+                        @Value("${app.store-service.cache.ttl:24h}") Duration ttl,
+                        @Value("${app.store-service.cache.negative-ttl:30s}") Duration negativeTtl,
+                        MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new StoreIdExpiry(ttl, negativeTtl))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "store_id_cache");
+    }
+
+    /**
+     * Returns the cached lookup result: a present Optional for a known store,
+     * an empty Optional for a store recently confirmed missing, or null on a cache miss.
+     */
+    public Optional<UUID> getIfPresent(StoreKey key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(StoreKey key, UUID storeId) {
+        cache.put(key, Optional.of(storeId));
+    }
+
+    public void putMissing(StoreKey key) {
+        cache.put(key, Optional.empty());
+    }
+
+    public void invalidate(StoreKey key) {
+        cache.invalidate(key);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static final class StoreIdExpiry implements Expiry<StoreKey, Optional<UUID>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+
+        private StoreIdExpiry(Duration ttl, Duration negativeTtl) {
+            this.ttlNanos = ttl.toNanos();
+            this.negativeTtlNanos = negativeTtl.toNanos();
+        }
+
+        @Override
+        public long expireAfterCreate(StoreKey key, Optional<UUID> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(StoreKey key, Optional<UUID> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(StoreKey key, Optional<UUID> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
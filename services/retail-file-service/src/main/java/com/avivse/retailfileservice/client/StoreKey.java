@@ -0,0 +1,7 @@
+package com.avivse.retailfileservice.client;
+
+/**
+ * Natural key of a store in the store service: chain ID plus store number.
+ */
+public record StoreKey(String chainId, Integer storeNumber) {
+}
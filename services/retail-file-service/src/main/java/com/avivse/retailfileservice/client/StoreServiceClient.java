@@ -1,12 +1,20 @@
 package com.avivse.retailfileservice.client;
 
 import com.avivse.retailfileservice.dto.CreateStoreDto;
+import com.avivse.retailfileservice.dto.ResolveStoresRequest;
+import com.avivse.retailfileservice.dto.ResolveStoresResponse;
 import com.avivse.retailfileservice.dto.StoreDto;
+import com.avivse.retailfileservice.dto.UpsertStoresRequest;
+import com.avivse.retailfileservice.dto.UpsertStoresResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
@@ -14,6 +22,12 @@ import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -22,13 +36,29 @@ public class StoreServiceClient {
 
     private static final Logger logger = LoggerFactory.getLogger(StoreServiceClient.class);
 
+    // Matches the maximum batch size accepted by the store service resolve endpoint
+    static final int RESOLVE_BATCH_SIZE = 1000;
+
     private final RestTemplate restTemplate;
+    private final StoreIdCache storeIdCache;
     private final String storeServiceBaseUrl;
+    private final SingleFlight<StoreKey, UUID> storeIdRequests;
 
     public StoreServiceClient(RestTemplate restTemplate,
-                             @Value("${app.store-service.base-url:http://localhost:9090}") String storeServiceBaseUrl) {
+                             StoreIdCache storeIdCache,
+                             @Value("${app.store-service.base-url:http://localhost:9090}") String storeServiceBaseUrl,
+                             MeterRegistry meterRegistry) {
         this.restTemplate = restTemplate;
+        this.storeIdCache = storeIdCache;
         this.storeServiceBaseUrl = storeServiceBaseUrl;
+
+        this.storeIdRequests = new SingleFlight<>(Counter.builder("store_client_coalesced_requests_total")
+                .description("Store ID resolutions that joined an in-flight request for the same store")
+                .register(meterRegistry));
+
+        Gauge.builder("store_client_in_flight_resolutions", storeIdRequests, SingleFlight::inFlightCount)
+                .description("Store ID resolutions currently in flight")
+                .register(meterRegistry);
     }
 
     public Optional<StoreDto> getStoreByChainIdAndStoreNumber(String chainId, Integer storeNumber) {
@@ -45,12 +75,14 @@ public class StoreServiceClient {
 
             if (response.getStatusCode() == HttpStatus.OK && response.getBody() != null) {
                 logger.debug("Found existing store with ID: {}", response.getBody().getId());
+                storeIdCache.put(new StoreKey(chainId, storeNumber), response.getBody().getId());
                 return Optional.of(response.getBody());
             }
 
             return Optional.empty();
         } catch (HttpClientErrorException.NotFound e) {
             logger.debug("Store not found for chainId: {} and storeNumber: {}", chainId, storeNumber);
+            storeIdCache.putMissing(new StoreKey(chainId, storeNumber));
             return Optional.empty();
         } catch (Exception e) {
             logger.error("Error getting store by chainId: {} and storeNumber: {}", chainId, storeNumber, e);
@@ -74,6 +106,8 @@ public class StoreServiceClient {
 
             if (response.getStatusCode() == HttpStatus.CREATED && response.getBody() != null) {
                 logger.info("Created new store with ID: {}", response.getBody().getId());
+                storeIdCache.put(new StoreKey(createStoreDto.getChainId(), createStoreDto.getStoreNumber()),
+                        response.getBody().getId());
                 return response.getBody();
             } else {
                 throw new RuntimeException("Unexpected response when creating store");
@@ -95,11 +129,39 @@ public class StoreServiceClient {
         }
     }
 
+    /**
+     * Look up a store ID by natural key, answering from the local cache when possible.
+     * Both found and not-found results are cached.
+     */
+    public Optional<UUID> findStoreId(String chainId, Integer storeNumber) {
+        Optional<UUID> cached = storeIdCache.getIfPresent(new StoreKey(chainId, storeNumber));
+        if (cached != null) {
+            return cached;
+        }
+
+        return getStoreByChainIdAndStoreNumber(chainId, storeNumber).map(StoreDto::getId);
+    }
+
+    /**
+     * Resolve a store ID by natural key, creating the store if it doesn't exist.
+     * Concurrent calls for the same store share a single lookup/create round trip.
+     */
     public UUID getOrCreateStoreId(String chainId, Integer storeNumber) {
-        Optional<StoreDto> existingStore = getStoreByChainIdAndStoreNumber(chainId, storeNumber);
+        StoreKey key = new StoreKey(chainId, storeNumber);
+        Optional<UUID> cached = storeIdCache.getIfPresent(key);
+        if (cached != null && cached.isPresent()) {
+            return cached.get();
+        }
+
+        return storeIdRequests.execute(key, () -> lookupOrCreateStoreId(chainId, storeNumber));
+    }
 
-        if (existingStore.isPresent()) {
-            return existingStore.get().getId();
+    private UUID lookupOrCreateStoreId(String chainId, Integer storeNumber) {
+        // Re-check the cache: a request that just finished may already have resolved this store
+        Optional<UUID> existingStoreId = findStoreId(chainId, storeNumber);
+
+        if (existingStoreId.isPresent()) {
+            return existingStoreId.get();
         }
 
         CreateStoreDto createStoreDto = new CreateStoreDto();
@@ -109,4 +171,120 @@ public class StoreServiceClient {
         StoreDto createdStore = createStore(createStoreDto);
         return createdStore.getId();
     }
-}
\ No newline at end of file
+
+    /**
+     * Resolve many store IDs at once. Cached keys are answered locally and the rest
+     * are sent to the store service bulk resolve endpoint, one round trip per
+     * {@value #RESOLVE_BATCH_SIZE} keys. Keys that don't resolve are absent from the result.
+     */
+    public Map<StoreKey, UUID> resolveStoreIds(Collection<StoreKey> keys, boolean createMissing) {
+        Map<StoreKey, UUID> resolved = new HashMap<>();
+        List<StoreKey> misses = new ArrayList<>();
+
+        for (StoreKey key : new LinkedHashSet<>(keys)) {
+            Optional<UUID> cached = storeIdCache.getIfPresent(key);
+            if (cached != null && cached.isPresent()) {
+                resolved.put(key, cached.get());
+            } else if (cached == null || createMissing) {
+                misses.add(key);
+            }
+        }
+
+        for (int from = 0; from < misses.size(); from += RESOLVE_BATCH_SIZE) {
+            List<StoreKey> chunk = misses.subList(from, Math.min(from + RESOLVE_BATCH_SIZE, misses.size()));
+            for (ResolveStoresResponse.ResolvedStoreDto store : postResolve(chunk, createMissing)) {
+                StoreKey key = new StoreKey(store.getChainId(), store.getStoreNumber());
+                if (store.getId() != null) {
+                    storeIdCache.put(key, store.getId());
+                    resolved.put(key, store.getId());
+                } else {
+                    storeIdCache.putMissing(key);
+                }
+            }
+        }
+
+        return resolved;
+    }
+
+    private List<ResolveStoresResponse.ResolvedStoreDto> postResolve(List<StoreKey> keys, boolean createMissing) {
+        String url = storeServiceBaseUrl + "/api/v1/stores/resolve";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Service-Name", "retail-file-service");
+        List<ResolveStoresRequest.StoreKeyDto> body = keys.stream()
+                .map(key -> new ResolveStoresRequest.StoreKeyDto(key.chainId(), key.storeNumber()))
+                .toList();
+        HttpEntity<ResolveStoresRequest> request = new HttpEntity<>(new ResolveStoresRequest(body, createMissing), headers);
+
+        logger.debug("Resolving {} stores through store service (createMissing: {})", keys.size(), createMissing);
+        try {
+            return exchangeResolve(url, request);
+        } catch (HttpClientErrorException.Conflict e) {
+            // Another instance created some of these stores concurrently; they now exist, so retry once
+            logger.warn("Conflict while bulk resolving {} stores, retrying", keys.size());
+            try {
+                return exchangeResolve(url, request);
+            } catch (Exception retryException) {
+                throw new RuntimeException("Failed to resolve stores in store service", retryException);
+            }
+        } catch (Exception e) {
+            logger.error("Error bulk resolving {} stores", keys.size(), e);
+            throw new RuntimeException("Failed to resolve stores in store service", e);
+        }
+    }
+
+    private List<ResolveStoresResponse.ResolvedStoreDto> exchangeResolve(String url, HttpEntity<ResolveStoresRequest> request) {
+        ResponseEntity<ResolveStoresResponse> response = restTemplate.postForEntity(url, request, ResolveStoresResponse.class);
+
+        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null || response.getBody().getStores() == null) {
+            throw new RuntimeException("Unexpected response when resolving stores");
+        }
+        return response.getBody().getStores();
+    }
+
+    /**
+     * Create or update a chain's store list in one call to the store service bulk upsert
+     * endpoint. The returned store IDs are cached like resolved ones.
+     */
+    public UpsertStoresResponse upsertStores(List<UpsertStoresRequest.StoreDto> stores) {
+        String url = storeServiceBaseUrl + "/api/v1/stores/bulk";
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set("X-Service-Name", "retail-file-service");
+        HttpEntity<UpsertStoresRequest> request = new HttpEntity<>(new UpsertStoresRequest(stores), headers);
+
+        logger.info("Upserting {} stores through store service", stores.size());
+        UpsertStoresResponse response;
+        try {
+            response = exchangeUpsert(url, request);
+        } catch (HttpClientErrorException.Conflict e) {
+            // Stores created concurrently by a lazy lookup now exist, so the retry updates them
+            logger.warn("Conflict while upserting {} stores, retrying", stores.size());
+            try {
+                response = exchangeUpsert(url, request);
+            } catch (Exception retryException) {
+                throw new RuntimeException("Failed to upsert stores in store service", retryException);
+            }
+        } catch (Exception e) {
+            logger.error("Error upserting {} stores", stores.size(), e);
+            throw new RuntimeException("Failed to upsert stores in store service", e);
+        }
+
+        for (ResolveStoresResponse.ResolvedStoreDto store : response.getStores()) {
+            if (store.getId() != null) {
+                storeIdCache.put(new StoreKey(store.getChainId(), store.getStoreNumber()), store.getId());
+            }
+        }
+        return response;
+    }
+
+    private UpsertStoresResponse exchangeUpsert(String url, HttpEntity<UpsertStoresRequest> request) {
+        ResponseEntity<UpsertStoresResponse> response =
+                restTemplate.exchange(url, HttpMethod.PUT, request, UpsertStoresResponse.class);
+
+        if (response.getStatusCode() != HttpStatus.OK || response.getBody() == null || response.getBody().getStores() == null) {
+            throw new RuntimeException("Unexpected response when upserting stores");
+        }
+        return response.getBody();
+    }
+}
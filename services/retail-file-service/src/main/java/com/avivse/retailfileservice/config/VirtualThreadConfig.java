@@ -0,0 +1,55 @@
+package com.avivse.retailfileservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Wiring for the virtual-thread mode (spring.threads.virtual.enabled). Spring Boot itself runs
+ * request handling and @Scheduled jobs on virtual threads in that mode; the ingestion pipeline
+ * stages and the fetcher's HTTP client read the same property. This adds the pinned-thread
+ * metrics and puts the data source behind a {@link PinningGuardDataSource}.
+ * <p>
+ * spring.jpa.open-in-view is off, so a request holds a connection, and with it a permit, only
+ * while a transaction runs.
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    @Bean(destroyMethod = "close")
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(
+            @Value("${app.virtual-threads.pinned-threshold:20ms}") Duration pinnedThreshold,
+            MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(pinnedThreshold, meterRegistry);
+    }
+
+    @Bean
+    public static BeanPostProcessor pinningGuardDataSourcePostProcessor(
+            @Value("${app.virtual-threads.jdbc-guard.max-concurrent:0}") int maxConcurrent,
+            @Value("${app.virtual-threads.jdbc-guard.acquire-timeout:30s}") Duration acquireTimeout,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        // By default leave one carrier free of pinned JDBC calls
+        int permits = maxConcurrent > 0 ? maxConcurrent : Math.max(1, carrierThreads() - 1);
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof PinningGuardDataSource)) {
+                    return new PinningGuardDataSource(dataSource, permits, acquireTimeout, meterRegistry.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+
+    private static int carrierThreads() {
+        return Integer.getInteger("jdk.virtualThreadScheduler.parallelism", Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -1,7 +1,14 @@
 package com.avivse.retailfileservice.controller;
 
 import com.avivse.retailfileservice.dto.ErrorResponse;
+import com.avivse.retailfileservice.exception.DuplicateRetailFileException;
+import com.avivse.retailfileservice.exception.InvalidCursorException;
+import com.avivse.retailfileservice.exception.InvalidStatusException;
+import com.avivse.retailfileservice.exception.PriceNotFoundException;
 import com.avivse.retailfileservice.exception.RetailFileNotFoundException;
+import com.avivse.retailfileservice.exception.WriteBufferFullException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -22,6 +29,44 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
     }
 
+    @ExceptionHandler(PriceNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handlePriceNotFound(PriceNotFoundException ex) {
+        ErrorResponse error = new ErrorResponse("PRICE_NOT_FOUND", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    @ExceptionHandler(DuplicateRetailFileException.class)
+    public ResponseEntity<ErrorResponse> handleDuplicateRetailFile(DuplicateRetailFileException ex) {
+        ErrorResponse error = new ErrorResponse("DUPLICATE_RETAIL_FILE", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
+    @ExceptionHandler(WriteBufferFullException.class)
+    public ResponseEntity<ErrorResponse> handleWriteBufferFull(WriteBufferFullException ex) {
+        ErrorResponse error = new ErrorResponse("WRITE_BUFFER_FULL", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(error);
+    }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursor(InvalidCursorException ex) {
+        ErrorResponse error = new ErrorResponse("INVALID_CURSOR", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(InvalidStatusException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidStatus(InvalidStatusException ex) {
+        ErrorResponse error = new ErrorResponse("INVALID_STATUS", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ErrorResponse> handleDataIntegrityViolation(DataIntegrityViolationException ex) {
+        ErrorResponse error = new ErrorResponse("DATA_INTEGRITY_VIOLATION", "Data integrity constraint violated");
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+    }
+
     @ExceptionHandler(MethodArgumentTypeMismatchException.class)
     public ResponseEntity<ErrorResponse> handleTypeMismatch(MethodArgumentTypeMismatchException ex) {
         String message = String.format("Invalid value '%s' for parameter '%s'. Expected type: %s",
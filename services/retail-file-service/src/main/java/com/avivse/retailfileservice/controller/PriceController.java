@@ -0,0 +1,94 @@
+package com.avivse.retailfileservice.controller;
+
+import com.avivse.retailfileservice.dto.LatestPriceIndexStatus;
+import com.avivse.retailfileservice.dto.LatestPriceResponse;
+import com.avivse.retailfileservice.dto.PriceHistoryPoint;
+import com.avivse.retailfileservice.exception.PriceNotFoundException;
+import com.avivse.retailfileservice.service.LatestPriceIndex;
+import com.avivse.retailfileservice.service.PriceHistoryStore;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Tag(name = "Prices", description = "Lookups of the latest known item prices")
+@RestController
+@RequestMapping("/api/v1/prices")
+@CrossOrigin(origins = "*")
+public class PriceController {
+
+    private static final int DEFAULT_HISTORY_DAYS = 90;
+
+    private final LatestPriceIndex latestPriceIndex;
+    private final PriceHistoryStore priceHistoryStore;
+
+    public PriceController(LatestPriceIndex latestPriceIndex, PriceHistoryStore priceHistoryStore) {
+        this.latestPriceIndex = latestPriceIndex;
+        this.priceHistoryStore = priceHistoryStore;
+    }
+
+    /**
+     * GET /api/v1/prices/stores/{storeId}/items/{itemCode} - Latest price of an item at a store
+     */
+    @Operation(summary = "Get the latest price of an item at a store",
+            description = "Served from the in-memory latest price index, not the database")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Price found"),
+            @ApiResponse(responseCode = "404", description = "No price known for the item at the store")
+    })
+    @GetMapping("/stores/{storeId}/items/{itemCode}")
+    public ResponseEntity<LatestPriceResponse> getStorePrice(@PathVariable UUID storeId,
+                                                             @PathVariable String itemCode) {
+        LatestPriceResponse price = latestPriceIndex.find(storeId, itemCode)
+                .orElseThrow(() -> new PriceNotFoundException(
+                        "No price for item " + itemCode + " at store " + storeId));
+        return ResponseEntity.ok(price);
+    }
+
+    /**
+     * GET /api/v1/prices/stores/{storeId}/items/{itemCode}/history - Price changes of an item at a store
+     */
+    @Operation(summary = "Get the price history of an item at a store",
+            description = "One point per price change between from and to, read from the columnar price history. "
+                    + "Defaults to the last 90 days; the first point is the price in effect at from")
+    @GetMapping("/stores/{storeId}/items/{itemCode}/history")
+    public ResponseEntity<List<PriceHistoryPoint>> getStorePriceHistory(
+            @PathVariable UUID storeId,
+            @PathVariable String itemCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(DEFAULT_HISTORY_DAYS);
+        if (start.isAfter(end)) {
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(priceHistoryStore.find(storeId, itemCode, start, end));
+    }
+
+    /**
+     * GET /api/v1/prices/chains/{chainId}/items/{itemCode} - Latest price of an item across a chain
+     */
+    @Operation(summary = "Get the latest price of an item across a chain",
+            description = "Returns one price per store of the chain that sells the item")
+    @GetMapping("/chains/{chainId}/items/{itemCode}")
+    public ResponseEntity<List<LatestPriceResponse>> getChainPrices(@PathVariable String chainId,
+                                                                    @PathVariable String itemCode) {
+        return ResponseEntity.ok(latestPriceIndex.findInChain(chainId, itemCode));
+    }
+
+    /**
+     * GET /api/v1/prices/index/status - Size of the latest price index
+     */
+    @Operation(summary = "Get latest price index status")
+    @GetMapping("/index/status")
+    public ResponseEntity<LatestPriceIndexStatus> getIndexStatus() {
+        return ResponseEntity.ok(latestPriceIndex.status());
+    }
+}
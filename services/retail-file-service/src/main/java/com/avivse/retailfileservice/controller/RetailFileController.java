@@ -1,22 +1,34 @@
 package com.avivse.retailfileservice.controller;
 
+import com.avivse.retailfileservice.dto.ChecksumFilterStatus;
+import com.avivse.retailfileservice.dto.ClaimRetailFilesRequest;
+import com.avivse.retailfileservice.dto.CreateRetailFileBatchRequest;
 import com.avivse.retailfileservice.dto.CreateRetailFileRequest;
+import com.avivse.retailfileservice.dto.CursorPage;
+import com.avivse.retailfileservice.dto.RetailFileBatchResponse;
 import com.avivse.retailfileservice.dto.UpdateRetailFileRequest;
 import com.avivse.retailfileservice.entity.RetailFile;
 import com.avivse.retailfileservice.enums.FileProcessingStatus;
 import com.avivse.retailfileservice.exception.RetailFileNotFoundException;
+import com.avivse.retailfileservice.service.RetailFileQueueService;
 import com.avivse.retailfileservice.service.RetailFileService;
+import com.avivse.retailfileservice.service.RetailFileStreamService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
 @Tag(name = "Retail Files", description = "Operations for managing retail file records")
@@ -26,10 +38,16 @@ import java.util.*;
 public class RetailFileController {
 
     private final RetailFileService retailFileService;
+    private final RetailFileStreamService retailFileStreamService;
+    private final RetailFileQueueService retailFileQueueService;
 
     @Autowired
-    public RetailFileController(RetailFileService retailFileService) {
+    public RetailFileController(RetailFileService retailFileService,
+                                RetailFileStreamService retailFileStreamService,
+                                RetailFileQueueService retailFileQueueService) {
         this.retailFileService = retailFileService;
+        this.retailFileStreamService = retailFileStreamService;
+        this.retailFileQueueService = retailFileQueueService;
     }
 
     /**
@@ -38,14 +56,75 @@ public class RetailFileController {
     @Operation(summary = "Create a new retail file record", description = "Creates a new retail file record in the system")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "File record created successfully"),
-            @ApiResponse(responseCode = "400", description = "Invalid input data")
+            @ApiResponse(responseCode = "202", description = "File record accepted and will be written shortly (write-behind mode)"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data"),
+            @ApiResponse(responseCode = "503", description = "Write-behind buffer is full, retry later")
     })
     @PostMapping
     public ResponseEntity<RetailFile> createRetailFile(@Valid @RequestBody CreateRetailFileRequest request) {
+        if (retailFileService.isWriteBehindEnabled()) {
+            RetailFile acceptedFile = retailFileService.acceptRetailFile(request);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(acceptedFile);
+        }
+
         RetailFile createdFile = retailFileService.createRetailFile(request);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdFile);
     }
 
+    /**
+     * POST /api/v1/retail-files/batch - Create many retail file records in one call
+     */
+    @Operation(summary = "Create retail file records in bulk",
+            description = "Creates up to " + CreateRetailFileBatchRequest.MAX_FILES + " retail file records. " +
+                    "Each item is reported as created, duplicate or invalid without failing the whole batch")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+            @ApiResponse(responseCode = "400", description = "Batch is empty or too large")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<RetailFileBatchResponse> createRetailFiles(@Valid @RequestBody CreateRetailFileBatchRequest request) {
+        RetailFileBatchResponse response = retailFileService.createRetailFiles(request.getFiles());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * POST /api/v1/retail-files/stream - Create retail file records from an NDJSON stream
+     */
+    @Operation(summary = "Stream retail file records as NDJSON",
+            description = "Accepts one file record per line and streams back one result line per record, " +
+                    "processing the body in bounded chunks")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream processed, see per-line results")
+    })
+    @PostMapping(value = "/stream",
+            consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void streamRetailFiles(InputStream requestBody, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        retailFileStreamService.ingest(requestBody, response.getOutputStream());
+    }
+
+    /**
+     * POST /api/v1/retail-files/claim - Claim a batch of PENDING files for processing
+     */
+    @Operation(summary = "Claim pending files for processing",
+            description = "Moves up to batch_size PENDING files to PROCESSING under a lease owned by the worker. " +
+                    "Concurrent claims never return the same file")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Claimed files, possibly none"),
+            @ApiResponse(responseCode = "400", description = "Invalid input data")
+    })
+    @PostMapping("/claim")
+    public ResponseEntity<Map<String, Object>> claimRetailFiles(@Valid @RequestBody ClaimRetailFilesRequest request) {
+        List<RetailFile> claimed = retailFileQueueService.claimBatch(request.getWorkerId(), request.getBatchSize());
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", claimed);
+        response.put("count", claimed.size());
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * GET /api/v1/retail-files/{id} - Get retail file by ID
      */
@@ -58,35 +137,70 @@ public class RetailFileController {
     }
 
     /**
-     * GET /api/v1/retail-files - List retail files with optional filters and pagination
+     * GET /api/v1/retail-files - List retail files with optional filters and pagination.
+     * Offset paging (page/limit) is the default. Passing paging=cursor or a cursor switches to
+     * keyset paging, which follows next_cursor and only counts rows when include_total=true.
      */
     @GetMapping
     public ResponseEntity<Map<String, Object>> listRetailFiles(
             @RequestParam(required = false) FileProcessingStatus status,
             @RequestParam(defaultValue = "1") int page,
-            @RequestParam(defaultValue = "20") int limit) {
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(defaultValue = "offset") String paging,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(name = "include_total", required = false) Boolean includeTotal) {
 
         // Validate page and limit
         if (page < 1) page = 1;
         if (limit < 1 || limit > 100) limit = 20;
 
-        Page<RetailFile> result = retailFileService.findAllWithFilters(
-                status, page, limit);
+        if (cursor != null || "cursor".equalsIgnoreCase(paging)) {
+            return ResponseEntity.ok(listRetailFilesByCursor(status, cursor, limit, Boolean.TRUE.equals(includeTotal)));
+        }
 
         // Build response according to API specification
         Map<String, Object> response = new HashMap<>();
-        response.put("data", result.getContent());
-
         Map<String, Object> pagination = new HashMap<>();
         pagination.put("page", page);
         pagination.put("limit", limit);
-        pagination.put("total", result.getTotalElements());
-        pagination.put("pages", result.getTotalPages());
+
+        if (includeTotal == null || includeTotal) {
+            Page<RetailFile> result = retailFileService.findAllWithFilters(
+                    status, page, limit);
+
+            response.put("data", result.getContent());
+            pagination.put("total", result.getTotalElements());
+            pagination.put("pages", result.getTotalPages());
+        } else {
+            Slice<RetailFile> result = retailFileService.findSliceWithFilters(status, page, limit);
+
+            response.put("data", result.getContent());
+            pagination.put("has_more", result.hasNext());
+        }
         response.put("pagination", pagination);
 
         return ResponseEntity.ok(response);
     }
 
+    private Map<String, Object> listRetailFilesByCursor(FileProcessingStatus status, String cursor,
+                                                        int limit, boolean includeTotal) {
+        CursorPage<RetailFile> result = retailFileService.findAllAfterCursor(status, cursor, limit);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("data", result.content());
+
+        Map<String, Object> pagination = new HashMap<>();
+        pagination.put("limit", limit);
+        pagination.put("next_cursor", result.nextCursor());
+        pagination.put("has_more", result.hasMore());
+        if (includeTotal) {
+            pagination.put("total", retailFileService.countWithFilters(status));
+        }
+        response.put("pagination", pagination);
+
+        return response;
+    }
+
     /**
      * PUT /api/v1/retail-files/{id} - Update retail file
      */
@@ -145,4 +259,14 @@ public class RetailFileController {
 
         return ResponseEntity.ok(result);
     }
-}
\ No newline at end of file
+
+    /**
+     * POST /api/v1/retail-files/checksum-filter/rebuild - Rebuild the in-memory checksum filter
+     */
+    @Operation(summary = "Rebuild the checksum filter",
+            description = "Reloads the in-memory duplicate filter from the database, dropping entries for deleted files")
+    @PostMapping("/checksum-filter/rebuild")
+    public ResponseEntity<ChecksumFilterStatus> rebuildChecksumFilter() {
+        return ResponseEntity.ok(retailFileService.rebuildChecksumFilter());
+    }
+}
@@ -0,0 +1,51 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class ChecksumFilterStatus {
+
+    private boolean enabled;
+    private boolean ready;
+    private long entries;
+    private long memoryBytes;
+    private double expectedFalsePositiveRate;
+    private long staleEntries;
+
+    public ChecksumFilterStatus() {
+    }
+
+    public ChecksumFilterStatus(boolean enabled, boolean ready, long entries, long memoryBytes,
+                                double expectedFalsePositiveRate, long staleEntries) {
+        this.enabled = enabled;
+        this.ready = ready;
+        this.entries = entries;
+        this.memoryBytes = memoryBytes;
+        this.expectedFalsePositiveRate = expectedFalsePositiveRate;
+        this.staleEntries = staleEntries;
+    }
+
+    // Getters and Setters
+    @JsonProperty("enabled")
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    @JsonProperty("ready")
+    public boolean isReady() { return ready; }
+    public void setReady(boolean ready) { this.ready = ready; }
+
+    @JsonProperty("entries")
+    public long getEntries() { return entries; }
+    public void setEntries(long entries) { this.entries = entries; }
+
+    @JsonProperty("memory_bytes")
+    public long getMemoryBytes() { return memoryBytes; }
+    public void setMemoryBytes(long memoryBytes) { this.memoryBytes = memoryBytes; }
+
+    @JsonProperty("expected_false_positive_rate")
+    public double getExpectedFalsePositiveRate() { return expectedFalsePositiveRate; }
+    public void setExpectedFalsePositiveRate(double expectedFalsePositiveRate) { this.expectedFalsePositiveRate = expectedFalsePositiveRate; }
+
+    @JsonProperty("stale_entries")
+    public long getStaleEntries() { return staleEntries; }
+    public void setStaleEntries(long staleEntries) { this.staleEntries = staleEntries; }
+}
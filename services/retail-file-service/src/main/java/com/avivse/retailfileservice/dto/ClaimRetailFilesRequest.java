@@ -0,0 +1,47 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+
+public class ClaimRetailFilesRequest {
+
+    public static final int MAX_BATCH_SIZE = 500;
+
+    @NotBlank(message = "Worker ID is required")
+    @Size(max = 100, message = "Worker ID cannot exceed 100 characters")
+    @JsonProperty("worker_id")
+    private String workerId;
+
+    @Min(value = 1, message = "Batch size must be at least 1")
+    @Max(value = MAX_BATCH_SIZE, message = "Batch size cannot exceed 500")
+    @JsonProperty("batch_size")
+    private int batchSize = 10;
+
+    // Default constructor
+    public ClaimRetailFilesRequest() {
+    }
+
+    public ClaimRetailFilesRequest(String workerId, int batchSize) {
+        this.workerId = workerId;
+        this.batchSize = batchSize;
+    }
+
+    public String getWorkerId() {
+        return workerId;
+    }
+
+    public void setWorkerId(String workerId) {
+        this.workerId = workerId;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+}
@@ -0,0 +1,34 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class CreateRetailFileBatchRequest {
+
+    public static final int MAX_FILES = 5000;
+
+    // Items are validated one by one during ingestion so a bad item doesn't reject the batch
+    @NotEmpty(message = "At least one file is required")
+    @Size(max = MAX_FILES, message = "A batch cannot contain more than 5000 files")
+    @JsonProperty("files")
+    private List<CreateRetailFileRequest> files;
+
+    // Default constructor
+    public CreateRetailFileBatchRequest() {
+    }
+
+    public CreateRetailFileBatchRequest(List<CreateRetailFileRequest> files) {
+        this.files = files;
+    }
+
+    public List<CreateRetailFileRequest> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<CreateRetailFileRequest> files) {
+        this.files = files;
+    }
+}
@@ -0,0 +1,44 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public class LatestPriceIndexStatus {
+
+    private boolean enabled;
+    private int stores;
+    private int chains;
+    private long entries;
+    private long memoryBytes;
+
+    public LatestPriceIndexStatus() {
+    }
+
+    public LatestPriceIndexStatus(boolean enabled, int stores, int chains, long entries, long memoryBytes) {
+        this.enabled = enabled;
+        this.stores = stores;
+        this.chains = chains;
+        this.entries = entries;
+        this.memoryBytes = memoryBytes;
+    }
+
+    // Getters and Setters
+    @JsonProperty("enabled")
+    public boolean isEnabled() { return enabled; }
+    public void setEnabled(boolean enabled) { this.enabled = enabled; }
+
+    @JsonProperty("stores")
+    public int getStores() { return stores; }
+    public void setStores(int stores) { this.stores = stores; }
+
+    @JsonProperty("chains")
+    public int getChains() { return chains; }
+    public void setChains(int chains) { this.chains = chains; }
+
+    @JsonProperty("entries")
+    public long getEntries() { return entries; }
+    public void setEntries(long entries) { this.entries = entries; }
+
+    @JsonProperty("memory_bytes")
+    public long getMemoryBytes() { return memoryBytes; }
+    public void setMemoryBytes(long memoryBytes) { this.memoryBytes = memoryBytes; }
+}
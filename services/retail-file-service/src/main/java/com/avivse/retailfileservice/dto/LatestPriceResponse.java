@@ -0,0 +1,64 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public class LatestPriceResponse {
+
+    @JsonProperty("store_id")
+    private UUID storeId;
+
+    @JsonProperty("item_code")
+    private String itemCode;
+
+    @JsonProperty("item_price")
+    private BigDecimal itemPrice;
+
+    @JsonProperty("price_update_date")
+    private LocalDateTime priceUpdateDate;
+
+    public LatestPriceResponse() {
+    }
+
+    public LatestPriceResponse(UUID storeId, String itemCode, BigDecimal itemPrice, LocalDateTime priceUpdateDate) {
+        this.storeId = storeId;
+        this.itemCode = itemCode;
+        this.itemPrice = itemPrice;
+        this.priceUpdateDate = priceUpdateDate;
+    }
+
+    public UUID getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(UUID storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getItemCode() {
+        return itemCode;
+    }
+
+    public void setItemCode(String itemCode) {
+        this.itemCode = itemCode;
+    }
+
+    public BigDecimal getItemPrice() {
+        return itemPrice;
+    }
+
+    public void setItemPrice(BigDecimal itemPrice) {
+        this.itemPrice = itemPrice;
+    }
+
+    public LocalDateTime getPriceUpdateDate() {
+        return priceUpdateDate;
+    }
+
+    public void setPriceUpdateDate(LocalDateTime priceUpdateDate) {
+        this.priceUpdateDate = priceUpdateDate;
+    }
+}
@@ -0,0 +1,39 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class PriceHistoryPoint {
+
+    @JsonProperty("price_update_date")
+    private LocalDateTime priceUpdateDate;
+
+    @JsonProperty("item_price")
+    private BigDecimal itemPrice;
+
+    public PriceHistoryPoint() {
+    }
+
+    public PriceHistoryPoint(LocalDateTime priceUpdateDate, BigDecimal itemPrice) {
+        this.priceUpdateDate = priceUpdateDate;
+        this.itemPrice = itemPrice;
+    }
+
+    public LocalDateTime getPriceUpdateDate() {
+        return priceUpdateDate;
+    }
+
+    public void setPriceUpdateDate(LocalDateTime priceUpdateDate) {
+        this.priceUpdateDate = priceUpdateDate;
+    }
+
+    public BigDecimal getItemPrice() {
+        return itemPrice;
+    }
+
+    public void setItemPrice(BigDecimal itemPrice) {
+        this.itemPrice = itemPrice;
+    }
+}
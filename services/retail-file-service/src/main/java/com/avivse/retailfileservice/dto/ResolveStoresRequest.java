@@ -0,0 +1,70 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class ResolveStoresRequest {
+
+    @JsonProperty("stores")
+    private List<StoreKeyDto> stores;
+
+    @JsonProperty("create_missing")
+    private boolean createMissing;
+
+    public ResolveStoresRequest() {
+    }
+
+    public ResolveStoresRequest(List<StoreKeyDto> stores, boolean createMissing) {
+        this.stores = stores;
+        this.createMissing = createMissing;
+    }
+
+    public List<StoreKeyDto> getStores() {
+        return stores;
+    }
+
+    public void setStores(List<StoreKeyDto> stores) {
+        this.stores = stores;
+    }
+
+    public boolean isCreateMissing() {
+        return createMissing;
+    }
+
+    public void setCreateMissing(boolean createMissing) {
+        this.createMissing = createMissing;
+    }
+
+    public static class StoreKeyDto {
+
+        @JsonProperty("chain_id")
+        private String chainId;
+        @JsonProperty("store_number")
+        private Integer storeNumber;
+
+        public StoreKeyDto() {
+        }
+
+        public StoreKeyDto(String chainId, Integer storeNumber) {
+            this.chainId = chainId;
+            this.storeNumber = storeNumber;
+        }
+
+        public String getChainId() {
+            return chainId;
+        }
+
+        public void setChainId(String chainId) {
+            this.chainId = chainId;
+        }
+
+        public Integer getStoreNumber() {
+            return storeNumber;
+        }
+
+        public void setStoreNumber(Integer storeNumber) {
+            this.storeNumber = storeNumber;
+        }
+    }
+}
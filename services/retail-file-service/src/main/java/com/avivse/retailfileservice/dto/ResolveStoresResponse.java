@@ -0,0 +1,88 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+import java.util.UUID;
+
+public class ResolveStoresResponse {
+
+    @JsonProperty("stores")
+    private List<ResolvedStoreDto> stores;
+
+    @JsonProperty("created")
+    private int created;
+
+    public ResolveStoresResponse() {
+    }
+
+    public List<ResolvedStoreDto> getStores() {
+        return stores;
+    }
+
+    public void setStores(List<ResolvedStoreDto> stores) {
+        this.stores = stores;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public static class ResolvedStoreDto {
+
+        @JsonProperty("chain_id")
+        private String chainId;
+        @JsonProperty("store_number")
+        private Integer storeNumber;
+        @JsonProperty("id")
+        private UUID id;
+        @JsonProperty("created")
+        private boolean created;
+
+        public ResolvedStoreDto() {
+        }
+
+        public ResolvedStoreDto(String chainId, Integer storeNumber, UUID id, boolean created) {
+            this.chainId = chainId;
+            this.storeNumber = storeNumber;
+            this.id = id;
+            this.created = created;
+        }
+
+        public String getChainId() {
+            return chainId;
+        }
+
+        public void setChainId(String chainId) {
+            this.chainId = chainId;
+        }
+
+        public Integer getStoreNumber() {
+            return storeNumber;
+        }
+
+        public void setStoreNumber(Integer storeNumber) {
+            this.storeNumber = storeNumber;
+        }
+
+        public UUID getId() {
+            return id;
+        }
+
+        public void setId(UUID id) {
+            this.id = id;
+        }
+
+        public boolean isCreated() {
+            return created;
+        }
+
+        public void setCreated(boolean created) {
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.avivse.retailfileservice.dto;
+
+import com.avivse.retailfileservice.enums.BatchItemStatus;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.Map;
+import java.util.UUID;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RetailFileBatchItemResult {
+
+    private int index;
+    private BatchItemStatus status;
+    private UUID id;
+    private String checksum;
+    private Map<String, String> errors;
+
+    public RetailFileBatchItemResult() {
+    }
+
+    public RetailFileBatchItemResult(int index, BatchItemStatus status) {
+        this.index = index;
+        this.status = status;
+    }
+
+    public static RetailFileBatchItemResult created(int index, UUID id, String checksum) {
+        RetailFileBatchItemResult result = new RetailFileBatchItemResult(index, BatchItemStatus.CREATED);
+        result.setId(id);
+        result.setChecksum(checksum);
+        return result;
+    }
+
+    public static RetailFileBatchItemResult duplicate(int index, String checksum) {
+        RetailFileBatchItemResult result = new RetailFileBatchItemResult(index, BatchItemStatus.DUPLICATE);
+        result.setChecksum(checksum);
+        return result;
+    }
+
+    public static RetailFileBatchItemResult invalid(int index, Map<String, String> errors) {
+        RetailFileBatchItemResult result = new RetailFileBatchItemResult(index, BatchItemStatus.INVALID);
+        result.setErrors(errors);
+        return result;
+    }
+
+    // Getters and Setters
+    @JsonProperty("index")
+    public int getIndex() { return index; }
+    public void setIndex(int index) { this.index = index; }
+
+    @JsonProperty("status")
+    public BatchItemStatus getStatus() { return status; }
+    public void setStatus(BatchItemStatus status) { this.status = status; }
+
+    @JsonProperty("id")
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    @JsonProperty("checksum")
+    public String getChecksum() { return checksum; }
+    public void setChecksum(String checksum) { this.checksum = checksum; }
+
+    @JsonProperty("errors")
+    public Map<String, String> getErrors() { return errors; }
+    public void setErrors(Map<String, String> errors) { this.errors = errors; }
+}
@@ -0,0 +1,47 @@
+package com.avivse.retailfileservice.dto;
+
+import com.avivse.retailfileservice.enums.BatchItemStatus;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class RetailFileBatchResponse {
+
+    private List<RetailFileBatchItemResult> results;
+    private int created;
+    private int duplicates;
+    private int invalid;
+
+    public RetailFileBatchResponse() {
+    }
+
+    public RetailFileBatchResponse(List<RetailFileBatchItemResult> results) {
+        this.results = results;
+        for (RetailFileBatchItemResult result : results) {
+            if (result.getStatus() == BatchItemStatus.CREATED) {
+                created++;
+            } else if (result.getStatus() == BatchItemStatus.DUPLICATE) {
+                duplicates++;
+            } else {
+                invalid++;
+            }
+        }
+    }
+
+    // Getters and Setters
+    @JsonProperty("results")
+    public List<RetailFileBatchItemResult> getResults() { return results; }
+    public void setResults(List<RetailFileBatchItemResult> results) { this.results = results; }
+
+    @JsonProperty("created")
+    public int getCreated() { return created; }
+    public void setCreated(int created) { this.created = created; }
+
+    @JsonProperty("duplicates")
+    public int getDuplicates() { return duplicates; }
+    public void setDuplicates(int duplicates) { this.duplicates = duplicates; }
+
+    @JsonProperty("invalid")
+    public int getInvalid() { return invalid; }
+    public void setInvalid(int invalid) { this.invalid = invalid; }
+}
@@ -0,0 +1,42 @@
+package com.avivse.retailfileservice.dto;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the (upload_date desc, id desc) ordering of retail files. Clients see it
+ * only as an opaque Base64 token and pass it back unchanged to fetch the next page.
+ */
+public record RetailFileCursor(LocalDateTime uploadDate, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static RetailFileCursor after(RetailFile retailFile) {
+        return new RetailFileCursor(retailFile.getUploadDate(), retailFile.getId());
+    }
+
+    public String encode() {
+        String raw = uploadDate + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static RetailFileCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException(token);
+            }
+            return new RetailFileCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException(token);
+        }
+    }
+}
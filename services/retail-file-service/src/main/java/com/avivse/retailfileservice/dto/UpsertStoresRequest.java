@@ -0,0 +1,91 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class UpsertStoresRequest {
+
+    @JsonProperty("stores")
+    private List<StoreDto> stores;
+
+    public UpsertStoresRequest() {
+    }
+
+    public UpsertStoresRequest(List<StoreDto> stores) {
+        this.stores = stores;
+    }
+
+    public List<StoreDto> getStores() {
+        return stores;
+    }
+
+    public void setStores(List<StoreDto> stores) {
+        this.stores = stores;
+    }
+
+    public static class StoreDto {
+
+        @JsonProperty("chain_id")
+        private String chainId;
+        @JsonProperty("store_number")
+        private Integer storeNumber;
+        @JsonProperty("store_type")
+        private String storeType;
+        @JsonProperty("store_name")
+        private String storeName;
+        @JsonProperty("sub_chain_id")
+        private Integer subChainId;
+
+        public StoreDto() {
+        }
+
+        public StoreDto(String chainId, Integer storeNumber, String storeType, String storeName, Integer subChainId) {
+            this.chainId = chainId;
+            this.storeNumber = storeNumber;
+            this.storeType = storeType;
+            this.storeName = storeName;
+            this.subChainId = subChainId;
+        }
+
+        public String getChainId() {
+            return chainId;
+        }
+
+        public void setChainId(String chainId) {
+            this.chainId = chainId;
+        }
+
+        public Integer getStoreNumber() {
+            return storeNumber;
+        }
+
+        public void setStoreNumber(Integer storeNumber) {
+            this.storeNumber = storeNumber;
+        }
+
+        public String getStoreType() {
+            return storeType;
+        }
+
+        public void setStoreType(String storeType) {
+            this.storeType = storeType;
+        }
+
+        public String getStoreName() {
+            return storeName;
+        }
+
+        public void setStoreName(String storeName) {
+            this.storeName = storeName;
+        }
+
+        public Integer getSubChainId() {
+            return subChainId;
+        }
+
+        public void setSubChainId(Integer subChainId) {
+            this.subChainId = subChainId;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.avivse.retailfileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+public class UpsertStoresResponse {
+
+    @JsonProperty("stores")
+    private List<ResolveStoresResponse.ResolvedStoreDto> stores;
+
+    @JsonProperty("created")
+    private int created;
+
+    @JsonProperty("updated")
+    private int updated;
+
+    @JsonProperty("unchanged")
+    private int unchanged;
+
+    public UpsertStoresResponse() {
+    }
+
+    public List<ResolveStoresResponse.ResolvedStoreDto> getStores() {
+        return stores;
+    }
+
+    public void setStores(List<ResolveStoresResponse.ResolvedStoreDto> stores) {
+        this.stores = stores;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+}
@@ -0,0 +1,232 @@
+package com.avivse.retailfileservice.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Price of one item at one store, as of its price update date. The primary key leads with
+ * store_id, so on databases that cluster by primary key a store's prices are stored together
+ * and ordered by item. Rows are written in JDBC batches by PriceItemWriter, not through the
+ * entity manager; the mapping defines the schema and serves reads.
+ */
+@Entity
+@Table(name = "price_items", indexes = {
+        // Store price lists as of a date
+        @Index(name = "idx_price_items_store_id_price_update_date", columnList = "store_id, price_update_date"),
+        @Index(name = "idx_price_items_retail_file_id", columnList = "retail_file_id")
+})
+@IdClass(PriceItemId.class)
+public class PriceItem {
+
+    @Id
+    @Column(name = "store_id", nullable = false)
+    private UUID storeId;
+
+    @Id
+    @Column(name = "item_code", nullable = false, length = 50)
+    private String itemCode;
+
+    @Id
+    @Column(name = "price_update_date", nullable = false)
+    private LocalDateTime priceUpdateDate;
+
+    // File the price was last read from
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "retail_file_id", nullable = false)
+    private RetailFile retailFile;
+
+    @Column(name = "item_type")
+    private Integer itemType;
+
+    @Column(name = "item_name", length = 255)
+    private String itemName;
+
+    @Column(name = "manufacturer_name", length = 255)
+    private String manufacturerName;
+
+    @Column(name = "manufacture_country", length = 100)
+    private String manufactureCountry;
+
+    @Column(name = "unit_qty", length = 50)
+    private String unitQty;
+
+    @Column(name = "quantity", precision = 12, scale = 3)
+    private BigDecimal quantity;
+
+    @Column(name = "unit_of_measure", length = 50)
+    private String unitOfMeasure;
+
+    @Column(name = "weighted", nullable = false)
+    private boolean weighted;
+
+    @Column(name = "qty_in_package", precision = 12, scale = 3)
+    private BigDecimal qtyInPackage;
+
+    @Column(name = "item_price", precision = 12, scale = 3)
+    private BigDecimal itemPrice;
+
+    @Column(name = "unit_of_measure_price", precision = 12, scale = 3)
+    private BigDecimal unitOfMeasurePrice;
+
+    @Column(name = "allow_discount", nullable = false)
+    private boolean allowDiscount;
+
+    @Column(name = "item_status")
+    private Integer itemStatus;
+
+    // Set on rows recording that the item was dropped from the store's price list
+    @Column(name = "removed", nullable = false)
+    private boolean removed;
+
+    // Default constructor (required by JPA)
+    public PriceItem() {
+    }
+
+    // Getters and Setters
+    public UUID getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(UUID storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getItemCode() {
+        return itemCode;
+    }
+
+    public void setItemCode(String itemCode) {
+        this.itemCode = itemCode;
+    }
+
+    public LocalDateTime getPriceUpdateDate() {
+        return priceUpdateDate;
+    }
+
+    public void setPriceUpdateDate(LocalDateTime priceUpdateDate) {
+        this.priceUpdateDate = priceUpdateDate;
+    }
+
+    public RetailFile getRetailFile() {
+        return retailFile;
+    }
+
+    public void setRetailFile(RetailFile retailFile) {
+        this.retailFile = retailFile;
+    }
+
+    public Integer getItemType() {
+        return itemType;
+    }
+
+    public void setItemType(Integer itemType) {
+        this.itemType = itemType;
+    }
+
+    public String getItemName() {
+        return itemName;
+    }
+
+    public void setItemName(String itemName) {
+        this.itemName = itemName;
+    }
+
+    public String getManufacturerName() {
+        return manufacturerName;
+    }
+
+    public void setManufacturerName(String manufacturerName) {
+        this.manufacturerName = manufacturerName;
+    }
+
+    public String getManufactureCountry() {
+        return manufactureCountry;
+    }
+
+    public void setManufactureCountry(String manufactureCountry) {
+        this.manufactureCountry = manufactureCountry;
+    }
+
+    public String getUnitQty() {
+        return unitQty;
+    }
+
+    public void setUnitQty(String unitQty) {
+        this.unitQty = unitQty;
+    }
+
+    public BigDecimal getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(BigDecimal quantity) {
+        this.quantity = quantity;
+    }
+
+    public String getUnitOfMeasure() {
+        return unitOfMeasure;
+    }
+
+    public void setUnitOfMeasure(String unitOfMeasure) {
+        this.unitOfMeasure = unitOfMeasure;
+    }
+
+    public boolean isWeighted() {
+        return weighted;
+    }
+
+    public void setWeighted(boolean weighted) {
+        this.weighted = weighted;
+    }
+
+    public BigDecimal getQtyInPackage() {
+        return qtyInPackage;
+    }
+
+    public void setQtyInPackage(BigDecimal qtyInPackage) {
+        this.qtyInPackage = qtyInPackage;
+    }
+
+    public BigDecimal getItemPrice() {
+        return itemPrice;
+    }
+
+    public void setItemPrice(BigDecimal itemPrice) {
+        this.itemPrice = itemPrice;
+    }
+
+    public BigDecimal getUnitOfMeasurePrice() {
+        return unitOfMeasurePrice;
+    }
+
+    public void setUnitOfMeasurePrice(BigDecimal unitOfMeasurePrice) {
+        this.unitOfMeasurePrice = unitOfMeasurePrice;
+    }
+
+    public boolean isAllowDiscount() {
+        return allowDiscount;
+    }
+
+    public void setAllowDiscount(boolean allowDiscount) {
+        this.allowDiscount = allowDiscount;
+    }
+
+    public Integer getItemStatus() {
+        return itemStatus;
+    }
+
+    public void setItemStatus(Integer itemStatus) {
+        this.itemStatus = itemStatus;
+    }
+
+    public boolean isRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(boolean removed) {
+        this.removed = removed;
+    }
+}
@@ -0,0 +1,55 @@
+package com.avivse.retailfileservice.entity;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Primary key of {@link PriceItem}: one price per item, store and price update time.
+ */
+public class PriceItemId implements Serializable {
+
+    private UUID storeId;
+    private String itemCode;
+    private LocalDateTime priceUpdateDate;
+
+    public PriceItemId() {
+    }
+
+    public PriceItemId(UUID storeId, String itemCode, LocalDateTime priceUpdateDate) {
+        this.storeId = storeId;
+        this.itemCode = itemCode;
+        this.priceUpdateDate = priceUpdateDate;
+    }
+
+    public UUID getStoreId() {
+        return storeId;
+    }
+
+    public String getItemCode() {
+        return itemCode;
+    }
+
+    public LocalDateTime getPriceUpdateDate() {
+        return priceUpdateDate;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PriceItemId other)) {
+            return false;
+        }
+        return Objects.equals(storeId, other.storeId)
+                && Objects.equals(itemCode, other.itemCode)
+                && Objects.equals(priceUpdateDate, other.priceUpdateDate);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(storeId, itemCode, priceUpdateDate);
+    }
+}
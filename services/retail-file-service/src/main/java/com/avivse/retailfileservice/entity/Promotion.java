@@ -0,0 +1,216 @@
+package com.avivse.retailfileservice.entity;
+
+import jakarta.persistence.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One promotion of a store, as last read from a PromoFull/Promo file. Its items are kept in
+ * {@link PromotionItem}. Rows are written in JDBC batches by PromotionWriter, not through the
+ * entity manager; the mapping defines the schema and serves reads.
+ */
+@Entity
+@Table(name = "promotions", indexes = {
+        @Index(name = "idx_promotions_retail_file_id", columnList = "retail_file_id")
+})
+@IdClass(PromotionId.class)
+public class Promotion {
+
+    @Id
+    @Column(name = "store_id", nullable = false)
+    private UUID storeId;
+
+    @Id
+    @Column(name = "promotion_id", nullable = false, length = 50)
+    private String promotionId;
+
+    // File the promotion was last read from
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "retail_file_id", nullable = false)
+    private RetailFile retailFile;
+
+    @Column(name = "description", length = 255)
+    private String description;
+
+    @Column(name = "update_date")
+    private LocalDateTime updateDate;
+
+    @Column(name = "start_date")
+    private LocalDateTime startDate;
+
+    @Column(name = "end_date")
+    private LocalDateTime endDate;
+
+    @Column(name = "reward_type", length = 50)
+    private String rewardType;
+
+    @Column(name = "discount_type", length = 50)
+    private String discountType;
+
+    @Column(name = "min_qty", precision = 12, scale = 3)
+    private BigDecimal minQty;
+
+    @Column(name = "max_qty", precision = 12, scale = 3)
+    private BigDecimal maxQty;
+
+    @Column(name = "discount_rate", precision = 12, scale = 3)
+    private BigDecimal discountRate;
+
+    @Column(name = "discounted_price", precision = 12, scale = 3)
+    private BigDecimal discountedPrice;
+
+    @Column(name = "discounted_price_per_mida", precision = 12, scale = 3)
+    private BigDecimal discountedPricePerMida;
+
+    @Column(name = "allow_multiple_discounts", nullable = false)
+    private boolean allowMultipleDiscounts;
+
+    @Column(name = "club_id", length = 50)
+    private String clubId;
+
+    @Column(name = "item_count", nullable = false)
+    private int itemCount;
+
+    // Default constructor (required by JPA)
+    public Promotion() {
+    }
+
+    // Getters and Setters
+    public UUID getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(UUID storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getPromotionId() {
+        return promotionId;
+    }
+
+    public void setPromotionId(String promotionId) {
+        this.promotionId = promotionId;
+    }
+
+    public RetailFile getRetailFile() {
+        return retailFile;
+    }
+
+    public void setRetailFile(RetailFile retailFile) {
+        this.retailFile = retailFile;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public LocalDateTime getUpdateDate() {
+        return updateDate;
+    }
+
+    public void setUpdateDate(LocalDateTime updateDate) {
+        this.updateDate = updateDate;
+    }
+
+    public LocalDateTime getStartDate() {
+        return startDate;
+    }
+
+    public void setStartDate(LocalDateTime startDate) {
+        this.startDate = startDate;
+    }
+
+    public LocalDateTime getEndDate() {
+        return endDate;
+    }
+
+    public void setEndDate(LocalDateTime endDate) {
+        this.endDate = endDate;
+    }
+
+    public String getRewardType() {
+        return rewardType;
+    }
+
+    public void setRewardType(String rewardType) {
+        this.rewardType = rewardType;
+    }
+
+    public String getDiscountType() {
+        return discountType;
+    }
+
+    public void setDiscountType(String discountType) {
+        this.discountType = discountType;
+    }
+
+    public BigDecimal getMinQty() {
+        return minQty;
+    }
+
+    public void setMinQty(BigDecimal minQty) {
+        this.minQty = minQty;
+    }
+
+    public BigDecimal getMaxQty() {
+        return maxQty;
+    }
+
+    public void setMaxQty(BigDecimal maxQty) {
+        this.maxQty = maxQty;
+    }
+
+    public BigDecimal getDiscountRate() {
+        return discountRate;
+    }
+
+    public void setDiscountRate(BigDecimal discountRate) {
+        this.discountRate = discountRate;
+    }
+
+    public BigDecimal getDiscountedPrice() {
+        return discountedPrice;
+    }
+
+    public void setDiscountedPrice(BigDecimal discountedPrice) {
+        this.discountedPrice = discountedPrice;
+    }
+
+    public BigDecimal getDiscountedPricePerMida() {
+        return discountedPricePerMida;
+    }
+
+    public void setDiscountedPricePerMida(BigDecimal discountedPricePerMida) {
+        this.discountedPricePerMida = discountedPricePerMida;
+    }
+
+    public boolean isAllowMultipleDiscounts() {
+        return allowMultipleDiscounts;
+    }
+
+    public void setAllowMultipleDiscounts(boolean allowMultipleDiscounts) {
+        this.allowMultipleDiscounts = allowMultipleDiscounts;
+    }
+
+    public String getClubId() {
+        return clubId;
+    }
+
+    public void setClubId(String clubId) {
+        this.clubId = clubId;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    public void setItemCount(int itemCount) {
+        this.itemCount = itemCount;
+    }
+}
@@ -0,0 +1,47 @@
+package com.avivse.retailfileservice.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Primary key of {@link Promotion}: one row per promotion and store.
+ */
+public class PromotionId implements Serializable {
+
+    private UUID storeId;
+    private String promotionId;
+
+    public PromotionId() {
+    }
+
+    public PromotionId(UUID storeId, String promotionId) {
+        this.storeId = storeId;
+        this.promotionId = promotionId;
+    }
+
+    public UUID getStoreId() {
+        return storeId;
+    }
+
+    public String getPromotionId() {
+        return promotionId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PromotionId other)) {
+            return false;
+        }
+        return Objects.equals(storeId, other.storeId)
+                && Objects.equals(promotionId, other.promotionId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(storeId, promotionId);
+    }
+}
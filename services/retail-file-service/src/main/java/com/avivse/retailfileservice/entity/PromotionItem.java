@@ -0,0 +1,95 @@
+package com.avivse.retailfileservice.entity;
+
+import jakarta.persistence.*;
+
+import java.util.UUID;
+
+/**
+ * An item taking part in a store's {@link Promotion}. Rows are written in JDBC batches by
+ * PromotionWriter, not through the entity manager; the mapping defines the schema and serves reads.
+ */
+@Entity
+@Table(name = "promotion_items", indexes = {
+        // Promotions an item takes part in at a store
+        @Index(name = "idx_promotion_items_store_id_item_code", columnList = "store_id, item_code"),
+        @Index(name = "idx_promotion_items_retail_file_id", columnList = "retail_file_id")
+})
+@IdClass(PromotionItemId.class)
+public class PromotionItem {
+
+    @Id
+    @Column(name = "store_id", nullable = false)
+    private UUID storeId;
+
+    @Id
+    @Column(name = "promotion_id", nullable = false, length = 50)
+    private String promotionId;
+
+    @Id
+    @Column(name = "item_code", nullable = false, length = 50)
+    private String itemCode;
+
+    // File the item was last read from
+    @ManyToOne(fetch = FetchType.LAZY, optional = false)
+    @JoinColumn(name = "retail_file_id", nullable = false)
+    private RetailFile retailFile;
+
+    @Column(name = "item_type")
+    private Integer itemType;
+
+    @Column(name = "gift_item", nullable = false)
+    private boolean giftItem;
+
+    // Default constructor (required by JPA)
+    public PromotionItem() {
+    }
+
+    // Getters and Setters
+    public UUID getStoreId() {
+        return storeId;
+    }
+
+    public void setStoreId(UUID storeId) {
+        this.storeId = storeId;
+    }
+
+    public String getPromotionId() {
+        return promotionId;
+    }
+
+    public void setPromotionId(String promotionId) {
+        this.promotionId = promotionId;
+    }
+
+    public String getItemCode() {
+        return itemCode;
+    }
+
+    public void setItemCode(String itemCode) {
+        this.itemCode = itemCode;
+    }
+
+    public RetailFile getRetailFile() {
+        return retailFile;
+    }
+
+    public void setRetailFile(RetailFile retailFile) {
+        this.retailFile = retailFile;
+    }
+
+    public Integer getItemType() {
+        return itemType;
+    }
+
+    public void setItemType(Integer itemType) {
+        this.itemType = itemType;
+    }
+
+    public boolean isGiftItem() {
+        return giftItem;
+    }
+
+    public void setGiftItem(boolean giftItem) {
+        this.giftItem = giftItem;
+    }
+}
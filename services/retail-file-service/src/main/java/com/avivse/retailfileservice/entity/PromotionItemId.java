@@ -0,0 +1,54 @@
+package com.avivse.retailfileservice.entity;
+
+import java.io.Serializable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Primary key of {@link PromotionItem}: one row per item of a store's promotion.
+ */
+public class PromotionItemId implements Serializable {
+
+    private UUID storeId;
+    private String promotionId;
+    private String itemCode;
+
+    public PromotionItemId() {
+    }
+
+    public PromotionItemId(UUID storeId, String promotionId, String itemCode) {
+        this.storeId = storeId;
+        this.promotionId = promotionId;
+        this.itemCode = itemCode;
+    }
+
+    public UUID getStoreId() {
+        return storeId;
+    }
+
+    public String getPromotionId() {
+        return promotionId;
+    }
+
+    public String getItemCode() {
+        return itemCode;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PromotionItemId other)) {
+            return false;
+        }
+        return Objects.equals(storeId, other.storeId)
+                && Objects.equals(promotionId, other.promotionId)
+                && Objects.equals(itemCode, other.itemCode);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(storeId, promotionId, itemCode);
+    }
+}
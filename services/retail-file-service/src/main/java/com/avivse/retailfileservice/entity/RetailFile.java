@@ -15,9 +15,20 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "retail_files")
+@Table(name = "retail_files", uniqueConstraints = {
+        @UniqueConstraint(name = RetailFile.CHECKSUM_CONSTRAINT, columnNames = "checksum")
+}, indexes = {
+        // Keyset pagination: newest first, optionally filtered by status
+        @Index(name = "idx_retail_files_status_upload_date_id", columnList = "status, upload_date, id"),
+        @Index(name = "idx_retail_files_upload_date_id", columnList = "upload_date, id"),
+        // Lease reaper: expired PROCESSING leases
+        @Index(name = "idx_retail_files_status_lease_expires_at", columnList = "status, lease_expires_at")
+})
+@EntityListeners(RetailFileChecksumListener.class)
 public class RetailFile {
 
+    public static final String CHECKSUM_CONSTRAINT = "uk_retail_files_checksum";
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -67,6 +78,42 @@ public class RetailFile {
     @Column(name = "store_id")
     private UUID storeId;
 
+    // Set while a worker holds the file in PROCESSING
+    @Column(name = "lease_owner", length = 100)
+    @JsonProperty("lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    @JsonProperty("lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    // Number of processing leases that expired without the file being finished
+    @Column(name = "processing_attempts", nullable = false)
+    @JsonProperty("processing_attempts")
+    private int processingAttempts = 0;
+
+    // Where the fetcher stored the downloaded content
+    @Column(name = "storage_path", length = 500)
+    @JsonProperty("storage_path")
+    private String storagePath;
+
+    @Column(name = "fetched_at")
+    @JsonProperty("fetched_at")
+    private LocalDateTime fetchedAt;
+
+    // Price change-set against the store's previous snapshot, set by incremental ingestion
+    @Column(name = "items_added")
+    @JsonProperty("items_added")
+    private Integer itemsAdded;
+
+    @Column(name = "items_removed")
+    @JsonProperty("items_removed")
+    private Integer itemsRemoved;
+
+    @Column(name = "items_changed")
+    @JsonProperty("items_changed")
+    private Integer itemsChanged;
+
     // Default constructor (required by JPA)
     public RetailFile() {
     }
@@ -160,4 +207,68 @@ public class RetailFile {
     public void setStoreId(UUID storeId) {
         this.storeId = storeId;
     }
-}
\ No newline at end of file
+
+    public String getLeaseOwner() {
+        return leaseOwner;
+    }
+
+    public void setLeaseOwner(String leaseOwner) {
+        this.leaseOwner = leaseOwner;
+    }
+
+    public LocalDateTime getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(LocalDateTime leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    public int getProcessingAttempts() {
+        return processingAttempts;
+    }
+
+    public void setProcessingAttempts(int processingAttempts) {
+        this.processingAttempts = processingAttempts;
+    }
+
+    public String getStoragePath() {
+        return storagePath;
+    }
+
+    public void setStoragePath(String storagePath) {
+        this.storagePath = storagePath;
+    }
+
+    public LocalDateTime getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(LocalDateTime fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+
+    public Integer getItemsAdded() {
+        return itemsAdded;
+    }
+
+    public void setItemsAdded(Integer itemsAdded) {
+        this.itemsAdded = itemsAdded;
+    }
+
+    public Integer getItemsRemoved() {
+        return itemsRemoved;
+    }
+
+    public void setItemsRemoved(Integer itemsRemoved) {
+        this.itemsRemoved = itemsRemoved;
+    }
+
+    public Integer getItemsChanged() {
+        return itemsChanged;
+    }
+
+    public void setItemsChanged(Integer itemsChanged) {
+        this.itemsChanged = itemsChanged;
+    }
+}
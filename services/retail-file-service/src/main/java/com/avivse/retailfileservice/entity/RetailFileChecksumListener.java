@@ -0,0 +1,30 @@
+package com.avivse.retailfileservice.entity;
+
+import com.avivse.retailfileservice.service.ChecksumFilter;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Keeps the checksum filter in step with every write that goes through JPA,
+ * including ones that bypass RetailFileService.
+ */
+public class RetailFileChecksumListener {
+
+    private final ChecksumFilter checksumFilter;
+
+    public RetailFileChecksumListener(ChecksumFilter checksumFilter) {
+        this.checksumFilter = checksumFilter;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(RetailFile retailFile) {
+        checksumFilter.put(retailFile.getChecksum());
+    }
+
+    @PostRemove
+    public void onRemove(RetailFile retailFile) {
+        checksumFilter.recordRemoval();
+    }
+}
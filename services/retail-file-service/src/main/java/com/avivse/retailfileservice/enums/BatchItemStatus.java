@@ -0,0 +1,17 @@
+package com.avivse.retailfileservice.enums;
+
+public enum BatchItemStatus {
+    CREATED("File record was created"),
+    DUPLICATE("A file with the same checksum already exists"),
+    INVALID("File record failed validation");
+
+    private final String description;
+
+    BatchItemStatus(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
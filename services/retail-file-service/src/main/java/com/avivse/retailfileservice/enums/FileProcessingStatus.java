@@ -5,7 +5,8 @@ public enum FileProcessingStatus {
     PROCESSING("File is currently being processed"),
     COMPLETED("File processing completed successfully"),
     FAILED("File processing failed"),
-    ARCHIVED("File has been archived");
+    ARCHIVED("File has been archived"),
+    DUPLICATE("File content duplicates an existing file");
 
     private final String description;
 
@@ -0,0 +1,42 @@
+package com.avivse.retailfileservice.enums;
+
+import java.util.Locale;
+
+/**
+ * Kind of price transparency file, from the prefix chains use in file names
+ * (e.g. PriceFull7290027600007-001-202401150300.xml.gz).
+ */
+public enum RetailFileKind {
+    PRICE_FULL("pricefull", "Full price list of a store"),
+    PRICE("price", "Price changes since the last full file"),
+    PROMO_FULL("promofull", "Full promotion list of a store"),
+    PROMO("promo", "Promotion changes since the last full file"),
+    STORES("stores", "Store list of a chain"),
+    UNKNOWN("", "Unrecognised file");
+
+    private final String prefix;
+    private final String description;
+
+    RetailFileKind(String prefix, String description) {
+        this.prefix = prefix;
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    // Longer prefixes are declared first, so PriceFull is not mistaken for Price
+    public static RetailFileKind fromFileName(String fileName) {
+        if (fileName == null) {
+            return UNKNOWN;
+        }
+        String name = fileName.toLowerCase(Locale.ROOT);
+        for (RetailFileKind kind : values()) {
+            if (kind != UNKNOWN && name.startsWith(kind.prefix)) {
+                return kind;
+            }
+        }
+        return UNKNOWN;
+    }
+}
@@ -0,0 +1,16 @@
+package com.avivse.retailfileservice.exception;
+
+public class DuplicateRetailFileException extends RuntimeException {
+
+    public DuplicateRetailFileException(String message) {
+        super(message);
+    }
+
+    public DuplicateRetailFileException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public static DuplicateRetailFileException forChecksum(String checksum, Throwable cause) {
+        return new DuplicateRetailFileException("Duplicate file detected: file with checksum " + checksum + " already exists", cause);
+    }
+}
@@ -0,0 +1,16 @@
+package com.avivse.retailfileservice.exception;
+
+public class FileFetchException extends RuntimeException {
+
+    public FileFetchException(String message) {
+        super(message);
+    }
+
+    public FileFetchException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public static FileFetchException forStatus(String url, int statusCode) {
+        return new FileFetchException("Fetching " + url + " failed with HTTP status " + statusCode);
+    }
+}
@@ -0,0 +1,12 @@
+package com.avivse.retailfileservice.exception;
+
+public class FileParseException extends RuntimeException {
+
+    public FileParseException(String message) {
+        super(message);
+    }
+
+    public FileParseException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,8 @@
+package com.avivse.retailfileservice.exception;
+
+public class InvalidStatusException extends RuntimeException {
+
+    public InvalidStatusException(String message) {
+        super(message);
+    }
+}
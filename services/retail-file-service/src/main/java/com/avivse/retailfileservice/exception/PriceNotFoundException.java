@@ -0,0 +1,8 @@
+package com.avivse.retailfileservice.exception;
+
+public class PriceNotFoundException extends RuntimeException {
+
+    public PriceNotFoundException(String message) {
+        super(message);
+    }
+}
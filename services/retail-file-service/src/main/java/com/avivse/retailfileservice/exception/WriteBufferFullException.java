@@ -0,0 +1,8 @@
+package com.avivse.retailfileservice.exception;
+
+public class WriteBufferFullException extends RuntimeException {
+
+    public WriteBufferFullException(String message) {
+        super(message);
+    }
+}
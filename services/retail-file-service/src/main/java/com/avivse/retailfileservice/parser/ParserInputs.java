@@ -0,0 +1,45 @@
+package com.avivse.retailfileservice.parser;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Opens downloaded price files for parsing. Content is read through a buffered file channel
+ * and transparently decompressed when it starts with the gzip magic bytes, whatever the
+ * file is called - chains publish both plain and gzipped files under either extension.
+ */
+public final class ParserInputs {
+
+    static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int GZIP_MAGIC_FIRST = 0x1f;
+    private static final int GZIP_MAGIC_SECOND = 0x8b;
+
+    private ParserInputs() {
+    }
+
+    public static InputStream open(Path file) throws IOException {
+        InputStream in = new BufferedInputStream(
+                Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ)), BUFFER_SIZE);
+        try {
+            return isGzip(in) ? new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE) : in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    private static boolean isGzip(InputStream in) throws IOException {
+        in.mark(2);
+        int first = in.read();
+        int second = in.read();
+        in.reset();
+        return first == GZIP_MAGIC_FIRST && second == GZIP_MAGIC_SECOND;
+    }
+}
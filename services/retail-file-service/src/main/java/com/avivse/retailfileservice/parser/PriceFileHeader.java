@@ -0,0 +1,7 @@
+package com.avivse.retailfileservice.parser;
+
+/**
+ * Store identification from the top of a price file, ahead of its items.
+ */
+public record PriceFileHeader(String chainId, String subChainId, Integer storeId) {
+}
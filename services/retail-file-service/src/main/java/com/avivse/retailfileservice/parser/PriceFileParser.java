@@ -0,0 +1,36 @@
+package com.avivse.retailfileservice.parser;
+
+import com.avivse.retailfileservice.exception.FileParseException;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Opens PriceFull/Price XML files for streaming reads with a StAX pull parser.
+ */
+@Component
+public class PriceFileParser {
+
+    private final XMLInputFactory xmlInputFactory;
+
+    public PriceFileParser() {
+        this.xmlInputFactory = XmlInputFactories.newSecureFactory();
+    }
+
+    public PriceFileReader open(Path file) throws IOException {
+        InputStream input = ParserInputs.open(file);
+        try {
+            return new PriceFileReader(input, xmlInputFactory.createXMLStreamReader(input));
+        } catch (XMLStreamException | RuntimeException e) {
+            input.close();
+            if (e instanceof FileParseException parseException) {
+                throw parseException;
+            }
+            throw new FileParseException("Failed to open price file " + file.getFileName(), e);
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.avivse.retailfileservice.parser;
+
+import com.avivse.retailfileservice.exception.FileParseException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+
+/**
+ * Pull reader over a PriceFull/Price file. The header is read on open; items are then
+ * returned one at a time by {@link #next()}, so memory use doesn't depend on the file size.
+ * Element names are matched case-insensitively, and Product elements are read like Item
+ * elements, since chains don't agree on either.
+ */
+public class PriceFileReader implements Closeable {
+
+    private final InputStream input;
+    private final XMLStreamReader xml;
+    private final PriceFileHeader header;
+
+    private boolean atItem;
+    private long itemsRead;
+    private long itemsSkipped;
+
+    PriceFileReader(InputStream input, XMLStreamReader xml) {
+        this.input = input;
+        this.xml = xml;
+        try {
+            this.header = readHeader();
+        } catch (XMLStreamException e) {
+            throw new FileParseException("Invalid price file header", e);
+        }
+    }
+
+    public PriceFileHeader header() {
+        return header;
+    }
+
+    /**
+     * Returns the next item, or null once the file is exhausted. Items without an item
+     * code are skipped and counted in {@link #itemsSkipped()}.
+     */
+    public PriceItemRecord next() {
+        try {
+            while (atItem || advanceToItem()) {
+                atItem = false;
+                PriceItemRecord item = readItem();
+                if (item != null) {
+                    itemsRead++;
+                    return item;
+                }
+                itemsSkipped++;
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new FileParseException("Invalid price item at line " + e.getLocation().getLineNumber(), e);
+        }
+    }
+
+    public long itemsRead() {
+        return itemsRead;
+    }
+
+    public long itemsSkipped() {
+        return itemsSkipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to close price file reader", e);
+        } finally {
+            input.close();
+        }
+    }
+
+    // Read header fields until the first item, leaving the cursor on it
+    private PriceFileHeader readHeader() throws XMLStreamException {
+        String chainId = null;
+        String subChainId = null;
+        Integer storeId = null;
+
+        while (xml.hasNext()) {
+            if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            String name = xml.getLocalName().toLowerCase(Locale.ROOT);
+            if (isItem(name)) {
+                atItem = true;
+                break;
+            }
+            switch (name) {
+                case "chainid" -> chainId = XmlValues.text(xml.getElementText());
+                case "subchainid" -> subChainId = XmlValues.text(xml.getElementText());
+                case "storeid" -> storeId = XmlValues.integer(xml.getElementText());
+                default -> {
+                    // Containers such as Root, Items and Products
+                }
+            }
+        }
+
+        return new PriceFileHeader(chainId, subChainId, storeId);
+    }
+
+    private boolean advanceToItem() throws XMLStreamException {
+        while (xml.hasNext()) {
+            if (xml.next() == XMLStreamConstants.START_ELEMENT
+                    && isItem(xml.getLocalName().toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private PriceItemRecord readItem() throws XMLStreamException {
+        String itemCode = null;
+        Integer itemType = null;
+        String itemName = null;
+        String manufacturerName = null;
+        String manufactureCountry = null;
+        String unitQty = null;
+        BigDecimal quantity = null;
+        String unitOfMeasure = null;
+        boolean weighted = false;
+        BigDecimal qtyInPackage = null;
+        BigDecimal itemPrice = null;
+        BigDecimal unitOfMeasurePrice = null;
+        boolean allowDiscount = false;
+        Integer itemStatus = null;
+        LocalDateTime priceUpdateDate = null;
+
+        int event;
+        while ((event = xml.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (xml.getLocalName().toLowerCase(Locale.ROOT)) {
+                case "itemcode" -> itemCode = XmlValues.text(xml.getElementText());
+                case "itemtype" -> itemType = XmlValues.integer(xml.getElementText());
+                case "itemname", "itemnm" -> itemName = XmlValues.text(xml.getElementText());
+                case "manufacturername" -> manufacturerName = XmlValues.text(xml.getElementText());
+                case "manufacturecountry" -> manufactureCountry = XmlValues.text(xml.getElementText());
+                case "unitqty" -> unitQty = XmlValues.text(xml.getElementText());
+                case "quantity" -> quantity = XmlValues.decimal(xml.getElementText());
+                case "unitofmeasure" -> unitOfMeasure = XmlValues.text(xml.getElementText());
+                case "bisweighted", "isweighted" -> weighted = XmlValues.flag(xml.getElementText());
+                case "qtyinpackage" -> qtyInPackage = XmlValues.decimal(xml.getElementText());
+                case "itemprice" -> itemPrice = XmlValues.decimal(xml.getElementText());
+                case "unitofmeasureprice" -> unitOfMeasurePrice = XmlValues.decimal(xml.getElementText());
+                case "allowdiscount" -> allowDiscount = XmlValues.flag(xml.getElementText());
+                case "itemstatus" -> itemStatus = XmlValues.integer(xml.getElementText());
+                case "priceupdatedate" -> priceUpdateDate = XmlValues.dateTime(xml.getElementText());
+                default -> skipElement();
+            }
+        }
+
+        if (itemCode == null) {
+            return null;
+        }
+        return new PriceItemRecord(itemCode, itemType, itemName, manufacturerName, manufactureCountry,
+                unitQty, quantity, unitOfMeasure, weighted, qtyInPackage, itemPrice, unitOfMeasurePrice,
+                allowDiscount, itemStatus, priceUpdateDate);
+    }
+
+    // Skip the current element and everything inside it
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private static boolean isItem(String lowerCaseName) {
+        return lowerCaseName.equals("item") || lowerCaseName.equals("product");
+    }
+}
@@ -0,0 +1,25 @@
+package com.avivse.retailfileservice.parser;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One Item element of a PriceFull/Price file.
+ */
+public record PriceItemRecord(
+        String itemCode,
+        Integer itemType,
+        String itemName,
+        String manufacturerName,
+        String manufactureCountry,
+        String unitQty,
+        BigDecimal quantity,
+        String unitOfMeasure,
+        boolean weighted,
+        BigDecimal qtyInPackage,
+        BigDecimal itemPrice,
+        BigDecimal unitOfMeasurePrice,
+        boolean allowDiscount,
+        Integer itemStatus,
+        LocalDateTime priceUpdateDate) {
+}
@@ -0,0 +1,36 @@
+package com.avivse.retailfileservice.parser;
+
+import com.avivse.retailfileservice.exception.FileParseException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Opens PromoFull/Promo XML files for streaming reads in bounded batches.
+ */
+@Component
+public class PromoFileParser {
+
+    private final XMLInputFactory xmlInputFactory;
+    private final int batchSize;
+
+    public PromoFileParser(@Value("${app.retail-files.parser.promo-batch-size:1000}") int batchSize) {
+        this.xmlInputFactory = XmlInputFactories.newSecureFactory();
+        this.batchSize = batchSize;
+    }
+
+    public PromoFileReader open(Path file) throws IOException {
+        InputStream input = ParserInputs.open(file);
+        try {
+            return new PromoFileReader(input, xmlInputFactory.createXMLStreamReader(input), batchSize);
+        } catch (XMLStreamException e) {
+            input.close();
+            throw new FileParseException("Failed to open promotion file " + file.getFileName(), e);
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.avivse.retailfileservice.parser;
+
+import com.avivse.retailfileservice.exception.FileParseException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Pull reader over a PromoFull/Promo file that returns flattened promotions and promotion
+ * items in batches of at most batchSize records. Only the promotion being read is held
+ * in memory, so heap use depends on the batch size rather than the file size.
+ */
+public class PromoFileReader implements Closeable {
+
+    private static final int STRING_POOL_SIZE = 1024;
+
+    private final InputStream input;
+    private final XMLStreamReader xml;
+    private final int batchSize;
+    private final StringPool strings = new StringPool(STRING_POOL_SIZE);
+
+    private String chainId;
+    private String subChainId;
+    private Integer storeId;
+
+    private PromotionBuilder current;
+    private boolean inPromotionItems;
+    private boolean finished;
+    private long promotionsRead;
+    private long itemsRead;
+    private long itemsSkipped;
+
+    PromoFileReader(InputStream input, XMLStreamReader xml, int batchSize) {
+        this.input = input;
+        this.xml = xml;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Returns the next batch, or null once the file is exhausted.
+     */
+    public PromotionBatch nextBatch() {
+        List<PromotionRecord> promotions = new ArrayList<>();
+        List<PromotionItemRecord> items = new ArrayList<>();
+
+        try {
+            while (!finished && promotions.size() + items.size() < batchSize) {
+                if (!xml.hasNext()) {
+                    finished = true;
+                    break;
+                }
+                int event = xml.next();
+                if (event == XMLStreamConstants.START_ELEMENT) {
+                    onStartElement(xml.getLocalName().toLowerCase(Locale.ROOT), items);
+                } else if (event == XMLStreamConstants.END_ELEMENT) {
+                    onEndElement(xml.getLocalName().toLowerCase(Locale.ROOT), promotions);
+                } else if (event == XMLStreamConstants.END_DOCUMENT) {
+                    finished = true;
+                }
+            }
+        } catch (XMLStreamException e) {
+            throw new FileParseException("Invalid promotion file at line " + e.getLocation().getLineNumber(), e);
+        }
+
+        promotionsRead += promotions.size();
+        itemsRead += items.size();
+        return promotions.isEmpty() && items.isEmpty() ? null : new PromotionBatch(promotions, items);
+    }
+
+    public String chainId() {
+        return chainId;
+    }
+
+    public String subChainId() {
+        return subChainId;
+    }
+
+    public Integer storeId() {
+        return storeId;
+    }
+
+    public long promotionsRead() {
+        return promotionsRead;
+    }
+
+    public long itemsRead() {
+        return itemsRead;
+    }
+
+    public long itemsSkipped() {
+        return itemsSkipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to close promotion file reader", e);
+        } finally {
+            input.close();
+        }
+    }
+
+    private void onStartElement(String name, List<PromotionItemRecord> items) throws XMLStreamException {
+        if (current == null) {
+            switch (name) {
+                case "chainid" -> chainId = strings.intern(XmlValues.text(xml.getElementText()));
+                case "subchainid" -> subChainId = strings.intern(XmlValues.text(xml.getElementText()));
+                case "storeid" -> storeId = XmlValues.integer(xml.getElementText());
+                case "promotion" -> current = new PromotionBuilder();
+                default -> {
+                    // Containers such as Root and Promotions
+                }
+            }
+            return;
+        }
+
+        if (inPromotionItems) {
+            if (name.equals("item")) {
+                PromotionItemRecord item = readItem();
+                if (item != null) {
+                    items.add(item);
+                    current.itemCount++;
+                } else {
+                    itemsSkipped++;
+                }
+            } else {
+                skipElement();
+            }
+            return;
+        }
+
+        switch (name) {
+            case "promotionid" -> current.promotionId = XmlValues.text(xml.getElementText());
+            case "promotiondescription" -> current.description = XmlValues.text(xml.getElementText());
+            case "promotionupdatedate" -> current.updateDate = XmlValues.dateTime(xml.getElementText());
+            case "promotionstartdate" -> current.startDate = XmlValues.dateTime(xml.getElementText());
+            case "promotionstarthour" -> current.startHour = XmlValues.time(xml.getElementText());
+            case "promotionenddate" -> current.endDate = XmlValues.dateTime(xml.getElementText());
+            case "promotionendhour" -> current.endHour = XmlValues.time(xml.getElementText());
+            case "rewardtype" -> current.rewardType = strings.intern(XmlValues.text(xml.getElementText()));
+            case "discounttype" -> current.discountType = strings.intern(XmlValues.text(xml.getElementText()));
+            case "minqty" -> current.minQty = XmlValues.decimal(xml.getElementText());
+            case "maxqty" -> current.maxQty = XmlValues.decimal(xml.getElementText());
+            case "discountrate" -> current.discountRate = XmlValues.decimal(xml.getElementText());
+            case "discountedprice" -> current.discountedPrice = XmlValues.decimal(xml.getElementText());
+            case "discountedpricepermida" -> current.discountedPricePerMida = XmlValues.decimal(xml.getElementText());
+            case "allowmultiplediscounts" -> current.allowMultipleDiscounts = XmlValues.flag(xml.getElementText());
+            case "clubid" -> {
+                String clubId = strings.intern(XmlValues.text(xml.getElementText()));
+                if (current.clubId == null) {
+                    current.clubId = clubId;
+                }
+            }
+            case "promotionitems" -> inPromotionItems = true;
+            case "clubs" -> {
+                // Descend to read ClubId
+            }
+            default -> skipElement();
+        }
+    }
+
+    private void onEndElement(String name, List<PromotionRecord> promotions) {
+        if (name.equals("promotionitems")) {
+            inPromotionItems = false;
+        } else if (name.equals("promotion") && current != null) {
+            if (current.promotionId != null) {
+                promotions.add(current.build());
+            }
+            current = null;
+        }
+    }
+
+    private PromotionItemRecord readItem() throws XMLStreamException {
+        String itemCode = null;
+        Integer itemType = null;
+        boolean giftItem = false;
+
+        int event;
+        while ((event = xml.next()) != XMLStreamConstants.END_ELEMENT) {
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (xml.getLocalName().toLowerCase(Locale.ROOT)) {
+                case "itemcode" -> itemCode = XmlValues.text(xml.getElementText());
+                case "itemtype" -> itemType = XmlValues.integer(xml.getElementText());
+                case "isgiftitem" -> giftItem = XmlValues.flag(xml.getElementText());
+                default -> skipElement();
+            }
+        }
+
+        // Items are only usable once they can be tied to their promotion
+        if (itemCode == null || current.promotionId == null) {
+            return null;
+        }
+        return new PromotionItemRecord(chainId, storeId, current.promotionId, itemCode, itemType, giftItem);
+    }
+
+    // Skip the current element and everything inside it
+    private void skipElement() throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    private final class PromotionBuilder {
+
+        private String promotionId;
+        private String description;
+        private LocalDateTime updateDate;
+        private LocalDateTime startDate;
+        private LocalTime startHour;
+        private LocalDateTime endDate;
+        private LocalTime endHour;
+        private String rewardType;
+        private String discountType;
+        private BigDecimal minQty;
+        private BigDecimal maxQty;
+        private BigDecimal discountRate;
+        private BigDecimal discountedPrice;
+        private BigDecimal discountedPricePerMida;
+        private boolean allowMultipleDiscounts;
+        private String clubId;
+        private int itemCount;
+
+        private PromotionRecord build() {
+            return new PromotionRecord(chainId, storeId, promotionId, description, updateDate,
+                    withHour(startDate, startHour), withHour(endDate, endHour), rewardType, discountType,
+                    minQty, maxQty, discountRate, discountedPrice, discountedPricePerMida,
+                    allowMultipleDiscounts, clubId, itemCount);
+        }
+
+        private static LocalDateTime withHour(LocalDateTime date, LocalTime hour) {
+            return date != null && hour != null ? date.toLocalDate().atTime(hour) : date;
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.avivse.retailfileservice.parser;
+
+import java.util.List;
+
+/**
+ * A bounded slice of a promotion file. Promotions are included once fully read, so the
+ * items of a large promotion may arrive in earlier batches than the promotion itself.
+ */
+public record PromotionBatch(List<PromotionRecord> promotions, List<PromotionItemRecord> items) {
+
+    public int size() {
+        return promotions.size() + items.size();
+    }
+}
@@ -0,0 +1,13 @@
+package com.avivse.retailfileservice.parser;
+
+/**
+ * One item of a promotion, flattened with the keys of the promotion it belongs to.
+ */
+public record PromotionItemRecord(
+        String chainId,
+        Integer storeId,
+        String promotionId,
+        String itemCode,
+        Integer itemType,
+        boolean giftItem) {
+}
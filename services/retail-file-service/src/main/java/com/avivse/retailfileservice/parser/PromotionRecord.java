@@ -0,0 +1,27 @@
+package com.avivse.retailfileservice.parser;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One Promotion element of a PromoFull/Promo file, without its items.
+ */
+public record PromotionRecord(
+        String chainId,
+        Integer storeId,
+        String promotionId,
+        String description,
+        LocalDateTime updateDate,
+        LocalDateTime startDate,
+        LocalDateTime endDate,
+        String rewardType,
+        String discountType,
+        BigDecimal minQty,
+        BigDecimal maxQty,
+        BigDecimal discountRate,
+        BigDecimal discountedPrice,
+        BigDecimal discountedPricePerMida,
+        boolean allowMultipleDiscounts,
+        String clubId,
+        int itemCount) {
+}
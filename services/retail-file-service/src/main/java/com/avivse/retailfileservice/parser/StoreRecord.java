@@ -0,0 +1,14 @@
+package com.avivse.retailfileservice.parser;
+
+/**
+ * One Store element of a chain's Stores file.
+ */
+public record StoreRecord(
+        String chainId,
+        Integer subChainId,
+        Integer storeNumber,
+        String storeName,
+        String storeType,
+        String address,
+        String city) {
+}
@@ -0,0 +1,33 @@
+package com.avivse.retailfileservice.parser;
+
+import com.avivse.retailfileservice.exception.FileParseException;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Opens a chain's Stores XML file for streaming reads.
+ */
+@Component
+public class StoresFileParser {
+
+    private final XMLInputFactory xmlInputFactory;
+
+    public StoresFileParser() {
+        this.xmlInputFactory = XmlInputFactories.newSecureFactory();
+    }
+
+    public StoresFileReader open(Path file) throws IOException {
+        InputStream input = ParserInputs.open(file);
+        try {
+            return new StoresFileReader(input, xmlInputFactory.createXMLStreamReader(input));
+        } catch (XMLStreamException e) {
+            input.close();
+            throw new FileParseException("Failed to open stores file " + file.getFileName(), e);
+        }
+    }
+}
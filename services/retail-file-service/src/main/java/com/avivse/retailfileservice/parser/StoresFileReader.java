@@ -0,0 +1,115 @@
+package com.avivse.retailfileservice.parser;
+
+import com.avivse.retailfileservice.exception.FileParseException;
+
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+
+/**
+ * Pull reader over a chain's Stores file. Handles both the nested layout
+ * (SubChains/SubChain/Stores/Store, with chain and sub-chain given once above the stores)
+ * and the flat layout where every STORE element repeats its CHAINID and SUBCHAINID.
+ */
+public class StoresFileReader implements Closeable {
+
+    private final InputStream input;
+    private final XMLStreamReader xml;
+    private final StringPool strings = new StringPool(256);
+
+    private String chainId;
+    private Integer subChainId;
+    private long storesSkipped;
+
+    StoresFileReader(InputStream input, XMLStreamReader xml) {
+        this.input = input;
+        this.xml = xml;
+    }
+
+    /**
+     * Returns the next store, or null once the file is exhausted. Stores without a chain
+     * or store number are skipped and counted in {@link #storesSkipped()}.
+     */
+    public StoreRecord next() {
+        try {
+            while (xml.hasNext()) {
+                if (xml.next() != XMLStreamConstants.START_ELEMENT) {
+                    continue;
+                }
+                switch (xml.getLocalName().toLowerCase(Locale.ROOT)) {
+                    case "chainid" -> chainId = strings.intern(XmlValues.text(xml.getElementText()));
+                    case "subchainid" -> subChainId = XmlValues.integer(xml.getElementText());
+                    case "store" -> {
+                        StoreRecord store = readStore();
+                        if (store != null) {
+                            return store;
+                        }
+                        storesSkipped++;
+                    }
+                    default -> {
+                        // Containers such as Root, SubChains and Stores
+                    }
+                }
+            }
+            return null;
+        } catch (XMLStreamException e) {
+            throw new FileParseException("Invalid stores file at line " + e.getLocation().getLineNumber(), e);
+        }
+    }
+
+    public long storesSkipped() {
+        return storesSkipped;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            xml.close();
+        } catch (XMLStreamException e) {
+            throw new IOException("Failed to close stores file reader", e);
+        } finally {
+            input.close();
+        }
+    }
+
+    private StoreRecord readStore() throws XMLStreamException {
+        String storeChainId = chainId;
+        Integer storeSubChainId = subChainId;
+        Integer storeNumber = null;
+        String storeName = null;
+        String storeType = null;
+        String address = null;
+        String city = null;
+
+        int depth = 1;
+        while (depth > 0) {
+            int event = xml.next();
+            if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+                continue;
+            }
+            if (event != XMLStreamConstants.START_ELEMENT) {
+                continue;
+            }
+            switch (xml.getLocalName().toLowerCase(Locale.ROOT)) {
+                case "chainid" -> storeChainId = strings.intern(XmlValues.text(xml.getElementText()));
+                case "subchainid" -> storeSubChainId = XmlValues.integer(xml.getElementText());
+                case "storeid" -> storeNumber = XmlValues.integer(xml.getElementText());
+                case "storename" -> storeName = XmlValues.text(xml.getElementText());
+                case "storetype" -> storeType = strings.intern(XmlValues.text(xml.getElementText()));
+                case "address" -> address = XmlValues.text(xml.getElementText());
+                case "city" -> city = strings.intern(XmlValues.text(xml.getElementText()));
+                default -> depth++;
+            }
+        }
+
+        if (storeChainId == null || storeNumber == null) {
+            return null;
+        }
+        return new StoreRecord(storeChainId, storeSubChainId, storeNumber, storeName, storeType, address, city);
+    }
+}
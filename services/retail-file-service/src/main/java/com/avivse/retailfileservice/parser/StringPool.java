@@ -0,0 +1,37 @@
+package com.avivse.retailfileservice.parser;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Canonicalises values that repeat across thousands of records in one file, such as chain
+ * IDs and reward types, so each distinct value is held once. The pool belongs to a single
+ * reader and stops growing at maxSize, after which unseen values are returned as they are.
+ */
+public class StringPool {
+
+    private final Map<String, String> values = new HashMap<>();
+    private final int maxSize;
+
+    public StringPool(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = values.get(value);
+        if (pooled != null) {
+            return pooled;
+        }
+        if (values.size() < maxSize) {
+            values.put(value, value);
+        }
+        return value;
+    }
+
+    public int size() {
+        return values.size();
+    }
+}
@@ -0,0 +1,20 @@
+package com.avivse.retailfileservice.parser;
+
+import javax.xml.stream.XMLInputFactory;
+
+/**
+ * StAX factories for untrusted chain files: no DTDs and no external entities.
+ */
+final class XmlInputFactories {
+
+    private XmlInputFactories() {
+    }
+
+    static XMLInputFactory newSecureFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        factory.setProperty(XMLInputFactory.IS_COALESCING, true);
+        return factory;
+    }
+}
@@ -0,0 +1,26 @@
+package com.avivse.retailfileservice.repository;
+
+import com.avivse.retailfileservice.entity.PriceItem;
+import com.avivse.retailfileservice.entity.PriceItemId;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PriceItemRepository extends JpaRepository<PriceItem, PriceItemId> {
+
+    @Query("SELECT COUNT(pi) FROM PriceItem pi WHERE pi.retailFile.id = :retailFileId")
+    long countByRetailFileId(@Param("retailFileId") UUID retailFileId);
+
+    // Price history of an item at a store, newest first; served by the primary key
+    @Query("SELECT pi FROM PriceItem pi WHERE pi.storeId = :storeId AND pi.itemCode = :itemCode " +
+            "ORDER BY pi.priceUpdateDate DESC")
+    List<PriceItem> findHistory(@Param("storeId") UUID storeId,
+                                @Param("itemCode") String itemCode,
+                                Limit limit);
+}
@@ -2,16 +2,27 @@ package com.avivse.retailfileservice.repository;
 
 import com.avivse.retailfileservice.entity.RetailFile;
 import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface RetailFileRepository extends JpaRepository<RetailFile, UUID> {
@@ -24,6 +35,37 @@ public interface RetailFileRepository extends JpaRepository<RetailFile, UUID> {
 
     boolean existsByChecksum(String checksum);
 
+    // Bulk duplicate detection for batch ingestion
+    @Query("SELECT rf.checksum FROM RetailFile rf WHERE rf.checksum IN :checksums")
+    List<String> findExistingChecksums(@Param("checksums") Collection<String> checksums);
+
+    long countByChecksumIsNotNull();
+
+    // Work-queue claim, oldest first. Lock timeout -2 is Hibernate's SKIP LOCKED: rows locked by
+    // another claim are skipped instead of waited on, on databases that support it.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT rf FROM RetailFile rf WHERE rf.status = :status ORDER BY rf.uploadDate ASC, rf.id ASC")
+    List<RetailFile> findForClaim(@Param("status") FileProcessingStatus status, Limit limit);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT rf FROM RetailFile rf WHERE rf.id = :id")
+    Optional<RetailFile> findByIdForUpdate(@Param("id") UUID id);
+
+    // Expired leases for the reaper, locked the same way as claims
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_LOCK_TIMEOUT, value = "-2"))
+    @Query("SELECT rf FROM RetailFile rf WHERE rf.status = :status AND rf.leaseExpiresAt < :now " +
+            "ORDER BY rf.leaseExpiresAt ASC")
+    List<RetailFile> findExpiredLeases(@Param("status") FileProcessingStatus status,
+                                       @Param("now") LocalDateTime now,
+                                       Limit limit);
+
+    // Streams every stored checksum for rebuilding the checksum filter; needs an open transaction
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT rf.checksum FROM RetailFile rf WHERE rf.checksum IS NOT NULL")
+    Stream<String> streamAllChecksums();
+
     // Paginated query for all files with optional filters
     @Query("SELECT rf FROM RetailFile rf WHERE " +
             "(:status IS NULL OR rf.status = :status)")
@@ -31,4 +73,44 @@ public interface RetailFileRepository extends JpaRepository<RetailFile, UUID> {
             @Param("status") FileProcessingStatus status,
             Pageable pageable
     );
+
+    // Same as findWithFilters without the COUNT query
+    @Query("SELECT rf FROM RetailFile rf WHERE " +
+            "(:status IS NULL OR rf.status = :status)")
+    Slice<RetailFile> findSliceWithFilters(
+            @Param("status") FileProcessingStatus status,
+            Pageable pageable
+    );
+
+    @Query("SELECT COUNT(rf) FROM RetailFile rf WHERE " +
+            "(:status IS NULL OR rf.status = :status)")
+    long countWithFilters(@Param("status") FileProcessingStatus status);
+
+    // Keyset pagination, newest first. There is one query per filter combination so each
+    // can use its matching (status, upload_date, id) or (upload_date, id) index.
+    @Query("SELECT rf FROM RetailFile rf ORDER BY rf.uploadDate DESC, rf.id DESC")
+    List<RetailFile> findFirstPage(Limit limit);
+
+    @Query("SELECT rf FROM RetailFile rf WHERE rf.status = :status " +
+            "ORDER BY rf.uploadDate DESC, rf.id DESC")
+    List<RetailFile> findFirstPageByStatus(@Param("status") FileProcessingStatus status, Limit limit);
+
+    @Query("SELECT rf FROM RetailFile rf WHERE " +
+            "rf.uploadDate < :uploadDate OR (rf.uploadDate = :uploadDate AND rf.id < :id) " +
+            "ORDER BY rf.uploadDate DESC, rf.id DESC")
+    List<RetailFile> findPageAfter(
+            @Param("uploadDate") LocalDateTime uploadDate,
+            @Param("id") UUID id,
+            Limit limit
+    );
+
+    @Query("SELECT rf FROM RetailFile rf WHERE rf.status = :status AND " +
+            "(rf.uploadDate < :uploadDate OR (rf.uploadDate = :uploadDate AND rf.id < :id)) " +
+            "ORDER BY rf.uploadDate DESC, rf.id DESC")
+    List<RetailFile> findPageByStatusAfter(
+            @Param("status") FileProcessingStatus status,
+            @Param("uploadDate") LocalDateTime uploadDate,
+            @Param("id") UUID id,
+            Limit limit
+    );
 }
\ No newline at end of file
@@ -0,0 +1,224 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.dto.ChecksumFilterStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter over stored checksums, used to skip the database for files that are definitely new.
+ * Only "maybe present" answers need a database lookup. Until the first rebuild has finished every
+ * checksum is reported as maybe present. Bloom filters can't remove entries, so deleted checksums
+ * stay in the filter as false positives until the next rebuild.
+ */
+@Component
+public class ChecksumFilter {
+
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveRate;
+
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private final AtomicLong staleEntries = new AtomicLong();
+    private volatile BloomBits active;
+    private volatile BloomBits pending;
+
+    private final Counter definitelyAbsentCounter;
+    private final Counter maybePresentCounter;
+    private final Counter falsePositiveCounter;
+
+    public ChecksumFilter(@Value("${app.retail-files.checksum-filter.enabled:true}") boolean enabled,
+                          @Value("${app.retail-files.checksum-filter.expected-insertions:5000000}") long expectedInsertions,
+                          @Value("${app.retail-files.checksum-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                          MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveRate = falsePositiveRate;
+
+        this.definitelyAbsentCounter = Counter.builder("checksum_filter_checks_total")
+                .description("Checksum filter lookups by answer")
+                .tag("result", "definitely_absent")
+                .register(meterRegistry);
+        this.maybePresentCounter = Counter.builder("checksum_filter_checks_total")
+                .description("Checksum filter lookups by answer")
+                .tag("result", "maybe_present")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("checksum_filter_false_positives_total")
+                .description("Maybe-present answers the database lookup found to be absent")
+                .register(meterRegistry);
+
+        Gauge.builder("checksum_filter_memory_bytes", this, filter -> filter.status().getMemoryBytes())
+                .description("Memory held by the checksum filter bit array")
+                .register(meterRegistry);
+        Gauge.builder("checksum_filter_entries", this, filter -> filter.status().getEntries())
+                .description("Checksums added to the checksum filter since the last rebuild")
+                .register(meterRegistry);
+        Gauge.builder("checksum_filter_expected_fpp", this, filter -> filter.status().getExpectedFalsePositiveRate())
+                .description("Expected false positive probability at the current fill level")
+                .register(meterRegistry);
+        Gauge.builder("checksum_filter_stale_entries", staleEntries, AtomicLong::get)
+                .description("Deleted checksums still present in the checksum filter")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns false only if the checksum is definitely not stored.
+     */
+    public boolean mightContain(String checksum) {
+        BloomBits bits = active;
+        if (!enabled || bits == null) {
+            return true;
+        }
+
+        boolean maybePresent = bits.mightContain(checksum);
+        (maybePresent ? maybePresentCounter : definitelyAbsentCounter).increment();
+        return maybePresent;
+    }
+
+    public void put(String checksum) {
+        if (checksum == null) {
+            return;
+        }
+        // Read pending first: rebuild publishes the new filter before clearing pending
+        BloomBits rebuilding = pending;
+        BloomBits bits = active;
+        if (rebuilding != null) {
+            rebuilding.put(checksum);
+        }
+        if (bits != null && bits != rebuilding) {
+            bits.put(checksum);
+        }
+    }
+
+    public void recordFalsePositives(long count) {
+        falsePositiveCounter.increment(count);
+    }
+
+    public void recordRemoval() {
+        staleEntries.incrementAndGet();
+    }
+
+    /**
+     * Replaces the filter with one built from the given checksums. Checksums added while the
+     * rebuild runs go into both filters. The new filter is sized for at least twice the
+     * current number of entries, so it doesn't saturate as the table grows.
+     */
+    public ChecksumFilterStatus rebuild(long currentEntries, Stream<String> checksums) {
+        if (!enabled) {
+            return status();
+        }
+
+        rebuildLock.lock();
+        try {
+            BloomBits fresh = new BloomBits(Math.max(expectedInsertions, currentEntries * 2), falsePositiveRate);
+            pending = fresh;
+            checksums.forEach(fresh::put);
+            active = fresh;
+            staleEntries.set(0);
+        } finally {
+            pending = null;
+            rebuildLock.unlock();
+        }
+        return status();
+    }
+
+    public ChecksumFilterStatus status() {
+        BloomBits bits = active;
+        if (bits == null) {
+            return new ChecksumFilterStatus(enabled, false, 0, 0, 0, staleEntries.get());
+        }
+        return new ChecksumFilterStatus(enabled, true, bits.entries(), bits.memoryBytes(),
+                bits.expectedFalsePositiveRate(), staleEntries.get());
+    }
+
+    /**
+     * Fixed-size bit array probed with double hashing: probe i is h1 + i * h2.
+     */
+    static final class BloomBits {
+
+        private final AtomicLongArray words;
+        private final long bitCount;
+        private final int hashCount;
+        private final LongAdder entries = new LongAdder();
+
+        BloomBits(long expectedInsertions, double falsePositiveRate) {
+            long n = Math.max(1, expectedInsertions);
+            long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            this.words = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+            this.bitCount = words.length() * 64L;
+            this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+        }
+
+        void put(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                setBit(Math.floorMod(h1 + i * h2, bitCount));
+            }
+            entries.increment();
+        }
+
+        boolean mightContain(String value) {
+            long h1 = hash(value);
+            long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bitCount);
+                if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        long entries() {
+            return entries.sum();
+        }
+
+        long memoryBytes() {
+            return words.length() * 8L;
+        }
+
+        double expectedFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-hashCount * (double) entries() / bitCount), hashCount);
+        }
+
+        private void setBit(long bit) {
+            int index = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            long current;
+            do {
+                current = words.get(index);
+                if ((current & mask) != 0) {
+                    return;
+                }
+            } while (!words.compareAndSet(index, current, current | mask));
+        }
+
+        // 64-bit FNV-1a over the UTF-16 code units, finished with a murmur3 mix
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                h ^= value.charAt(i);
+                h *= 0x100000001b3L;
+            }
+            return mix(h);
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
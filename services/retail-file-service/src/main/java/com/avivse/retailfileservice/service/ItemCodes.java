@@ -0,0 +1,47 @@
+package com.avivse.retailfileservice.service;
+
+/**
+ * Packs digits-only item codes, which is nearly all of them, into a long together with their
+ * length, so leading zeros survive and in-memory price structures can key on primitives.
+ */
+final class ItemCodes {
+
+    // Returned for codes that can't be packed; no packed code is zero since the length is at least 1
+    static final long NOT_PACKED = 0L;
+
+    // 17 digits shifted left by 5 bits still fits in a signed long
+    private static final int MAX_PACKED_LENGTH = 17;
+
+    private ItemCodes() {
+    }
+
+    // Digits-only codes become (value << 5 | length)
+    static long pack(String itemCode) {
+        int length = itemCode.length();
+        if (length == 0 || length > MAX_PACKED_LENGTH) {
+            return NOT_PACKED;
+        }
+        long value = 0;
+        for (int i = 0; i < length; i++) {
+            char c = itemCode.charAt(i);
+            if (c < '0' || c > '9') {
+                return NOT_PACKED;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value << 5 | length;
+    }
+
+    static String unpack(long packed) {
+        int length = (int) (packed & 31);
+        String digits = Long.toString(packed >>> 5);
+        return digits.length() < length ? "0".repeat(length - digits.length()) + digits : digits;
+    }
+
+    static int mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+}
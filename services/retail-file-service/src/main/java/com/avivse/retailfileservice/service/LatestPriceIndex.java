@@ -0,0 +1,268 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.client.AsyncStoreServiceClient;
+import com.avivse.retailfileservice.dto.LatestPriceIndexStatus;
+import com.avivse.retailfileservice.dto.LatestPriceResponse;
+import com.avivse.retailfileservice.parser.PriceItemRecord;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process index of the latest price of every item at every store, for lookups that must not
+ * go to the database. Each store has its own {@link StorePriceTable}; a price file builds a new
+ * table (from scratch for PriceFull, from a copy for Price) which replaces the old one once the
+ * file has been persisted, so readers never lock. Stores are grouped by the chain named in their
+ * price files. The index is rebuilt from price_items when the application starts, and the chain
+ * of each store is then looked up in the store service; a store the lookup fails for joins its
+ * chain with its next price file.
+ */
+@Component
+public class LatestPriceIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatestPriceIndex.class);
+
+    // Rows of the most recently uploaded file first within each store and item, so the first row
+    // seen per item wins; removal rows and price rows are dated by different clocks
+    private static final String LATEST_PRICES_SQL = "SELECT pi.store_id, pi.item_code, pi.item_price, "
+            + "pi.price_update_date, pi.removed FROM price_items pi JOIN retail_files rf ON rf.id = pi.retail_file_id "
+            + "ORDER BY pi.store_id, pi.item_code, rf.upload_date DESC, pi.price_update_date DESC";
+
+    private static final int DEFAULT_EXPECTED_ITEMS = 1024;
+
+    private final boolean enabled;
+    private final JdbcTemplate jdbcTemplate;
+    private final AsyncStoreServiceClient asyncStoreServiceClient;
+    private final ConcurrentHashMap<UUID, StorePriceTable> stores = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<UUID>> chainStores = new ConcurrentHashMap<>();
+
+    public LatestPriceIndex(@Value("${app.retail-files.price-index.enabled:true}") boolean enabled,
+                            JdbcTemplate jdbcTemplate,
+                            AsyncStoreServiceClient asyncStoreServiceClient,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.jdbcTemplate = jdbcTemplate;
+        this.asyncStoreServiceClient = asyncStoreServiceClient;
+
+        Gauge.builder("latest_price_index_stores", stores, ConcurrentHashMap::size)
+                .description("Stores with prices in the latest price index")
+                .register(meterRegistry);
+        Gauge.builder("latest_price_index_entries", this, index -> index.status().getEntries())
+                .description("Store and item pairs in the latest price index")
+                .register(meterRegistry);
+        Gauge.builder("latest_price_index_memory_bytes", this, index -> index.status().getMemoryBytes())
+                .description("Memory held by the latest price index tables")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public Optional<LatestPriceResponse> find(UUID storeId, String itemCode) {
+        StorePriceTable table = stores.get(storeId);
+        if (table == null) {
+            return Optional.empty();
+        }
+        long[] price = table.get(itemCode);
+        if (price == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new LatestPriceResponse(storeId, itemCode,
+                BigDecimal.valueOf(price[0], 3), StorePriceTable.fromMinutes(price[1])));
+    }
+
+    /**
+     * Latest price of the item at every store of the chain that sells it.
+     */
+    public List<LatestPriceResponse> findInChain(String chainId, String itemCode) {
+        Set<UUID> storeIds = chainStores.getOrDefault(chainId, Set.of());
+        List<LatestPriceResponse> prices = new ArrayList<>(storeIds.size());
+        for (UUID storeId : storeIds) {
+            find(storeId, itemCode).ifPresent(prices::add);
+        }
+        return prices;
+    }
+
+    public LatestPriceIndexStatus status() {
+        long entries = 0;
+        long memoryBytes = 0;
+        for (StorePriceTable table : stores.values()) {
+            entries += table.size();
+            memoryBytes += table.memoryBytes();
+        }
+        return new LatestPriceIndexStatus(enabled, stores.size(), chainStores.size(), entries, memoryBytes);
+    }
+
+    /**
+     * Start collecting a price file's items for a store. Nothing is visible to lookups until
+     * {@link Update#commit()}; an update that is never committed is simply dropped.
+     */
+    public Update beginUpdate(UUID storeId, String chainId, boolean fullFile, LocalDateTime fileDate) {
+        if (!enabled) {
+            return new Update(storeId, chainId, null, null, fileDate);
+        }
+        StorePriceTable base = stores.get(storeId);
+        StorePriceTable table;
+        if (base == null) {
+            table = new StorePriceTable(DEFAULT_EXPECTED_ITEMS, fileDate);
+        } else if (fullFile && (base.asOf() == null || !fileDate.isBefore(base.asOf()))) {
+            table = new StorePriceTable(base.size(), fileDate);
+        } else {
+            // Partial files, and full files older than the table, are merged in
+            LocalDateTime asOf = base.asOf() != null && base.asOf().isAfter(fileDate) ? base.asOf() : fileDate;
+            table = base.copy(asOf);
+        }
+        return new Update(storeId, chainId, base, table, fileDate);
+    }
+
+    /**
+     * Rebuild every store table from the row of each item read from the most recently uploaded
+     * file. Runs once when the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        StoreLoader loader = new StoreLoader();
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(LATEST_PRICES_SQL);
+            statement.setFetchSize(1000);
+            return statement;
+        }, rs -> {
+            BigDecimal itemPrice = rs.getBigDecimal("item_price");
+            loader.accept(rs.getObject("store_id", UUID.class), rs.getString("item_code"),
+                    rs.getBoolean("removed") ? null : itemPrice,
+                    rs.getTimestamp("price_update_date").toLocalDateTime());
+        });
+        loader.publish();
+        int unresolved = rebuildChains();
+        logger.info("Rebuilt latest price index in {} ms: {} stores, {} chains, {} entries",
+                System.currentTimeMillis() - start, stores.size(), chainStores.size(), status().getEntries());
+        if (unresolved > 0) {
+            logger.warn("Chain of {} stores could not be looked up; they join their chain with their next price file",
+                    unresolved);
+        }
+    }
+
+    // Looks up the chain of every store in the index, all at once; returns how many lookups failed
+    private int rebuildChains() {
+        AtomicInteger unresolved = new AtomicInteger();
+        List<CompletableFuture<Void>> lookups = new ArrayList<>(stores.size());
+        for (UUID storeId : stores.keySet()) {
+            lookups.add(asyncStoreServiceClient.getStoreById(storeId)
+                    .thenAccept(store -> store
+                            .filter(found -> found.getChainId() != null)
+                            .ifPresent(found -> addToChain(found.getChainId(), storeId)))
+                    .exceptionally(error -> {
+                        unresolved.incrementAndGet();
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(lookups.toArray(CompletableFuture[]::new)).join();
+        return unresolved.get();
+    }
+
+    private void addToChain(String chainId, UUID storeId) {
+        chainStores.computeIfAbsent(chainId, id -> ConcurrentHashMap.newKeySet()).add(storeId);
+    }
+
+    static long toThousandths(BigDecimal price) {
+        return price.movePointRight(3).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+
+    /**
+     * A store table being built from one price file.
+     */
+    public final class Update {
+
+        private final UUID storeId;
+        private final String chainId;
+        private final StorePriceTable base;
+        private final StorePriceTable table;
+        private final LocalDateTime fileDate;
+
+        private Update(UUID storeId, String chainId, StorePriceTable base, StorePriceTable table,
+                       LocalDateTime fileDate) {
+            this.storeId = storeId;
+            this.chainId = chainId;
+            this.base = base;
+            this.table = table;
+            this.fileDate = fileDate;
+        }
+
+        public void put(PriceItemRecord item) {
+            if (table == null || item.itemPrice() == null) {
+                return;
+            }
+            table.put(item.itemCode(), toThousandths(item.itemPrice()),
+                    item.priceUpdateDate() != null ? item.priceUpdateDate() : fileDate);
+        }
+
+        // If another file replaced the table meanwhile, the one built from the newer file wins
+        public void commit() {
+            if (table == null) {
+                return;
+            }
+            stores.compute(storeId, (id, current) ->
+                    current == null || current == base || current.asOf() == null
+                            || !table.asOf().isBefore(current.asOf()) ? table : current);
+            if (chainId != null) {
+                addToChain(chainId, storeId);
+            }
+        }
+    }
+
+    // Collects rows ordered by store and item into one table per store
+    private final class StoreLoader {
+
+        private UUID storeId;
+        private String itemCode;
+        private StorePriceTable table;
+
+        void accept(UUID rowStoreId, String rowItemCode, BigDecimal itemPrice, LocalDateTime priceUpdateDate) {
+            if (!rowStoreId.equals(storeId)) {
+                publish();
+                storeId = rowStoreId;
+                itemCode = null;
+                table = new StorePriceTable(DEFAULT_EXPECTED_ITEMS, null);
+            }
+            if (rowItemCode.equals(itemCode)) {
+                return;
+            }
+            itemCode = rowItemCode;
+            if (itemPrice != null) {
+                table.put(rowItemCode, toThousandths(itemPrice), priceUpdateDate);
+            }
+        }
+
+        // Tables of files committed while loading are newer and kept
+        void publish() {
+            if (table != null) {
+                stores.putIfAbsent(storeId, table);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.avivse.retailfileservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One stage of the ingestion pipeline: a fixed number of worker threads fed by a bounded queue.
+ * {@link #submit} blocks while the queue is full, so a stage that falls behind holds up the one
+ * feeding it rather than letting work pile up in memory.
+ * <p>
+ * Metrics are tagged with the stage name: tasks run (throughput), queue depth, time spent
+ * queued and time spent running.
+ * <p>
+ * In virtual-thread mode the workers are virtual threads; concurrency still caps how many tasks
+ * run at once, which is what keeps a stage within its database connections or CPU.
+ */
+public class PipelineStage {
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore slots;
+    private final Counter tasksCounter;
+    private final Counter failuresCounter;
+    private final Timer queueWaitTimer;
+    private final Timer taskTimer;
+
+    public PipelineStage(String name, int concurrency, int queueCapacity, boolean virtualThreads,
+                         MeterRegistry meterRegistry) {
+        // Running and queued tasks together never exceed the slots, so the queue itself is never full
+        this.slots = new Semaphore(concurrency + queueCapacity);
+        this.executor = new ThreadPoolExecutor(concurrency, concurrency, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory(name, virtualThreads));
+
+        this.tasksCounter = Counter.builder("retail_file_pipeline_tasks_total")
+                .description("Total number of tasks run by an ingestion pipeline stage")
+                .tag("stage", name)
+                .register(meterRegistry);
+
+        this.failuresCounter = Counter.builder("retail_file_pipeline_task_failures_total")
+                .description("Total number of ingestion pipeline tasks that threw")
+                .tag("stage", name)
+                .register(meterRegistry);
+
+        this.queueWaitTimer = Timer.builder("retail_file_pipeline_queue_wait")
+                .description("Time tasks waited in an ingestion pipeline stage's queue")
+                .tag("stage", name)
+                .register(meterRegistry);
+
+        this.taskTimer = Timer.builder("retail_file_pipeline_task_duration")
+                .description("Time taken to run one task of an ingestion pipeline stage")
+                .tag("stage", name)
+                .register(meterRegistry);
+
+        Gauge.builder("retail_file_pipeline_queue_depth", executor, pool -> pool.getQueue().size())
+                .description("Tasks waiting in an ingestion pipeline stage's queue")
+                .tag("stage", name)
+                .register(meterRegistry);
+
+        Gauge.builder("retail_file_pipeline_active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Tasks currently running in an ingestion pipeline stage")
+                .tag("stage", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a task, waiting for room in the stage first. The returned future completes when the
+     * task has run, exceptionally if it threw, and is cancelled if the stage shuts down first.
+     */
+    public CompletableFuture<Void> submit(Runnable task) throws InterruptedException {
+        slots.acquire();
+        Task queued = new Task(task);
+        try {
+            executor.execute(queued);
+        } catch (RejectedExecutionException e) {
+            slots.release();
+            throw e;
+        }
+        return queued.done;
+    }
+
+    public void shutdown() {
+        shutdown(Duration.ZERO);
+    }
+
+    /**
+     * Stop taking tasks and give queued and running ones up to drainTimeout to finish. Running
+     * tasks are then interrupted, and tasks still queued are cancelled along with their futures.
+     */
+    public void shutdown(Duration drainTimeout) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(drainTimeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Runnable queued : executor.shutdownNow()) {
+            ((Task) queued).cancel();
+        }
+    }
+
+    private final class Task implements Runnable {
+
+        private final Runnable task;
+        private final long queuedAt = System.nanoTime();
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Task(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            long startedAt = System.nanoTime();
+            queueWaitTimer.record(startedAt - queuedAt, TimeUnit.NANOSECONDS);
+            Throwable failure = null;
+            try {
+                task.run();
+            } catch (Throwable e) {
+                failuresCounter.increment();
+                failure = e;
+            } finally {
+                taskTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+                tasksCounter.increment();
+                slots.release();
+            }
+            // Completed last, so whoever waits on the future sees the task's metrics
+            if (failure == null) {
+                done.complete(null);
+            } else {
+                done.completeExceptionally(failure);
+            }
+        }
+
+        void cancel() {
+            done.cancel(false);
+            slots.release();
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name, boolean virtualThreads) {
+        if (virtualThreads) {
+            return Thread.ofVirtual().name("pipeline-" + name + "-", 1).factory();
+        }
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> new Thread(runnable, "pipeline-" + name + "-" + threads.incrementAndGet());
+    }
+}
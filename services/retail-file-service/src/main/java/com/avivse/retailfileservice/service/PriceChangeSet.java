@@ -0,0 +1,7 @@
+package com.avivse.retailfileservice.service;
+
+/**
+ * Items of a price file that differ from the store's previous snapshot.
+ */
+public record PriceChangeSet(int added, int removed, int changed, int unchanged) {
+}
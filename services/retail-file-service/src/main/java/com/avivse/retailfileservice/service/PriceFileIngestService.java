@@ -0,0 +1,326 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.client.AsyncStoreServiceClient;
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.RetailFileKind;
+import com.avivse.retailfileservice.exception.FileParseException;
+import com.avivse.retailfileservice.parser.PriceFileHeader;
+import com.avivse.retailfileservice.parser.PriceFileParser;
+import com.avivse.retailfileservice.parser.PriceFileReader;
+import com.avivse.retailfileservice.parser.PriceItemRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Persists the items of a PriceFull/Price file. The file is parsed in streaming fashion and
+ * its items are handed to {@link PriceItemWriter} in chunks of batch-size rows, so memory use
+ * is bounded by the chunks, not the file. Chunks are written on the pipeline's write stage
+ * while the calling thread parses on; ingest returns once every chunk is written.
+ * <p>
+ * With diff enabled, items are first compared against the store's {@link PriceSnapshot} and
+ * only new and changed ones are written. A PriceFull file also records items missing from it
+ * as removed. The added/removed/changed counts are stored on the retail file.
+ * <p>
+ * Every item read also goes into a {@link LatestPriceIndex} update and is appended to the
+ * store's {@link PriceHistoryStore} history, both committed once the file has been persisted.
+ */
+@Service
+public class PriceFileIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceFileIngestService.class);
+
+    private final PriceFileParser priceFileParser;
+    private final PriceItemWriter priceItemWriter;
+    private final PriceSnapshotStore priceSnapshotStore;
+    private final LatestPriceIndex latestPriceIndex;
+    private final PriceHistoryStore priceHistoryStore;
+    private final AsyncStoreServiceClient storeServiceClient;
+    private final RetailFileService retailFileService;
+    private final int batchSize;
+    private final boolean diffEnabled;
+    private final PipelineStage writeStage;
+    private final Counter itemsWrittenCounter;
+    private final Counter itemsUnchangedCounter;
+    private final Timer ingestTimer;
+
+    public PriceFileIngestService(PriceFileParser priceFileParser,
+                                  PriceItemWriter priceItemWriter,
+                                  PriceSnapshotStore priceSnapshotStore,
+                                  LatestPriceIndex latestPriceIndex,
+                                  PriceHistoryStore priceHistoryStore,
+                                  AsyncStoreServiceClient storeServiceClient,
+                                  RetailFileService retailFileService,
+                                  @Value("${app.retail-files.price-items.batch-size:5000}") int batchSize,
+                                  @Value("${app.retail-files.price-items.diff.enabled:false}") boolean diffEnabled,
+                                  @Value("${app.retail-files.pipeline.write.concurrency:4}") int writeConcurrency,
+                                  @Value("${app.retail-files.pipeline.write.queue-capacity:4}") int writeQueueCapacity,
+                                  @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                  MeterRegistry meterRegistry) {
+        this.priceFileParser = priceFileParser;
+        this.priceItemWriter = priceItemWriter;
+        this.priceSnapshotStore = priceSnapshotStore;
+        this.latestPriceIndex = latestPriceIndex;
+        this.priceHistoryStore = priceHistoryStore;
+        this.storeServiceClient = storeServiceClient;
+        this.retailFileService = retailFileService;
+        this.batchSize = batchSize;
+        this.diffEnabled = diffEnabled;
+        this.writeStage = new PipelineStage("write", writeConcurrency, writeQueueCapacity, virtualThreads,
+                meterRegistry);
+
+        this.itemsWrittenCounter = Counter.builder("price_items_written_total")
+                .description("Total number of price items written from price files")
+                .register(meterRegistry);
+
+        this.itemsUnchangedCounter = Counter.builder("price_items_unchanged_total")
+                .description("Total number of price items skipped because their price did not change")
+                .register(meterRegistry);
+
+        this.ingestTimer = Timer.builder("price_file_ingest_duration")
+                .description("Time taken to parse and persist the items of a price file")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Persist the file's items and return how many rows were written.
+     */
+    public long ingest(RetailFile file, Path content) throws IOException {
+        long start = System.nanoTime();
+        long written;
+        long skipped;
+        try (PriceFileReader reader = priceFileParser.open(content)) {
+            PriceFileHeader header = reader.header();
+            UUID storeId = resolveStoreId(file, header);
+            boolean fullFile = RetailFileKind.fromFileName(file.getFileName()) == RetailFileKind.PRICE_FULL;
+            LatestPriceIndex.Update indexUpdate =
+                    latestPriceIndex.beginUpdate(storeId, header.chainId(), fullFile, file.getUploadDate());
+
+            try (PriceHistoryStore.Appender historyAppender =
+                         priceHistoryStore.beginAppend(storeId, file.getUploadDate())) {
+                Consumer<PriceItemRecord> onItemRead = item -> {
+                    indexUpdate.put(item);
+                    historyAppender.add(item);
+                };
+                written = diffEnabled
+                        ? writeChanges(file, storeId, fullFile, reader, onItemRead)
+                        : writeAll(file, storeId, reader, onItemRead);
+                skipped = reader.itemsSkipped();
+                historyAppender.commit();
+            }
+            indexUpdate.commit();
+        } finally {
+            ingestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        logger.info("Ingested price file {}: {} rows written, {} items skipped", file.getId(), written, skipped);
+        return written;
+    }
+
+    private long writeAll(RetailFile file, UUID storeId, PriceFileReader reader,
+                          Consumer<PriceItemRecord> onItemRead) {
+        ChunkedWrite writes = new ChunkedWrite(file, storeId);
+        try {
+            PriceItemRecord item;
+            while ((item = reader.next()) != null) {
+                onItemRead.accept(item);
+                writes.add(item);
+            }
+            return writes.finish();
+        } catch (RuntimeException e) {
+            writes.awaitQuietly();
+            throw e;
+        }
+    }
+
+    // Holds the store's snapshot lock throughout, so files of one store are diffed one at a time
+    private long writeChanges(RetailFile file, UUID storeId, boolean fullFile, PriceFileReader reader,
+                              Consumer<PriceItemRecord> onItemRead) {
+        PriceSnapshot previous = priceSnapshotStore.lock(storeId);
+        ChunkedWrite writes = new ChunkedWrite(file, storeId);
+        try {
+            if (previous.asOf() != null && file.getUploadDate().isBefore(previous.asOf())) {
+                logger.warn("Price file {} is older than the snapshot of store {}, writing all items",
+                        file.getId(), storeId);
+                return writeAll(file, storeId, reader, onItemRead);
+            }
+
+            // A full file replaces the snapshot; a partial one updates it in place
+            PriceSnapshot next = fullFile ? new PriceSnapshot(Math.max(previous.size(), 1024)) : previous;
+            int added = 0;
+            int changed = 0;
+            int unchanged = 0;
+            PriceItemRecord item;
+            while ((item = reader.next()) != null) {
+                onItemRead.accept(item);
+                int priceHash = PriceSnapshot.priceHash(item.itemPrice(), item.unitOfMeasurePrice(),
+                        item.itemStatus(), item.allowDiscount());
+                if (!previous.contains(item.itemCode())) {
+                    added++;
+                } else if (previous.get(item.itemCode()) != priceHash) {
+                    changed++;
+                } else {
+                    unchanged++;
+                    next.put(item.itemCode(), priceHash);
+                    continue;
+                }
+                next.put(item.itemCode(), priceHash);
+                writes.add(item);
+            }
+            long written = writes.finish();
+
+            List<String> removed = new ArrayList<>();
+            if (fullFile) {
+                previous.forEachItemCode(itemCode -> {
+                    if (!next.contains(itemCode)) {
+                        removed.add(itemCode);
+                    }
+                });
+                for (int from = 0; from < removed.size(); from += batchSize) {
+                    List<String> removedChunk = removed.subList(from, Math.min(from + batchSize, removed.size()));
+                    written += priceItemWriter.writeRemovals(file.getId(), storeId, file.getUploadDate(), removedChunk);
+                }
+            }
+
+            next.setAsOf(file.getUploadDate());
+            if (next != previous) {
+                priceSnapshotStore.put(storeId, next);
+            }
+            itemsUnchangedCounter.increment(unchanged);
+
+            PriceChangeSet changeSet = new PriceChangeSet(added, removed.size(), changed, unchanged);
+            retailFileService.recordPriceChanges(file.getId(), changeSet);
+            logger.info("Price file {} against snapshot of store {}: {}", file.getId(), storeId, changeSet);
+            return written;
+        } catch (RuntimeException e) {
+            // The snapshot may be half-updated; rebuild it from the database next time. Chunks
+            // still being written must land before the next file of the store is diffed.
+            writes.awaitQuietly();
+            priceSnapshotStore.invalidate(storeId);
+            throw e;
+        } finally {
+            previous.lock().unlock();
+        }
+    }
+
+    // The store recorded on the file wins; otherwise the file header names it. Header lookups
+    // from concurrent parses share the async client's in-flight cap and per-store coalescing.
+    private UUID resolveStoreId(RetailFile file, PriceFileHeader header) {
+        if (file.getStoreId() != null) {
+            return file.getStoreId();
+        }
+        if (header.chainId() == null || header.storeId() == null) {
+            throw new FileParseException("Price file " + file.getFileName() + " does not identify its store");
+        }
+        try {
+            return storeServiceClient.getOrCreateStoreId(header.chainId(), header.storeId()).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeStage.shutdown();
+    }
+
+    /**
+     * Hands one file's items to the write stage a chunk at a time, so the file goes on being
+     * parsed while earlier chunks are written. Submitting waits while the stage is full, which
+     * bounds the items held in memory across all files to the stage's slots times batch-size.
+     */
+    private final class ChunkedWrite {
+
+        private final RetailFile file;
+        private final UUID storeId;
+        private final List<CompletableFuture<Void>> pending = new ArrayList<>();
+        private final AtomicLong written = new AtomicLong();
+        private List<PriceItemRecord> chunk = new ArrayList<>(batchSize);
+
+        ChunkedWrite(RetailFile file, UUID storeId) {
+            this.file = file;
+            this.storeId = storeId;
+        }
+
+        void add(PriceItemRecord item) {
+            chunk.add(item);
+            if (chunk.size() == batchSize) {
+                submit();
+            }
+        }
+
+        /**
+         * Submit the last chunk, wait for every chunk and return the rows written. The first
+         * failed chunk fails the file.
+         */
+        long finish() {
+            if (!chunk.isEmpty()) {
+                submit();
+            }
+            awaitQuietly();
+            pending.forEach(this::throwIfFailed);
+            return written.get();
+        }
+
+        void awaitQuietly() {
+            for (CompletableFuture<Void> write : pending) {
+                try {
+                    write.join();
+                } catch (CompletionException | CancellationException ignored) {
+                    // Reported by finish()
+                }
+            }
+        }
+
+        private void submit() {
+            // No point reading on once a chunk has failed
+            pending.forEach(this::throwIfFailed);
+            List<PriceItemRecord> rows = chunk;
+            chunk = new ArrayList<>(batchSize);
+            try {
+                pending.add(writeStage.submit(() -> {
+                    int count = priceItemWriter.write(file.getId(), storeId, file.getUploadDate(), rows);
+                    itemsWrittenCounter.increment(count);
+                    written.addAndGet(count);
+                }));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while queueing items of price file " + file.getId(), e);
+            }
+        }
+
+        private void throwIfFailed(CompletableFuture<Void> write) {
+            if (!write.isCompletedExceptionally()) {
+                return;
+            }
+            try {
+                write.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+    }
+}
@@ -0,0 +1,337 @@
+package com.avivse.retailfileservice.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * An immutable, memory-mapped block of one store's price history, stored column by column:
+ * <pre>
+ * header   magic, item count, row count, first minute, last minute
+ * codes    item count + 1 offsets, then the item codes as UTF-8, sorted
+ * rows     item count + 1 row starts; the rows of item i are [start(i), start(i + 1))
+ * times    item count + 1 offsets, then the time column
+ * prices   item count + 1 offsets, then the price column
+ * </pre>
+ * Each item code is stored once and rows refer to it by position. Rows are grouped by item
+ * and ordered by time; the first time of an item is stored as minutes after the segment's first
+ * minute and later ones as minutes after the previous row, and prices are thousandths stored as
+ * the change from the previous row. Both columns are zigzag varints, so a typical row takes
+ * 3-5 bytes. A row is only kept when the item's price changed, so a price repeated by every
+ * file costs nothing.
+ */
+final class PriceHistorySegment {
+
+    static final int MAGIC = 0x50485331; // "PHS1"
+
+    private static final int HEADER_BYTES = 5 * Integer.BYTES;
+
+    private static final Comparator<Row> ROW_ORDER =
+            Comparator.comparing(Row::itemCode).thenComparingInt(Row::minute);
+
+    /**
+     * One price of an item: the price in thousandths since the given epoch minute.
+     */
+    record Row(String itemCode, int minute, long priceThousandths) {
+    }
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final int itemCount;
+    private final int rowCount;
+    private final int firstMinute;
+    private final int codeOffsetsAt;
+    private final int codesAt;
+    private final int rowStartsAt;
+    private final int timeOffsetsAt;
+    private final int timesAt;
+    private final int priceOffsetsAt;
+    private final int pricesAt;
+
+    private PriceHistorySegment(Path path, MappedByteBuffer buffer) throws IOException {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a price history segment: " + path);
+        }
+        this.path = path;
+        this.buffer = buffer;
+        this.itemCount = buffer.getInt(4);
+        this.rowCount = buffer.getInt(8);
+        this.firstMinute = buffer.getInt(12);
+
+        int offsetsBytes = (itemCount + 1) * Integer.BYTES;
+        this.codeOffsetsAt = HEADER_BYTES;
+        this.codesAt = codeOffsetsAt + offsetsBytes;
+        this.rowStartsAt = codesAt + buffer.getInt(codeOffsetsAt + itemCount * Integer.BYTES);
+        this.timeOffsetsAt = rowStartsAt + offsetsBytes;
+        this.timesAt = timeOffsetsAt + offsetsBytes;
+        this.priceOffsetsAt = timesAt + buffer.getInt(timeOffsetsAt + itemCount * Integer.BYTES);
+        this.pricesAt = priceOffsetsAt + offsetsBytes;
+    }
+
+    static PriceHistorySegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            return new PriceHistorySegment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write the rows as a new segment at the given path and open it. Rows may come in any order;
+     * of several rows for the same item and minute the last one wins, and rows that repeat the
+     * item's previous price are dropped. Returns null when no rows are left.
+     */
+    static PriceHistorySegment write(Path path, List<Row> rows) throws IOException {
+        List<Row> sorted = new ArrayList<>(rows);
+        sorted.sort(ROW_ORDER);
+        List<Row> kept = new ArrayList<>(sorted.size());
+        for (Row row : sorted) {
+            int last = kept.size() - 1;
+            if (last >= 0 && kept.get(last).itemCode().equals(row.itemCode())
+                    && kept.get(last).minute() == row.minute()) {
+                kept.remove(last--);
+            }
+            if (last >= 0 && kept.get(last).itemCode().equals(row.itemCode())
+                    && kept.get(last).priceThousandths() == row.priceThousandths()) {
+                continue;
+            }
+            kept.add(row);
+        }
+        if (kept.isEmpty()) {
+            return null;
+        }
+
+        int first = kept.stream().mapToInt(Row::minute).min().orElseThrow();
+        int last = kept.stream().mapToInt(Row::minute).max().orElseThrow();
+        ColumnBuilder codes = new ColumnBuilder();
+        ColumnBuilder times = new ColumnBuilder();
+        ColumnBuilder prices = new ColumnBuilder();
+        List<Integer> codeOffsets = new ArrayList<>();
+        List<Integer> rowStarts = new ArrayList<>();
+        List<Integer> timeOffsets = new ArrayList<>();
+        List<Integer> priceOffsets = new ArrayList<>();
+
+        Row previous = null;
+        for (int i = 0; i < kept.size(); i++) {
+            Row row = kept.get(i);
+            if (previous == null || !previous.itemCode().equals(row.itemCode())) {
+                codeOffsets.add(codes.size());
+                rowStarts.add(i);
+                timeOffsets.add(times.size());
+                priceOffsets.add(prices.size());
+                codes.putBytes(row.itemCode().getBytes(StandardCharsets.UTF_8));
+                times.putVarLong(row.minute() - first);
+                prices.putVarLong(row.priceThousandths());
+            } else {
+                times.putVarLong(row.minute() - previous.minute());
+                prices.putVarLong(row.priceThousandths() - previous.priceThousandths());
+            }
+            previous = row;
+        }
+        codeOffsets.add(codes.size());
+        rowStarts.add(kept.size());
+        timeOffsets.add(times.size());
+        priceOffsets.add(prices.size());
+
+        int itemCount = rowStarts.size() - 1;
+        long size = HEADER_BYTES + 4L * (itemCount + 1) * Integer.BYTES
+                + codes.size() + times.size() + prices.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Price history segment would exceed 2 GB: " + path);
+        }
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            out.putInt(MAGIC).putInt(itemCount).putInt(kept.size()).putInt(first).putInt(last);
+            putInts(out, codeOffsets);
+            codes.writeTo(out);
+            putInts(out, rowStarts);
+            putInts(out, timeOffsets);
+            times.writeTo(out);
+            putInts(out, priceOffsets);
+            prices.writeTo(out);
+            out.force();
+        }
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        return open(path);
+    }
+
+    Path path() {
+        return path;
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    /**
+     * Add the item's rows between the two minutes (inclusive) to the list, preceded by its last
+     * row before the range, which holds the price in effect when the range starts.
+     */
+    void scan(String itemCode, int fromMinute, int toMinute, List<Row> into) {
+        if (fromMinute > toMinute || firstMinute > toMinute) {
+            return;
+        }
+        int item = find(itemCode);
+        if (item < 0) {
+            return;
+        }
+        int rows = rowStart(item + 1) - rowStart(item);
+        Column times = new Column(timesAt + offset(timeOffsetsAt, item));
+        Column prices = new Column(pricesAt + offset(priceOffsetsAt, item));
+        int minute = firstMinute;
+        long price = 0;
+        Row before = null;
+        for (int i = 0; i < rows; i++) {
+            minute += (int) times.next();
+            price += prices.next();
+            if (minute > toMinute) {
+                break;
+            }
+            if (minute < fromMinute) {
+                before = new Row(itemCode, minute, price);
+            } else {
+                if (before != null) {
+                    into.add(before);
+                    before = null;
+                }
+                into.add(new Row(itemCode, minute, price));
+            }
+        }
+        if (before != null) {
+            into.add(before);
+        }
+    }
+
+    /**
+     * Decode every row, item by item. Used when segments are merged.
+     */
+    void forEachRow(Consumer<Row> action) {
+        for (int item = 0; item < itemCount; item++) {
+            String itemCode = code(item);
+            int rows = rowStart(item + 1) - rowStart(item);
+            Column times = new Column(timesAt + offset(timeOffsetsAt, item));
+            Column prices = new Column(pricesAt + offset(priceOffsetsAt, item));
+            int minute = firstMinute;
+            long price = 0;
+            for (int i = 0; i < rows; i++) {
+                minute += (int) times.next();
+                price += prices.next();
+                action.accept(new Row(itemCode, minute, price));
+            }
+        }
+    }
+
+    // Binary search over the sorted dictionary
+    private int find(String itemCode) {
+        int low = 0;
+        int high = itemCount - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = code(mid).compareTo(itemCode);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private String code(int item) {
+        int start = offset(codeOffsetsAt, item);
+        byte[] bytes = new byte[offset(codeOffsetsAt, item + 1) - start];
+        buffer.get(codesAt + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private int rowStart(int item) {
+        return offset(rowStartsAt, item);
+    }
+
+    private int offset(int tableAt, int item) {
+        return buffer.getInt(tableAt + item * Integer.BYTES);
+    }
+
+    private static void putInts(ByteBuffer out, List<Integer> values) {
+        for (int value : values) {
+            out.putInt(value);
+        }
+    }
+
+    // Reads zigzag varints with absolute gets, so concurrent scans can share the buffer
+    private final class Column {
+
+        private int position;
+
+        Column(int position) {
+            this.position = position;
+        }
+
+        long next() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (long) (b & 0x7f) << shift;
+                shift += 7;
+            } while (b < 0);
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+
+    private static final class ColumnBuilder {
+
+        private byte[] bytes = new byte[1024];
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void putBytes(byte[] value) {
+            ensureCapacity(value.length);
+            System.arraycopy(value, 0, bytes, size, value.length);
+            size += value.length;
+        }
+
+        void putVarLong(long value) {
+            ensureCapacity(10);
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7fL) != 0) {
+                bytes[size++] = (byte) ((zigzag & 0x7f) | 0x80);
+                zigzag >>>= 7;
+            }
+            bytes[size++] = (byte) zigzag;
+        }
+
+        void writeTo(ByteBuffer out) {
+            out.put(bytes, 0, size);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,463 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.dto.PriceHistoryPoint;
+import com.avivse.retailfileservice.parser.PriceItemRecord;
+import com.avivse.retailfileservice.service.PriceHistorySegment.Row;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Append-only price history of every store, kept in files under price-history.dir/{storeId}
+ * rather than as price_items rows. The items of each price file are appended to the store's
+ * open log; every seal-interval the log is sealed into a columnar {@link PriceHistorySegment},
+ * and once a store has more than max-segments segments the newest ones are merged, so a range
+ * scan reads a handful of mapped segments and at most one interval's worth of log. Merges are
+ * size-tiered: an older segment joins a merge only once the newer segments add up to its size,
+ * so each row is rewritten a logarithmic number of times rather than on every merge.
+ * <p>
+ * Appends to a store are serialized by a per-store lock, which sealing also takes. Scans take
+ * no locks: they read an immutable view of the store's segments and committed log length, and
+ * read again if a seal replaced the log meanwhile.
+ */
+@Component
+public class PriceHistoryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PriceHistoryStore.class);
+
+    private static final String OPEN_LOG = "open.log";
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".phs";
+
+    private static final int LOG_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_CODE_BYTES = 1024;
+    // Log rows are: code length, UTF-8 code, epoch minute, price in thousandths
+    private static final int LOG_ROW_BYTES = Short.BYTES + Integer.BYTES + Long.BYTES;
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int maxSegments;
+    private final ConcurrentHashMap<UUID, StoreHistory> stores = new ConcurrentHashMap<>();
+    private final Counter rowsSealedCounter;
+    private final Timer scanTimer;
+
+    public PriceHistoryStore(@Value("${app.retail-files.price-history.enabled:false}") boolean enabled,
+                             @Value("${app.retail-files.price-history.dir:${java.io.tmpdir}/price-history}") Path dir,
+                             @Value("${app.retail-files.price-history.max-segments:24}") int maxSegments,
+                             MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.dir = dir;
+        this.maxSegments = maxSegments;
+
+        this.rowsSealedCounter = Counter.builder("price_history_rows_sealed_total")
+                .description("Total number of open log rows sealed into price history segments")
+                .register(meterRegistry);
+
+        this.scanTimer = Timer.builder("price_history_scan_duration")
+                .description("Time taken to read the price history of one item at one store")
+                .register(meterRegistry);
+
+        Gauge.builder("price_history_segment_bytes", this, PriceHistoryStore::segmentBytes)
+                .description("Size of the price history segments of stores opened since startup")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Start appending a price file's items to the store's history. Holds the store's lock until
+     * the appender is closed; rows not committed by then are discarded.
+     */
+    public Appender beginAppend(UUID storeId, LocalDateTime fileDate) {
+        if (!enabled) {
+            return new Appender(null, fileDate);
+        }
+        StoreHistory history = history(storeId);
+        history.lock.lock();
+        return new Appender(history, fileDate);
+    }
+
+    /**
+     * Prices of the item at the store between the two dates, oldest first, one point per price
+     * change. The first point is the price in effect at {@code from}, which may predate it.
+     */
+    public List<PriceHistoryPoint> find(UUID storeId, String itemCode, LocalDateTime from, LocalDateTime to) {
+        if (!enabled || (!stores.containsKey(storeId) && !Files.isDirectory(storeDir(storeId)))) {
+            return List.of();
+        }
+        return scanTimer.record(() -> scan(history(storeId), itemCode,
+                StorePriceTable.toMinutes(from), StorePriceTable.toMinutes(to)));
+    }
+
+    /**
+     * Seal the open log of every store into a segment.
+     */
+    @Scheduled(fixedDelayString = "${app.retail-files.price-history.seal-interval:PT1H}",
+            initialDelayString = "${app.retail-files.price-history.seal-interval:PT1H}")
+    public void sealOpenLogs() {
+        if (!enabled || !Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> storeDirs = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path storeDir : storeDirs) {
+                if (!Files.exists(storeDir.resolve(OPEN_LOG))) {
+                    continue;
+                }
+                UUID storeId;
+                try {
+                    storeId = UUID.fromString(storeDir.getFileName().toString());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                try {
+                    seal(storeId);
+                } catch (IOException | UncheckedIOException e) {
+                    logger.error("Failed to seal price history of store {}", storeId, e);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list price history directory {}", dir, e);
+        }
+    }
+
+    /**
+     * Seal the store's open log into a segment, merging the store's segments if there are too many.
+     */
+    void seal(UUID storeId) throws IOException {
+        StoreHistory history = history(storeId);
+        history.lock.lock();
+        try {
+            State state = history.state;
+            List<PriceHistorySegment> segments = new ArrayList<>(state.segments());
+            Path log = history.dir.resolve(OPEN_LOG);
+            if (state.logLength() > 0) {
+                List<Row> rows = new ArrayList<>();
+                readLog(log, state.logLength(), rows::add);
+                PriceHistorySegment segment = PriceHistorySegment.write(history.nextSegmentPath(), rows);
+                if (segment != null) {
+                    segments.add(segment);
+                }
+                rowsSealedCounter.increment(rows.size());
+            }
+            if (segments.size() > maxSegments) {
+                int from = mergeStart(segments);
+                PriceHistorySegment merged = merge(history, segments.subList(from, segments.size()));
+                segments = new ArrayList<>(segments.subList(0, from));
+                segments.add(merged);
+            }
+            history.state = new State(List.copyOf(segments), 0, state.generation() + 1);
+            Files.deleteIfExists(log);
+        } finally {
+            history.lock.unlock();
+        }
+    }
+
+    private StoreHistory history(UUID storeId) {
+        return stores.computeIfAbsent(storeId, this::load);
+    }
+
+    // Index of the oldest segment to merge. The newest segments are always merged, as many as it
+    // takes to get back to max-segments (and at least two); older ones join while no larger than
+    // what is merged so far. Only a run at the end is merged, so segment order stays upload order.
+    private int mergeStart(List<PriceHistorySegment> segments) {
+        int from = segments.size() - Math.max(2, segments.size() - maxSegments + 1);
+        long mergedBytes = 0;
+        for (int i = from; i < segments.size(); i++) {
+            mergedBytes += segments.get(i).sizeBytes();
+        }
+        while (from > 0 && segments.get(from - 1).sizeBytes() <= mergedBytes) {
+            from--;
+            mergedBytes += segments.get(from).sizeBytes();
+        }
+        return from;
+    }
+
+    private PriceHistorySegment merge(StoreHistory history, List<PriceHistorySegment> segments) throws IOException {
+        List<Row> rows = new ArrayList<>();
+        for (PriceHistorySegment segment : segments) {
+            segment.forEachRow(rows::add);
+        }
+        PriceHistorySegment merged = PriceHistorySegment.write(history.nextSegmentPath(), rows);
+        // A crash before the old files are gone leaves duplicate rows, which scans collapse
+        for (PriceHistorySegment segment : segments) {
+            Files.deleteIfExists(segment.path());
+        }
+        logger.info("Merged {} price history segments of store {} into {} rows",
+                segments.size(), history.storeId, merged.rowCount());
+        return merged;
+    }
+
+    private List<PriceHistoryPoint> scan(StoreHistory history, String itemCode, int fromMinute, int toMinute) {
+        while (true) {
+            State state = history.state;
+            List<Row> rows = new ArrayList<>();
+            for (PriceHistorySegment segment : state.segments()) {
+                segment.scan(itemCode, fromMinute, toMinute, rows);
+            }
+            try {
+                if (state.logLength() > 0) {
+                    readLog(history.dir.resolve(OPEN_LOG), state.logLength(), row -> {
+                        if (row.minute() <= toMinute && row.itemCode().equals(itemCode)) {
+                            rows.add(row);
+                        }
+                    });
+                }
+            } catch (NoSuchFileException e) {
+                if (history.state.generation() == state.generation()) {
+                    throw new UncheckedIOException(e);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            // A seal meanwhile deletes the log, and the next append starts a new one, so what was
+            // read may be another log's rows. The sealed rows are in the new state's segments.
+            if (history.state.generation() != state.generation()) {
+                continue;
+            }
+            return toPoints(rows, fromMinute);
+        }
+    }
+
+    // Rows are in segment order, then log order, so later rows win ties
+    private static List<PriceHistoryPoint> toPoints(List<Row> rows, int fromMinute) {
+        rows.sort(Comparator.comparingInt(Row::minute));
+        List<Row> merged = new ArrayList<>();
+        for (Row row : rows) {
+            if (row.minute() < fromMinute) {
+                merged.clear();
+            } else if (!merged.isEmpty() && merged.get(merged.size() - 1).minute() == row.minute()) {
+                merged.remove(merged.size() - 1);
+            }
+            if (!merged.isEmpty() && merged.get(merged.size() - 1).priceThousandths() == row.priceThousandths()) {
+                continue;
+            }
+            merged.add(row);
+        }
+        return merged.stream()
+                .map(row -> new PriceHistoryPoint(StorePriceTable.fromMinutes(row.minute()),
+                        BigDecimal.valueOf(row.priceThousandths(), 3)))
+                .toList();
+    }
+
+    private StoreHistory load(UUID storeId) {
+        Path storeDir = storeDir(storeId);
+        List<PriceHistorySegment> segments = new ArrayList<>();
+        int nextSequence = 0;
+        long logLength = 0;
+        if (Files.isDirectory(storeDir)) {
+            try (Stream<Path> files = Files.list(storeDir)) {
+                for (Path file : files.sorted().toList()) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(".tmp")) {
+                        Files.delete(file);
+                    } else if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                        segments.add(PriceHistorySegment.open(file));
+                        nextSequence = Integer.parseInt(
+                                name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())) + 1;
+                    }
+                }
+                Path log = storeDir.resolve(OPEN_LOG);
+                if (Files.exists(log)) {
+                    logLength = recoverLog(log);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to open price history of store " + storeId, e);
+            }
+        }
+        return new StoreHistory(storeId, storeDir, new State(List.copyOf(segments), logLength, 0), nextSequence);
+    }
+
+    // Cuts a row left half-written by a crash, so appends continue from a row boundary
+    private static long recoverLog(Path log) throws IOException {
+        long[] length = {0};
+        readLog(log, Files.size(log), row -> length[0] += LOG_ROW_BYTES
+                + row.itemCode().getBytes(StandardCharsets.UTF_8).length);
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            channel.truncate(length[0]);
+        }
+        return length[0];
+    }
+
+    private static void readLog(Path log, long length, Consumer<Row> action) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(length, channel.size()));
+        }
+        while (buffer.remaining() >= Short.BYTES) {
+            int codeLength = Short.toUnsignedInt(buffer.getShort());
+            if (buffer.remaining() < codeLength + Integer.BYTES + Long.BYTES) {
+                break;
+            }
+            byte[] code = new byte[codeLength];
+            buffer.get(code);
+            action.accept(new Row(new String(code, StandardCharsets.UTF_8), buffer.getInt(), buffer.getLong()));
+        }
+    }
+
+    private Path storeDir(UUID storeId) {
+        return dir.resolve(storeId.toString());
+    }
+
+    private long segmentBytes() {
+        long bytes = 0;
+        for (StoreHistory history : stores.values()) {
+            for (PriceHistorySegment segment : history.state.segments()) {
+                bytes += segment.sizeBytes();
+            }
+        }
+        return bytes;
+    }
+
+    // What scans may read: the sealed segments and the committed prefix of the open log. The
+    // generation changes on every seal, and with it the log the length refers to.
+    private record State(List<PriceHistorySegment> segments, long logLength, long generation) {
+    }
+
+    private static final class StoreHistory {
+
+        private final UUID storeId;
+        private final Path dir;
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile State state;
+        private int nextSequence;
+
+        private StoreHistory(UUID storeId, Path dir, State state, int nextSequence) {
+            this.storeId = storeId;
+            this.dir = dir;
+            this.state = state;
+            this.nextSequence = nextSequence;
+        }
+
+        // Only called with the lock held
+        private Path nextSegmentPath() {
+            return dir.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+        }
+    }
+
+    /**
+     * Appends one price file's items to a store's open log.
+     */
+    public final class Appender implements AutoCloseable {
+
+        private final StoreHistory history;
+        private final LocalDateTime fileDate;
+        private FileChannel channel;
+        private ByteBuffer buffer;
+        private long length;
+        private boolean committed;
+
+        private Appender(StoreHistory history, LocalDateTime fileDate) {
+            this.history = history;
+            this.fileDate = fileDate;
+        }
+
+        public void add(PriceItemRecord item) {
+            if (history == null || item.itemPrice() == null) {
+                return;
+            }
+            byte[] code = item.itemCode().getBytes(StandardCharsets.UTF_8);
+            if (code.length > MAX_CODE_BYTES) {
+                return;
+            }
+            try {
+                if (channel == null) {
+                    open();
+                }
+                if (buffer.remaining() < LOG_ROW_BYTES + code.length) {
+                    flush();
+                }
+                LocalDateTime priceUpdateDate = item.priceUpdateDate() != null ? item.priceUpdateDate() : fileDate;
+                buffer.putShort((short) code.length)
+                        .put(code)
+                        .putInt(StorePriceTable.toMinutes(priceUpdateDate))
+                        .putLong(LatestPriceIndex.toThousandths(item.itemPrice()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Make the appended rows durable and visible to scans.
+         */
+        public void commit() {
+            if (history == null || channel == null) {
+                committed = true;
+                return;
+            }
+            try {
+                flush();
+                channel.force(false);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            history.state = new State(history.state.segments(), length, history.state.generation());
+            committed = true;
+        }
+
+        @Override
+        public void close() {
+            if (history == null) {
+                return;
+            }
+            try {
+                if (channel != null) {
+                    if (!committed) {
+                        channel.truncate(history.state.logLength());
+                    }
+                    channel.close();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                history.lock.unlock();
+            }
+        }
+
+        private void open() throws IOException {
+            Files.createDirectories(history.dir);
+            channel = FileChannel.open(history.dir.resolve(OPEN_LOG), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            length = history.state.logLength();
+            channel.position(length);
+            buffer = ByteBuffer.allocate(LOG_BUFFER_BYTES);
+        }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                length += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
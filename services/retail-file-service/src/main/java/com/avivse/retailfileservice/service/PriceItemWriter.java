@@ -0,0 +1,142 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.parser.PriceItemRecord;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Writes price items as JDBC batch upserts, bypassing the entity manager so a file's items
+ * never sit in the persistence context. A price already stored under the same
+ * (store_id, item_code, price_update_date) key is overwritten, which makes re-ingesting a
+ * file safe. Each call commits on its own, so a large file is persisted in bounded chunks.
+ */
+@Component
+public class PriceItemWriter {
+
+    private static final String COLUMNS = "store_id, item_code, price_update_date, retail_file_id, item_type, "
+            + "item_name, manufacturer_name, manufacture_country, unit_qty, quantity, unit_of_measure, weighted, "
+            + "qty_in_package, item_price, unit_of_measure_price, allow_discount, item_status, removed";
+
+    private static final String PARAMETERS = "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?";
+
+    // Item parameters left null on removal rows, with their SQL types
+    private static final int[][] NULLABLE_ITEM_PARAMETERS = {
+            {5, Types.INTEGER}, {6, Types.VARCHAR}, {7, Types.VARCHAR}, {8, Types.VARCHAR}, {9, Types.VARCHAR},
+            {10, Types.DECIMAL}, {11, Types.VARCHAR}, {13, Types.DECIMAL}, {14, Types.DECIMAL},
+            {15, Types.DECIMAL}, {17, Types.INTEGER}
+    };
+
+    // Column limits of price_items
+    private static final int MAX_ITEM_CODE_LENGTH = 50;
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final int MAX_COUNTRY_LENGTH = 100;
+    private static final int MAX_UNIT_LENGTH = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String upsertSql;
+
+    public PriceItemWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.upsertSql = upsertSql(jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName()));
+    }
+
+    /**
+     * Upsert one chunk of a file's items for a store. Items without a price update date are
+     * stored under defaultPriceUpdateDate. Returns the number of rows written.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int write(UUID retailFileId, UUID storeId, LocalDateTime defaultPriceUpdateDate,
+                     List<PriceItemRecord> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+        Timestamp defaultTimestamp = Timestamp.valueOf(defaultPriceUpdateDate);
+        jdbcTemplate.batchUpdate(upsertSql, items, items.size(),
+                (ps, item) -> bind(ps, retailFileId, storeId, defaultTimestamp, item));
+        return items.size();
+    }
+
+    private static void bind(PreparedStatement ps, UUID retailFileId, UUID storeId, Timestamp defaultTimestamp,
+                             PriceItemRecord item) throws SQLException {
+        ps.setObject(1, storeId);
+        ps.setString(2, truncate(item.itemCode(), MAX_ITEM_CODE_LENGTH));
+        ps.setTimestamp(3, item.priceUpdateDate() != null ? Timestamp.valueOf(item.priceUpdateDate()) : defaultTimestamp);
+        ps.setObject(4, retailFileId);
+        ps.setObject(5, item.itemType(), Types.INTEGER);
+        ps.setString(6, truncate(item.itemName(), MAX_NAME_LENGTH));
+        ps.setString(7, truncate(item.manufacturerName(), MAX_NAME_LENGTH));
+        ps.setString(8, truncate(item.manufactureCountry(), MAX_COUNTRY_LENGTH));
+        ps.setString(9, truncate(item.unitQty(), MAX_UNIT_LENGTH));
+        ps.setBigDecimal(10, item.quantity());
+        ps.setString(11, truncate(item.unitOfMeasure(), MAX_UNIT_LENGTH));
+        ps.setBoolean(12, item.weighted());
+        ps.setBigDecimal(13, item.qtyInPackage());
+        ps.setBigDecimal(14, item.itemPrice());
+        ps.setBigDecimal(15, item.unitOfMeasurePrice());
+        ps.setBoolean(16, item.allowDiscount());
+        ps.setObject(17, item.itemStatus(), Types.INTEGER);
+        ps.setBoolean(18, false);
+    }
+
+    /**
+     * Record that items are no longer sold at a store, as rows flagged removed at the given
+     * date with no price. That date is the removing file's upload date, not a store price
+     * update date, so readers find an item's latest row by its file's upload date. Returns the
+     * number of rows written.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int writeRemovals(UUID retailFileId, UUID storeId, LocalDateTime removedAt, List<String> itemCodes) {
+        if (itemCodes.isEmpty()) {
+            return 0;
+        }
+        Timestamp removedTimestamp = Timestamp.valueOf(removedAt);
+        jdbcTemplate.batchUpdate(upsertSql, itemCodes, itemCodes.size(), (ps, itemCode) -> {
+            ps.setObject(1, storeId);
+            ps.setString(2, itemCode);
+            ps.setTimestamp(3, removedTimestamp);
+            ps.setObject(4, retailFileId);
+            for (int[] parameter : NULLABLE_ITEM_PARAMETERS) {
+                ps.setNull(parameter[0], parameter[1]);
+            }
+            ps.setBoolean(12, false);
+            ps.setBoolean(16, false);
+            ps.setBoolean(18, true);
+        });
+        return itemCodes.size();
+    }
+
+    // H2 (development and tests) has MERGE ... KEY; PostgreSQL has INSERT ... ON CONFLICT
+    static String upsertSql(String databaseProductName) {
+        if (databaseProductName.toLowerCase(Locale.ROOT).contains("postgres")) {
+            return "INSERT INTO price_items (" + COLUMNS + ") VALUES (" + PARAMETERS + ") "
+                    + "ON CONFLICT (store_id, item_code, price_update_date) DO UPDATE SET "
+                    + "retail_file_id = EXCLUDED.retail_file_id, item_type = EXCLUDED.item_type, "
+                    + "item_name = EXCLUDED.item_name, manufacturer_name = EXCLUDED.manufacturer_name, "
+                    + "manufacture_country = EXCLUDED.manufacture_country, unit_qty = EXCLUDED.unit_qty, "
+                    + "quantity = EXCLUDED.quantity, unit_of_measure = EXCLUDED.unit_of_measure, "
+                    + "weighted = EXCLUDED.weighted, qty_in_package = EXCLUDED.qty_in_package, "
+                    + "item_price = EXCLUDED.item_price, unit_of_measure_price = EXCLUDED.unit_of_measure_price, "
+                    + "allow_discount = EXCLUDED.allow_discount, item_status = EXCLUDED.item_status, "
+                    + "removed = EXCLUDED.removed";
+        }
+        return "MERGE INTO price_items (" + COLUMNS + ") KEY (store_id, item_code, price_update_date) "
+                + "VALUES (" + PARAMETERS + ")";
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -0,0 +1,141 @@
+package com.avivse.retailfileservice.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Latest known price hash of every item at one store. Numeric item codes are packed by
+ * {@link ItemCodes}, so an entry costs 12 bytes in open-addressing arrays instead of a String,
+ * a boxed Long and a map entry. Other codes fall back to a regular map.
+ * <p>
+ * Not thread-safe: callers hold {@link #lock()} while reading or changing a snapshot.
+ */
+public class PriceSnapshot {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final long EMPTY = ItemCodes.NOT_PACKED;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long[] keys;
+    private int[] hashes;
+    private int packedSize;
+    private final Map<String, Integer> otherCodes = new HashMap<>();
+
+    // Upload date of the last file applied, or null when loaded from the database
+    private LocalDateTime asOf;
+
+    public PriceSnapshot(int expectedItems) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedItems / LOAD_FACTOR)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.hashes = new int[capacity];
+    }
+
+    public ReentrantLock lock() {
+        return lock;
+    }
+
+    public LocalDateTime asOf() {
+        return asOf;
+    }
+
+    public void setAsOf(LocalDateTime asOf) {
+        this.asOf = asOf;
+    }
+
+    public int size() {
+        return packedSize + otherCodes.size();
+    }
+
+    public boolean contains(String itemCode) {
+        long packed = ItemCodes.pack(itemCode);
+        if (packed == EMPTY) {
+            return otherCodes.containsKey(itemCode);
+        }
+        return keys[slot(packed)] == packed;
+    }
+
+    /**
+     * Price hash of the item; only meaningful when {@link #contains(String)} is true.
+     */
+    public int get(String itemCode) {
+        long packed = ItemCodes.pack(itemCode);
+        if (packed == EMPTY) {
+            return otherCodes.getOrDefault(itemCode, 0);
+        }
+        return hashes[slot(packed)];
+    }
+
+    public void put(String itemCode, int priceHash) {
+        long packed = ItemCodes.pack(itemCode);
+        if (packed == EMPTY) {
+            otherCodes.put(itemCode, priceHash);
+            return;
+        }
+        int slot = slot(packed);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = packed;
+            packedSize++;
+        }
+        hashes[slot] = priceHash;
+        if (packedSize > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    public void forEachItemCode(Consumer<String> action) {
+        for (long key : keys) {
+            if (key != EMPTY) {
+                action.accept(ItemCodes.unpack(key));
+            }
+        }
+        otherCodes.keySet().forEach(action);
+    }
+
+    /**
+     * Hash of the fields that make up an item's price. Amounts are compared at the scale they
+     * are stored with, so 5.9 read from a file matches 5.900 read back from the database.
+     */
+    public static int priceHash(BigDecimal itemPrice, BigDecimal unitOfMeasurePrice,
+                                Integer itemStatus, boolean allowDiscount) {
+        int hash = 17;
+        hash = 31 * hash + amountHash(itemPrice);
+        hash = 31 * hash + amountHash(unitOfMeasurePrice);
+        hash = 31 * hash + (itemStatus != null ? itemStatus : -1);
+        hash = 31 * hash + (allowDiscount ? 1 : 0);
+        return hash;
+    }
+
+    private static int amountHash(BigDecimal amount) {
+        return amount != null ? amount.setScale(3, RoundingMode.HALF_UP).hashCode() : 0;
+    }
+
+    // Linear probing; returns the key's slot or the empty slot where it would go
+    private int slot(long packed) {
+        int mask = keys.length - 1;
+        int slot = ItemCodes.mix(packed) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != packed) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        keys = new long[oldKeys.length * 2];
+        hashes = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.avivse.retailfileservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+/**
+ * Bounded cache of per-store price snapshots for incremental ingestion. A store missing
+ * from the cache is rebuilt from the row of each of its items read from the most recently
+ * uploaded file, skipping items whose row marks them removed.
+ */
+@Component
+public class PriceSnapshotStore {
+
+    // Rows of the most recently uploaded file first within each item, so the first row seen per
+    // item code wins. Removal rows are dated by upload date and price rows by the store's own
+    // price update date, so the two dates can't be compared with each other.
+    private static final String LATEST_PRICES_SQL = "SELECT pi.item_code, pi.item_price, pi.unit_of_measure_price, "
+            + "pi.item_status, pi.allow_discount, pi.removed FROM price_items pi "
+            + "JOIN retail_files rf ON rf.id = pi.retail_file_id WHERE pi.store_id = ? "
+            + "ORDER BY pi.item_code, rf.upload_date DESC, pi.price_update_date DESC";
+
+    private static final int EXPECTED_ITEMS_PER_STORE = 32768;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Cache<UUID, PriceSnapshot> cache;
+
+    public PriceSnapshotStore(JdbcTemplate jdbcTemplate,
+                              @Value("${app.retail-files.price-items.diff.max-stores:1000}") long maxStores,
+                              MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxStores)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "price_snapshot_cache");
+    }
+
+    /**
+     * Returns the store's snapshot with its lock held. If the snapshot was replaced or
+     * invalidated while waiting for the lock, the current one is locked instead.
+     */
+    public PriceSnapshot lock(UUID storeId) {
+        while (true) {
+            PriceSnapshot snapshot = cache.get(storeId, this::load);
+            snapshot.lock().lock();
+            if (cache.getIfPresent(storeId) == snapshot) {
+                return snapshot;
+            }
+            snapshot.lock().unlock();
+        }
+    }
+
+    public void put(UUID storeId, PriceSnapshot snapshot) {
+        cache.put(storeId, snapshot);
+    }
+
+    public void invalidate(UUID storeId) {
+        cache.invalidate(storeId);
+    }
+
+    private PriceSnapshot load(UUID storeId) {
+        PriceSnapshot snapshot = new PriceSnapshot(EXPECTED_ITEMS_PER_STORE);
+        String[] lastItemCode = {null};
+        jdbcTemplate.query(LATEST_PRICES_SQL, rs -> {
+            String itemCode = rs.getString("item_code");
+            if (itemCode.equals(lastItemCode[0])) {
+                return;
+            }
+            lastItemCode[0] = itemCode;
+            if (!rs.getBoolean("removed")) {
+                Integer itemStatus = rs.getObject("item_status", Integer.class);
+                snapshot.put(itemCode, PriceSnapshot.priceHash(rs.getBigDecimal("item_price"),
+                        rs.getBigDecimal("unit_of_measure_price"), itemStatus, rs.getBoolean("allow_discount")));
+            }
+        }, storeId);
+        return snapshot;
+    }
+}
@@ -0,0 +1,105 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.client.AsyncStoreServiceClient;
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.exception.FileParseException;
+import com.avivse.retailfileservice.parser.PromoFileParser;
+import com.avivse.retailfileservice.parser.PromoFileReader;
+import com.avivse.retailfileservice.parser.PromotionBatch;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists the promotions of a PromoFull/Promo file. The file is read in batches of
+ * promo-batch-size records and each batch is handed to {@link PromotionWriter} before the next
+ * is read, so memory use is bounded by one batch, not the file.
+ * <p>
+ * Promotions are upserted by store and promotion ID. A PromoFull file does not end promotions
+ * missing from it; a promotion's end date does.
+ */
+@Service
+public class PromoFileIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PromoFileIngestService.class);
+
+    private final PromoFileParser promoFileParser;
+    private final PromotionWriter promotionWriter;
+    private final AsyncStoreServiceClient storeServiceClient;
+    private final Counter rowsWrittenCounter;
+    private final Timer ingestTimer;
+
+    public PromoFileIngestService(PromoFileParser promoFileParser,
+                                  PromotionWriter promotionWriter,
+                                  AsyncStoreServiceClient storeServiceClient,
+                                  MeterRegistry meterRegistry) {
+        this.promoFileParser = promoFileParser;
+        this.promotionWriter = promotionWriter;
+        this.storeServiceClient = storeServiceClient;
+
+        this.rowsWrittenCounter = Counter.builder("promotion_rows_written_total")
+                .description("Total number of promotion and promotion item rows written from promo files")
+                .register(meterRegistry);
+
+        this.ingestTimer = Timer.builder("promo_file_ingest_duration")
+                .description("Time taken to parse and persist the promotions of a promo file")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Persist the file's promotions and their items and return how many rows were written.
+     */
+    public long ingest(RetailFile file, Path content) throws IOException {
+        long start = System.nanoTime();
+        long written = 0;
+        long promotions;
+        long skipped;
+        try (PromoFileReader reader = promoFileParser.open(content)) {
+            UUID storeId = null;
+            PromotionBatch batch;
+            while ((batch = reader.nextBatch()) != null) {
+                // The header precedes the promotions, so it has been read with the first batch
+                if (storeId == null) {
+                    storeId = resolveStoreId(file, reader);
+                }
+                written += promotionWriter.write(file.getId(), storeId, batch);
+                rowsWrittenCounter.increment(batch.size());
+            }
+            promotions = reader.promotionsRead();
+            skipped = reader.itemsSkipped();
+        } finally {
+            ingestTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        logger.info("Ingested promo file {}: {} promotions, {} rows written, {} items skipped",
+                file.getId(), promotions, written, skipped);
+        return written;
+    }
+
+    // The store recorded on the file wins; otherwise the file header names it
+    private UUID resolveStoreId(RetailFile file, PromoFileReader reader) {
+        if (file.getStoreId() != null) {
+            return file.getStoreId();
+        }
+        if (reader.chainId() == null || reader.storeId() == null) {
+            throw new FileParseException("Promo file " + file.getFileName() + " does not identify its store");
+        }
+        try {
+            return storeServiceClient.getOrCreateStoreId(reader.chainId(), reader.storeId()).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.parser.PromotionBatch;
+import com.avivse.retailfileservice.parser.PromotionItemRecord;
+import com.avivse.retailfileservice.parser.PromotionRecord;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Writes promotions and their items as JDBC batch upserts, like {@link PriceItemWriter}.
+ * A promotion is keyed by (store_id, promotion_id) and an item by (store_id, promotion_id,
+ * item_code), so a later file overwrites what an earlier one stored and re-ingesting a file
+ * is safe. Each call commits on its own, so a large file is persisted in bounded chunks.
+ */
+@Component
+public class PromotionWriter {
+
+    private static final String PROMOTION_COLUMNS = "store_id, promotion_id, retail_file_id, description, "
+            + "update_date, start_date, end_date, reward_type, discount_type, min_qty, max_qty, discount_rate, "
+            + "discounted_price, discounted_price_per_mida, allow_multiple_discounts, club_id, item_count";
+
+    private static final String PROMOTION_PARAMETERS = "?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?";
+
+    private static final String ITEM_COLUMNS = "store_id, promotion_id, item_code, retail_file_id, item_type, gift_item";
+
+    private static final String ITEM_PARAMETERS = "?, ?, ?, ?, ?, ?";
+
+    // Column limits of promotions and promotion_items
+    private static final int MAX_ID_LENGTH = 50;
+    private static final int MAX_DESCRIPTION_LENGTH = 255;
+    private static final int MAX_TYPE_LENGTH = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String promotionUpsertSql;
+    private final String itemUpsertSql;
+
+    public PromotionWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        String databaseProductName = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        this.promotionUpsertSql = upsertSql(databaseProductName, "promotions", PROMOTION_COLUMNS,
+                PROMOTION_PARAMETERS, List.of("store_id", "promotion_id"));
+        this.itemUpsertSql = upsertSql(databaseProductName, "promotion_items", ITEM_COLUMNS,
+                ITEM_PARAMETERS, List.of("store_id", "promotion_id", "item_code"));
+    }
+
+    /**
+     * Upsert one batch of a file's promotions and promotion items for a store, in one
+     * transaction. Returns the number of rows written.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int write(UUID retailFileId, UUID storeId, PromotionBatch batch) {
+        List<PromotionRecord> promotions = batch.promotions();
+        if (!promotions.isEmpty()) {
+            jdbcTemplate.batchUpdate(promotionUpsertSql, promotions, promotions.size(), (ps, promotion) -> {
+                ps.setObject(1, storeId);
+                ps.setString(2, truncate(promotion.promotionId(), MAX_ID_LENGTH));
+                ps.setObject(3, retailFileId);
+                ps.setString(4, truncate(promotion.description(), MAX_DESCRIPTION_LENGTH));
+                ps.setTimestamp(5, timestamp(promotion.updateDate()));
+                ps.setTimestamp(6, timestamp(promotion.startDate()));
+                ps.setTimestamp(7, timestamp(promotion.endDate()));
+                ps.setString(8, truncate(promotion.rewardType(), MAX_TYPE_LENGTH));
+                ps.setString(9, truncate(promotion.discountType(), MAX_TYPE_LENGTH));
+                ps.setBigDecimal(10, promotion.minQty());
+                ps.setBigDecimal(11, promotion.maxQty());
+                ps.setBigDecimal(12, promotion.discountRate());
+                ps.setBigDecimal(13, promotion.discountedPrice());
+                ps.setBigDecimal(14, promotion.discountedPricePerMida());
+                ps.setBoolean(15, promotion.allowMultipleDiscounts());
+                ps.setString(16, truncate(promotion.clubId(), MAX_ID_LENGTH));
+                ps.setInt(17, promotion.itemCount());
+            });
+        }
+
+        List<PromotionItemRecord> items = batch.items();
+        if (!items.isEmpty()) {
+            jdbcTemplate.batchUpdate(itemUpsertSql, items, items.size(), (ps, item) -> {
+                ps.setObject(1, storeId);
+                ps.setString(2, truncate(item.promotionId(), MAX_ID_LENGTH));
+                ps.setString(3, truncate(item.itemCode(), MAX_ID_LENGTH));
+                ps.setObject(4, retailFileId);
+                ps.setObject(5, item.itemType(), Types.INTEGER);
+                ps.setBoolean(6, item.giftItem());
+            });
+        }
+        return batch.size();
+    }
+
+    // H2 (development and tests) has MERGE ... KEY; PostgreSQL has INSERT ... ON CONFLICT
+    static String upsertSql(String databaseProductName, String table, String columns, String parameters,
+                            List<String> key) {
+        if (databaseProductName.toLowerCase(Locale.ROOT).contains("postgres")) {
+            StringBuilder updates = new StringBuilder();
+            for (String column : columns.split(", ")) {
+                if (!key.contains(column)) {
+                    updates.append(updates.isEmpty() ? "" : ", ").append(column).append(" = EXCLUDED.").append(column);
+                }
+            }
+            return "INSERT INTO " + table + " (" + columns + ") VALUES (" + parameters + ") "
+                    + "ON CONFLICT (" + String.join(", ", key) + ") DO UPDATE SET " + updates;
+        }
+        return "MERGE INTO " + table + " (" + columns + ") KEY (" + String.join(", ", key) + ") "
+                + "VALUES (" + parameters + ")";
+    }
+
+    private static Timestamp timestamp(LocalDateTime dateTime) {
+        return dateTime != null ? Timestamp.valueOf(dateTime) : null;
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -0,0 +1,283 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.client.ChecksummingFileSubscriber;
+import com.avivse.retailfileservice.client.DownloadedContent;
+import com.avivse.retailfileservice.client.HostThrottle;
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import com.avivse.retailfileservice.exception.FileFetchException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Downloads the content of PENDING retail files. Files are claimed through the work queue,
+ * streamed straight to local disk and checksummed on the way, then recorded with their real
+ * size and handed to ingestion, still PROCESSING under their lease, or marked DUPLICATE when
+ * the same content was already fetched. At most max-concurrent downloads run at once, and each host gets its own
+ * concurrency and rate limit.
+ * <p>
+ * Downloads are the fetch stage of the ingestion pipeline. A downloaded file is queued on
+ * {@link RetailFileIngestService}'s parse stage once its host slot has been released; while
+ * that queue is full the download thread waits, so no new files are claimed.
+ */
+@Component
+@ConditionalOnProperty(name = "app.retail-files.fetch.enabled", havingValue = "true")
+public class RetailFileFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetailFileFetcher.class);
+
+    // One digest per download thread, reset for every file
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 algorithm not available", e);
+        }
+    });
+
+    private final RetailFileQueueService retailFileQueueService;
+    private final RetailFileIngestService retailFileIngestService;
+    private final HttpClient httpClient;
+    private final HostThrottle hostThrottle;
+    private final PipelineStage fetchStage;
+    private final Path storageDir;
+    private final String workerId;
+    private final int maxConcurrent;
+    private final Duration requestTimeout;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private final Counter fetchedCounter;
+    private final Counter failedCounter;
+    private final Counter duplicateCounter;
+    private final Counter bytesCounter;
+    private final Timer fetchTimer;
+    private final Timer throttleWaitTimer;
+
+    @Autowired
+    public RetailFileFetcher(RetailFileQueueService retailFileQueueService,
+                             RetailFileIngestService retailFileIngestService,
+                             @Value("${app.retail-files.fetch.storage-dir:${java.io.tmpdir}/retail-files}") Path storageDir,
+                             @Value("${app.retail-files.fetch.worker-id:}") String workerId,
+                             @Value("${app.retail-files.fetch.max-concurrent:16}") int maxConcurrent,
+                             @Value("${app.retail-files.fetch.max-concurrent-per-host:2}") int maxConcurrentPerHost,
+                             @Value("${app.retail-files.fetch.requests-per-second-per-host:1.0}") double requestsPerSecondPerHost,
+                             @Value("${app.retail-files.fetch.connect-timeout:10s}") Duration connectTimeout,
+                             @Value("${app.retail-files.fetch.request-timeout:2m}") Duration requestTimeout,
+                             @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                             MeterRegistry meterRegistry) {
+        this.retailFileQueueService = retailFileQueueService;
+        this.retailFileIngestService = retailFileIngestService;
+        this.storageDir = storageDir;
+        this.workerId = workerId.isBlank() ? defaultWorkerId() : workerId;
+        this.maxConcurrent = maxConcurrent;
+        this.requestTimeout = requestTimeout;
+        this.hostThrottle = new HostThrottle(maxConcurrentPerHost, requestsPerSecondPerHost);
+        this.fetchStage = new PipelineStage("fetch", maxConcurrent, 0, virtualThreads, meterRegistry);
+        HttpClient.Builder httpClientBuilder = HttpClient.newBuilder()
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL);
+        if (virtualThreads) {
+            // The client's own executor delivers response bodies; by default it is a cached platform pool
+            httpClientBuilder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        this.httpClient = httpClientBuilder.build();
+
+        this.fetchedCounter = Counter.builder("retail_files_fetched_total")
+                .description("Total number of retail files downloaded successfully")
+                .register(meterRegistry);
+
+        this.failedCounter = Counter.builder("retail_files_fetch_failures_total")
+                .description("Total number of failed retail file downloads")
+                .register(meterRegistry);
+
+        this.duplicateCounter = Counter.builder("retail_files_fetch_duplicates_total")
+                .description("Total number of downloads whose content matched an existing file")
+                .register(meterRegistry);
+
+        this.bytesCounter = Counter.builder("retail_files_fetched_bytes_total")
+                .description("Total number of bytes downloaded")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
+        this.fetchTimer = Timer.builder("retail_files_fetch_duration")
+                .description("Time taken to download a retail file, excluding throttling")
+                .register(meterRegistry);
+
+        this.throttleWaitTimer = Timer.builder("retail_files_fetch_throttle_wait")
+                .description("Time downloads waited for a per-host concurrency or rate limit slot")
+                .register(meterRegistry);
+
+        Gauge.builder("retail_files_fetch_in_flight", inFlight, AtomicInteger::get)
+                .description("Retail file downloads currently in flight")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claim as many PENDING files as there are free download slots and start fetching them.
+     */
+    @Scheduled(fixedDelayString = "${app.retail-files.fetch.interval:PT10S}")
+    public void fetchPending() {
+        int capacity = maxConcurrent - inFlight.get();
+        if (capacity <= 0) {
+            return;
+        }
+
+        List<RetailFile> claimed = retailFileQueueService.claimBatch(workerId, capacity);
+        for (RetailFile file : claimed) {
+            inFlight.incrementAndGet();
+            try {
+                fetchStage.submit(() -> {
+                    try {
+                        fetch(file);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            } catch (InterruptedException e) {
+                // Shutting down; the reaper returns unfetched claims to the queue
+                inFlight.decrementAndGet();
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Download one claimed file and record the outcome in the queue.
+     */
+    void fetch(RetailFile file) {
+        URI uri = URI.create(file.getFileUrl());
+        Path target = storageDir.resolve(file.getId() + "-" + Path.of(file.getFileName()).getFileName());
+
+        try {
+            FileProcessingStatus status;
+            long waitStart = System.nanoTime();
+            try (HostThrottle.Permit ignored = hostThrottle.acquire(uri.getHost())) {
+                throttleWaitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+                // The wait behind other files for this host can outlast the lease taken at claim time
+                if (!retailFileQueueService.renewLease(file.getId(), workerId)) {
+                    logger.warn("Lease on retail file {} was lost while waiting for host {}, skipping it",
+                            file.getId(), uri.getHost());
+                    return;
+                }
+                DownloadedContent content = fetchTimer.recordCallable(() -> download(uri, target));
+                bytesCounter.increment(content.size());
+
+                status = completeFetch(file, target, content);
+                if (status == FileProcessingStatus.PROCESSING) {
+                    fetchedCounter.increment();
+                } else if (status == FileProcessingStatus.DUPLICATE) {
+                    duplicateCounter.increment();
+                    Files.deleteIfExists(target);
+                } else {
+                    logger.warn("Lease on retail file {} was lost during download, discarding it", file.getId());
+                    Files.deleteIfExists(target);
+                }
+            }
+            if (status == FileProcessingStatus.PROCESSING) {
+                retailFileIngestService.submit(file, target, workerId);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            recordFailure(file, e);
+        } catch (Exception e) {
+            recordFailure(file, e);
+        }
+    }
+
+    // The duplicate check in completeFetch can race with another file committing the same
+    // checksum; the unique constraint then rejects the commit and the file is a duplicate
+    private FileProcessingStatus completeFetch(RetailFile file, Path target, DownloadedContent content) {
+        try {
+            return retailFileQueueService.completeFetch(
+                    file.getId(), workerId, target.toString(), content.size(), content.checksum());
+        } catch (DataIntegrityViolationException e) {
+            if (!RetailFileService.isChecksumConflict(e)) {
+                throw e;
+            }
+            return retailFileQueueService.completeFetchAsDuplicate(file.getId(), workerId, content.size());
+        }
+    }
+
+    // Stream the body to a temporary file next to the target, then move it into place
+    private DownloadedContent download(URI uri, Path target) throws IOException, InterruptedException {
+        Files.createDirectories(target.getParent());
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        MessageDigest digest = SHA_256.get();
+
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .timeout(requestTimeout)
+                .GET()
+                .build();
+
+        try {
+            // Error bodies are discarded instead of being written to disk
+            HttpResponse<DownloadedContent> response = httpClient.send(request, responseInfo ->
+                    responseInfo.statusCode() / 100 == 2
+                            ? new ChecksummingFileSubscriber(partial, digest)
+                            : HttpResponse.BodySubscribers.replacing(null));
+
+            if (response.statusCode() / 100 != 2) {
+                throw FileFetchException.forStatus(uri.toString(), response.statusCode());
+            }
+
+            Files.move(partial, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return response.body();
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    // Unique per node and per run, so leases from another node or an earlier run are never mistaken for ours
+    private static String defaultWorkerId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "fetcher";
+        }
+        return host + "-" + UUID.randomUUID();
+    }
+
+    private void recordFailure(RetailFile file, Exception e) {
+        failedCounter.increment();
+        FileProcessingStatus status = retailFileQueueService.failAttempt(file.getId(), workerId);
+        logger.warn("Failed to fetch retail file {} from {}, file is now {}",
+                file.getId(), file.getFileUrl(), status, e);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        fetchStage.shutdown();
+    }
+}
@@ -0,0 +1,129 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.RetailFileKind;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Applies the content of a fetched retail file, choosing the reader by the kind of file.
+ * The file is still PROCESSING under the fetching worker's lease: it becomes COMPLETED once
+ * its content has been applied, or FAILED if that can't be done.
+ * <p>
+ * Files submitted by the fetcher are ingested on the pipeline's parse stage, where they are
+ * decompressed, parsed and diffed; price items then go on to {@link PriceFileIngestService}'s
+ * write stage, while promotions are written batch by batch by {@link PromoFileIngestService}.
+ * <p>
+ * On shutdown the parse stage is given drain-timeout to finish its queue. A file that could not
+ * be queued, was still queued or was cut short keeps its lease, and the lease reaper returns it
+ * to PENDING to be fetched and ingested again.
+ */
+@Service
+public class RetailFileIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetailFileIngestService.class);
+
+    private final StoresFileIngestService storesFileIngestService;
+    private final PriceFileIngestService priceFileIngestService;
+    private final PromoFileIngestService promoFileIngestService;
+    private final RetailFileQueueService retailFileQueueService;
+    private final PipelineStage parseStage;
+    private final Duration drainTimeout;
+    private final Counter ingestFailuresCounter;
+    private volatile boolean shuttingDown;
+
+    public RetailFileIngestService(StoresFileIngestService storesFileIngestService,
+                                   PriceFileIngestService priceFileIngestService,
+                                   PromoFileIngestService promoFileIngestService,
+                                   RetailFileQueueService retailFileQueueService,
+                                   @Value("${app.retail-files.pipeline.parse.concurrency:4}") int parseConcurrency,
+                                   @Value("${app.retail-files.pipeline.parse.queue-capacity:8}") int parseQueueCapacity,
+                                   @Value("${app.retail-files.pipeline.parse.drain-timeout:30s}") Duration drainTimeout,
+                                   @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads,
+                                   MeterRegistry meterRegistry) {
+        this.storesFileIngestService = storesFileIngestService;
+        this.priceFileIngestService = priceFileIngestService;
+        this.promoFileIngestService = promoFileIngestService;
+        this.retailFileQueueService = retailFileQueueService;
+        this.parseStage = new PipelineStage("parse", parseConcurrency, parseQueueCapacity, virtualThreads,
+                meterRegistry);
+        this.drainTimeout = drainTimeout;
+
+        this.ingestFailuresCounter = Counter.builder("retail_files_ingest_failures_total")
+                .description("Total number of fetched files whose content could not be applied")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Queue a file leased by workerId on the parse stage, waiting while the stage is full.
+     */
+    public void submit(RetailFile file, Path content, String workerId) {
+        try {
+            parseStage.submit(() -> ingest(file, content, workerId)).whenComplete((ignored, error) -> {
+                if (error instanceof CancellationException) {
+                    leaveToReaper(file, "was still queued for ingestion at shutdown");
+                }
+            });
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            leaveToReaper(file, "could not be queued for ingestion before an interrupt");
+        } catch (RejectedExecutionException e) {
+            leaveToReaper(file, "could not be queued for ingestion during shutdown");
+        }
+    }
+
+    /**
+     * Apply the content of a file leased by workerId, then mark it COMPLETED or FAILED.
+     */
+    public void ingest(RetailFile file, Path content, String workerId) {
+        // Time spent queued behind other files comes out of the lease renewed at fetch
+        if (!retailFileQueueService.renewLease(file.getId(), workerId)) {
+            logger.warn("Lease on retail file {} was lost before ingestion, skipping it", file.getId());
+            return;
+        }
+
+        RetailFileKind kind = RetailFileKind.fromFileName(file.getFileName());
+        try {
+            switch (kind) {
+                case STORES -> storesFileIngestService.ingest(content);
+                case PRICE_FULL, PRICE -> priceFileIngestService.ingest(file, content);
+                case PROMO_FULL, PROMO -> promoFileIngestService.ingest(file, content);
+                default -> logger.warn("No ingestion for {} file {}", kind, file.getId());
+            }
+        } catch (Exception e) {
+            if (shuttingDown) {
+                leaveToReaper(file, "was interrupted by shutdown");
+                return;
+            }
+            ingestFailuresCounter.increment();
+            logger.error("Failed to ingest {} file {}", kind, file.getId(), e);
+            retailFileQueueService.failIngest(file.getId(), workerId);
+            return;
+        }
+
+        if (retailFileQueueService.completeIngest(file.getId(), workerId) == null) {
+            logger.warn("Lease on retail file {} was lost during ingestion; it will be fetched and ingested again",
+                    file.getId());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        shuttingDown = true;
+        parseStage.shutdown(drainTimeout);
+    }
+
+    private void leaveToReaper(RetailFile file, String reason) {
+        logger.warn("Retail file {} {}; it is returned to PENDING once its lease expires", file.getId(), reason);
+    }
+}
@@ -0,0 +1,210 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.FileProcessingStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of the retail files {@link RetailFileWriteBehind} has accepted but not yet
+ * written to the database. Files are appended to the active segment, which is rotated when the
+ * write-behind takes a batch and deleted once that batch is in the database.
+ * <p>
+ * Each record is length-prefixed and carries a CRC32, so a record torn by a crash is dropped on
+ * recovery together with anything after it. Appends reach the OS immediately and the disk when
+ * the segment is rotated: the journal survives the process dying, not the machine.
+ */
+final class RetailFileJournal implements AutoCloseable {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int RECORD_HEADER_BYTES = Integer.BYTES * 2;
+
+    private final Path dir;
+    private int nextSequence;
+    private FileChannel active;
+    private Path activePath;
+
+    RetailFileJournal(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+    }
+
+    record Segment(Path path, List<RetailFile> files) {
+    }
+
+    /**
+     * Read the segments left by a previous run, oldest first. Empty segments are deleted.
+     */
+    List<Segment> recover() throws IOException {
+        List<Segment> segments = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(dir)) {
+            for (Path path : paths.filter(RetailFileJournal::isSegment).sorted().toList()) {
+                nextSequence = Math.max(nextSequence, sequence(path) + 1);
+                List<RetailFile> files = read(path);
+                if (files.isEmpty()) {
+                    Files.delete(path);
+                } else {
+                    segments.add(new Segment(path, files));
+                }
+            }
+        }
+        return segments;
+    }
+
+    void append(RetailFile file) throws IOException {
+        if (active == null) {
+            activePath = dir.resolve(String.format("%s%010d%s", SEGMENT_PREFIX, nextSequence++, SEGMENT_SUFFIX));
+            active = FileChannel.open(activePath, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        byte[] payload = encode(file);
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        ByteBuffer record = ByteBuffer.allocate(RECORD_HEADER_BYTES + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+
+        long position = active.position();
+        try {
+            while (record.hasRemaining()) {
+                active.write(record);
+            }
+        } catch (IOException e) {
+            // Don't leave a torn record in front of the next one
+            active.truncate(position);
+            throw e;
+        }
+    }
+
+    /**
+     * Close the active segment and return its path, or null if nothing was appended since the
+     * last rotation. The next append starts a new segment.
+     */
+    Path rotate() throws IOException {
+        Path rotated = activePath;
+        FileChannel channel = active;
+        active = null;
+        activePath = null;
+        if (channel != null) {
+            try (channel) {
+                channel.force(false);
+            }
+        }
+        return rotated;
+    }
+
+    @Override
+    public void close() throws IOException {
+        rotate();
+    }
+
+    private static List<RetailFile> read(Path path) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        List<RetailFile> files = new ArrayList<>();
+        while (buffer.remaining() >= RECORD_HEADER_BYTES) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length < 0 || buffer.remaining() < length) {
+                break;
+            }
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            files.add(decode(payload));
+        }
+        return files;
+    }
+
+    private static byte[] encode(RetailFile file) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeUuid(out, file.getId());
+            writeDateTime(out, file.getCreatedAt());
+            out.writeUTF(file.getFileName());
+            out.writeUTF(file.getFileUrl());
+            out.writeBoolean(file.getFileSize() != null);
+            if (file.getFileSize() != null) {
+                out.writeLong(file.getFileSize());
+            }
+            writeDateTime(out, file.getUploadDate());
+            out.writeUTF(file.getStatus().name());
+            out.writeBoolean(file.getChecksum() != null);
+            if (file.getChecksum() != null) {
+                out.writeUTF(file.getChecksum());
+            }
+            out.writeBoolean(file.getStoreId() != null);
+            if (file.getStoreId() != null) {
+                writeUuid(out, file.getStoreId());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static RetailFile decode(byte[] payload) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            RetailFile file = new RetailFile();
+            file.setId(readUuid(in));
+            file.setCreatedAt(readDateTime(in));
+            file.setUpdatedAt(file.getCreatedAt());
+            file.setFileName(in.readUTF());
+            file.setFileUrl(in.readUTF());
+            file.setFileSize(in.readBoolean() ? in.readLong() : null);
+            file.setUploadDate(readDateTime(in));
+            file.setStatus(FileProcessingStatus.valueOf(in.readUTF()));
+            file.setChecksum(in.readBoolean() ? in.readUTF() : null);
+            file.setStoreId(in.readBoolean() ? readUuid(in) : null);
+            return file;
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+
+    private static UUID readUuid(DataInputStream in) throws IOException {
+        return new UUID(in.readLong(), in.readLong());
+    }
+
+    private static void writeDateTime(DataOutputStream out, LocalDateTime dateTime) throws IOException {
+        out.writeLong(dateTime.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(dateTime.getNano());
+    }
+
+    private static LocalDateTime readDateTime(DataInputStream in) throws IOException {
+        return LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    }
+
+    private static boolean isSegment(Path path) {
+        String name = path.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    private static int sequence(Path path) {
+        String name = path.getFileName().toString();
+        return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
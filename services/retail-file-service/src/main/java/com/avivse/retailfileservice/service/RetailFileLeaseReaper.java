@@ -0,0 +1,48 @@
+package com.avivse.retailfileservice.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Periodically returns files with expired processing leases to the queue. Work is done in
+ * bounded batches, each in its own transaction, so row locks are only held briefly.
+ */
+@Component
+@ConditionalOnProperty(name = "app.retail-files.reaper.enabled", havingValue = "true", matchIfMissing = true)
+public class RetailFileLeaseReaper {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetailFileLeaseReaper.class);
+
+    private final RetailFileQueueService retailFileQueueService;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+
+    public RetailFileLeaseReaper(RetailFileQueueService retailFileQueueService,
+                                 @Value("${app.retail-files.reaper.batch-size:100}") int batchSize,
+                                 @Value("${app.retail-files.reaper.max-batches-per-run:50}") int maxBatchesPerRun) {
+        this.retailFileQueueService = retailFileQueueService;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+    }
+
+    @Scheduled(fixedDelayString = "${app.retail-files.reaper.interval:PT30S}",
+            initialDelayString = "${app.retail-files.reaper.interval:PT30S}")
+    public void reapExpiredLeases() {
+        int total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int released = retailFileQueueService.reapExpiredLeases(batchSize);
+            total += released;
+            if (released < batchSize) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            logger.info("Released {} retail files with expired processing leases", total);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import com.avivse.retailfileservice.repository.RetailFileRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Hands PENDING retail files out to processing workers. A claimed file moves to PROCESSING
+ * with a lease naming the worker and when the claim expires, and keeps it while it is fetched
+ * and ingested; only then does it become COMPLETED or FAILED. Files whose lease runs out
+ * are returned to PENDING, or moved to FAILED once they have used up their attempts.
+ */
+@Service
+@Transactional
+public class RetailFileQueueService {
+
+    private final RetailFileRepository retailFileRepository;
+    private final Duration leaseDuration;
+    private final int maxAttempts;
+    private final Counter claimedFilesCounter;
+    private final Counter reclaimedFilesCounter;
+    private final Counter failedFilesCounter;
+    private final Timer reapedLeaseAge;
+
+    @Autowired
+    public RetailFileQueueService(RetailFileRepository retailFileRepository,
+                                  @Value("${app.retail-files.claim.lease-duration:5m}") Duration leaseDuration,
+                                  @Value("${app.retail-files.reaper.max-attempts:3}") int maxAttempts,
+                                  MeterRegistry meterRegistry) {
+        this.retailFileRepository = retailFileRepository;
+        this.leaseDuration = leaseDuration;
+        this.maxAttempts = maxAttempts;
+
+        this.claimedFilesCounter = Counter.builder("retail_files_claimed_total")
+                .description("Total number of retail files claimed by processing workers")
+                .register(meterRegistry);
+
+        this.reclaimedFilesCounter = Counter.builder("retail_files_lease_reclaimed_total")
+                .description("Total number of files returned to PENDING after their lease expired")
+                .register(meterRegistry);
+
+        this.failedFilesCounter = Counter.builder("retail_files_lease_failed_total")
+                .description("Total number of files moved to FAILED after running out of attempts")
+                .register(meterRegistry);
+
+        this.reapedLeaseAge = Timer.builder("retail_files_reaped_lease_age")
+                .description("Time an expired lease had been held when the reaper released it")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Atomically claim up to batchSize PENDING files for a worker, oldest upload first.
+     * The rows are locked with SKIP LOCKED, so concurrent claims get disjoint batches
+     * instead of blocking on each other.
+     */
+    public List<RetailFile> claimBatch(String workerId, int batchSize) {
+        List<RetailFile> files = retailFileRepository.findForClaim(FileProcessingStatus.PENDING, Limit.of(batchSize));
+
+        LocalDateTime leaseExpiresAt = LocalDateTime.now().plus(leaseDuration);
+        for (RetailFile file : files) {
+            file.setStatus(FileProcessingStatus.PROCESSING);
+            file.setLeaseOwner(workerId);
+            file.setLeaseExpiresAt(leaseExpiresAt);
+        }
+
+        claimedFilesCounter.increment(files.size());
+        return files;
+    }
+
+    /**
+     * Release up to batchSize expired leases in one short transaction. Returns how many
+     * files were released, so the caller can keep going while full batches come back.
+     */
+    public int reapExpiredLeases(int batchSize) {
+        LocalDateTime now = LocalDateTime.now();
+        List<RetailFile> expired = retailFileRepository.findExpiredLeases(
+                FileProcessingStatus.PROCESSING, now, Limit.of(batchSize));
+
+        for (RetailFile file : expired) {
+            LocalDateTime claimedAt = file.getLeaseExpiresAt().minus(leaseDuration);
+            reapedLeaseAge.record(Duration.between(claimedAt, now));
+
+            if (release(file) == FileProcessingStatus.FAILED) {
+                failedFilesCounter.increment();
+            } else {
+                reclaimedFilesCounter.increment();
+            }
+        }
+
+        return expired.size();
+    }
+
+    /**
+     * Extend a held lease by another lease-duration from now, for work that had to wait
+     * before it could start. Returns false when the worker no longer holds the lease.
+     */
+    public boolean renewLease(UUID id, String workerId) {
+        return retailFileRepository.findByIdForUpdate(id)
+                .filter(file -> holdsLease(file, workerId))
+                .map(file -> {
+                    file.setLeaseExpiresAt(LocalDateTime.now().plus(leaseDuration));
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    /**
+     * Record a downloaded file with its stored location, real size and content checksum.
+     * The file stays PROCESSING, with its lease renewed to cover ingestion, or becomes DUPLICATE
+     * when another file already has the same content. Returns null when the worker no longer
+     * holds the lease, in which case nothing is changed.
+     */
+    public FileProcessingStatus completeFetch(UUID id, String workerId, String storagePath, long fileSize, String checksum) {
+        return retailFileRepository.findByIdForUpdate(id)
+                .filter(file -> holdsLease(file, workerId))
+                .map(file -> {
+                    recordFetched(file, fileSize);
+
+                    boolean duplicate = retailFileRepository.findByChecksum(checksum)
+                            .filter(existing -> !existing.getId().equals(id))
+                            .isPresent();
+                    if (duplicate) {
+                        finish(file, FileProcessingStatus.DUPLICATE);
+                    } else {
+                        file.setChecksum(checksum);
+                        file.setStoragePath(storagePath);
+                        file.setLeaseExpiresAt(LocalDateTime.now().plus(leaseDuration));
+                    }
+                    return file.getStatus();
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Record a downloaded file as DUPLICATE without checking, for when {@link #completeFetch}
+     * lost a race with another file for the same checksum. Returns null when the lease was
+     * already lost.
+     */
+    public FileProcessingStatus completeFetchAsDuplicate(UUID id, String workerId, long fileSize) {
+        return retailFileRepository.findByIdForUpdate(id)
+                .filter(file -> holdsLease(file, workerId))
+                .map(file -> {
+                    recordFetched(file, fileSize);
+                    finish(file, FileProcessingStatus.DUPLICATE);
+                    return file.getStatus();
+                })
+                .orElse(null);
+    }
+
+    /**
+     * Mark a fetched file COMPLETED once its content has been ingested. Returns null when the
+     * worker no longer holds the lease, in which case nothing is changed.
+     */
+    public FileProcessingStatus completeIngest(UUID id, String workerId) {
+        return retailFileRepository.findByIdForUpdate(id)
+                .filter(file -> holdsLease(file, workerId))
+                .map(file -> finish(file, FileProcessingStatus.COMPLETED))
+                .orElse(null);
+    }
+
+    /**
+     * Mark a fetched file FAILED when its content could not be ingested. Returns null when the
+     * worker no longer holds the lease, in which case nothing is changed.
+     */
+    public FileProcessingStatus failIngest(UUID id, String workerId) {
+        return retailFileRepository.findByIdForUpdate(id)
+                .filter(file -> holdsLease(file, workerId))
+                .map(file -> finish(file, FileProcessingStatus.FAILED))
+                .orElse(null);
+    }
+
+    /**
+     * Give a file back after a failed attempt: PENDING to be retried, or FAILED once it has
+     * used up its attempts. Returns the new status, or null when the lease was already lost.
+     */
+    public FileProcessingStatus failAttempt(UUID id, String workerId) {
+        return retailFileRepository.findByIdForUpdate(id)
+                .filter(file -> holdsLease(file, workerId))
+                .map(this::release)
+                .orElse(null);
+    }
+
+    private boolean holdsLease(RetailFile file, String workerId) {
+        return file.getStatus() == FileProcessingStatus.PROCESSING && workerId.equals(file.getLeaseOwner());
+    }
+
+    private void recordFetched(RetailFile file, long fileSize) {
+        file.setFileSize(fileSize);
+        file.setFetchedAt(LocalDateTime.now());
+    }
+
+    // Drop the lease and move the file to a final status
+    private FileProcessingStatus finish(RetailFile file, FileProcessingStatus status) {
+        file.setLeaseOwner(null);
+        file.setLeaseExpiresAt(null);
+        file.setStatus(status);
+        return status;
+    }
+
+    // Count the attempt, drop the lease and return the file to the queue or fail it
+    private FileProcessingStatus release(RetailFile file) {
+        file.setProcessingAttempts(file.getProcessingAttempts() + 1);
+        file.setLeaseOwner(null);
+        file.setLeaseExpiresAt(null);
+        file.setStatus(file.getProcessingAttempts() >= maxAttempts
+                ? FileProcessingStatus.FAILED
+                : FileProcessingStatus.PENDING);
+        return file.getStatus();
+    }
+}
@@ -1,45 +1,87 @@
 package com.avivse.retailfileservice.service;
 
+import com.avivse.retailfileservice.client.StoreKey;
 import com.avivse.retailfileservice.client.StoreServiceClient;
+import com.avivse.retailfileservice.dto.ChecksumFilterStatus;
 import com.avivse.retailfileservice.dto.CreateRetailFileRequest;
+import com.avivse.retailfileservice.dto.CursorPage;
+import com.avivse.retailfileservice.dto.RetailFileBatchItemResult;
+import com.avivse.retailfileservice.dto.RetailFileBatchResponse;
+import com.avivse.retailfileservice.dto.RetailFileCursor;
 import com.avivse.retailfileservice.dto.UpdateRetailFileRequest;
 import com.avivse.retailfileservice.entity.RetailFile;
 import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import com.avivse.retailfileservice.exception.DuplicateRetailFileException;
+import com.avivse.retailfileservice.exception.InvalidStatusException;
 import com.avivse.retailfileservice.exception.RetailFileNotFoundException;
 import com.avivse.retailfileservice.repository.RetailFileRepository;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.nio.charset.StandardCharsets;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @Transactional
 public class RetailFileService {
 
+    // Upper bound on IN-list size per duplicate check query
+    static final int CHECKSUM_QUERY_CHUNK_SIZE = 1000;
+
+    private static final String PROCESSING_NEEDS_CLAIM =
+            "Files move to PROCESSING only by being claimed, which gives them a lease";
+
     private final RetailFileRepository retailFileRepository;
     private final StoreServiceClient storeServiceClient;
+    private final RetailFileWriter retailFileWriter;
+    private final RetailFileWriteBehind retailFileWriteBehind;
+    private final ChecksumFilter checksumFilter;
+    private final Validator validator;
     private final Counter filesCreatedCounter;
     private final Counter duplicateFilesCounter;
 
     @Autowired
     public RetailFileService(RetailFileRepository retailFileRepository,
                            StoreServiceClient storeServiceClient,
+                           RetailFileWriter retailFileWriter,
+                           RetailFileWriteBehind retailFileWriteBehind,
+                           ChecksumFilter checksumFilter,
+                           Validator validator,
                            MeterRegistry meterRegistry) {
         this.retailFileRepository = retailFileRepository;
         this.storeServiceClient = storeServiceClient;
+        this.retailFileWriter = retailFileWriter;
+        this.retailFileWriteBehind = retailFileWriteBehind;
+        this.checksumFilter = checksumFilter;
+        this.validator = validator;
 
         this.filesCreatedCounter = Counter.builder("retail_files_created_total")
                 .description("Total number of retail files created")
@@ -51,50 +93,135 @@ public class RetailFileService {
     }
 
     /**
-     * Create retail file from CreateRetailFileRequest DTO with duplicate detection
+     * Create retail file from CreateRetailFileRequest DTO with duplicate detection.
+     * Duplicates are detected by the unique checksum constraint on insert rather than by a
+     * lookup beforehand, so concurrent uploads of the same file can't both be created.
      */
     public RetailFile createRetailFile(CreateRetailFileRequest request) {
-        // Generate checksum if provided
-        String checksum = null;
-        if (request.getChecksum() != null) {
-            checksum = request.getChecksum();
-        } else if (request.getFileUrl() != null) {
-            checksum = generateChecksumFromUrl(request.getFileUrl());
+        checkInitialStatus(request.getStatus());
+        String checksum = resolveChecksum(request);
+
+        // Get or create store ID using store service
+        UUID storeId = storeServiceClient.getOrCreateStoreId(request.getChainId(), request.getStoreNumber());
+
+        try {
+            RetailFile savedFile = retailFileRepository.saveAndFlush(buildRetailFile(request, checksum, storeId));
+            filesCreatedCounter.increment();
+            return savedFile;
+        } catch (DataIntegrityViolationException e) {
+            if (!isChecksumConflict(e)) {
+                throw e;
+            }
+            duplicateFilesCounter.increment();
+            throw DuplicateRetailFileException.forChecksum(checksum, e);
         }
+    }
 
-        // Check for duplicates by checksum if available
-        if (checksum != null && retailFileRepository.existsByChecksum(checksum)) {
+    /**
+     * Whether single file creation goes through {@link #acceptRetailFile} instead of
+     * {@link #createRetailFile}
+     */
+    public boolean isWriteBehindEnabled() {
+        return retailFileWriteBehind.isEnabled();
+    }
+
+    /**
+     * Accept a retail file for write-behind insertion and return it with its pre-assigned ID.
+     * Duplicates already stored or still waiting to be written are rejected up front; the row
+     * itself is inserted later, in a batch, by {@link RetailFileWriteBehind}.
+     */
+    @Transactional(readOnly = true)
+    public RetailFile acceptRetailFile(CreateRetailFileRequest request) {
+        checkInitialStatus(request.getStatus());
+        String checksum = resolveChecksum(request);
+        if (checksum != null && checksumExists(checksum)) {
             duplicateFilesCounter.increment();
-            throw new IllegalArgumentException("Duplicate file detected: file with same checksum already exists");
+            throw DuplicateRetailFileException.forChecksum(checksum, null);
         }
 
-        // Get or create store ID using store service
         UUID storeId = storeServiceClient.getOrCreateStoreId(request.getChainId(), request.getStoreNumber());
+        RetailFile retailFile = buildRetailFile(request, checksum, storeId);
+        LocalDateTime now = LocalDateTime.now();
+        retailFile.setCreatedAt(now);
+        retailFile.setUpdatedAt(now);
 
-        RetailFile retailFile = new RetailFile();
-        retailFile.setFileName(request.getFileName());
-        retailFile.setFileUrl(request.getFileUrl());
-        retailFile.setFileSize(request.getFileSize());
-        retailFile.setChecksum(checksum);
-        retailFile.setStoreId(storeId);
+        if (!retailFileWriteBehind.accept(retailFile)) {
+            duplicateFilesCounter.increment();
+            throw DuplicateRetailFileException.forChecksum(checksum, null);
+        }
+        filesCreatedCounter.increment();
+        return retailFile;
+    }
 
-        // Set upload date to now if not provided
-        if (request.getUploadDate() != null) {
-            retailFile.setUploadDate(request.getUploadDate());
-        } else {
-            retailFile.setUploadDate(LocalDateTime.now());
+    /**
+     * Create retail files in bulk. Items are validated and deduplicated one by one, so an
+     * invalid or duplicate item is reported in its result instead of failing the whole batch.
+     * Checksums the filter can't rule out are checked with one IN query per chunk, stores are resolved once per distinct
+     * key, and the inserts are flushed together using JDBC batching. Files that lose a race
+     * with a concurrent insert of the same checksum are reported as duplicates.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public RetailFileBatchResponse createRetailFiles(List<CreateRetailFileRequest> requests) {
+        RetailFileBatchItemResult[] results = new RetailFileBatchItemResult[requests.size()];
+
+        // Validate each item and compute its checksum
+        Map<Integer, String> checksumsByIndex = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            Map<String, String> errors = validate(requests.get(i));
+            if (errors.isEmpty()) {
+                checksumsByIndex.put(i, resolveChecksum(requests.get(i)));
+            } else {
+                results[i] = RetailFileBatchItemResult.invalid(i, errors);
+            }
         }
 
-        // Set processing status
-        if (request.getStatus() != null) {
-            retailFile.setStatus(request.getStatus());
-        } else {
-            retailFile.setStatus(FileProcessingStatus.PENDING);
+        // Drop items whose checksum already exists, or appears earlier in the same batch
+        Set<String> seenChecksums = findExistingChecksums(checksumsByIndex.values());
+        List<Integer> accepted = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : checksumsByIndex.entrySet()) {
+            String checksum = entry.getValue();
+            if (checksum != null && !seenChecksums.add(checksum)) {
+                results[entry.getKey()] = RetailFileBatchItemResult.duplicate(entry.getKey(), checksum);
+            } else {
+                accepted.add(entry.getKey());
+            }
         }
 
-        RetailFile savedFile = retailFileRepository.save(retailFile);
-        filesCreatedCounter.increment();
-        return savedFile;
+        // Resolve every distinct store once
+        Set<StoreKey> storeKeys = new HashSet<>();
+        for (int index : accepted) {
+            storeKeys.add(toStoreKey(requests.get(index)));
+        }
+        Map<StoreKey, UUID> storeIds = storeKeys.isEmpty()
+                ? Map.of()
+                : storeServiceClient.resolveStoreIds(storeKeys, true);
+
+        List<RetailFile> filesToSave = new ArrayList<>();
+        List<Integer> savedIndexes = new ArrayList<>();
+        for (int index : accepted) {
+            CreateRetailFileRequest request = requests.get(index);
+            UUID storeId = storeIds.get(toStoreKey(request));
+            if (storeId == null) {
+                results[index] = RetailFileBatchItemResult.invalid(index, Map.of("store", "Store could not be resolved"));
+                continue;
+            }
+            filesToSave.add(buildRetailFile(request, checksumsByIndex.get(index), storeId));
+            savedIndexes.add(index);
+        }
+
+        List<RetailFile> savedFiles = insertAll(filesToSave);
+        for (int i = 0; i < savedFiles.size(); i++) {
+            RetailFile savedFile = savedFiles.get(i);
+            int index = savedIndexes.get(i);
+            results[index] = savedFile != null
+                    ? RetailFileBatchItemResult.created(index, savedFile.getId(), savedFile.getChecksum())
+                    : RetailFileBatchItemResult.duplicate(index, filesToSave.get(i).getChecksum());
+        }
+
+        RetailFileBatchResponse response = new RetailFileBatchResponse(Arrays.asList(results));
+        filesCreatedCounter.increment(response.getCreated());
+        duplicateFilesCounter.increment(response.getDuplicates());
+        return response;
     }
 
     /**
@@ -123,7 +250,7 @@ public class RetailFileService {
             fileToUpdate.setUploadDate(request.getUploadDate());
         }
         if (request.getStatus() != null) {
-            fileToUpdate.setStatus(request.getStatus());
+            applyStatus(fileToUpdate, request.getStatus());
         }
         if (request.getChecksum() != null && !request.getChecksum().trim().isEmpty()) {
             fileToUpdate.setChecksum(request.getChecksum());
@@ -151,6 +278,51 @@ public class RetailFileService {
         return retailFileRepository.findWithFilters(status, pageable);
     }
 
+    /**
+     * Same as findAllWithFilters, but without counting the matching rows
+     */
+    @Transactional(readOnly = true)
+    public Slice<RetailFile> findSliceWithFilters(FileProcessingStatus status, int page, int limit) {
+        Pageable pageable = PageRequest.of(page - 1, limit, Sort.by("uploadDate").descending());
+
+        return retailFileRepository.findSliceWithFilters(status, pageable);
+    }
+
+    /**
+     * Find retail files newest first, starting after the given cursor (or from the newest file
+     * when the cursor is null). Seeks on (upload_date, id), so the cost doesn't grow with depth.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<RetailFile> findAllAfterCursor(FileProcessingStatus status, String cursor, int limit) {
+        // Fetch one extra row to know whether there is a next page
+        Limit fetchLimit = Limit.of(limit + 1);
+        List<RetailFile> files;
+
+        if (cursor == null || cursor.isBlank()) {
+            files = status == null
+                    ? retailFileRepository.findFirstPage(fetchLimit)
+                    : retailFileRepository.findFirstPageByStatus(status, fetchLimit);
+        } else {
+            RetailFileCursor after = RetailFileCursor.decode(cursor);
+            files = status == null
+                    ? retailFileRepository.findPageAfter(after.uploadDate(), after.id(), fetchLimit)
+                    : retailFileRepository.findPageByStatusAfter(status, after.uploadDate(), after.id(), fetchLimit);
+        }
+
+        if (files.size() <= limit) {
+            return new CursorPage<>(files, null);
+        }
+        List<RetailFile> page = files.subList(0, limit);
+        return new CursorPage<>(page, RetailFileCursor.after(page.get(limit - 1)).encode());
+    }
+
+    /**
+     * Count retail files matching the filters
+     */
+    @Transactional(readOnly = true)
+    public long countWithFilters(FileProcessingStatus status) {
+        return retailFileRepository.countWithFilters(status);
+    }
 
     /**
      * Find files by processing status
@@ -171,17 +343,50 @@ public class RetailFileService {
         }
 
         RetailFile file = existingFile.get();
-        file.setStatus(status);
+        applyStatus(file, status);
         return retailFileRepository.save(file);
     }
 
+    /**
+     * Record the price change-set produced by incremental ingestion of a file
+     */
+    public RetailFile recordPriceChanges(UUID id, PriceChangeSet changeSet) {
+        RetailFile file = retailFileRepository.findById(id)
+                .orElseThrow(() -> new RetailFileNotFoundException("Retail file not found with id: " + id));
+
+        file.setItemsAdded(changeSet.added());
+        file.setItemsRemoved(changeSet.removed());
+        file.setItemsChanged(changeSet.changed());
+        return retailFileRepository.save(file);
+    }
 
     /**
      * Check for duplicate files by checksum
      */
     @Transactional(readOnly = true)
     public boolean isDuplicateFileByChecksum(String checksum) {
-        return checksum != null && retailFileRepository.existsByChecksum(checksum);
+        return checksum != null && checksumExists(checksum);
+    }
+
+    /**
+     * Fill the checksum filter once the application is ready. Returns nothing, as Spring would
+     * publish a returned value as another event.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void loadChecksumFilter() {
+        rebuildChecksumFilter();
+    }
+
+    /**
+     * Rebuild the checksum filter from the table
+     */
+    @Transactional(readOnly = true)
+    public ChecksumFilterStatus rebuildChecksumFilter() {
+        long currentEntries = retailFileRepository.countByChecksumIsNotNull();
+        try (Stream<String> checksums = retailFileRepository.streamAllChecksums()) {
+            return checksumFilter.rebuild(currentEntries, checksums);
+        }
     }
 
     /**
@@ -204,23 +409,143 @@ public class RetailFileService {
     }
 
     /**
-     * Generate SHA-256 checksum from URL (simplified for metadata-based checksum)
+     * Set the processing status; a file leaving PROCESSING releases its worker lease.
+     * Only a claim can move a file into PROCESSING, since that is what gives it a lease the
+     * reaper can expire.
+     */
+    private void applyStatus(RetailFile file, FileProcessingStatus status) {
+        if (status == FileProcessingStatus.PROCESSING && file.getStatus() != FileProcessingStatus.PROCESSING) {
+            throw new InvalidStatusException(PROCESSING_NEEDS_CLAIM);
+        }
+        file.setStatus(status);
+        if (status != FileProcessingStatus.PROCESSING) {
+            file.setLeaseOwner(null);
+            file.setLeaseExpiresAt(null);
+        }
+    }
+
+    /**
+     * Use the checksum from the request. Only a client-supplied content checksum is known at
+     * registration; files registered without one are deduplicated by the fetcher once their
+     * content has been downloaded.
      */
-    private String generateChecksumFromUrl(String url) {
+    private String resolveChecksum(CreateRetailFileRequest request) {
+        return request.getChecksum();
+    }
+
+    private RetailFile buildRetailFile(CreateRetailFileRequest request, String checksum, UUID storeId) {
+        RetailFile retailFile = new RetailFile();
+        retailFile.setFileName(request.getFileName());
+        retailFile.setFileUrl(request.getFileUrl());
+        retailFile.setFileSize(request.getFileSize());
+        retailFile.setChecksum(checksum);
+        retailFile.setStoreId(storeId);
+
+        // Set upload date to now if not provided
+        if (request.getUploadDate() != null) {
+            retailFile.setUploadDate(request.getUploadDate());
+        } else {
+            retailFile.setUploadDate(LocalDateTime.now());
+        }
+
+        // Set processing status
+        if (request.getStatus() != null) {
+            retailFile.setStatus(request.getStatus());
+        } else {
+            retailFile.setStatus(FileProcessingStatus.PENDING);
+        }
+
+        return retailFile;
+    }
+
+    private Map<String, String> validate(CreateRetailFileRequest request) {
+        Map<String, String> errors = new TreeMap<>();
+        for (ConstraintViolation<CreateRetailFileRequest> violation : validator.validate(request)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        if (request.getStatus() == FileProcessingStatus.PROCESSING) {
+            errors.put("status", PROCESSING_NEEDS_CLAIM);
+        }
+        return errors;
+    }
+
+    private static void checkInitialStatus(FileProcessingStatus status) {
+        if (status == FileProcessingStatus.PROCESSING) {
+            throw new InvalidStatusException(PROCESSING_NEEDS_CLAIM);
+        }
+    }
+
+    /**
+     * Insert files as one JDBC batch. If a concurrent insert took one of the checksums, the
+     * batch is rolled back and retried row by row; rows that still conflict come back as null.
+     */
+    private List<RetailFile> insertAll(List<RetailFile> files) {
+        if (files.isEmpty()) {
+            return List.of();
+        }
+
         try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(url.getBytes(StandardCharsets.UTF_8));
-            StringBuilder hexString = new StringBuilder();
-            for (byte b : hash) {
-                String hex = Integer.toHexString(0xff & b);
-                if (hex.length() == 1) {
-                    hexString.append('0');
+            return retailFileWriter.insertAll(files);
+        } catch (DataIntegrityViolationException e) {
+            if (!isChecksumConflict(e)) {
+                throw e;
+            }
+        }
+
+        List<RetailFile> savedFiles = new ArrayList<>(files.size());
+        for (RetailFile file : files) {
+            // The rolled back batch already assigned an ID; clear it so the row is persisted as new
+            file.setId(null);
+            try {
+                savedFiles.add(retailFileWriter.insert(file));
+            } catch (DataIntegrityViolationException e) {
+                if (!isChecksumConflict(e)) {
+                    throw e;
                 }
-                hexString.append(hex);
+                savedFiles.add(null);
             }
-            return hexString.toString();
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
         }
+        return savedFiles;
+    }
+
+    static boolean isChecksumConflict(DataIntegrityViolationException e) {
+        String message = e.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(RetailFile.CHECKSUM_CONSTRAINT);
+    }
+
+    /**
+     * Check the database only when the checksum filter can't rule the checksum out
+     */
+    private boolean checksumExists(String checksum) {
+        if (!checksumFilter.mightContain(checksum)) {
+            return false;
+        }
+
+        boolean exists = retailFileRepository.existsByChecksum(checksum);
+        if (!exists) {
+            checksumFilter.recordFalsePositives(1);
+        }
+        return exists;
+    }
+
+    private Set<String> findExistingChecksums(Collection<String> checksums) {
+        List<String> candidates = checksums.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .filter(checksumFilter::mightContain)
+                .toList();
+
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += CHECKSUM_QUERY_CHUNK_SIZE) {
+            List<String> chunk = candidates.subList(from, Math.min(from + CHECKSUM_QUERY_CHUNK_SIZE, candidates.size()));
+            existing.addAll(retailFileRepository.findExistingChecksums(chunk));
+        }
+
+        checksumFilter.recordFalsePositives(candidates.size() - existing.size());
+        return existing;
+    }
+
+    private static StoreKey toStoreKey(CreateRetailFileRequest request) {
+        return new StoreKey(request.getChainId(), request.getStoreNumber());
     }
-}
\ No newline at end of file
+}
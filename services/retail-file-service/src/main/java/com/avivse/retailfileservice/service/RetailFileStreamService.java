@@ -0,0 +1,144 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.dto.CreateRetailFileRequest;
+import com.avivse.retailfileservice.dto.RetailFileBatchItemResult;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ingests newline-delimited JSON file records. The body is parsed incrementally and handed to
+ * {@link RetailFileService#createRetailFiles} in bounded chunks, so memory use doesn't depend on
+ * the size of the stream. One NDJSON result line is written back per record, flushed per chunk.
+ * Each chunk is committed on its own, so records before a failure stay persisted.
+ */
+@Service
+public class RetailFileStreamService {
+
+    private final RetailFileService retailFileService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+    @Autowired
+    public RetailFileStreamService(RetailFileService retailFileService,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.retail-files.stream.chunk-size:500}") int chunkSize) {
+        this.retailFileService = retailFileService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+    public void ingest(InputStream input, OutputStream output) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+            generator.setRootValueSeparator(null);
+
+            Chunk chunk = new Chunk(0);
+            int index = 0;
+
+            while (true) {
+                JsonToken token;
+                JsonNode record;
+                try {
+                    token = parser.nextToken();
+                    if (token == null) {
+                        break;
+                    }
+                    record = parser.readValueAsTree();
+                } catch (JsonProcessingException e) {
+                    // The parser can't resynchronize after malformed JSON, so report it and stop
+                    writeChunk(chunk, generator);
+                    writeResult(RetailFileBatchItemResult.invalid(index,
+                            Map.of("record", "Malformed JSON: " + e.getOriginalMessage())), generator);
+                    generator.flush();
+                    return;
+                }
+
+                if (token != JsonToken.START_OBJECT) {
+                    chunk.reject(Map.of("record", "Each line must be a JSON object"));
+                } else {
+                    try {
+                        chunk.add(objectMapper.treeToValue(record, CreateRetailFileRequest.class));
+                    } catch (JsonProcessingException e) {
+                        chunk.reject(Map.of("record", e.getOriginalMessage()));
+                    }
+                }
+                index++;
+
+                if (chunk.size() >= chunkSize) {
+                    writeChunk(chunk, generator);
+                    chunk = new Chunk(index);
+                }
+            }
+
+            writeChunk(chunk, generator);
+        }
+    }
+
+    private void writeChunk(Chunk chunk, JsonGenerator generator) throws IOException {
+        if (chunk.size() == 0) {
+            return;
+        }
+
+        List<RetailFileBatchItemResult> created = chunk.requests.isEmpty()
+                ? List.of()
+                : retailFileService.createRetailFiles(chunk.requests).getResults();
+
+        int next = 0;
+        for (int slot = 0; slot < chunk.size(); slot++) {
+            RetailFileBatchItemResult result = chunk.rejected.get(slot);
+            if (result == null) {
+                result = created.get(next++);
+            }
+            result.setIndex(chunk.firstIndex + slot);
+            writeResult(result, generator);
+        }
+        generator.flush();
+    }
+
+    private void writeResult(RetailFileBatchItemResult result, JsonGenerator generator) throws IOException {
+        generator.writeObject(result);
+        generator.writeRaw('\n');
+    }
+
+    /**
+     * Records read since the last flush, in stream order. Slots holding a record that couldn't be
+     * bound keep their INVALID result; the rest are sent to the service together.
+     */
+    private static final class Chunk {
+
+        private final int firstIndex;
+        private final List<CreateRetailFileRequest> requests = new ArrayList<>();
+        private final List<RetailFileBatchItemResult> rejected = new ArrayList<>();
+
+        private Chunk(int firstIndex) {
+            this.firstIndex = firstIndex;
+        }
+
+        private void add(CreateRetailFileRequest request) {
+            requests.add(request);
+            rejected.add(null);
+        }
+
+        private void reject(Map<String, String> errors) {
+            rejected.add(RetailFileBatchItemResult.invalid(firstIndex + rejected.size(), errors));
+        }
+
+        private int size() {
+            return rejected.size();
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.exception.WriteBufferFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffering for retail file creation (app.retail-files.write-behind.enabled).
+ * Accepted files get their ID up front, are appended to a local {@link RetailFileJournal} and
+ * wait in a bounded buffer; a flusher thread inserts them in JDBC batches every flush-interval,
+ * or as soon as flush-size files are waiting. On startup the journal is replayed, so files
+ * accepted before a crash are still written.
+ * <p>
+ * A file whose checksum is already waiting is refused as a duplicate. A file that conflicts
+ * with a row at insert time (its checksum was taken meanwhile, or it was written before a
+ * restart and replayed) is skipped; any other failure leaves it to be retried.
+ */
+@Component
+public class RetailFileWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetailFileWriteBehind.class);
+
+    private final RetailFileWriter retailFileWriter;
+    private final ChecksumFilter checksumFilter;
+    private final boolean enabled;
+    private final Path journalDir;
+    private final int capacity;
+    private final int flushSize;
+    private final long flushIntervalNanos;
+
+    private final Counter acceptedCounter;
+    private final Counter writtenCounter;
+    private final Counter skippedCounter;
+    private final Counter flushFailuresCounter;
+    private final Timer flushTimer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition flushNeeded = lock.newCondition();
+    // Guarded by lock: files not yet handed to the flusher, and checksums of every unwritten file
+    private List<RetailFile> buffer = new ArrayList<>();
+    private final Set<String> unwrittenChecksums = new HashSet<>();
+    private int unwritten;
+    private boolean running;
+
+    // Only used by the flusher thread once it has started
+    private final Deque<Batch> batches = new ArrayDeque<>();
+    private RetailFileJournal journal;
+    private Thread flusher;
+
+    public RetailFileWriteBehind(RetailFileWriter retailFileWriter,
+                                 ChecksumFilter checksumFilter,
+                                 @Value("${app.retail-files.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${app.retail-files.write-behind.journal-dir:./data/retail-file-journal}") Path journalDir,
+                                 @Value("${app.retail-files.write-behind.capacity:10000}") int capacity,
+                                 @Value("${app.retail-files.write-behind.flush-size:1000}") int flushSize,
+                                 @Value("${app.retail-files.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                 MeterRegistry meterRegistry) {
+        this.retailFileWriter = retailFileWriter;
+        this.checksumFilter = checksumFilter;
+        this.enabled = enabled;
+        this.journalDir = journalDir;
+        this.capacity = capacity;
+        this.flushSize = flushSize;
+        this.flushIntervalNanos = flushInterval.toNanos();
+
+        this.acceptedCounter = Counter.builder("retail_file_write_behind_accepted_total")
+                .description("Total number of retail files accepted into the write-behind buffer")
+                .register(meterRegistry);
+
+        this.writtenCounter = Counter.builder("retail_file_write_behind_written_total")
+                .description("Total number of buffered retail files written to the database")
+                .register(meterRegistry);
+
+        this.skippedCounter = Counter.builder("retail_file_write_behind_skipped_total")
+                .description("Total number of buffered retail files skipped because they conflicted with a stored row")
+                .register(meterRegistry);
+
+        this.flushFailuresCounter = Counter.builder("retail_file_write_behind_flush_failures_total")
+                .description("Total number of write-behind flushes that failed and will be retried")
+                .register(meterRegistry);
+
+        this.flushTimer = Timer.builder("retail_file_write_behind_flush_duration")
+                .description("Time taken to write one batch of buffered retail files")
+                .register(meterRegistry);
+
+        Gauge.builder("retail_file_write_behind_buffered", this, RetailFileWriteBehind::unwritten)
+                .description("Accepted retail files not yet written to the database")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            journal = new RetailFileJournal(journalDir);
+            for (RetailFileJournal.Segment segment : journal.recover()) {
+                batches.add(new Batch(segment.path(), segment.files()));
+                for (RetailFile file : segment.files()) {
+                    track(file);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open retail file journal " + journalDir, e);
+        }
+        if (unwritten > 0) {
+            logger.info("Replaying {} journaled retail files from {}", unwritten, journalDir);
+        }
+
+        running = true;
+        flusher = new Thread(this::runFlusher, "retail-file-write-behind");
+        flusher.start();
+    }
+
+    /**
+     * Assign the file an ID and queue it to be written. Returns false, queueing nothing, if a
+     * file with the same checksum is already waiting.
+     *
+     * @throws WriteBufferFullException if capacity files are waiting to be written
+     */
+    public boolean accept(RetailFile file) {
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Write-behind buffering is not running");
+            }
+            if (file.getChecksum() != null && unwrittenChecksums.contains(file.getChecksum())) {
+                return false;
+            }
+            if (unwritten >= capacity) {
+                throw new WriteBufferFullException("Too many retail files waiting to be written, retry later");
+            }
+
+            file.setId(UUID.randomUUID());
+            try {
+                journal.append(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to journal retail file " + file.getId(), e);
+            }
+            buffer.add(file);
+            track(file);
+            acceptedCounter.increment();
+
+            if (buffer.size() >= flushSize) {
+                flushNeeded.signal();
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        lock.lock();
+        try {
+            running = false;
+            flushNeeded.signal();
+        } finally {
+            lock.unlock();
+        }
+        // The flusher takes what is left in the buffer and writes it before exiting
+        flusher.join();
+        try {
+            journal.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close retail file journal {}", journalDir, e);
+        }
+    }
+
+    private void runFlusher() {
+        boolean more = true;
+        while (more) {
+            more = awaitBatch();
+            writeBatches();
+        }
+        if (!batches.isEmpty()) {
+            logger.warn("Stopped with {} retail files not written; they will be replayed from the journal", unwritten());
+        }
+    }
+
+    // Waits for flush-size files or the flush interval, then hands the buffer over as a batch.
+    // Returns false once shutdown has begun, or the flusher was interrupted.
+    private boolean awaitBatch() {
+        lock.lock();
+        try {
+            long waitNanos = flushIntervalNanos;
+            while (running && buffer.size() < flushSize && waitNanos > 0) {
+                try {
+                    waitNanos = flushNeeded.awaitNanos(waitNanos);
+                } catch (InterruptedException e) {
+                    // Nothing would write new files any more, so stop accepting them
+                    Thread.currentThread().interrupt();
+                    running = false;
+                    logger.error("Write-behind flusher interrupted, no longer accepting retail files");
+                }
+            }
+            if (!buffer.isEmpty()) {
+                Path segment = null;
+                try {
+                    segment = journal.rotate();
+                } catch (IOException e) {
+                    // The records reached the OS; the segment is kept and replayed harmlessly on restart
+                    logger.warn("Failed to sync retail file journal {}", journalDir, e);
+                }
+                batches.add(new Batch(segment, buffer));
+                buffer = new ArrayList<>();
+            }
+            return running;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Writes batches oldest first; a failed batch is retried, from where it stopped, next time
+    private void writeBatches() {
+        while (!batches.isEmpty()) {
+            Batch batch = batches.peek();
+            long start = System.nanoTime();
+            try {
+                while (batch.written < batch.files.size()) {
+                    write(batch, Math.min(batch.written + flushSize, batch.files.size()));
+                }
+            } catch (RuntimeException e) {
+                flushFailuresCounter.increment();
+                logger.error("Failed to write buffered retail files, retrying on the next flush", e);
+                return;
+            } finally {
+                flushTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+
+            batches.poll();
+            if (batch.segment != null) {
+                try {
+                    Files.deleteIfExists(batch.segment);
+                } catch (IOException e) {
+                    logger.warn("Failed to delete retail file journal segment {}", batch.segment, e);
+                }
+            }
+            lock.lock();
+            try {
+                for (RetailFile file : batch.files) {
+                    untrack(file);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    // Writes the batch's files up to end with one batch insert; if any row conflicts, the batch
+    // is rolled back and retried row by row. Progress is kept per row, so a retry after a failure
+    // starts at the first file not yet written.
+    private void write(Batch batch, int end) {
+        List<RetailFile> files = batch.files.subList(batch.written, end);
+        try {
+            retailFileWriter.insertAllWithIds(files);
+            for (RetailFile file : files) {
+                written(file);
+            }
+            batch.written = end;
+            return;
+        } catch (DataIntegrityViolationException e) {
+            if (!isConflict(e)) {
+                throw e;
+            }
+            logger.debug("Conflict writing {} buffered retail files, retrying row by row", files.size());
+        }
+
+        while (batch.written < end) {
+            RetailFile file = batch.files.get(batch.written);
+            try {
+                retailFileWriter.insertAllWithIds(List.of(file));
+                written(file);
+            } catch (DataIntegrityViolationException e) {
+                if (!isConflict(e)) {
+                    throw e;
+                }
+                skippedCounter.increment();
+                logger.warn("Skipped buffered retail file {} with checksum {}: {}",
+                        file.getId(), file.getChecksum(), e.getMostSpecificCause().getMessage());
+            }
+            batch.written++;
+        }
+    }
+
+    // Only a stored row with the same ID or checksum makes a file safe to skip
+    private static boolean isConflict(DataIntegrityViolationException e) {
+        return e instanceof DuplicateKeyException || RetailFileService.isChecksumConflict(e);
+    }
+
+    private void written(RetailFile file) {
+        checksumFilter.put(file.getChecksum());
+        writtenCounter.increment();
+    }
+
+    private void track(RetailFile file) {
+        unwritten++;
+        if (file.getChecksum() != null) {
+            unwrittenChecksums.add(file.getChecksum());
+        }
+    }
+
+    private void untrack(RetailFile file) {
+        unwritten--;
+        if (file.getChecksum() != null) {
+            unwrittenChecksums.remove(file.getChecksum());
+        }
+    }
+
+    private int unwritten() {
+        lock.lock();
+        try {
+            return unwritten;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Batch {
+
+        private final Path segment;
+        private final List<RetailFile> files;
+        private int written;
+
+        private Batch(Path segment, List<RetailFile> files) {
+            this.segment = segment;
+            this.files = files;
+        }
+    }
+}
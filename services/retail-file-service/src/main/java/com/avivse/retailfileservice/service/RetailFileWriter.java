@@ -0,0 +1,63 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.repository.RetailFileRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+
+/**
+ * Flushes inserts in their own transaction, so a unique constraint violation only rolls back
+ * that insert and the caller can fall back to inserting rows one by one.
+ */
+@Component
+public class RetailFileWriter {
+
+    private static final String INSERT_WITH_ID_SQL = "INSERT INTO retail_files (id, created_at, updated_at, "
+            + "file_name, file_url, file_size, upload_date, status, checksum, store_id, processing_attempts) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final RetailFileRepository retailFileRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    public RetailFileWriter(RetailFileRepository retailFileRepository, JdbcTemplate jdbcTemplate) {
+        this.retailFileRepository = retailFileRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<RetailFile> insertAll(List<RetailFile> files) {
+        return retailFileRepository.saveAllAndFlush(files);
+    }
+
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public RetailFile insert(RetailFile file) {
+        return retailFileRepository.saveAndFlush(file);
+    }
+
+    /**
+     * Insert files that already carry their ID and timestamps, as one JDBC batch. JPA would
+     * generate a new ID instead, so this bypasses the entity manager and with it the checksum
+     * filter listener; callers update the filter themselves.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void insertAllWithIds(List<RetailFile> files) {
+        jdbcTemplate.batchUpdate(INSERT_WITH_ID_SQL, files, files.size(), (ps, file) -> {
+            ps.setObject(1, file.getId());
+            ps.setTimestamp(2, Timestamp.valueOf(file.getCreatedAt()));
+            ps.setTimestamp(3, Timestamp.valueOf(file.getUpdatedAt()));
+            ps.setString(4, file.getFileName());
+            ps.setString(5, file.getFileUrl());
+            ps.setObject(6, file.getFileSize(), Types.BIGINT);
+            ps.setTimestamp(7, Timestamp.valueOf(file.getUploadDate()));
+            ps.setString(8, file.getStatus().name());
+            ps.setString(9, file.getChecksum());
+            ps.setObject(10, file.getStoreId());
+        });
+    }
+}
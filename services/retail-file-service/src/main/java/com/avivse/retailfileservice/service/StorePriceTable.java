@@ -0,0 +1,137 @@
+package com.avivse.retailfileservice.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Latest price of every item at one store, in primitive open-addressing arrays: a packed item
+ * code, the price in thousandths and the price update time in epoch minutes, 20 bytes per item
+ * and no per-entry objects. Codes that {@link ItemCodes} can't pack fall back to a regular map.
+ * <p>
+ * A table is filled by one thread and then published to {@link LatestPriceIndex}, after which it
+ * is never changed; updates build a copy, so lookups need no locking.
+ */
+final class StorePriceTable {
+
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final long EMPTY = ItemCodes.NOT_PACKED;
+
+    private long[] keys;
+    private long[] prices;
+    private int[] updateMinutes;
+    private int packedSize;
+    private final Map<String, long[]> otherCodes;
+
+    // Upload date of the newest file applied
+    private final LocalDateTime asOf;
+
+    StorePriceTable(int expectedItems, LocalDateTime asOf) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedItems / LOAD_FACTOR)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.prices = new long[capacity];
+        this.updateMinutes = new int[capacity];
+        this.otherCodes = new HashMap<>();
+        this.asOf = asOf;
+    }
+
+    private StorePriceTable(StorePriceTable source, LocalDateTime asOf) {
+        this.keys = source.keys.clone();
+        this.prices = source.prices.clone();
+        this.updateMinutes = source.updateMinutes.clone();
+        this.packedSize = source.packedSize;
+        this.otherCodes = new HashMap<>(source.otherCodes);
+        this.asOf = asOf;
+    }
+
+    StorePriceTable copy(LocalDateTime asOf) {
+        return new StorePriceTable(this, asOf);
+    }
+
+    LocalDateTime asOf() {
+        return asOf;
+    }
+
+    int size() {
+        return packedSize + otherCodes.size();
+    }
+
+    long memoryBytes() {
+        return (long) keys.length * (Long.BYTES + Long.BYTES + Integer.BYTES);
+    }
+
+    /**
+     * Store the price unless the table already holds a newer one for the item.
+     */
+    void put(String itemCode, long priceThousandths, LocalDateTime priceUpdateDate) {
+        int minutes = toMinutes(priceUpdateDate);
+        long packed = ItemCodes.pack(itemCode);
+        if (packed == EMPTY) {
+            long[] current = otherCodes.get(itemCode);
+            if (current == null || current[1] <= minutes) {
+                otherCodes.put(itemCode, new long[]{priceThousandths, minutes});
+            }
+            return;
+        }
+        int slot = slot(packed);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = packed;
+            packedSize++;
+        } else if (updateMinutes[slot] > minutes) {
+            return;
+        }
+        prices[slot] = priceThousandths;
+        updateMinutes[slot] = minutes;
+        if (packedSize > keys.length * LOAD_FACTOR) {
+            resize();
+        }
+    }
+
+    /**
+     * Returns {price in thousandths, price update epoch minute}, or null if the item is unknown.
+     */
+    long[] get(String itemCode) {
+        long packed = ItemCodes.pack(itemCode);
+        if (packed == EMPTY) {
+            return otherCodes.get(itemCode);
+        }
+        int slot = slot(packed);
+        return keys[slot] == packed ? new long[]{prices[slot], updateMinutes[slot]} : null;
+    }
+
+    static LocalDateTime fromMinutes(long minutes) {
+        return LocalDateTime.ofEpochSecond(minutes * 60, 0, ZoneOffset.UTC);
+    }
+
+    // Price dates carry no zone; UTC is only used as a fixed reference for the encoding
+    static int toMinutes(LocalDateTime dateTime) {
+        return (int) (dateTime.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    private int slot(long packed) {
+        int mask = keys.length - 1;
+        int slot = ItemCodes.mix(packed) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != packed) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldPrices = prices;
+        int[] oldUpdateMinutes = updateMinutes;
+        keys = new long[oldKeys.length * 2];
+        prices = new long[oldKeys.length * 2];
+        updateMinutes = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                prices[slot] = oldPrices[i];
+                updateMinutes[slot] = oldUpdateMinutes[i];
+            }
+        }
+    }
+}
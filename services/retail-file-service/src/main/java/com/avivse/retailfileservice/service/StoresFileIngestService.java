@@ -0,0 +1,83 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.client.StoreServiceClient;
+import com.avivse.retailfileservice.dto.UpsertStoresRequest;
+import com.avivse.retailfileservice.dto.UpsertStoresResponse;
+import com.avivse.retailfileservice.parser.StoreRecord;
+import com.avivse.retailfileservice.parser.StoresFileParser;
+import com.avivse.retailfileservice.parser.StoresFileReader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pushes a chain's Stores file to the store service. The file is parsed in streaming
+ * fashion and its stores are sent in a single bulk upsert, so the whole store list is
+ * applied in one transaction on the store service side.
+ */
+@Service
+public class StoresFileIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StoresFileIngestService.class);
+
+    // Column limits of the store service
+    private static final int MAX_STORE_NAME_LENGTH = 100;
+    private static final int MAX_STORE_TYPE_LENGTH = 10;
+
+    private final StoresFileParser storesFileParser;
+    private final StoreServiceClient storeServiceClient;
+    private final Counter storesUpsertedCounter;
+
+    public StoresFileIngestService(StoresFileParser storesFileParser,
+                                   StoreServiceClient storeServiceClient,
+                                   MeterRegistry meterRegistry) {
+        this.storesFileParser = storesFileParser;
+        this.storeServiceClient = storeServiceClient;
+
+        this.storesUpsertedCounter = Counter.builder("stores_file_stores_upserted_total")
+                .description("Total number of stores sent to the store service from Stores files")
+                .register(meterRegistry);
+    }
+
+    public UpsertStoresResponse ingest(Path file) throws IOException {
+        List<UpsertStoresRequest.StoreDto> stores = new ArrayList<>();
+        long skipped;
+        try (StoresFileReader reader = storesFileParser.open(file)) {
+            StoreRecord store;
+            while ((store = reader.next()) != null) {
+                stores.add(toStoreDto(store));
+            }
+            skipped = reader.storesSkipped();
+        }
+
+        if (stores.isEmpty()) {
+            logger.warn("Stores file {} has no stores ({} skipped)", file.getFileName(), skipped);
+            return new UpsertStoresResponse();
+        }
+
+        UpsertStoresResponse response = storeServiceClient.upsertStores(stores);
+        storesUpsertedCounter.increment(stores.size());
+        logger.info("Ingested stores file {}: {} created, {} updated, {} unchanged, {} skipped",
+                file.getFileName(), response.getCreated(), response.getUpdated(), response.getUnchanged(), skipped);
+        return response;
+    }
+
+    private static UpsertStoresRequest.StoreDto toStoreDto(StoreRecord store) {
+        Integer subChainId = store.subChainId() != null && store.subChainId() > 0 ? store.subChainId() : null;
+        return new UpsertStoresRequest.StoreDto(store.chainId(), store.storeNumber(),
+                truncate(store.storeType(), MAX_STORE_TYPE_LENGTH),
+                truncate(store.storeName(), MAX_STORE_NAME_LENGTH),
+                subChainId);
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+}
@@ -0,0 +1,49 @@
+package com.avivse.retailfileservice.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncLimiterTest {
+
+    @Test
+    void submit_ShouldQueueCall_WhenNoSlotIsFree() {
+        // Given
+        AsyncLimiter limiter = new AsyncLimiter(1);
+        CompletableFuture<String> first = new CompletableFuture<>();
+        CompletableFuture<String> firstResult = limiter.submit(() -> first);
+
+        // When
+        CompletableFuture<String> secondResult = limiter.submit(() -> CompletableFuture.completedFuture("second"));
+
+        // Then
+        assertEquals(1, limiter.inFlight());
+        assertEquals(1, limiter.queued());
+        assertFalse(secondResult.isDone());
+
+        first.complete("first");
+        assertEquals("first", firstResult.join());
+        assertEquals("second", secondResult.join());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void submit_ShouldReleaseSlotAndFailResult_WhenCallThrowsError() {
+        // Given
+        AsyncLimiter limiter = new AsyncLimiter(1);
+
+        // When
+        CompletableFuture<String> result = limiter.submit(() -> {
+            throw new AssertionError("boom");
+        });
+
+        // Then
+        CompletionException error = assertThrows(CompletionException.class, result::join);
+        assertInstanceOf(AssertionError.class, error.getCause());
+        assertEquals(0, limiter.inFlight());
+        assertEquals("next", limiter.submit(() -> CompletableFuture.completedFuture("next")).join());
+    }
+}
@@ -0,0 +1,206 @@
+package com.avivse.retailfileservice.client;
+
+import com.avivse.retailfileservice.dto.CreateStoreDto;
+import com.avivse.retailfileservice.dto.StoreDto;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncStoreServiceClientTest {
+
+    private static final UUID STORE_ID = UUID.randomUUID();
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private SimpleMeterRegistry meterRegistry;
+    private StoreIdCache storeIdCache;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        storeIdCache = new StoreIdCache(1000, Duration.ofHours(1), Duration.ofSeconds(30), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void getStoreByChainIdAndStoreNumber_ShouldReturnEmptyAndCacheMiss_WhenNotFound() {
+        // Given
+        server.createContext("/api/v1/stores/by-natural-key", exchange -> respond(exchange, 404, null));
+        AsyncStoreServiceClient client = client(8);
+
+        // When
+        Optional<StoreDto> result = client.getStoreByChainIdAndStoreNumber("7290", 1).join();
+
+        // Then
+        assertTrue(result.isEmpty());
+        assertEquals(Optional.empty(), storeIdCache.getIfPresent(new StoreKey("7290", 1)));
+    }
+
+    @Test
+    void getStoreByChainIdAndStoreNumber_ShouldFail_WhenStoreServiceErrors() {
+        // Given
+        server.createContext("/api/v1/stores/by-natural-key", exchange -> respond(exchange, 500, null));
+        AsyncStoreServiceClient client = client(8);
+
+        // When
+        CompletionException thrown = assertThrows(CompletionException.class,
+                () -> client.getStoreByChainIdAndStoreNumber("7290", 1).join());
+
+        // Then
+        assertEquals("Failed to get store from store service", thrown.getCause().getMessage());
+        assertNull(storeIdCache.getIfPresent(new StoreKey("7290", 1)));
+    }
+
+    @Test
+    void getStoreById_ShouldReturnStore_WhenFound() {
+        // Given
+        server.createContext("/api/v1/stores/" + STORE_ID, exchange -> respond(exchange, 200, storeJson()));
+        AsyncStoreServiceClient client = client(8);
+
+        // When
+        Optional<StoreDto> result = client.getStoreById(STORE_ID).join();
+
+        // Then
+        assertEquals(STORE_ID, result.orElseThrow().getId());
+        assertEquals("7290", result.get().getChainId());
+    }
+
+    @Test
+    void createStore_ShouldReturnExistingStore_WhenConflict() {
+        // Given
+        server.createContext("/api/v1/stores", exchange -> respond(exchange, 409, null));
+        server.createContext("/api/v1/stores/by-natural-key", exchange -> respond(exchange, 200, storeJson()));
+        AsyncStoreServiceClient client = client(8);
+
+        CreateStoreDto createStoreDto = new CreateStoreDto();
+        createStoreDto.setChainId("7290");
+        createStoreDto.setStoreNumber(1);
+
+        // When
+        StoreDto result = client.createStore(createStoreDto).join();
+
+        // Then
+        assertEquals(STORE_ID, result.getId());
+        assertEquals(Optional.of(STORE_ID), storeIdCache.getIfPresent(new StoreKey("7290", 1)));
+    }
+
+    @Test
+    void getOrCreateStoreId_ShouldCoalesceConcurrentCalls_ForSameStore() throws Exception {
+        // Given - the lookup is held until both calls have been made
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger lookups = new AtomicInteger();
+        server.createContext("/api/v1/stores/by-natural-key", exchange -> {
+            lookups.incrementAndGet();
+            await(release);
+            respond(exchange, 200, storeJson());
+        });
+        AsyncStoreServiceClient client = client(8);
+
+        // When
+        CompletableFuture<UUID> first = client.getOrCreateStoreId("7290", 1);
+        CompletableFuture<UUID> second = client.getOrCreateStoreId("7290", 1);
+        release.countDown();
+
+        // Then
+        assertEquals(STORE_ID, first.get(5, TimeUnit.SECONDS));
+        assertEquals(STORE_ID, second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, lookups.get());
+        assertEquals(1.0, meterRegistry.get("store_client_async_coalesced_requests_total").counter().count());
+    }
+
+    @Test
+    void getStoreByChainIdAndStoreNumber_ShouldQueueRequests_BeyondMaxInFlight() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch received = new CountDownLatch(1);
+        server.createContext("/api/v1/stores/by-natural-key", exchange -> {
+            received.countDown();
+            await(release);
+            respond(exchange, 404, null);
+        });
+        AsyncStoreServiceClient client = client(1);
+
+        // When
+        CompletableFuture<Optional<StoreDto>> first = client.getStoreByChainIdAndStoreNumber("7290", 1);
+        CompletableFuture<Optional<StoreDto>> second = client.getStoreByChainIdAndStoreNumber("7290", 2);
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("store_client_async_in_flight").gauge().value());
+        assertEquals(1.0, meterRegistry.get("store_client_async_queued").gauge().value());
+
+        release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS).isEmpty());
+        assertTrue(second.get(5, TimeUnit.SECONDS).isEmpty());
+        assertEquals(0.0, meterRegistry.get("store_client_async_in_flight").gauge().value());
+    }
+
+    private AsyncStoreServiceClient client(int maxInFlight) {
+        ObjectMapper objectMapper = new ObjectMapper()
+                .setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE)
+                .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
+                .findAndRegisterModules();
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+        return new AsyncStoreServiceClient(objectMapper, storeIdCache, baseUrl, maxInFlight,
+                Duration.ofSeconds(2), Duration.ofSeconds(5), meterRegistry);
+    }
+
+    private static String storeJson() {
+        return "{\"id\":\"" + STORE_ID + "\",\"chain_id\":\"7290\",\"store_number\":1}";
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.avivse.retailfileservice.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostThrottleTest {
+
+    @Test
+    void acquire_ShouldSpaceRequestsToTheSameHost() throws Exception {
+        // Given
+        HostThrottle throttle = new HostThrottle(4, 20.0);
+
+        // When
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            throttle.acquire("prices.example.com").close();
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then - three starts at 20/s need at least two 50ms gaps
+        assertTrue(elapsedMillis >= 90, "elapsed " + elapsedMillis + "ms");
+    }
+
+    @Test
+    void acquire_ShouldNotThrottleDifferentHostsAgainstEachOther() throws Exception {
+        // Given
+        HostThrottle throttle = new HostThrottle(1, 1.0);
+
+        // When
+        long start = System.nanoTime();
+        try (HostThrottle.Permit a = throttle.acquire("a.example.com");
+             HostThrottle.Permit b = throttle.acquire("b.example.com")) {
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            // Then
+            assertTrue(elapsedMillis < 500, "elapsed " + elapsedMillis + "ms");
+            assertEquals(1, throttle.inFlight("a.example.com"));
+            assertEquals(1, throttle.inFlight("b.example.com"));
+        }
+        assertEquals(0, throttle.inFlight("a.example.com"));
+    }
+}
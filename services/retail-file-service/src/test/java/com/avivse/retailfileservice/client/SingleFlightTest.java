@@ -0,0 +1,87 @@
+package com.avivse.retailfileservice.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    private Counter coalescedCounter;
+    private SingleFlight<String, String> singleFlight;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        coalescedCounter = new SimpleMeterRegistry().counter("coalesced");
+        singleFlight = new SingleFlight<>(coalescedCounter);
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_ShouldReleaseWaitersAndKey_WhenCallThrowsError() throws Exception {
+        // Given - the leader's call is held until a second caller has joined it
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            leaderStarted.countDown();
+            await(release);
+            throw new AssertionError("boom");
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+        Future<String> waiter = executor.submit(() -> singleFlight.execute("key", () -> "unexpected"));
+        while (coalescedCounter.count() < 1) {
+            Thread.onSpinWait();
+        }
+
+        // When
+        release.countDown();
+
+        // Then
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, leaderError.getCause());
+        ExecutionException waiterError = assertThrows(ExecutionException.class, () -> waiter.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(AssertionError.class, waiterError.getCause());
+        assertEquals(0, singleFlight.inFlightCount());
+        assertEquals("fresh", singleFlight.execute("key", () -> "fresh"));
+    }
+
+    @Test
+    void executeAsync_ShouldFailFutureAndReleaseKey_WhenCallThrowsError() {
+        // When
+        CompletableFuture<String> future = singleFlight.executeAsync("key", () -> {
+            throw new AssertionError("boom");
+        });
+
+        // Then
+        CompletionException error = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(AssertionError.class, error.getCause());
+        assertEquals(0, singleFlight.inFlightCount());
+        assertEquals("fresh", singleFlight.executeAsync("key", () -> CompletableFuture.completedFuture("fresh")).join());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
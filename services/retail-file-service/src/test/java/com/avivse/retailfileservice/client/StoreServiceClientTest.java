@@ -1,7 +1,12 @@
 package com.avivse.retailfileservice.client;
 
 import com.avivse.retailfileservice.dto.CreateStoreDto;
+import com.avivse.retailfileservice.dto.ResolveStoresRequest;
+import com.avivse.retailfileservice.dto.ResolveStoresResponse;
 import com.avivse.retailfileservice.dto.StoreDto;
+import com.avivse.retailfileservice.dto.UpsertStoresRequest;
+import com.avivse.retailfileservice.dto.UpsertStoresResponse;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,12 +15,22 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -30,11 +45,15 @@ class StoreServiceClientTest {
 
     private StoreServiceClient storeServiceClient;
 
+    private SimpleMeterRegistry meterRegistry;
+
     private final String storeServiceBaseUrl = "http://localhost:8000";
 
     @BeforeEach
     void setUp() {
-        storeServiceClient = new StoreServiceClient(restTemplate, storeServiceBaseUrl);
+        meterRegistry = new SimpleMeterRegistry();
+        StoreIdCache storeIdCache = new StoreIdCache(1000, Duration.ofHours(1), Duration.ofSeconds(30), meterRegistry);
+        storeServiceClient = new StoreServiceClient(restTemplate, storeIdCache, storeServiceBaseUrl, meterRegistry);
     }
 
     @Test
@@ -156,4 +175,153 @@ class StoreServiceClientTest {
         verify(restTemplate).postForEntity(eq(storeServiceBaseUrl + "/api/v1/stores"), any(HttpEntity.class), eq(StoreDto.class));
         verify(restTemplate).getForEntity(anyString(), eq(StoreDto.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getOrCreateStoreId_ShouldServeRepeatedLookupsFromCache() {
+        // Arrange
+        StoreDto existingStore = new StoreDto();
+        existingStore.setId(UUID.randomUUID());
+        existingStore.setStoreNumber(123);
+        existingStore.setChainId("CHAIN001");
+
+        when(restTemplate.getForEntity(anyString(), eq(StoreDto.class)))
+                .thenReturn(new ResponseEntity<>(existingStore, HttpStatus.OK));
+
+        // Act
+        UUID first = storeServiceClient.getOrCreateStoreId("CHAIN001", 123);
+        UUID second = storeServiceClient.getOrCreateStoreId("CHAIN001", 123);
+
+        // Assert
+        assertEquals(existingStore.getId(), first);
+        assertEquals(existingStore.getId(), second);
+        verify(restTemplate, times(1)).getForEntity(anyString(), eq(StoreDto.class));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "store_id_cache").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void findStoreId_ShouldCacheNotFoundResult() {
+        // Arrange
+        when(restTemplate.getForEntity(anyString(), eq(StoreDto.class)))
+                .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", new HttpHeaders(), new byte[0], null));
+
+        // Act
+        Optional<UUID> first = storeServiceClient.findStoreId("CHAIN001", 999);
+        Optional<UUID> second = storeServiceClient.findStoreId("CHAIN001", 999);
+
+        // Assert
+        assertTrue(first.isEmpty());
+        assertTrue(second.isEmpty());
+        verify(restTemplate, times(1)).getForEntity(anyString(), eq(StoreDto.class));
+    }
+
+    @Test
+    void getOrCreateStoreId_ShouldCoalesceConcurrentCallsForSameStore() throws Exception {
+        // Arrange
+        UUID expectedStoreId = UUID.randomUUID();
+        CountDownLatch releaseLookup = new CountDownLatch(1);
+
+        when(restTemplate.getForEntity(anyString(), eq(StoreDto.class))).thenAnswer(invocation -> {
+            releaseLookup.await(5, TimeUnit.SECONDS);
+            throw HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", new HttpHeaders(), new byte[0], null);
+        });
+
+        StoreDto createdStore = new StoreDto();
+        createdStore.setId(expectedStoreId);
+        when(restTemplate.postForEntity(eq(storeServiceBaseUrl + "/api/v1/stores"), any(HttpEntity.class), eq(StoreDto.class)))
+                .thenReturn(new ResponseEntity<>(createdStore, HttpStatus.CREATED));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // Act - the second caller arrives while the first lookup is still in flight
+            Future<UUID> first = executor.submit(() -> storeServiceClient.getOrCreateStoreId("CHAIN001", 123));
+            Future<UUID> second = executor.submit(() -> storeServiceClient.getOrCreateStoreId("CHAIN001", 123));
+
+            long deadline = System.currentTimeMillis() + 5000;
+            while (meterRegistry.counter("store_client_coalesced_requests_total").count() < 1
+                    && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            releaseLookup.countDown();
+
+            // Assert
+            assertEquals(expectedStoreId, first.get(5, TimeUnit.SECONDS));
+            assertEquals(expectedStoreId, second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1.0, meterRegistry.counter("store_client_coalesced_requests_total").count());
+        verify(restTemplate, times(1)).getForEntity(anyString(), eq(StoreDto.class));
+        verify(restTemplate, times(1)).postForEntity(anyString(), any(HttpEntity.class), eq(StoreDto.class));
+    }
+
+    @Test
+    void resolveStoreIds_ShouldSendOnlyCacheMissesInOneRequest() {
+        // Arrange - warm the cache with one store
+        UUID cachedId = UUID.randomUUID();
+        StoreDto cachedStore = new StoreDto();
+        cachedStore.setId(cachedId);
+        when(restTemplate.getForEntity(anyString(), eq(StoreDto.class)))
+                .thenReturn(new ResponseEntity<>(cachedStore, HttpStatus.OK));
+        storeServiceClient.findStoreId("CHAIN001", 1);
+
+        UUID createdId = UUID.randomUUID();
+        ResolveStoresResponse resolveResponse = new ResolveStoresResponse();
+        resolveResponse.setStores(List.of(
+                new ResolveStoresResponse.ResolvedStoreDto("CHAIN001", 2, createdId, true),
+                new ResolveStoresResponse.ResolvedStoreDto("CHAIN001", 3, null, false)));
+
+        ArgumentCaptor<HttpEntity<ResolveStoresRequest>> requestCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+        when(restTemplate.postForEntity(eq(storeServiceBaseUrl + "/api/v1/stores/resolve"), requestCaptor.capture(),
+                eq(ResolveStoresResponse.class)))
+                .thenReturn(new ResponseEntity<>(resolveResponse, HttpStatus.OK));
+
+        // Act
+        Map<StoreKey, UUID> result = storeServiceClient.resolveStoreIds(List.of(
+                new StoreKey("CHAIN001", 1), new StoreKey("CHAIN001", 2), new StoreKey("CHAIN001", 3)), true);
+
+        // Assert
+        assertEquals(2, result.size());
+        assertEquals(cachedId, result.get(new StoreKey("CHAIN001", 1)));
+        assertEquals(createdId, result.get(new StoreKey("CHAIN001", 2)));
+        assertFalse(result.containsKey(new StoreKey("CHAIN001", 3)));
+
+        ResolveStoresRequest sentRequest = requestCaptor.getValue().getBody();
+        assertNotNull(sentRequest);
+        assertEquals(2, sentRequest.getStores().size());
+        assertTrue(sentRequest.isCreateMissing());
+        assertEquals("retail-file-service", requestCaptor.getValue().getHeaders().getFirst("X-Service-Name"));
+
+        // Resolved IDs are now served from the cache
+        assertEquals(Optional.of(createdId), storeServiceClient.findStoreId("CHAIN001", 2));
+        verify(restTemplate, times(1)).getForEntity(anyString(), eq(StoreDto.class));
+    }
+
+    @Test
+    void upsertStores_ShouldSendOneBulkRequestAndCacheReturnedIds() {
+        // Arrange
+        UUID storeId = UUID.randomUUID();
+        UpsertStoresResponse upsertResponse = new UpsertStoresResponse();
+        upsertResponse.setStores(List.of(new ResolveStoresResponse.ResolvedStoreDto("CHAIN001", 7, storeId, true)));
+        upsertResponse.setCreated(1);
+
+        ArgumentCaptor<HttpEntity<UpsertStoresRequest>> requestCaptor = ArgumentCaptor.forClass(HttpEntity.class);
+        when(restTemplate.exchange(eq(storeServiceBaseUrl + "/api/v1/stores/bulk"), eq(HttpMethod.PUT),
+                requestCaptor.capture(), eq(UpsertStoresResponse.class)))
+                .thenReturn(new ResponseEntity<>(upsertResponse, HttpStatus.OK));
+
+        // Act
+        UpsertStoresResponse result = storeServiceClient.upsertStores(List.of(
+                new UpsertStoresRequest.StoreDto("CHAIN001", 7, "1", "Main Street", 1)));
+
+        // Assert
+        assertEquals(1, result.getCreated());
+        assertEquals(1, requestCaptor.getValue().getBody().getStores().size());
+        assertEquals("retail-file-service", requestCaptor.getValue().getHeaders().getFirst("X-Service-Name"));
+
+        // The upserted store is now served from the cache
+        assertEquals(Optional.of(storeId), storeServiceClient.findStoreId("CHAIN001", 7));
+        verify(restTemplate, never()).getForEntity(anyString(), eq(StoreDto.class));
+    }
+}
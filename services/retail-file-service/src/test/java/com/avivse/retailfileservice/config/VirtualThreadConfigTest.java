@@ -0,0 +1,37 @@
+package com.avivse.retailfileservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class VirtualThreadConfigTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void pinningGuardDataSourcePostProcessor_ShouldWrapDataSourcesOnce() {
+        // Given
+        ObjectProvider<MeterRegistry> meterRegistry = mock(ObjectProvider.class);
+        when(meterRegistry.getObject()).thenReturn(new SimpleMeterRegistry());
+        BeanPostProcessor postProcessor = VirtualThreadConfig.pinningGuardDataSourcePostProcessor(
+                4, Duration.ofSeconds(30), meterRegistry);
+        DataSource dataSource = mock(DataSource.class);
+
+        // When
+        Object wrapped = postProcessor.postProcessAfterInitialization(dataSource, "dataSource");
+
+        // Then
+        assertInstanceOf(PinningGuardDataSource.class, wrapped);
+        assertSame(dataSource, ((PinningGuardDataSource) wrapped).getTargetDataSource());
+        assertSame(wrapped, postProcessor.postProcessAfterInitialization(wrapped, "dataSource"));
+        Object other = new Object();
+        assertSame(other, postProcessor.postProcessAfterInitialization(other, "other"));
+    }
+}
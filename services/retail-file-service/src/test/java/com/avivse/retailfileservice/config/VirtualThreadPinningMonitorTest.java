@@ -0,0 +1,44 @@
+package com.avivse.retailfileservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadPinningMonitorTest {
+
+    private final Object monitor = new Object();
+
+    @Test
+    void onPinned_ShouldRecordVirtualThreadBlockedInsideSynchronized() throws Exception {
+        // Given
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        try (VirtualThreadPinningMonitor ignored = new VirtualThreadPinningMonitor(Duration.ofMillis(1), meterRegistry)) {
+
+            // When - sleeping while holding a monitor pins the virtual thread
+            Thread.ofVirtual().start(() -> {
+                synchronized (monitor) {
+                    sleep(50);
+                }
+            }).join();
+
+            // Then - events reach the stream about once a second
+            long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+            while (meterRegistry.get("jvm_virtual_threads_pinned").timer().count() == 0
+                    && System.nanoTime() < deadline) {
+                Thread.sleep(100);
+            }
+            assertTrue(meterRegistry.get("jvm_virtual_threads_pinned").timer().count() > 0);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.avivse.retailfileservice.controller;
+
+import com.avivse.retailfileservice.dto.LatestPriceResponse;
+import com.avivse.retailfileservice.dto.PriceHistoryPoint;
+import com.avivse.retailfileservice.service.LatestPriceIndex;
+import com.avivse.retailfileservice.service.PriceHistoryStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(PriceController.class)
+class PriceControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private LatestPriceIndex latestPriceIndex;
+
+    @MockBean
+    private PriceHistoryStore priceHistoryStore;
+
+    private final UUID storeId = UUID.randomUUID();
+
+    @Test
+    void getStorePrice_ShouldReturnLatestPrice() throws Exception {
+        // Given
+        when(latestPriceIndex.find(storeId, "7290000000015")).thenReturn(Optional.of(new LatestPriceResponse(
+                storeId, "7290000000015", new BigDecimal("6.900"), LocalDateTime.of(2024, 1, 15, 10, 30))));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/prices/stores/{storeId}/items/{itemCode}", storeId, "7290000000015"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.store_id").value(storeId.toString()))
+                .andExpect(jsonPath("$.item_price").value(6.9));
+    }
+
+    @Test
+    void getStorePrice_ShouldReturn404_WhenPriceIsUnknown() throws Exception {
+        // Given
+        when(latestPriceIndex.find(storeId, "123")).thenReturn(Optional.empty());
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/prices/stores/{storeId}/items/{itemCode}", storeId, "123"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.code").value("PRICE_NOT_FOUND"));
+    }
+
+    @Test
+    void getChainPrices_ShouldReturnOnePricePerStore() throws Exception {
+        // Given
+        when(latestPriceIndex.findInChain("7290027600007", "123")).thenReturn(List.of(
+                new LatestPriceResponse(storeId, "123", new BigDecimal("1.000"), LocalDateTime.of(2024, 1, 15, 3, 0)),
+                new LatestPriceResponse(UUID.randomUUID(), "123", new BigDecimal("1.200"), LocalDateTime.of(2024, 1, 15, 3, 0))));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/prices/chains/{chainId}/items/{itemCode}", "7290027600007", "123"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test
+    void getStorePriceHistory_ShouldReturnPricePoints() throws Exception {
+        // Given
+        LocalDateTime from = LocalDateTime.of(2024, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 3, 31, 0, 0);
+        when(priceHistoryStore.find(storeId, "123", from, to)).thenReturn(List.of(
+                new PriceHistoryPoint(LocalDateTime.of(2023, 12, 20, 8, 0), new BigDecimal("9.900")),
+                new PriceHistoryPoint(LocalDateTime.of(2024, 2, 1, 8, 0), new BigDecimal("8.900"))));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/prices/stores/{storeId}/items/{itemCode}/history", storeId, "123")
+                        .param("from", "2024-01-01T00:00:00")
+                        .param("to", "2024-03-31T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].item_price").value(8.9));
+    }
+}
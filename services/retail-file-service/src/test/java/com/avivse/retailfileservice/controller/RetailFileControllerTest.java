@@ -1,10 +1,19 @@
 package com.avivse.retailfileservice.controller;
 
+import com.avivse.retailfileservice.dto.ClaimRetailFilesRequest;
+import com.avivse.retailfileservice.dto.CreateRetailFileBatchRequest;
 import com.avivse.retailfileservice.dto.CreateRetailFileRequest;
+import com.avivse.retailfileservice.dto.CursorPage;
+import com.avivse.retailfileservice.dto.RetailFileBatchItemResult;
+import com.avivse.retailfileservice.dto.RetailFileBatchResponse;
 import com.avivse.retailfileservice.dto.UpdateRetailFileRequest;
 import com.avivse.retailfileservice.entity.RetailFile;
 import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import com.avivse.retailfileservice.exception.InvalidCursorException;
+import com.avivse.retailfileservice.exception.WriteBufferFullException;
+import com.avivse.retailfileservice.service.RetailFileQueueService;
 import com.avivse.retailfileservice.service.RetailFileService;
+import com.avivse.retailfileservice.service.RetailFileStreamService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,15 +22,22 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -36,6 +52,12 @@ class RetailFileControllerTest {
     @MockBean
     RetailFileService retailFileService;
 
+    @MockBean
+    RetailFileStreamService retailFileStreamService;
+
+    @MockBean
+    RetailFileQueueService retailFileQueueService;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -85,6 +107,51 @@ class RetailFileControllerTest {
         verify(retailFileService, times(1)).createRetailFile(any(CreateRetailFileRequest.class));
     }
 
+    @Test
+    void createRetailFile_ShouldReturn202_WhenWriteBehindIsEnabled() throws Exception {
+        // Given
+        CreateRetailFileRequest createRequest = new CreateRetailFileRequest();
+        createRequest.setFileName("test_file.csv");
+        createRequest.setFileUrl("https://example.com/test_file.csv");
+        createRequest.setStoreNumber(123);
+        createRequest.setChainId("CHAIN001");
+
+        when(retailFileService.isWriteBehindEnabled()).thenReturn(true);
+        when(retailFileService.acceptRetailFile(any(CreateRetailFileRequest.class)))
+                .thenReturn(testRetailFile);
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest)))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.id").value(testId.toString()));
+
+        verify(retailFileService, never()).createRetailFile(any(CreateRetailFileRequest.class));
+    }
+
+    @Test
+    void createRetailFile_ShouldReturn503_WhenWriteBufferIsFull() throws Exception {
+        // Given
+        CreateRetailFileRequest createRequest = new CreateRetailFileRequest();
+        createRequest.setFileName("test_file.csv");
+        createRequest.setFileUrl("https://example.com/test_file.csv");
+        createRequest.setStoreNumber(123);
+        createRequest.setChainId("CHAIN001");
+
+        when(retailFileService.isWriteBehindEnabled()).thenReturn(true);
+        when(retailFileService.acceptRetailFile(any(CreateRetailFileRequest.class)))
+                .thenThrow(new WriteBufferFullException("Too many retail files waiting to be written, retry later"));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(createRequest)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.code").value("WRITE_BUFFER_FULL"));
+    }
+
     @Test
     void createRetailFile_ShouldReturn400_WhenInvalidRequest() throws Exception {
         // Given - create invalid request locally
@@ -168,6 +235,74 @@ class RetailFileControllerTest {
         verify(retailFileService, times(1)).findAllWithFilters(FileProcessingStatus.PENDING, 1, 20);
     }
 
+    @Test
+    void listRetailFiles_ShouldUseCursorPaging_WhenRequested() throws Exception {
+        // Given
+        when(retailFileService.findAllAfterCursor(null, null, 20))
+                .thenReturn(new CursorPage<>(List.of(testRetailFile), "next-token"));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/retail-files")
+                        .param("paging", "cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.pagination.next_cursor").value("next-token"))
+                .andExpect(jsonPath("$.pagination.has_more").value(true))
+                .andExpect(jsonPath("$.pagination.total").doesNotExist());
+
+        verify(retailFileService, never()).countWithFilters(any());
+        verify(retailFileService, never()).findAllWithFilters(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void listRetailFiles_ShouldIncludeTotalInCursorMode_WhenRequested() throws Exception {
+        // Given
+        when(retailFileService.findAllAfterCursor(FileProcessingStatus.PENDING, "some-token", 10))
+                .thenReturn(new CursorPage<>(List.of(testRetailFile), null));
+        when(retailFileService.countWithFilters(FileProcessingStatus.PENDING)).thenReturn(11L);
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/retail-files")
+                        .param("status", "PENDING")
+                        .param("cursor", "some-token")
+                        .param("limit", "10")
+                        .param("include_total", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.has_more").value(false))
+                .andExpect(jsonPath("$.pagination.total").value(11));
+    }
+
+    @Test
+    void listRetailFiles_ShouldSkipCount_WhenTotalNotRequested() throws Exception {
+        // Given
+        when(retailFileService.findSliceWithFilters(null, 2, 20))
+                .thenReturn(new SliceImpl<>(List.of(testRetailFile), PageRequest.of(1, 20), true));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/retail-files")
+                        .param("page", "2")
+                        .param("include_total", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.page").value(2))
+                .andExpect(jsonPath("$.pagination.has_more").value(true))
+                .andExpect(jsonPath("$.pagination.total").doesNotExist());
+
+        verify(retailFileService, never()).findAllWithFilters(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void listRetailFiles_ShouldReturn400_WhenCursorIsInvalid() throws Exception {
+        // Given
+        when(retailFileService.findAllAfterCursor(null, "garbage", 20))
+                .thenThrow(new InvalidCursorException("garbage"));
+
+        // When & Then
+        mockMvc.perform(get("/api/v1/retail-files")
+                        .param("cursor", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_CURSOR"));
+    }
+
     @Test
     void updateRetailFile_ShouldReturn200_WhenFileExists() throws Exception {
         // Given - create update request locally
@@ -344,4 +479,90 @@ class RetailFileControllerTest {
 
         verify(retailFileService, never()).createRetailFile(any(CreateRetailFileRequest.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void createRetailFiles_ShouldReturnPerItemResults() throws Exception {
+        // Given
+        CreateRetailFileRequest item = new CreateRetailFileRequest();
+        item.setFileName("test_file.csv");
+        item.setFileUrl("https://example.com/test_file.csv");
+        item.setStoreNumber(123);
+        item.setChainId("CHAIN001");
+
+        RetailFileBatchResponse batchResponse = new RetailFileBatchResponse(List.of(
+                RetailFileBatchItemResult.created(0, testId, "abc123"),
+                RetailFileBatchItemResult.duplicate(1, "abc123")));
+        when(retailFileService.createRetailFiles(anyList())).thenReturn(batchResponse);
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateRetailFileBatchRequest(List.of(item, item)))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].id").value(testId.toString()))
+                .andExpect(jsonPath("$.results[1].status").value("DUPLICATE"));
+    }
+
+    @Test
+    void createRetailFiles_ShouldReturn400_WhenBatchIsEmpty() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateRetailFileBatchRequest(List.of()))))
+                .andExpect(status().isBadRequest());
+
+        verify(retailFileService, never()).createRetailFiles(anyList());
+    }
+
+    @Test
+    void streamRetailFiles_ShouldDelegateToStreamService() throws Exception {
+        // Given
+        doAnswer(invocation -> {
+            OutputStream output = invocation.getArgument(1);
+            output.write("{\"index\":0,\"status\":\"CREATED\"}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(retailFileStreamService).ingest(any(InputStream.class), any(OutputStream.class));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .accept(MediaType.APPLICATION_NDJSON)
+                        .content("{\"file_name\": \"test_file.csv\"}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"index\":0,\"status\":\"CREATED\"}\n"));
+
+        verify(retailFileStreamService, times(1)).ingest(any(InputStream.class), any(OutputStream.class));
+    }
+
+    @Test
+    void claimRetailFiles_ShouldReturnClaimedFiles() throws Exception {
+        // Given
+        testRetailFile.setStatus(FileProcessingStatus.PROCESSING);
+        testRetailFile.setLeaseOwner("worker-1");
+        when(retailFileQueueService.claimBatch("worker-1", 5)).thenReturn(List.of(testRetailFile));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files/claim")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ClaimRetailFilesRequest("worker-1", 5))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.data[0].status").value("PROCESSING"))
+                .andExpect(jsonPath("$.data[0].lease_owner").value("worker-1"));
+    }
+
+    @Test
+    void claimRetailFiles_ShouldReturn400_WhenWorkerIdIsMissing() throws Exception {
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files/claim")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"batch_size\": 5}"))
+                .andExpect(status().isBadRequest());
+
+        verify(retailFileQueueService, never()).claimBatch(any(), anyInt());
+    }
+}
@@ -1,30 +1,59 @@
 package com.avivse.retailfileservice.integration;
 
+import com.avivse.retailfileservice.client.AsyncStoreServiceClient;
+import com.avivse.retailfileservice.client.StoreKey;
 import com.avivse.retailfileservice.client.StoreServiceClient;
+import com.avivse.retailfileservice.dto.ClaimRetailFilesRequest;
+import com.avivse.retailfileservice.dto.CreateRetailFileBatchRequest;
 import com.avivse.retailfileservice.dto.CreateRetailFileRequest;
 import com.avivse.retailfileservice.dto.UpdateRetailFileRequest;
+import com.avivse.retailfileservice.entity.PriceItem;
 import com.avivse.retailfileservice.entity.RetailFile;
 import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import com.avivse.retailfileservice.parser.PriceItemRecord;
+import com.avivse.retailfileservice.repository.PriceItemRepository;
 import com.avivse.retailfileservice.repository.RetailFileRepository;
+import com.avivse.retailfileservice.service.LatestPriceIndex;
+import com.avivse.retailfileservice.service.PriceFileIngestService;
+import com.avivse.retailfileservice.service.PriceItemWriter;
+import com.avivse.retailfileservice.service.PriceSnapshotStore;
+import com.avivse.retailfileservice.service.RetailFileIngestService;
+import com.avivse.retailfileservice.service.RetailFileLeaseReaper;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.TestPropertySource;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 import static org.hamcrest.Matchers.hasSize;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -47,9 +76,36 @@ class RetailFileIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private RetailFileLeaseReaper retailFileLeaseReaper;
+
+    @Autowired
+    private PriceItemRepository priceItemRepository;
+
+    @Autowired
+    private PriceFileIngestService priceFileIngestService;
+
+    @Autowired
+    private PriceItemWriter priceItemWriter;
+
+    @Autowired
+    private PriceSnapshotStore priceSnapshotStore;
+
+    @Autowired
+    private RetailFileIngestService retailFileIngestService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @MockBean
     private StoreServiceClient storeServiceClient;
 
+    @MockBean
+    private AsyncStoreServiceClient asyncStoreServiceClient;
+
+    @TempDir
+    Path tempDir;
+
     @BeforeEach
     void setUp() {
         retailFileRepository.deleteAll();
@@ -117,6 +173,99 @@ class RetailFileIntegrationTest {
                 .andExpect(jsonPath("$.pagination.total").value(2));
     }
 
+    @Test
+    void listRetailFiles_ShouldWalkAllPagesWithCursor() throws Exception {
+        // Given - two files share an upload date so the id tie-breaker is exercised
+        LocalDateTime sameTime = LocalDateTime.of(2024, 1, 15, 10, 30);
+        for (int i = 0; i < 5; i++) {
+            RetailFile file = createTestFile("cursor" + i + ".csv", FileProcessingStatus.PENDING, "checksum-cursor-" + i);
+            file.setUploadDate(i < 2 ? sameTime : sameTime.minusDays(i));
+            retailFileRepository.save(file);
+        }
+
+        // When - follow next_cursor until the last page
+        Set<String> seenIds = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var request = get("/api/v1/retail-files").param("paging", "cursor").param("limit", "2");
+            if (cursor != null) {
+                request.param("cursor", cursor);
+            }
+            MvcResult result = mockMvc.perform(request)
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.pagination.total").doesNotExist())
+                    .andReturn();
+
+            JsonNode body = objectMapper.readTree(result.getResponse().getContentAsString());
+            body.get("data").forEach(file -> seenIds.add(file.get("id").asText()));
+            JsonNode next = body.get("pagination").get("next_cursor");
+            cursor = next.isNull() ? null : next.asText();
+            pages++;
+        } while (cursor != null);
+
+        // Then
+        assertEquals(3, pages);
+        assertEquals(5, seenIds.size());
+    }
+
+    @Test
+    void claimRetailFiles_ShouldHandOutEachPendingFileOnce() throws Exception {
+        // Given
+        for (int i = 0; i < 3; i++) {
+            createTestFile("claim" + i + ".csv", FileProcessingStatus.PENDING, "checksum-claim-" + i);
+        }
+        createTestFile("done.csv", FileProcessingStatus.COMPLETED, "checksum-done");
+
+        // When
+        mockMvc.perform(post("/api/v1/retail-files/claim")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ClaimRetailFilesRequest("worker-1", 2))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(2))
+                .andExpect(jsonPath("$.data[0].lease_owner").value("worker-1"));
+
+        mockMvc.perform(post("/api/v1/retail-files/claim")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ClaimRetailFilesRequest("worker-2", 2))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.data[0].lease_owner").value("worker-2"));
+
+        // Then
+        List<RetailFile> processing = retailFileRepository.findByStatus(FileProcessingStatus.PROCESSING);
+        assertEquals(3, processing.size());
+        assertTrue(processing.stream().allMatch(file -> file.getLeaseExpiresAt() != null));
+        assertTrue(retailFileRepository.findByStatus(FileProcessingStatus.PENDING).isEmpty());
+    }
+
+    @Test
+    void leaseReaper_ShouldReturnExpiredFilesToPending() {
+        // Given
+        RetailFile expired = createTestFile("expired.csv", FileProcessingStatus.PROCESSING, "checksum-expired");
+        expired.setLeaseOwner("worker-1");
+        expired.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(1));
+        retailFileRepository.save(expired);
+
+        RetailFile active = createTestFile("active.csv", FileProcessingStatus.PROCESSING, "checksum-active");
+        active.setLeaseOwner("worker-2");
+        active.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(5));
+        retailFileRepository.save(active);
+
+        // When
+        retailFileLeaseReaper.reapExpiredLeases();
+
+        // Then
+        RetailFile reclaimed = retailFileRepository.findById(expired.getId()).orElseThrow();
+        assertEquals(FileProcessingStatus.PENDING, reclaimed.getStatus());
+        assertEquals(1, reclaimed.getProcessingAttempts());
+        assertNull(reclaimed.getLeaseOwner());
+
+        RetailFile stillActive = retailFileRepository.findById(active.getId()).orElseThrow();
+        assertEquals(FileProcessingStatus.PROCESSING, stillActive.getStatus());
+        assertEquals("worker-2", stillActive.getLeaseOwner());
+    }
+
     @Test
     @Transactional
     void updateRetailFile_ShouldUpdateInDatabase() throws Exception {
@@ -166,6 +315,245 @@ class RetailFileIntegrationTest {
         assertFalse(retailFileRepository.existsById(fileId));
     }
 
+    @Test
+    void createRetailFiles_ShouldPersistNewFilesAndSkipDuplicates() throws Exception {
+        // Given
+        when(storeServiceClient.resolveStoreIds(anyCollection(), eq(true)))
+                .thenReturn(Map.of(new StoreKey("CHAIN001", 123), UUID.randomUUID()));
+        createTestFile("existing.csv", FileProcessingStatus.PENDING, "checksum-existing");
+
+        List<CreateRetailFileRequest> files = List.of(
+                batchItem("first.csv", "checksum-first"),
+                batchItem("second.csv", "checksum-second"),
+                batchItem("existing.csv", "checksum-existing"));
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new CreateRetailFileBatchRequest(files))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(2))
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.results", hasSize(3)))
+                .andExpect(jsonPath("$.results[2].status").value("DUPLICATE"));
+
+        // Then - Verify in database
+        assertEquals(3, retailFileRepository.count());
+        assertTrue(retailFileRepository.existsByChecksum("checksum-second"));
+    }
+
+    @Test
+    void streamRetailFiles_ShouldPersistEachLine() throws Exception {
+        // Given
+        when(storeServiceClient.resolveStoreIds(anyCollection(), eq(true)))
+                .thenReturn(Map.of(new StoreKey("CHAIN001", 123), UUID.randomUUID()));
+
+        StringBuilder body = new StringBuilder();
+        for (String fileName : List.of("first.csv", "second.csv", "first.csv")) {
+            body.append(objectMapper.writeValueAsString(batchItem(fileName, "checksum-" + fileName))).append('\n');
+        }
+
+        // When
+        MvcResult result = mockMvc.perform(post("/api/v1/retail-files/stream")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(body.toString()))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // Then
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[2].contains("DUPLICATE"));
+        assertEquals(2, retailFileRepository.count());
+    }
+
+    @Test
+    void rebuildChecksumFilter_ShouldReturnFilterStatus() throws Exception {
+        // Given
+        createTestFile("existing.csv", FileProcessingStatus.PENDING, "checksum-existing");
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files/checksum-filter/rebuild"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.ready").value(true))
+                .andExpect(jsonPath("$.entries").value(1))
+                .andExpect(jsonPath("$.stale_entries").value(0));
+
+        mockMvc.perform(get("/api/v1/retail-files/duplicates/check").param("checksum", "checksum-existing"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.isDuplicate").value(true));
+    }
+
+    @Test
+    void createRetailFile_ShouldReturn409_WhenChecksumAlreadyExists() throws Exception {
+        // Given
+        createTestFile("existing.csv", FileProcessingStatus.PENDING, "checksum-existing");
+
+        // When & Then
+        mockMvc.perform(post("/api/v1/retail-files")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batchItem("copy.csv", "checksum-existing"))))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.code").value("DUPLICATE_RETAIL_FILE"));
+
+        assertEquals(1, retailFileRepository.count());
+    }
+
+    private CreateRetailFileRequest batchItem(String fileName, String checksum) {
+        CreateRetailFileRequest request = new CreateRetailFileRequest();
+        request.setFileName(fileName);
+        request.setFileUrl("https://example.com/" + fileName);
+        request.setChecksum(checksum);
+        request.setStoreNumber(123);
+        request.setChainId("CHAIN001");
+        return request;
+    }
+
+    @Test
+    void ingestPriceFile_ShouldUpsertItemsByStoreItemAndPriceDate() throws Exception {
+        // Given
+        UUID storeId = UUID.randomUUID();
+        RetailFile first = createTestFile("PriceFull7290027600007-001-202401150300.xml",
+                FileProcessingStatus.COMPLETED, "checksum-price-1");
+        first.setStoreId(storeId);
+        RetailFile second = createTestFile("Price7290027600007-001-202401151200.xml",
+                FileProcessingStatus.COMPLETED, "checksum-price-2");
+        second.setStoreId(storeId);
+
+        Path priceFull = Files.writeString(tempDir.resolve("PriceFull.xml"), """
+                <root><StoreId>1</StoreId><Items>
+                  <Item><ItemCode>100</ItemCode><PriceUpdateDate>2024-01-15 03:00</PriceUpdateDate><ItemPrice>5.90</ItemPrice></Item>
+                  <Item><ItemCode>200</ItemCode><PriceUpdateDate>2024-01-15 03:00</PriceUpdateDate><ItemPrice>9.90</ItemPrice></Item>
+                </Items></root>
+                """);
+        Path price = Files.writeString(tempDir.resolve("Price.xml"), """
+                <root><StoreId>1</StoreId><Items>
+                  <Item><ItemCode>100</ItemCode><PriceUpdateDate>2024-01-15 03:00</PriceUpdateDate><ItemPrice>5.50</ItemPrice></Item>
+                  <Item><ItemCode>100</ItemCode><PriceUpdateDate>2024-01-15 12:00</PriceUpdateDate><ItemPrice>4.90</ItemPrice></Item>
+                </Items></root>
+                """);
+
+        // When
+        priceFileIngestService.ingest(first, priceFull);
+        priceFileIngestService.ingest(second, price);
+
+        // Then
+        assertEquals(3, priceItemRepository.count());
+        assertEquals(1, priceItemRepository.countByRetailFileId(first.getId()));
+        assertEquals(2, priceItemRepository.countByRetailFileId(second.getId()));
+
+        List<PriceItem> history = priceItemRepository.findHistory(storeId, "100", Limit.of(10));
+        assertEquals(2, history.size());
+        assertEquals(0, new BigDecimal("4.90").compareTo(history.get(0).getItemPrice()));
+        assertEquals(0, new BigDecimal("5.50").compareTo(history.get(1).getItemPrice()));
+    }
+
+    @Test
+    void ingestPromoFile_ShouldUpsertPromotionsAndItemsOfHeaderStore() throws Exception {
+        // Given
+        UUID storeId = UUID.randomUUID();
+        when(asyncStoreServiceClient.getOrCreateStoreId("7290027600007", 42))
+                .thenReturn(CompletableFuture.completedFuture(storeId));
+        RetailFile promoFull = createFetchedFile("PromoFull7290027600007-042-202401150300.xml", "checksum-promo-1");
+        RetailFile promo = createFetchedFile("Promo7290027600007-042-202401151200.xml", "checksum-promo-2");
+
+        Path promoFullContent = Files.writeString(tempDir.resolve("PromoFull.xml"), """
+                <Root><ChainId>7290027600007</ChainId><StoreId>42</StoreId><Promotions>
+                  <Promotion><PromotionId>1001</PromotionId><DiscountedPrice>10.00</DiscountedPrice>
+                    <PromotionItems><Item><ItemCode>111</ItemCode></Item><Item><ItemCode>222</ItemCode></Item></PromotionItems>
+                  </Promotion>
+                  <Promotion><PromotionId>1002</PromotionId>
+                    <PromotionItems><Item><ItemCode>333</ItemCode></Item></PromotionItems>
+                  </Promotion>
+                </Promotions></Root>
+                """);
+        Path promoContent = Files.writeString(tempDir.resolve("Promo.xml"), """
+                <Root><ChainId>7290027600007</ChainId><StoreId>42</StoreId><Promotions>
+                  <Promotion><PromotionId>1001</PromotionId><DiscountedPrice>8.00</DiscountedPrice>
+                    <PromotionItems><Item><ItemCode>111</ItemCode></Item></PromotionItems>
+                  </Promotion>
+                </Promotions></Root>
+                """);
+
+        // When
+        retailFileIngestService.ingest(promoFull, promoFullContent, "fetcher");
+        retailFileIngestService.ingest(promo, promoContent, "fetcher");
+
+        // Then - the later file's copy of promotion 1001 replaced the earlier one
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM promotions WHERE store_id = ?", Integer.class, storeId));
+        assertEquals(3, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM promotion_items WHERE store_id = ?", Integer.class, storeId));
+        Map<String, Object> updated = jdbcTemplate.queryForMap(
+                "SELECT retail_file_id, discounted_price FROM promotions WHERE store_id = ? AND promotion_id = '1001'",
+                storeId);
+        assertEquals(promo.getId(), updated.get("RETAIL_FILE_ID"));
+        assertEquals(0, new BigDecimal("8.00").compareTo((BigDecimal) updated.get("DISCOUNTED_PRICE")));
+
+        // And the files are COMPLETED only now that their promotions are stored
+        RetailFile completed = retailFileRepository.findById(promo.getId()).orElseThrow();
+        assertEquals(FileProcessingStatus.COMPLETED, completed.getStatus());
+        assertNull(completed.getLeaseOwner());
+    }
+
+    @Test
+    void latestPrices_ShouldFollowUploadOrder_WhenRemovalIsDatedBeforeStorePriceDate() {
+        // Given - the store dates item 100 after the upload of the file that later drops it
+        UUID storeId = UUID.randomUUID();
+        RetailFile first = createTestFile("PriceFull7290027600007-001-202401150300.xml",
+                FileProcessingStatus.COMPLETED, "checksum-price-1");
+        first.setUploadDate(LocalDateTime.of(2024, 1, 15, 3, 0));
+        first.setStoreId(storeId);
+        first = retailFileRepository.save(first);
+        RetailFile second = createTestFile("PriceFull7290027600007-001-202401160300.xml",
+                FileProcessingStatus.COMPLETED, "checksum-price-2");
+        second.setUploadDate(LocalDateTime.of(2024, 1, 16, 3, 0));
+        second.setStoreId(storeId);
+        second = retailFileRepository.save(second);
+
+        priceItemWriter.write(first.getId(), storeId, first.getUploadDate(), List.of(
+                new PriceItemRecord("100", 1, null, null, null, null, null, null, false, null,
+                        new BigDecimal("5.90"), null, true, 1, LocalDateTime.of(2024, 1, 20, 0, 0)),
+                new PriceItemRecord("200", 1, null, null, null, null, null, null, false, null,
+                        new BigDecimal("9.90"), null, true, 1, LocalDateTime.of(2024, 1, 15, 3, 0))));
+
+        // When
+        priceItemWriter.writeRemovals(second.getId(), storeId, second.getUploadDate(), List.of("100"));
+
+        // Then
+        priceSnapshotStore.invalidate(storeId);
+        var snapshot = priceSnapshotStore.lock(storeId);
+        try {
+            assertFalse(snapshot.contains("100"));
+            assertTrue(snapshot.contains("200"));
+        } finally {
+            snapshot.lock().unlock();
+        }
+
+        when(asyncStoreServiceClient.getStoreById(storeId)).thenReturn(CompletableFuture.completedFuture(Optional.empty()));
+        LatestPriceIndex index = new LatestPriceIndex(true, jdbcTemplate, asyncStoreServiceClient, new SimpleMeterRegistry());
+        index.rebuild();
+        assertTrue(index.find(storeId, "100").isEmpty());
+        assertTrue(index.find(storeId, "200").isPresent());
+    }
+
+    private RetailFile createTestFile(String fileName, FileProcessingStatus status, String checksum) {
+        RetailFile file = new RetailFile();
+        file.setFileName(fileName);
+        file.setFileUrl("https://example.com/" + fileName);
+        file.setUploadDate(LocalDateTime.now());
+        file.setStatus(status);
+        file.setChecksum(checksum);
+        return retailFileRepository.save(file);
+    }
+
+    // A file downloaded by the "fetcher" worker, still PROCESSING under its lease
+    private RetailFile createFetchedFile(String fileName, String checksum) {
+        RetailFile file = createTestFile(fileName, FileProcessingStatus.PROCESSING, checksum);
+        file.setLeaseOwner("fetcher");
+        file.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(5));
+        return retailFileRepository.save(file);
+    }
 
     // Helper method to create test files in database
     private RetailFile createTestFile(String fileName, FileProcessingStatus status) {
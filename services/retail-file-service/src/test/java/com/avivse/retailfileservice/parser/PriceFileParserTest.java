@@ -0,0 +1,156 @@
+package com.avivse.retailfileservice.parser;
+
+import com.avivse.retailfileservice.exception.FileParseException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceFileParserTest {
+
+    private static final String PRICE_FULL = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <root>
+              <ChainId>7290027600007</ChainId>
+              <SubChainId>001</SubChainId>
+              <StoreId>042</StoreId>
+              <BikoretNo>9</BikoretNo>
+              <Items Count="3">
+                <Item>
+                  <PriceUpdateDate>2024-01-15 10:30</PriceUpdateDate>
+                  <ItemCode>7290000000015</ItemCode>
+                  <ItemType>1</ItemType>
+                  <ItemName>חלב 3%</ItemName>
+                  <ManufacturerName>תנובה</ManufacturerName>
+                  <ManufactureCountry>IL</ManufactureCountry>
+                  <UnitQty>ליטר</UnitQty>
+                  <Quantity>1.00</Quantity>
+                  <bIsWeighted>0</bIsWeighted>
+                  <UnitOfMeasure>ליטר</UnitOfMeasure>
+                  <QtyInPackage>0</QtyInPackage>
+                  <ItemPrice>6.90</ItemPrice>
+                  <UnitOfMeasurePrice>6.90</UnitOfMeasurePrice>
+                  <AllowDiscount>1</AllowDiscount>
+                  <ItemStatus>1</ItemStatus>
+                  <Extra><Nested>ignored</Nested></Extra>
+                </Item>
+                <Item>
+                  <ItemName>no code</ItemName>
+                </Item>
+                <Item>
+                  <PriceUpdateDate>2024-01-16T08:00:00</PriceUpdateDate>
+                  <ItemCode>123</ItemCode>
+                  <bIsWeighted>1</bIsWeighted>
+                  <ItemPrice>not-a-price</ItemPrice>
+                </Item>
+              </Items>
+            </root>
+            """;
+
+    private final PriceFileParser parser = new PriceFileParser();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void open_ShouldReadHeaderAndStreamItems() throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("PriceFull.xml"), PRICE_FULL);
+
+        // When
+        List<PriceItemRecord> items = new ArrayList<>();
+        PriceFileHeader header;
+        long skipped;
+        try (PriceFileReader reader = parser.open(file)) {
+            header = reader.header();
+            PriceItemRecord item;
+            while ((item = reader.next()) != null) {
+                items.add(item);
+            }
+            skipped = reader.itemsSkipped();
+        }
+
+        // Then
+        assertEquals(new PriceFileHeader("7290027600007", "001", 42), header);
+        assertEquals(2, items.size());
+        assertEquals(1, skipped);
+
+        PriceItemRecord milk = items.get(0);
+        assertEquals("7290000000015", milk.itemCode());
+        assertEquals("חלב 3%", milk.itemName());
+        assertEquals(new BigDecimal("6.90"), milk.itemPrice());
+        assertEquals(new BigDecimal("6.90"), milk.unitOfMeasurePrice());
+        assertTrue(milk.allowDiscount());
+        assertFalse(milk.weighted());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), milk.priceUpdateDate());
+
+        PriceItemRecord weighed = items.get(1);
+        assertTrue(weighed.weighted());
+        assertNull(weighed.itemPrice());
+        assertEquals(LocalDateTime.of(2024, 1, 16, 8, 0), weighed.priceUpdateDate());
+    }
+
+    @Test
+    void open_ShouldDetectGzipByContent() throws Exception {
+        // Given - gzipped content without a .gz extension
+        Path file = tempDir.resolve("PriceFull.xml");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(PRICE_FULL.getBytes(StandardCharsets.UTF_8));
+        }
+
+        // When
+        int count = 0;
+        try (PriceFileReader reader = parser.open(file)) {
+            while (reader.next() != null) {
+                count++;
+            }
+        }
+
+        // Then
+        assertEquals(2, count);
+    }
+
+    @Test
+    void open_ShouldReadProductElementsWithDifferentCasing() throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("Price.xml"), """
+                <Prices><ChainID>7290058140886</ChainID><StoreID>7</StoreID>
+                  <Products><Product><ItemCode>555</ItemCode><ItemPrice>12.5</ItemPrice></Product></Products>
+                </Prices>
+                """);
+
+        // When
+        try (PriceFileReader reader = parser.open(file)) {
+            // Then
+            assertEquals("7290058140886", reader.header().chainId());
+            assertEquals(7, reader.header().storeId());
+            PriceItemRecord item = reader.next();
+            assertEquals("555", item.itemCode());
+            assertEquals(new BigDecimal("12.5"), item.itemPrice());
+            assertNull(reader.next());
+        }
+    }
+
+    @Test
+    void next_ShouldThrowFileParseException_WhenXmlIsTruncated() throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("broken.xml"),
+                "<root><Items><Item><ItemCode>1</ItemCode></Item><Item><ItemCode>2");
+
+        // When / Then
+        try (PriceFileReader reader = parser.open(file)) {
+            assertNotNull(reader.next());
+            assertThrows(FileParseException.class, reader::next);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.avivse.retailfileservice.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PromoFileParserTest {
+
+    private static final String PROMO_FULL = """
+            <?xml version="1.0" encoding="UTF-8"?>
+            <Root>
+              <ChainId>7290027600007</ChainId>
+              <SubChainId>001</SubChainId>
+              <StoreId>042</StoreId>
+              <Promotions Count="2">
+                <Promotion>
+                  <PromotionId>1001</PromotionId>
+                  <AllowMultipleDiscounts>1</AllowMultipleDiscounts>
+                  <PromotionDescription>2 ב-10</PromotionDescription>
+                  <PromotionUpdateDate>2024-01-10 09:00</PromotionUpdateDate>
+                  <PromotionStartDate>2024-01-15</PromotionStartDate>
+                  <PromotionStartHour>08:00</PromotionStartHour>
+                  <PromotionEndDate>2024-01-31</PromotionEndDate>
+                  <PromotionEndHour>23:59:00</PromotionEndHour>
+                  <RewardType>1</RewardType>
+                  <MinQty>2</MinQty>
+                  <DiscountedPrice>10.00</DiscountedPrice>
+                  <PromotionItems Count="3">
+                    <Item><ItemCode>111</ItemCode><ItemType>1</ItemType><IsGiftItem>0</IsGiftItem></Item>
+                    <Item><ItemCode>222</ItemCode><ItemType>1</ItemType><IsGiftItem>0</IsGiftItem></Item>
+                    <Item><ItemCode>333</ItemCode><ItemType>1</ItemType><IsGiftItem>1</IsGiftItem></Item>
+                  </PromotionItems>
+                  <AdditionalRestrictions><AdditionalIsCoupon>0</AdditionalIsCoupon></AdditionalRestrictions>
+                  <Clubs><ClubId>0</ClubId></Clubs>
+                </Promotion>
+                <Promotion>
+                  <PromotionId>1002</PromotionId>
+                  <RewardType>1</RewardType>
+                  <PromotionItems Count="1">
+                    <Item><ItemCode>444</ItemCode></Item>
+                  </PromotionItems>
+                </Promotion>
+              </Promotions>
+            </Root>
+            """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void open_ShouldFlattenPromotionsAndItems() throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("PromoFull.xml"), PROMO_FULL);
+        PromoFileParser parser = new PromoFileParser(1000);
+
+        // When
+        PromotionBatch batch;
+        try (PromoFileReader reader = parser.open(file)) {
+            batch = reader.nextBatch();
+            assertNull(reader.nextBatch());
+        }
+
+        // Then
+        assertEquals(2, batch.promotions().size());
+        assertEquals(4, batch.items().size());
+
+        PromotionRecord promotion = batch.promotions().get(0);
+        assertEquals("7290027600007", promotion.chainId());
+        assertEquals(42, promotion.storeId());
+        assertEquals("1001", promotion.promotionId());
+        assertEquals(LocalDateTime.of(2024, 1, 15, 8, 0), promotion.startDate());
+        assertEquals(LocalDateTime.of(2024, 1, 31, 23, 59), promotion.endDate());
+        assertEquals(new BigDecimal("10.00"), promotion.discountedPrice());
+        assertTrue(promotion.allowMultipleDiscounts());
+        assertEquals("0", promotion.clubId());
+        assertEquals(3, promotion.itemCount());
+
+        PromotionItemRecord gift = batch.items().get(2);
+        assertEquals("1001", gift.promotionId());
+        assertEquals("333", gift.itemCode());
+        assertTrue(gift.giftItem());
+        assertEquals("1002", batch.items().get(3).promotionId());
+    }
+
+    @Test
+    void nextBatch_ShouldSplitLargeFilesIntoBoundedBatches() throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("PromoFull.xml"), PROMO_FULL);
+        PromoFileParser parser = new PromoFileParser(2);
+
+        // When
+        List<PromotionBatch> batches = new ArrayList<>();
+        try (PromoFileReader reader = parser.open(file)) {
+            PromotionBatch batch;
+            while ((batch = reader.nextBatch()) != null) {
+                batches.add(batch);
+            }
+
+            // Then
+            assertEquals(2, reader.promotionsRead());
+            assertEquals(4, reader.itemsRead());
+        }
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 2));
+        assertEquals(6, batches.stream().mapToInt(PromotionBatch::size).sum());
+    }
+
+    @Test
+    void open_ShouldInternRepeatedValues() throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("PromoFull.xml"), PROMO_FULL);
+
+        // When
+        List<PromotionRecord> promotions;
+        try (PromoFileReader reader = new PromoFileParser(1000).open(file)) {
+            promotions = reader.nextBatch().promotions();
+        }
+
+        // Then
+        assertSame(promotions.get(0).rewardType(), promotions.get(1).rewardType());
+    }
+}
@@ -0,0 +1,86 @@
+package com.avivse.retailfileservice.parser;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoresFileParserTest {
+
+    private final StoresFileParser parser = new StoresFileParser();
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void open_ShouldReadNestedSubChainLayout() throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("Stores.xml"), """
+                <Root>
+                  <ChainId>7290027600007</ChainId>
+                  <ChainName>Chain</ChainName>
+                  <SubChains>
+                    <SubChain>
+                      <SubChainId>1</SubChainId>
+                      <Stores>
+                        <Store><StoreId>1</StoreId><StoreType>1</StoreType><StoreName>Main Street</StoreName><City>Haifa</City></Store>
+                        <Store><StoreId>2</StoreId><StoreType>2</StoreType><StoreName>Mall</StoreName></Store>
+                      </Stores>
+                    </SubChain>
+                    <SubChain>
+                      <SubChainId>2</SubChainId>
+                      <Stores>
+                        <Store><StoreName>No number</StoreName></Store>
+                        <Store><StoreId>3</StoreId><StoreName>Express</StoreName></Store>
+                      </Stores>
+                    </SubChain>
+                  </SubChains>
+                </Root>
+                """);
+
+        // When
+        List<StoreRecord> stores = new ArrayList<>();
+        long skipped;
+        try (StoresFileReader reader = parser.open(file)) {
+            StoreRecord store;
+            while ((store = reader.next()) != null) {
+                stores.add(store);
+            }
+            skipped = reader.storesSkipped();
+        }
+
+        // Then
+        assertEquals(3, stores.size());
+        assertEquals(1, skipped);
+        assertEquals(new StoreRecord("7290027600007", 1, 1, "Main Street", "1", null, "Haifa"), stores.get(0));
+        assertEquals(1, stores.get(1).subChainId());
+        assertEquals(2, stores.get(2).subChainId());
+        assertEquals("Express", stores.get(2).storeName());
+    }
+
+    @Test
+    void open_ShouldReadFlatUpperCaseLayout() throws Exception {
+        // Given
+        Path file = Files.writeString(tempDir.resolve("Stores.xml"), """
+                <asx:abap xmlns:asx="http://www.sap.com/abapxml"><asx:values><STORES>
+                  <STORE><CHAINID>7290027600007</CHAINID><SUBCHAINID>1</SUBCHAINID><STOREID>12</STOREID><STORETYPE>1</STORETYPE><STORENAME>Center</STORENAME><ADDRESS>Herzl 1</ADDRESS></STORE>
+                </STORES></asx:values></asx:abap>
+                """);
+
+        // When
+        try (StoresFileReader reader = parser.open(file)) {
+            // Then
+            StoreRecord store = reader.next();
+            assertEquals("7290027600007", store.chainId());
+            assertEquals(12, store.storeNumber());
+            assertEquals("Center", store.storeName());
+            assertEquals("Herzl 1", store.address());
+            assertNull(reader.next());
+        }
+    }
+}
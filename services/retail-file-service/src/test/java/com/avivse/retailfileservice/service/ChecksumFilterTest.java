@@ -0,0 +1,87 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.dto.ChecksumFilterStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChecksumFilterTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChecksumFilter checksumFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        checksumFilter = new ChecksumFilter(true, 10_000, 0.01, meterRegistry);
+    }
+
+    @Test
+    void mightContain_ShouldReturnTrue_BeforeFirstRebuild() {
+        // When & Then
+        assertTrue(checksumFilter.mightContain("anything"));
+        assertFalse(checksumFilter.status().isReady());
+    }
+
+    @Test
+    void mightContain_ShouldNeverMissStoredChecksums() {
+        // Given
+        checksumFilter.rebuild(5_000, IntStream.range(0, 5_000).mapToObj(i -> "stored-" + i));
+        checksumFilter.put("added-later");
+
+        // When & Then
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(checksumFilter.mightContain("stored-" + i));
+        }
+        assertTrue(checksumFilter.mightContain("added-later"));
+    }
+
+    @Test
+    void mightContain_ShouldKeepFalsePositivesNearTarget() {
+        // Given
+        checksumFilter.rebuild(10_000, IntStream.range(0, 10_000).mapToObj(i -> "stored-" + i));
+
+        // When
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> checksumFilter.mightContain("absent-" + i))
+                .count();
+
+        // Then - target is 1%, allow some slack for hashing variance
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertTrue(meterRegistry.get("checksum_filter_checks_total").tag("result", "definitely_absent").counter().count() > 0);
+    }
+
+    @Test
+    void rebuild_ShouldReportStatusAndResetStaleEntries() {
+        // Given
+        checksumFilter.rebuild(0, Stream.of("a", "b"));
+        checksumFilter.recordRemoval();
+        assertEquals(1, checksumFilter.status().getStaleEntries());
+
+        // When
+        ChecksumFilterStatus status = checksumFilter.rebuild(0, Stream.of("a"));
+
+        // Then
+        assertTrue(status.isReady());
+        assertEquals(1, status.getEntries());
+        assertEquals(0, status.getStaleEntries());
+        assertTrue(status.getMemoryBytes() > 0);
+        assertEquals(status.getMemoryBytes(), meterRegistry.get("checksum_filter_memory_bytes").gauge().value());
+    }
+
+    @Test
+    void mightContain_ShouldAlwaysReturnTrue_WhenDisabled() {
+        // Given
+        ChecksumFilter disabled = new ChecksumFilter(false, 10_000, 0.01, new SimpleMeterRegistry());
+        disabled.rebuild(0, Stream.of("a"));
+
+        // When & Then
+        assertTrue(disabled.mightContain("b"));
+        assertFalse(disabled.status().isReady());
+    }
+}
@@ -0,0 +1,178 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.client.AsyncStoreServiceClient;
+import com.avivse.retailfileservice.dto.LatestPriceResponse;
+import com.avivse.retailfileservice.dto.StoreDto;
+import com.avivse.retailfileservice.parser.PriceItemRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LatestPriceIndexTest {
+
+    private static final LocalDateTime JAN_15 = LocalDateTime.of(2024, 1, 15, 3, 0);
+    private static final LocalDateTime JAN_16 = LocalDateTime.of(2024, 1, 16, 3, 0);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private AsyncStoreServiceClient asyncStoreServiceClient;
+
+    private LatestPriceIndex index;
+    private final UUID storeId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        index = new LatestPriceIndex(true, jdbcTemplate, asyncStoreServiceClient, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void commit_ShouldPublishPricesOnlyOnCommit() {
+        // Given
+        LatestPriceIndex.Update update = index.beginUpdate(storeId, "CHAIN001", true, JAN_15);
+        update.put(item("7290000000015", "6.90", null));
+
+        // When & Then
+        assertTrue(index.find(storeId, "7290000000015").isEmpty());
+        update.commit();
+
+        LatestPriceResponse price = index.find(storeId, "7290000000015").orElseThrow();
+        assertEquals(0, new BigDecimal("6.90").compareTo(price.getItemPrice()));
+        assertEquals(JAN_15, price.getPriceUpdateDate());
+        assertEquals(1, index.findInChain("CHAIN001", "7290000000015").size());
+    }
+
+    @Test
+    void beginUpdate_ShouldReplaceOnFullFileAndMergeOnPartialFile() {
+        // Given
+        LatestPriceIndex.Update full = index.beginUpdate(storeId, "CHAIN001", true, JAN_15);
+        full.put(item("1", "1.00", null));
+        full.put(item("2", "2.00", null));
+        full.commit();
+
+        // When: a partial file changes item 1, then a full file drops item 2
+        LatestPriceIndex.Update partial = index.beginUpdate(storeId, "CHAIN001", false, JAN_16);
+        partial.put(item("1", "1.50", JAN_16));
+        partial.commit();
+        assertEquals(0, new BigDecimal("1.5").compareTo(index.find(storeId, "1").orElseThrow().getItemPrice()));
+        assertTrue(index.find(storeId, "2").isPresent());
+
+        LatestPriceIndex.Update nextFull = index.beginUpdate(storeId, "CHAIN001", true, JAN_16.plusDays(1));
+        nextFull.put(item("1", "1.40", null));
+        nextFull.commit();
+
+        // Then
+        assertEquals(0, new BigDecimal("1.4").compareTo(index.find(storeId, "1").orElseThrow().getItemPrice()));
+        assertTrue(index.find(storeId, "2").isEmpty());
+        assertEquals(1, index.status().getEntries());
+    }
+
+    @Test
+    void beginUpdate_ShouldKeepNewerPrices_WhenFileIsOlder() {
+        // Given
+        LatestPriceIndex.Update newer = index.beginUpdate(storeId, null, true, JAN_16);
+        newer.put(item("1", "2.00", JAN_16));
+        newer.commit();
+
+        // When
+        LatestPriceIndex.Update older = index.beginUpdate(storeId, null, true, JAN_15);
+        older.put(item("1", "1.00", JAN_15));
+        older.put(item("2", "3.00", JAN_15));
+        older.commit();
+
+        // Then
+        assertEquals(0, new BigDecimal("2").compareTo(index.find(storeId, "1").orElseThrow().getItemPrice()));
+        assertTrue(index.find(storeId, "2").isPresent());
+    }
+
+    @Test
+    void rebuild_ShouldRestoreChainMembership_FromStoreService() throws Exception {
+        // Given - one stored price, for a store the store service places in CHAIN001
+        ResultSet row = mock(ResultSet.class);
+        when(row.getObject("store_id", UUID.class)).thenReturn(storeId);
+        when(row.getString("item_code")).thenReturn("1");
+        when(row.getBigDecimal("item_price")).thenReturn(new BigDecimal("1.00"));
+        when(row.getBoolean("removed")).thenReturn(false);
+        when(row.getTimestamp("price_update_date")).thenReturn(Timestamp.valueOf(JAN_15));
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+
+        StoreDto store = new StoreDto();
+        store.setId(storeId);
+        store.setChainId("CHAIN001");
+        when(asyncStoreServiceClient.getStoreById(storeId)).thenReturn(CompletableFuture.completedFuture(Optional.of(store)));
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertEquals(1, index.findInChain("CHAIN001", "1").size());
+        assertEquals(1, index.status().getChains());
+    }
+
+    @Test
+    void rebuild_ShouldKeepPrices_WhenStoreServiceFails() throws Exception {
+        // Given
+        ResultSet row = mock(ResultSet.class);
+        when(row.getObject("store_id", UUID.class)).thenReturn(storeId);
+        when(row.getString("item_code")).thenReturn("1");
+        when(row.getBigDecimal("item_price")).thenReturn(new BigDecimal("1.00"));
+        when(row.getBoolean("removed")).thenReturn(false);
+        when(row.getTimestamp("price_update_date")).thenReturn(Timestamp.valueOf(JAN_15));
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(row);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+        when(asyncStoreServiceClient.getStoreById(storeId))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("store service down")));
+
+        // When
+        index.rebuild();
+
+        // Then
+        assertTrue(index.find(storeId, "1").isPresent());
+        assertEquals(0, index.status().getChains());
+    }
+
+    @Test
+    void beginUpdate_ShouldNotIndex_WhenDisabled() {
+        // Given
+        LatestPriceIndex disabled = new LatestPriceIndex(false, jdbcTemplate, asyncStoreServiceClient, new SimpleMeterRegistry());
+
+        // When
+        LatestPriceIndex.Update update = disabled.beginUpdate(storeId, "CHAIN001", true, JAN_15);
+        update.put(item("1", "1.00", null));
+        update.commit();
+
+        // Then
+        assertTrue(disabled.find(storeId, "1").isEmpty());
+        assertEquals(0, disabled.status().getChains());
+    }
+
+    private static PriceItemRecord item(String itemCode, String price, LocalDateTime priceUpdateDate) {
+        return new PriceItemRecord(itemCode, 1, null, null, null, null, null, null, false, null,
+                new BigDecimal(price), null, true, 1, priceUpdateDate);
+    }
+}
@@ -0,0 +1,116 @@
+package com.avivse.retailfileservice.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PipelineStageTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PipelineStage stage;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        stage = new PipelineStage("test", 1, 1, false, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stage.shutdown();
+    }
+
+    @Test
+    void submit_ShouldBlock_WhenStageIsFull() throws Exception {
+        // Given - one task running and one queued fill the stage
+        CountDownLatch release = new CountDownLatch(1);
+        stage.submit(() -> await(release));
+        stage.submit(() -> { });
+
+        AtomicBoolean submitted = new AtomicBoolean();
+        Thread producer = new Thread(() -> {
+            try {
+                stage.submit(() -> { });
+                submitted.set(true);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        // When
+        producer.start();
+        producer.join(200);
+
+        // Then
+        assertFalse(submitted.get());
+        assertEquals(1.0, meterRegistry.get("retail_file_pipeline_queue_depth").tag("stage", "test").gauge().value());
+
+        release.countDown();
+        producer.join(5000);
+        assertTrue(submitted.get());
+    }
+
+    @Test
+    void submit_ShouldCompleteFutureExceptionally_WhenTaskThrows() throws Exception {
+        // When
+        CompletableFuture<Void> done = stage.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+
+        // Then
+        CompletionException thrown = assertThrows(CompletionException.class, done::join);
+        assertInstanceOf(IllegalStateException.class, thrown.getCause());
+        assertEquals(1.0, meterRegistry.get("retail_file_pipeline_task_failures_total").tag("stage", "test").counter().count());
+        assertEquals(1, meterRegistry.get("retail_file_pipeline_task_duration").tag("stage", "test").timer().count());
+    }
+
+    @Test
+    void shutdown_ShouldCancelQueuedTasks() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        stage.submit(() -> await(release));
+        CompletableFuture<Void> queued = stage.submit(() -> { });
+
+        // When
+        stage.shutdown();
+
+        // Then
+        assertThrows(CancellationException.class, queued::join);
+    }
+
+    @Test
+    void shutdown_ShouldRunQueuedTasks_WithinDrainTimeout() throws Exception {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        stage.submit(() -> await(release));
+        AtomicBoolean ran = new AtomicBoolean();
+        CompletableFuture<Void> queued = stage.submit(() -> ran.set(true));
+
+        // When
+        release.countDown();
+        stage.shutdown(Duration.ofSeconds(5));
+
+        // Then
+        assertNull(queued.join());
+        assertTrue(ran.get());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.client.AsyncStoreServiceClient;
+import com.avivse.retailfileservice.dto.LatestPriceResponse;
+import com.avivse.retailfileservice.dto.PriceHistoryPoint;
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.exception.FileParseException;
+import com.avivse.retailfileservice.parser.PriceFileParser;
+import com.avivse.retailfileservice.parser.PriceItemRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PriceFileIngestServiceTest {
+
+    private static final String PRICE_FULL = """
+            <root>
+              <ChainId>7290027600007</ChainId>
+              <StoreId>42</StoreId>
+              <Items>
+                <Item><ItemCode>1</ItemCode><ItemPrice>1.10</ItemPrice></Item>
+                <Item><ItemCode>2</ItemCode><ItemPrice>2.20</ItemPrice></Item>
+                <Item><ItemCode>3</ItemCode><ItemPrice>3.30</ItemPrice></Item>
+                <Item><ItemName>no code</ItemName></Item>
+                <Item><ItemCode>4</ItemCode><ItemPrice>4.40</ItemPrice></Item>
+                <Item><ItemCode>5</ItemCode><ItemPrice>5.50</ItemPrice></Item>
+              </Items>
+            </root>
+            """;
+
+    @Mock
+    private PriceItemWriter priceItemWriter;
+
+    @Mock
+    private PriceSnapshotStore priceSnapshotStore;
+
+    @Mock
+    private AsyncStoreServiceClient asyncStoreServiceClient;
+
+    @Mock
+    private RetailFileService retailFileService;
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private LatestPriceIndex latestPriceIndex;
+    private PriceHistoryStore priceHistoryStore;
+    private PriceFileIngestService priceFileIngestService;
+    private RetailFile file;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        latestPriceIndex = new LatestPriceIndex(true, jdbcTemplate, asyncStoreServiceClient, meterRegistry);
+        priceHistoryStore = new PriceHistoryStore(true, tempDir.resolve("history"), 24, meterRegistry);
+        priceFileIngestService = new PriceFileIngestService(new PriceFileParser(), priceItemWriter,
+                priceSnapshotStore, latestPriceIndex, priceHistoryStore, asyncStoreServiceClient, retailFileService,
+                2, false, 1, 2, false, meterRegistry);
+
+        file = new RetailFile("PriceFull7290027600007-042-202401150300.xml",
+                "https://example.com/PriceFull7290027600007-042-202401150300.xml",
+                LocalDateTime.of(2024, 1, 15, 3, 0));
+        file.setId(UUID.randomUUID());
+    }
+
+    @AfterEach
+    void tearDown() {
+        priceFileIngestService.shutdown();
+    }
+
+    @Test
+    void ingest_ShouldWriteItemsInChunksOfBatchSize() throws Exception {
+        // Given
+        UUID storeId = UUID.randomUUID();
+        file.setStoreId(storeId);
+        Path content = Files.writeString(tempDir.resolve("PriceFull.xml"), PRICE_FULL);
+
+        List<Integer> chunkSizes = new ArrayList<>();
+        when(priceItemWriter.write(eq(file.getId()), eq(storeId), eq(file.getUploadDate()), anyList()))
+                .thenAnswer(invocation -> {
+                    List<PriceItemRecord> chunk = invocation.getArgument(3);
+                    chunkSizes.add(chunk.size());
+                    return chunk.size();
+                });
+
+        // When
+        long written = priceFileIngestService.ingest(file, content);
+
+        // Then
+        assertEquals(5, written);
+        assertEquals(List.of(2, 2, 1), chunkSizes);
+        assertEquals(5.0, meterRegistry.get("price_items_written_total").counter().count());
+        verifyNoInteractions(asyncStoreServiceClient);
+
+        // The file's prices are now served by the latest price index
+        assertEquals(0, new BigDecimal("3.30").compareTo(latestPriceIndex.find(storeId, "3").orElseThrow().getItemPrice()));
+        assertEquals(List.of(storeId), latestPriceIndex.findInChain("7290027600007", "3").stream()
+                .map(LatestPriceResponse::getStoreId).toList());
+
+        // And appended to the store's price history, dated by the file
+        List<PriceHistoryPoint> history = priceHistoryStore.find(storeId, "3",
+                file.getUploadDate().minusDays(1), file.getUploadDate());
+        assertEquals(1, history.size());
+        assertEquals(file.getUploadDate(), history.get(0).getPriceUpdateDate());
+        assertEquals(0, new BigDecimal("3.30").compareTo(history.get(0).getItemPrice()));
+    }
+
+    @Test
+    void ingest_ShouldResolveStoreFromHeader_WhenFileHasNoStore() throws Exception {
+        // Given
+        UUID storeId = UUID.randomUUID();
+        Path content = Files.writeString(tempDir.resolve("PriceFull.xml"), PRICE_FULL);
+        when(asyncStoreServiceClient.getOrCreateStoreId("7290027600007", 42))
+                .thenReturn(CompletableFuture.completedFuture(storeId));
+        when(priceItemWriter.write(any(), any(), any(), anyList())).thenReturn(2, 2, 1);
+
+        // When
+        priceFileIngestService.ingest(file, content);
+
+        // Then
+        verify(priceItemWriter, times(3)).write(eq(file.getId()), eq(storeId), any(), anyList());
+    }
+
+    @Test
+    void ingest_ShouldThrowStoreServiceFailure_WhenHeaderStoreCannotBeResolved() throws Exception {
+        // Given
+        Path content = Files.writeString(tempDir.resolve("PriceFull.xml"), PRICE_FULL);
+        when(asyncStoreServiceClient.getOrCreateStoreId("7290027600007", 42))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("Store service unavailable")));
+
+        // When & Then
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> priceFileIngestService.ingest(file, content));
+        assertEquals("Store service unavailable", exception.getMessage());
+        verifyNoInteractions(priceItemWriter);
+    }
+
+    @Test
+    void ingest_ShouldThrowException_WhenStoreIsUnknown() throws Exception {
+        // Given
+        Path content = Files.writeString(tempDir.resolve("PriceFull.xml"),
+                "<root><Items><Item><ItemCode>1</ItemCode></Item></Items></root>");
+
+        // When & Then
+        assertThrows(FileParseException.class, () -> priceFileIngestService.ingest(file, content));
+        verify(asyncStoreServiceClient, never()).getOrCreateStoreId(anyString(), anyInt());
+        verifyNoInteractions(priceItemWriter);
+        assertEquals(0, latestPriceIndex.status().getStores());
+        assertFalse(Files.exists(tempDir.resolve("history")));
+    }
+
+    @Test
+    void ingest_ShouldOnlyWriteChangesAgainstSnapshot_WhenDiffEnabled() throws Exception {
+        // Given
+        UUID storeId = UUID.randomUUID();
+        file.setStoreId(storeId);
+        PriceFileIngestService diffingService = new PriceFileIngestService(new PriceFileParser(), priceItemWriter,
+                priceSnapshotStore, latestPriceIndex, priceHistoryStore, asyncStoreServiceClient, retailFileService,
+                2, true, 1, 2, false, meterRegistry);
+        Path content = Files.writeString(tempDir.resolve("PriceFull.xml"), PRICE_FULL);
+
+        // Items 1 and 2 are unchanged, 3 changed price, 4 and 5 are new and 9 was dropped
+        PriceSnapshot snapshot = new PriceSnapshot(16);
+        snapshot.put("1", PriceSnapshot.priceHash(new BigDecimal("1.1"), null, null, false));
+        snapshot.put("2", PriceSnapshot.priceHash(new BigDecimal("2.200"), null, null, false));
+        snapshot.put("3", PriceSnapshot.priceHash(new BigDecimal("3.00"), null, null, false));
+        snapshot.put("9", PriceSnapshot.priceHash(new BigDecimal("9.90"), null, null, false));
+        snapshot.lock().lock();
+        when(priceSnapshotStore.lock(storeId)).thenReturn(snapshot);
+
+        List<String> written = new ArrayList<>();
+        when(priceItemWriter.write(eq(file.getId()), eq(storeId), any(), anyList())).thenAnswer(invocation -> {
+            List<PriceItemRecord> chunk = invocation.getArgument(3);
+            chunk.forEach(item -> written.add(item.itemCode()));
+            return chunk.size();
+        });
+        when(priceItemWriter.writeRemovals(file.getId(), storeId, file.getUploadDate(), List.of("9"))).thenReturn(1);
+
+        // When
+        long rows = diffingService.ingest(file, content);
+        diffingService.shutdown();
+
+        // Then
+        assertEquals(4, rows);
+        assertEquals(List.of("3", "4", "5"), written);
+        verify(retailFileService).recordPriceChanges(file.getId(), new PriceChangeSet(2, 1, 1, 2));
+
+        ArgumentCaptor<PriceSnapshot> replaced = ArgumentCaptor.forClass(PriceSnapshot.class);
+        verify(priceSnapshotStore).put(eq(storeId), replaced.capture());
+        assertEquals(5, replaced.getValue().size());
+        assertFalse(replaced.getValue().contains("9"));
+        assertEquals(file.getUploadDate(), replaced.getValue().asOf());
+        assertFalse(snapshot.lock().isHeldByCurrentThread());
+    }
+}
@@ -0,0 +1,163 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.dto.PriceHistoryPoint;
+import com.avivse.retailfileservice.parser.PriceItemRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceHistoryStoreTest {
+
+    private static final LocalDateTime DAY_ONE = LocalDateTime.of(2024, 1, 1, 3, 0);
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PriceHistoryStore priceHistoryStore;
+    private final UUID storeId = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        priceHistoryStore = new PriceHistoryStore(true, tempDir, 2, meterRegistry);
+    }
+
+    @Test
+    void find_ShouldReturnOnePointPerPriceChange() {
+        // Given - daily full files; item 1 changes price on days 3 and 5
+        for (int day = 0; day < 6; day++) {
+            String price = day < 2 ? "5.90" : day < 4 ? "4.90" : "5.50";
+            append(DAY_ONE.plusDays(day), item("1", price), item("2", "12.00"));
+        }
+
+        // When
+        List<PriceHistoryPoint> history = priceHistoryStore.find(storeId, "1", DAY_ONE, DAY_ONE.plusDays(10));
+
+        // Then
+        assertEquals(List.of(DAY_ONE, DAY_ONE.plusDays(2), DAY_ONE.plusDays(4)), dates(history));
+        assertEquals(0, new BigDecimal("4.90").compareTo(history.get(1).getItemPrice()));
+        assertEquals(1, priceHistoryStore.find(storeId, "2", DAY_ONE, DAY_ONE.plusDays(10)).size());
+        assertTrue(priceHistoryStore.find(storeId, "3", DAY_ONE, DAY_ONE.plusDays(10)).isEmpty());
+    }
+
+    @Test
+    void find_ShouldStartWithPriceInEffectAtFrom() throws Exception {
+        // Given
+        append(DAY_ONE, item("1", "5.90"));
+        append(DAY_ONE.plusDays(30), item("1", "6.90"));
+        priceHistoryStore.seal(storeId);
+        append(DAY_ONE.plusDays(60), item("1", "7.90"));
+
+        // When
+        List<PriceHistoryPoint> history = priceHistoryStore.find(storeId, "1",
+                DAY_ONE.plusDays(40), DAY_ONE.plusDays(50));
+
+        // Then
+        assertEquals(List.of(DAY_ONE.plusDays(30)), dates(history));
+    }
+
+    @Test
+    void beginAppend_ShouldDiscardRows_WhenNotCommitted() {
+        // Given
+        append(DAY_ONE, item("1", "5.90"));
+
+        // When
+        try (PriceHistoryStore.Appender appender = priceHistoryStore.beginAppend(storeId, DAY_ONE.plusDays(1))) {
+            appender.add(item("1", "1.00"));
+        }
+
+        // Then
+        assertEquals(List.of(DAY_ONE), dates(priceHistoryStore.find(storeId, "1", DAY_ONE, DAY_ONE.plusDays(2))));
+    }
+
+    @Test
+    void seal_ShouldMergeSegmentsAndKeepHistoryAcrossRestarts() throws Exception {
+        // Given - three sealed segments, more than max-segments
+        for (int day = 0; day < 3; day++) {
+            append(DAY_ONE.plusDays(day), item("1", day == 1 ? "4.90" : "5.90"), item("2", "12.00"));
+            priceHistoryStore.seal(storeId);
+        }
+        append(DAY_ONE.plusDays(3), item("1", "6.90"));
+
+        // When
+        PriceHistoryStore reopened = new PriceHistoryStore(true, tempDir, 2, new SimpleMeterRegistry());
+        List<PriceHistoryPoint> history = reopened.find(storeId, "1", DAY_ONE, DAY_ONE.plusDays(10));
+
+        // Then
+        try (var files = Files.list(tempDir.resolve(storeId.toString()))) {
+            assertEquals(List.of("open.log", "segment-0000000003.phs"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+        assertEquals(List.of(DAY_ONE, DAY_ONE.plusDays(1), DAY_ONE.plusDays(2), DAY_ONE.plusDays(3)), dates(history));
+        assertEquals(6.0, meterRegistry.get("price_history_rows_sealed_total").counter().count());
+    }
+
+    @Test
+    void seal_ShouldMergeOnlyNewerSegments_WhileOlderSegmentIsLarger() throws Exception {
+        // Given - one large segment, then two small ones
+        PriceItemRecord[] fullFile = new PriceItemRecord[100];
+        for (int i = 0; i < fullFile.length; i++) {
+            fullFile[i] = item(String.valueOf(i), "5.90");
+        }
+        append(DAY_ONE, fullFile);
+        priceHistoryStore.seal(storeId);
+        append(DAY_ONE.plusDays(1), item("1", "4.90"));
+        priceHistoryStore.seal(storeId);
+        append(DAY_ONE.plusDays(2), item("1", "3.90"));
+
+        // When
+        priceHistoryStore.seal(storeId);
+
+        // Then - the large segment is left alone
+        try (var files = Files.list(tempDir.resolve(storeId.toString()))) {
+            assertEquals(List.of("segment-0000000000.phs", "segment-0000000003.phs"),
+                    files.map(file -> file.getFileName().toString()).sorted().toList());
+        }
+        assertEquals(List.of(DAY_ONE, DAY_ONE.plusDays(1), DAY_ONE.plusDays(2)),
+                dates(priceHistoryStore.find(storeId, "1", DAY_ONE, DAY_ONE.plusDays(10))));
+        assertEquals(1, priceHistoryStore.find(storeId, "99", DAY_ONE, DAY_ONE.plusDays(10)).size());
+    }
+
+    @Test
+    void find_ShouldReturnEmptyList_WhenDisabled() {
+        // Given
+        PriceHistoryStore disabled = new PriceHistoryStore(false, tempDir, 2, meterRegistry);
+        try (PriceHistoryStore.Appender appender = disabled.beginAppend(storeId, DAY_ONE)) {
+            appender.add(item("1", "5.90"));
+            appender.commit();
+        }
+
+        // When & Then
+        assertTrue(disabled.find(storeId, "1", DAY_ONE, DAY_ONE.plusDays(1)).isEmpty());
+        assertFalse(Files.exists(tempDir.resolve(storeId.toString())));
+    }
+
+    private void append(LocalDateTime fileDate, PriceItemRecord... items) {
+        try (PriceHistoryStore.Appender appender = priceHistoryStore.beginAppend(storeId, fileDate)) {
+            for (PriceItemRecord item : items) {
+                appender.add(item);
+            }
+            appender.commit();
+        }
+    }
+
+    private static List<LocalDateTime> dates(List<PriceHistoryPoint> history) {
+        return history.stream().map(PriceHistoryPoint::getPriceUpdateDate).toList();
+    }
+
+    private static PriceItemRecord item(String itemCode, String price) {
+        return new PriceItemRecord(itemCode, 1, null, null, null, null, null, null, false, null,
+                new BigDecimal(price), null, true, null, null);
+    }
+}
@@ -0,0 +1,60 @@
+package com.avivse.retailfileservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PriceSnapshotTest {
+
+    @Test
+    void put_ShouldKeepEntriesAcrossResizes() {
+        // Given
+        PriceSnapshot snapshot = new PriceSnapshot(16);
+
+        // When
+        for (int i = 0; i < 10_000; i++) {
+            snapshot.put("729000" + i, i);
+        }
+
+        // Then
+        assertEquals(10_000, snapshot.size());
+        assertTrue(snapshot.contains("7290009999"));
+        assertEquals(1234, snapshot.get("7290001234"));
+        assertFalse(snapshot.contains("7290010000"));
+    }
+
+    @Test
+    void put_ShouldKeepLeadingZerosAndNonNumericCodesApart() {
+        // Given
+        PriceSnapshot snapshot = new PriceSnapshot(16);
+
+        // When
+        snapshot.put("123", 1);
+        snapshot.put("0123", 2);
+        snapshot.put("ABC-1", 3);
+        snapshot.put("123456789012345678901", 4);
+        snapshot.put("123", 5);
+
+        // Then
+        assertEquals(4, snapshot.size());
+        assertEquals(5, snapshot.get("123"));
+        assertEquals(2, snapshot.get("0123"));
+        assertEquals(3, snapshot.get("ABC-1"));
+
+        Set<String> codes = new HashSet<>();
+        snapshot.forEachItemCode(codes::add);
+        assertEquals(Set.of("123", "0123", "ABC-1", "123456789012345678901"), codes);
+    }
+
+    @Test
+    void priceHash_ShouldIgnoreTrailingZeros() {
+        assertEquals(PriceSnapshot.priceHash(new BigDecimal("5.9"), new BigDecimal("0.59"), 1, true),
+                PriceSnapshot.priceHash(new BigDecimal("5.900"), new BigDecimal("0.590"), 1, true));
+        assertNotEquals(PriceSnapshot.priceHash(new BigDecimal("5.9"), null, 1, true),
+                PriceSnapshot.priceHash(new BigDecimal("5.8"), null, 1, true));
+    }
+}
@@ -0,0 +1,140 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.client.AsyncStoreServiceClient;
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.exception.FileParseException;
+import com.avivse.retailfileservice.parser.PromoFileParser;
+import com.avivse.retailfileservice.parser.PromotionBatch;
+import com.avivse.retailfileservice.parser.PromotionRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class PromoFileIngestServiceTest {
+
+    private static final String PROMO_FULL = """
+            <Root>
+              <ChainId>7290027600007</ChainId>
+              <StoreId>42</StoreId>
+              <Promotions>
+                <Promotion>
+                  <PromotionId>1001</PromotionId>
+                  <PromotionItems>
+                    <Item><ItemCode>111</ItemCode></Item>
+                    <Item><ItemCode>222</ItemCode></Item>
+                    <Item><ItemCode>333</ItemCode></Item>
+                  </PromotionItems>
+                </Promotion>
+                <Promotion>
+                  <PromotionId>1002</PromotionId>
+                  <PromotionItems>
+                    <Item><ItemCode>444</ItemCode></Item>
+                  </PromotionItems>
+                </Promotion>
+              </Promotions>
+            </Root>
+            """;
+
+    @Mock
+    private PromotionWriter promotionWriter;
+
+    @Mock
+    private AsyncStoreServiceClient asyncStoreServiceClient;
+
+    @TempDir
+    Path tempDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private PromoFileIngestService promoFileIngestService;
+    private RetailFile file;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        promoFileIngestService = new PromoFileIngestService(new PromoFileParser(3), promotionWriter,
+                asyncStoreServiceClient, meterRegistry);
+
+        file = new RetailFile("PromoFull7290027600007-042-202401150300.xml",
+                "https://example.com/PromoFull7290027600007-042-202401150300.xml",
+                LocalDateTime.of(2024, 1, 15, 3, 0));
+        file.setId(UUID.randomUUID());
+    }
+
+    @Test
+    void ingest_ShouldWritePromotionsInBatches_WhenFileHasStore() throws Exception {
+        // Given
+        UUID storeId = UUID.randomUUID();
+        file.setStoreId(storeId);
+        Path content = Files.writeString(tempDir.resolve("PromoFull.xml"), PROMO_FULL);
+
+        List<PromotionBatch> batches = new ArrayList<>();
+        when(promotionWriter.write(eq(file.getId()), eq(storeId), any(PromotionBatch.class))).thenAnswer(invocation -> {
+            PromotionBatch batch = invocation.getArgument(2);
+            batches.add(batch);
+            return batch.size();
+        });
+
+        // When
+        long written = promoFileIngestService.ingest(file, content);
+
+        // Then
+        assertEquals(6, written);
+        assertTrue(batches.size() > 1);
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 3));
+        assertEquals(List.of("1001", "1002"), batches.stream()
+                .flatMap(batch -> batch.promotions().stream())
+                .map(PromotionRecord::promotionId).toList());
+        assertEquals(6.0, meterRegistry.get("promotion_rows_written_total").counter().count());
+        verifyNoInteractions(asyncStoreServiceClient);
+    }
+
+    @Test
+    void ingest_ShouldResolveStoreFromHeaderOnce_WhenFileHasNoStore() throws Exception {
+        // Given
+        UUID storeId = UUID.randomUUID();
+        Path content = Files.writeString(tempDir.resolve("PromoFull.xml"), PROMO_FULL);
+        when(asyncStoreServiceClient.getOrCreateStoreId("7290027600007", 42))
+                .thenReturn(CompletableFuture.completedFuture(storeId));
+        when(promotionWriter.write(eq(file.getId()), eq(storeId), any(PromotionBatch.class)))
+                .thenAnswer(invocation -> invocation.<PromotionBatch>getArgument(2).size());
+
+        // When
+        promoFileIngestService.ingest(file, content);
+
+        // Then
+        verify(asyncStoreServiceClient, times(1)).getOrCreateStoreId("7290027600007", 42);
+        verify(promotionWriter, atLeast(2)).write(eq(file.getId()), eq(storeId), any(PromotionBatch.class));
+    }
+
+    @Test
+    void ingest_ShouldThrowException_WhenStoreIsUnknown() throws Exception {
+        // Given
+        Path content = Files.writeString(tempDir.resolve("PromoFull.xml"),
+                "<Root><Promotions><Promotion><PromotionId>1</PromotionId></Promotion></Promotions></Root>");
+
+        // When & Then
+        assertThrows(FileParseException.class, () -> promoFileIngestService.ingest(file, content));
+        verify(asyncStoreServiceClient, never()).getOrCreateStoreId(anyString(), anyInt());
+        verifyNoInteractions(promotionWriter);
+    }
+}
@@ -0,0 +1,197 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetailFileFetcherTest {
+
+    private static final byte[] CONTENT = "<Root><Items/></Root>".getBytes(StandardCharsets.UTF_8);
+    private static final String CONTENT_SHA_256 = HexFormat.of().formatHex(sha256(CONTENT));
+
+    @Mock
+    private RetailFileQueueService retailFileQueueService;
+
+    @Mock
+    private RetailFileIngestService retailFileIngestService;
+
+    @TempDir
+    Path storageDir;
+
+    private HttpServer server;
+    private SimpleMeterRegistry meterRegistry;
+    private RetailFileFetcher retailFileFetcher;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/prices.xml", exchange -> {
+            exchange.sendResponseHeaders(200, CONTENT.length);
+            try (OutputStream body = exchange.getResponseBody()) {
+                body.write(CONTENT);
+            }
+        });
+        server.createContext("/missing.xml", exchange -> {
+            exchange.sendResponseHeaders(404, -1);
+            exchange.close();
+        });
+        server.start();
+
+        meterRegistry = new SimpleMeterRegistry();
+        retailFileFetcher = new RetailFileFetcher(retailFileQueueService, retailFileIngestService, storageDir, "fetcher", 4, 2, 100.0,
+                Duration.ofSeconds(2), Duration.ofSeconds(5), false, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        retailFileFetcher.shutdown();
+    }
+
+    @Test
+    void fetch_ShouldStreamContentToDiskAndRecordSizeAndChecksum() throws Exception {
+        // Given
+        RetailFile file = claimedFile("/prices.xml");
+        when(retailFileQueueService.renewLease(file.getId(), "fetcher")).thenReturn(true);
+        when(retailFileQueueService.completeFetch(eq(file.getId()), eq("fetcher"), anyString(), anyLong(), anyString()))
+                .thenReturn(FileProcessingStatus.PROCESSING);
+
+        // When
+        retailFileFetcher.fetch(file);
+
+        // Then - the file is handed to ingestion under its lease, which completes it
+        ArgumentCaptor<String> path = ArgumentCaptor.forClass(String.class);
+        verify(retailFileQueueService).completeFetch(eq(file.getId()), eq("fetcher"), path.capture(),
+                eq((long) CONTENT.length), eq(CONTENT_SHA_256));
+        assertArrayEquals(CONTENT, Files.readAllBytes(Path.of(path.getValue())));
+        verify(retailFileIngestService).submit(file, Path.of(path.getValue()), "fetcher");
+        verify(retailFileQueueService, never()).completeIngest(any(), anyString());
+        assertEquals(1.0, meterRegistry.get("retail_files_fetched_total").counter().count());
+        assertEquals(CONTENT.length, meterRegistry.get("retail_files_fetched_bytes_total").counter().count());
+    }
+
+    @Test
+    void fetch_ShouldFailAttempt_WhenServerReturnsError() throws Exception {
+        // Given
+        RetailFile file = claimedFile("/missing.xml");
+        when(retailFileQueueService.renewLease(file.getId(), "fetcher")).thenReturn(true);
+        when(retailFileQueueService.failAttempt(file.getId(), "fetcher")).thenReturn(FileProcessingStatus.PENDING);
+
+        // When
+        retailFileFetcher.fetch(file);
+
+        // Then
+        verify(retailFileQueueService, never()).completeFetch(any(), anyString(), anyString(), anyLong(), anyString());
+        assertEquals(1.0, meterRegistry.get("retail_files_fetch_failures_total").counter().count());
+        try (var files = Files.list(storageDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void fetch_ShouldMarkDuplicate_WhenChecksumIsTakenBeforeCommit() throws Exception {
+        // Given
+        RetailFile file = claimedFile("/prices.xml");
+        when(retailFileQueueService.renewLease(file.getId(), "fetcher")).thenReturn(true);
+        when(retailFileQueueService.completeFetch(eq(file.getId()), eq("fetcher"), anyString(), anyLong(), eq(CONTENT_SHA_256)))
+                .thenThrow(new DataIntegrityViolationException("duplicate key value violates unique constraint \"uk_retail_files_checksum\""));
+        when(retailFileQueueService.completeFetchAsDuplicate(file.getId(), "fetcher", CONTENT.length))
+                .thenReturn(FileProcessingStatus.DUPLICATE);
+
+        // When
+        retailFileFetcher.fetch(file);
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("retail_files_fetch_duplicates_total").counter().count());
+        verify(retailFileQueueService, never()).failAttempt(any(), anyString());
+        verify(retailFileIngestService, never()).submit(any(), any(), anyString());
+        try (var files = Files.list(storageDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void fetch_ShouldSkipDownload_WhenLeaseWasLostWhileThrottled() throws Exception {
+        // Given
+        RetailFile file = claimedFile("/prices.xml");
+        when(retailFileQueueService.renewLease(file.getId(), "fetcher")).thenReturn(false);
+
+        // When
+        retailFileFetcher.fetch(file);
+
+        // Then
+        verify(retailFileQueueService, never()).completeFetch(any(), anyString(), anyString(), anyLong(), anyString());
+        verify(retailFileQueueService, never()).failAttempt(any(), anyString());
+        verify(retailFileIngestService, never()).submit(any(), any(), anyString());
+        try (var files = Files.list(storageDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void fetch_ShouldDiscardContent_WhenItDuplicatesAnExistingFile() throws Exception {
+        // Given
+        RetailFile file = claimedFile("/prices.xml");
+        when(retailFileQueueService.renewLease(file.getId(), "fetcher")).thenReturn(true);
+        when(retailFileQueueService.completeFetch(eq(file.getId()), eq("fetcher"), anyString(), anyLong(), eq(CONTENT_SHA_256)))
+                .thenReturn(FileProcessingStatus.DUPLICATE);
+
+        // When
+        retailFileFetcher.fetch(file);
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("retail_files_fetch_duplicates_total").counter().count());
+        verify(retailFileIngestService, never()).submit(any(), any(), anyString());
+        assertEquals(0.0, meterRegistry.get("retail_files_fetched_total").counter().count());
+        try (var files = Files.list(storageDir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private RetailFile claimedFile(String path) {
+        RetailFile file = new RetailFile("prices.xml",
+                "http://localhost:" + server.getAddress().getPort() + path, LocalDateTime.now());
+        file.setId(UUID.randomUUID());
+        file.setStatus(FileProcessingStatus.PROCESSING);
+        file.setLeaseOwner("fetcher");
+        return file;
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetailFileIngestServiceTest {
+
+    private static final String WORKER_ID = "fetcher";
+
+    @Mock
+    private StoresFileIngestService storesFileIngestService;
+
+    @Mock
+    private PriceFileIngestService priceFileIngestService;
+
+    @Mock
+    private PromoFileIngestService promoFileIngestService;
+
+    @Mock
+    private RetailFileQueueService retailFileQueueService;
+
+    private RetailFileIngestService retailFileIngestService;
+
+    @BeforeEach
+    void setUp() {
+        // One file parsed at a time and one waiting; queued files get no time to drain
+        retailFileIngestService = new RetailFileIngestService(storesFileIngestService, priceFileIngestService,
+                promoFileIngestService, retailFileQueueService, 1, 1, Duration.ZERO, false, new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        retailFileIngestService.shutdown();
+    }
+
+    @Test
+    void ingest_ShouldCompleteFile_OnlyAfterItsContentIsApplied() throws Exception {
+        // Given
+        RetailFile file = retailFile("PriceFull7290027600007-001-202401150300.xml");
+        Path content = Path.of("PriceFull.xml");
+        when(retailFileQueueService.renewLease(file.getId(), WORKER_ID)).thenReturn(true);
+        when(retailFileQueueService.completeIngest(file.getId(), WORKER_ID)).thenReturn(FileProcessingStatus.COMPLETED);
+
+        // When
+        retailFileIngestService.ingest(file, content, WORKER_ID);
+
+        // Then
+        InOrder order = inOrder(retailFileQueueService, priceFileIngestService);
+        order.verify(retailFileQueueService).renewLease(file.getId(), WORKER_ID);
+        order.verify(priceFileIngestService).ingest(file, content);
+        order.verify(retailFileQueueService).completeIngest(file.getId(), WORKER_ID);
+        verify(retailFileQueueService, never()).failIngest(any(), anyString());
+    }
+
+    @Test
+    void ingest_ShouldPersistPromotions_WhenFileIsPromoFile() throws Exception {
+        // Given
+        RetailFile file = retailFile("PromoFull7290027600007-001-202401150300.xml");
+        Path content = Path.of("PromoFull.xml");
+        when(retailFileQueueService.renewLease(file.getId(), WORKER_ID)).thenReturn(true);
+        when(retailFileQueueService.completeIngest(file.getId(), WORKER_ID)).thenReturn(FileProcessingStatus.COMPLETED);
+
+        // When
+        retailFileIngestService.ingest(file, content, WORKER_ID);
+
+        // Then
+        verify(promoFileIngestService).ingest(file, content);
+        verifyNoInteractions(priceFileIngestService, storesFileIngestService);
+        verify(retailFileQueueService).completeIngest(file.getId(), WORKER_ID);
+    }
+
+    @Test
+    void ingest_ShouldFailFile_WhenPromotionsCannotBeWritten() throws Exception {
+        // Given
+        RetailFile file = retailFile("Promo7290027600007-001-202401151200.xml");
+        when(retailFileQueueService.renewLease(file.getId(), WORKER_ID)).thenReturn(true);
+        when(promoFileIngestService.ingest(eq(file), any())).thenThrow(new IllegalStateException("boom"));
+
+        // When
+        retailFileIngestService.ingest(file, Path.of("Promo.xml"), WORKER_ID);
+
+        // Then
+        verify(retailFileQueueService).failIngest(file.getId(), WORKER_ID);
+        verify(retailFileQueueService, never()).completeIngest(any(), anyString());
+    }
+
+    @Test
+    void ingest_ShouldSkipFile_WhenLeaseWasLostWhileQueued() throws Exception {
+        // Given
+        RetailFile file = retailFile("PriceFull7290027600007-001-202401150300.xml");
+        when(retailFileQueueService.renewLease(file.getId(), WORKER_ID)).thenReturn(false);
+
+        // When
+        retailFileIngestService.ingest(file, Path.of("PriceFull.xml"), WORKER_ID);
+
+        // Then
+        verifyNoInteractions(priceFileIngestService);
+        verify(retailFileQueueService, never()).completeIngest(any(), anyString());
+        verify(retailFileQueueService, never()).failIngest(any(), anyString());
+    }
+
+    @Test
+    void shutdown_ShouldLeaveQueuedAndInterruptedFilesToLeaseReaper() throws Exception {
+        // Given - the first file is being ingested while the second waits behind it
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch interrupted = new CountDownLatch(1);
+        RetailFile running = priceFile();
+        RetailFile queued = priceFile();
+        when(retailFileQueueService.renewLease(running.getId(), WORKER_ID)).thenReturn(true);
+        doAnswer(invocation -> {
+            started.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+                throw e;
+            }
+            return 0L;
+        }).when(priceFileIngestService).ingest(eq(running), any());
+        retailFileIngestService.submit(running, Path.of("running.xml"), WORKER_ID);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        retailFileIngestService.submit(queued, Path.of("queued.xml"), WORKER_ID);
+
+        // When
+        retailFileIngestService.shutdown();
+        release.countDown();
+
+        // Then - neither file is completed or failed; both stay PROCESSING until their lease expires
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+        verify(priceFileIngestService, never()).ingest(eq(queued), any());
+        verify(retailFileQueueService, never()).renewLease(queued.getId(), WORKER_ID);
+        verify(retailFileQueueService, after(200).never()).completeIngest(any(), anyString());
+        verify(retailFileQueueService, never()).failIngest(any(), anyString());
+    }
+
+    @Test
+    void submit_ShouldLeaveFileToLeaseReaper_WhenStageIsShutDown() {
+        // Given
+        retailFileIngestService.shutdown();
+        RetailFile file = priceFile();
+
+        // When
+        retailFileIngestService.submit(file, Path.of("late.xml"), WORKER_ID);
+
+        // Then
+        verifyNoInteractions(retailFileQueueService, priceFileIngestService);
+    }
+
+    private static RetailFile priceFile() {
+        return retailFile("PriceFull7290027600007-001-202401150300.xml");
+    }
+
+    private static RetailFile retailFile(String fileName) {
+        RetailFile file = new RetailFile(fileName, "https://example.com/" + fileName,
+                LocalDateTime.of(2024, 1, 15, 3, 0));
+        file.setId(UUID.randomUUID());
+        file.setStatus(FileProcessingStatus.PROCESSING);
+        file.setLeaseOwner(WORKER_ID);
+        return file;
+    }
+}
@@ -0,0 +1,41 @@
+package com.avivse.retailfileservice.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetailFileLeaseReaperTest {
+
+    @Mock
+    private RetailFileQueueService retailFileQueueService;
+
+    @Test
+    void reapExpiredLeases_ShouldKeepGoingWhileBatchesAreFull() {
+        // Given
+        RetailFileLeaseReaper reaper = new RetailFileLeaseReaper(retailFileQueueService, 10, 50);
+        when(retailFileQueueService.reapExpiredLeases(10)).thenReturn(10, 10, 3);
+
+        // When
+        reaper.reapExpiredLeases();
+
+        // Then
+        verify(retailFileQueueService, times(3)).reapExpiredLeases(10);
+    }
+
+    @Test
+    void reapExpiredLeases_ShouldStopAtMaxBatchesPerRun() {
+        // Given
+        RetailFileLeaseReaper reaper = new RetailFileLeaseReaper(retailFileQueueService, 10, 2);
+        when(retailFileQueueService.reapExpiredLeases(10)).thenReturn(10);
+
+        // When
+        reaper.reapExpiredLeases();
+
+        // Then
+        verify(retailFileQueueService, times(2)).reapExpiredLeases(10);
+    }
+}
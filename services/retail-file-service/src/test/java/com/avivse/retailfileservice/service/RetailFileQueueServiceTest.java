@@ -0,0 +1,297 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import com.avivse.retailfileservice.repository.RetailFileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetailFileQueueServiceTest {
+
+    @Mock
+    private RetailFileRepository retailFileRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private RetailFileQueueService retailFileQueueService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retailFileQueueService = new RetailFileQueueService(retailFileRepository, Duration.ofMinutes(5), 3, meterRegistry);
+    }
+
+    @Test
+    void claimBatch_ShouldMovePendingFilesToProcessingWithLease() {
+        // Given
+        RetailFile first = new RetailFile("a.csv", "https://example.com/a.csv", LocalDateTime.of(2024, 1, 15, 10, 0));
+        RetailFile second = new RetailFile("b.csv", "https://example.com/b.csv", LocalDateTime.of(2024, 1, 15, 11, 0));
+        when(retailFileRepository.findForClaim(FileProcessingStatus.PENDING, Limit.of(2))).thenReturn(List.of(first, second));
+
+        // When
+        LocalDateTime before = LocalDateTime.now();
+        List<RetailFile> claimed = retailFileQueueService.claimBatch("worker-1", 2);
+
+        // Then
+        assertEquals(2, claimed.size());
+        for (RetailFile file : claimed) {
+            assertEquals(FileProcessingStatus.PROCESSING, file.getStatus());
+            assertEquals("worker-1", file.getLeaseOwner());
+            assertFalse(file.getLeaseExpiresAt().isBefore(before.plusMinutes(5)));
+        }
+        assertEquals(2.0, meterRegistry.get("retail_files_claimed_total").counter().count());
+    }
+
+    @Test
+    void claimBatch_ShouldReturnEmpty_WhenNothingIsPending() {
+        // Given
+        when(retailFileRepository.findForClaim(FileProcessingStatus.PENDING, Limit.of(10))).thenReturn(List.of());
+
+        // When
+        List<RetailFile> claimed = retailFileQueueService.claimBatch("worker-1", 10);
+
+        // Then
+        assertTrue(claimed.isEmpty());
+        assertEquals(0.0, meterRegistry.get("retail_files_claimed_total").counter().count());
+    }
+
+    @Test
+    void reapExpiredLeases_ShouldReturnFileToPendingAndCountAttempt() {
+        // Given
+        RetailFile file = expiredFile(0);
+        when(retailFileRepository.findExpiredLeases(eq(FileProcessingStatus.PROCESSING), any(LocalDateTime.class), eq(Limit.of(100))))
+                .thenReturn(List.of(file));
+
+        // When
+        int released = retailFileQueueService.reapExpiredLeases(100);
+
+        // Then
+        assertEquals(1, released);
+        assertEquals(FileProcessingStatus.PENDING, file.getStatus());
+        assertEquals(1, file.getProcessingAttempts());
+        assertNull(file.getLeaseOwner());
+        assertNull(file.getLeaseExpiresAt());
+        assertEquals(1.0, meterRegistry.get("retail_files_lease_reclaimed_total").counter().count());
+        assertEquals(0.0, meterRegistry.get("retail_files_lease_failed_total").counter().count());
+        assertEquals(1, meterRegistry.get("retail_files_reaped_lease_age").timer().count());
+    }
+
+    @Test
+    void reapExpiredLeases_ShouldFailFile_WhenAttemptsAreUsedUp() {
+        // Given
+        RetailFile file = expiredFile(2);
+        when(retailFileRepository.findExpiredLeases(eq(FileProcessingStatus.PROCESSING), any(LocalDateTime.class), eq(Limit.of(100))))
+                .thenReturn(List.of(file));
+
+        // When
+        retailFileQueueService.reapExpiredLeases(100);
+
+        // Then
+        assertEquals(FileProcessingStatus.FAILED, file.getStatus());
+        assertEquals(3, file.getProcessingAttempts());
+        assertNull(file.getLeaseOwner());
+        assertEquals(1.0, meterRegistry.get("retail_files_lease_failed_total").counter().count());
+        assertEquals(0.0, meterRegistry.get("retail_files_lease_reclaimed_total").counter().count());
+    }
+
+    @Test
+    void renewLease_ShouldPushLeaseExpiryOut_WhenWorkerHoldsLease() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+
+        // When
+        boolean renewed = retailFileQueueService.renewLease(file.getId(), "worker-1");
+
+        // Then
+        assertTrue(renewed);
+        assertTrue(file.getLeaseExpiresAt().isAfter(LocalDateTime.now().plusMinutes(4)));
+        assertEquals(FileProcessingStatus.PROCESSING, file.getStatus());
+    }
+
+    @Test
+    void renewLease_ShouldReturnFalse_WhenWorkerLostTheLease() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        LocalDateTime expiry = file.getLeaseExpiresAt();
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+
+        // When
+        boolean renewed = retailFileQueueService.renewLease(file.getId(), "worker-2");
+
+        // Then
+        assertFalse(renewed);
+        assertEquals(expiry, file.getLeaseExpiresAt());
+    }
+
+    @Test
+    void completeFetch_ShouldRecordDownloadAndKeepLeaseForIngestion() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+        when(retailFileRepository.findByChecksum("content-sha")).thenReturn(Optional.empty());
+
+        // When
+        FileProcessingStatus status = retailFileQueueService.completeFetch(file.getId(), "worker-1", "/data/stuck.csv", 2048L, "content-sha");
+
+        // Then - the file is not COMPLETED until its content has been ingested
+        assertEquals(FileProcessingStatus.PROCESSING, status);
+        assertEquals(FileProcessingStatus.PROCESSING, file.getStatus());
+        assertEquals("content-sha", file.getChecksum());
+        assertEquals(2048L, file.getFileSize());
+        assertEquals("/data/stuck.csv", file.getStoragePath());
+        assertNotNull(file.getFetchedAt());
+        assertEquals("worker-1", file.getLeaseOwner());
+        assertTrue(file.getLeaseExpiresAt().isAfter(LocalDateTime.now().plusMinutes(4)));
+    }
+
+    @Test
+    void completeFetch_ShouldIgnoreWorker_ThatLostTheLease() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+
+        // When
+        FileProcessingStatus status = retailFileQueueService.completeFetch(file.getId(), "worker-2", "/data/stuck.csv", 2048L, "content-sha");
+
+        // Then
+        assertNull(status);
+        assertEquals(FileProcessingStatus.PROCESSING, file.getStatus());
+        assertNull(file.getStoragePath());
+    }
+
+    @Test
+    void completeFetch_ShouldMarkDuplicate_WhenContentMatchesAnotherFile() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        RetailFile original = new RetailFile("original.csv", "https://example.com/original.csv", LocalDateTime.of(2024, 1, 14, 10, 0));
+        original.setId(UUID.randomUUID());
+        original.setChecksum("content-sha");
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+        when(retailFileRepository.findByChecksum("content-sha")).thenReturn(Optional.of(original));
+
+        // When
+        FileProcessingStatus status = retailFileQueueService.completeFetch(file.getId(), "worker-1", "/data/stuck.csv", 2048L, "content-sha");
+
+        // Then
+        assertEquals(FileProcessingStatus.DUPLICATE, status);
+        assertNull(file.getChecksum());
+        assertNull(file.getStoragePath());
+        assertNull(file.getLeaseOwner());
+    }
+
+    @Test
+    void completeFetchAsDuplicate_ShouldMarkDuplicateAndClearLease() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+
+        // When
+        FileProcessingStatus status = retailFileQueueService.completeFetchAsDuplicate(file.getId(), "worker-1", 2048L);
+
+        // Then
+        assertEquals(FileProcessingStatus.DUPLICATE, status);
+        assertEquals(2048L, file.getFileSize());
+        assertNull(file.getChecksum());
+        assertNull(file.getStoragePath());
+        assertNull(file.getLeaseOwner());
+        verify(retailFileRepository, never()).findByChecksum(any());
+    }
+
+    @Test
+    void completeIngest_ShouldCompleteFileAndClearLease() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+
+        // When
+        FileProcessingStatus status = retailFileQueueService.completeIngest(file.getId(), "worker-1");
+
+        // Then
+        assertEquals(FileProcessingStatus.COMPLETED, status);
+        assertEquals(FileProcessingStatus.COMPLETED, file.getStatus());
+        assertNull(file.getLeaseOwner());
+        assertNull(file.getLeaseExpiresAt());
+    }
+
+    @Test
+    void completeIngest_ShouldIgnoreWorker_ThatLostTheLease() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+
+        // When
+        FileProcessingStatus status = retailFileQueueService.completeIngest(file.getId(), "worker-2");
+
+        // Then
+        assertNull(status);
+        assertEquals(FileProcessingStatus.PROCESSING, file.getStatus());
+        assertEquals("worker-1", file.getLeaseOwner());
+    }
+
+    @Test
+    void failIngest_ShouldFailFileAndClearLease() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+
+        // When
+        FileProcessingStatus status = retailFileQueueService.failIngest(file.getId(), "worker-1");
+
+        // Then
+        assertEquals(FileProcessingStatus.FAILED, status);
+        assertEquals(FileProcessingStatus.FAILED, file.getStatus());
+        assertNull(file.getLeaseOwner());
+    }
+
+    @Test
+    void failAttempt_ShouldReturnFileToPending() {
+        // Given
+        RetailFile file = expiredFile(0);
+        file.setId(UUID.randomUUID());
+        when(retailFileRepository.findByIdForUpdate(file.getId())).thenReturn(Optional.of(file));
+
+        // When
+        FileProcessingStatus status = retailFileQueueService.failAttempt(file.getId(), "worker-1");
+
+        // Then
+        assertEquals(FileProcessingStatus.PENDING, status);
+        assertEquals(1, file.getProcessingAttempts());
+        assertNull(file.getLeaseOwner());
+    }
+
+    private RetailFile expiredFile(int attempts) {
+        RetailFile file = new RetailFile("stuck.csv", "https://example.com/stuck.csv", LocalDateTime.of(2024, 1, 15, 10, 0));
+        file.setStatus(FileProcessingStatus.PROCESSING);
+        file.setLeaseOwner("worker-1");
+        file.setLeaseExpiresAt(LocalDateTime.now().minusMinutes(1));
+        file.setProcessingAttempts(attempts);
+        return file;
+    }
+}
@@ -1,18 +1,31 @@
 package com.avivse.retailfileservice.service;
 
+import com.avivse.retailfileservice.client.StoreKey;
 import com.avivse.retailfileservice.client.StoreServiceClient;
 import com.avivse.retailfileservice.dto.CreateRetailFileRequest;
+import com.avivse.retailfileservice.dto.CursorPage;
+import com.avivse.retailfileservice.dto.RetailFileBatchResponse;
+import com.avivse.retailfileservice.dto.RetailFileCursor;
 import com.avivse.retailfileservice.dto.UpdateRetailFileRequest;
 import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.BatchItemStatus;
 import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import com.avivse.retailfileservice.exception.DuplicateRetailFileException;
+import com.avivse.retailfileservice.exception.InvalidCursorException;
+import com.avivse.retailfileservice.exception.InvalidStatusException;
 import com.avivse.retailfileservice.repository.RetailFileRepository;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
@@ -20,11 +33,15 @@ import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -37,8 +54,18 @@ class RetailFileServiceTest {
     @Mock
     private StoreServiceClient storeServiceClient;
 
+    @Mock
+    private RetailFileWriter retailFileWriter;
+
+    @Mock
+    private RetailFileWriteBehind retailFileWriteBehind;
+
     private SimpleMeterRegistry meterRegistry;
 
+    private ChecksumFilter checksumFilter;
+
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     private RetailFileService retailFileService;
 
     private RetailFile testRetailFile;
@@ -80,7 +107,9 @@ class RetailFileServiceTest {
         meterRegistry = new SimpleMeterRegistry();
 
         // Manually create the service with mocked dependencies
-        retailFileService = new RetailFileService(retailFileRepository, storeServiceClient, meterRegistry);
+        checksumFilter = new ChecksumFilter(true, 1000, 0.01, meterRegistry);
+        retailFileService = new RetailFileService(retailFileRepository, storeServiceClient, retailFileWriter,
+                retailFileWriteBehind, checksumFilter, validator, meterRegistry);
     }
 
     @Test
@@ -88,7 +117,7 @@ class RetailFileServiceTest {
         // Given
         UUID mockStoreId = UUID.randomUUID();
         when(storeServiceClient.getOrCreateStoreId("CHAIN001", 123)).thenReturn(mockStoreId);
-        when(retailFileRepository.save(any(RetailFile.class))).thenReturn(testRetailFile);
+        when(retailFileRepository.saveAndFlush(any(RetailFile.class))).thenReturn(testRetailFile);
 
         // When
         RetailFile result = retailFileService.createRetailFile(createRequest);
@@ -99,7 +128,7 @@ class RetailFileServiceTest {
         assertEquals(FileProcessingStatus.PENDING, result.getStatus());
 
         verify(storeServiceClient, times(1)).getOrCreateStoreId("CHAIN001", 123);
-        verify(retailFileRepository, times(1)).save(any(RetailFile.class));
+        verify(retailFileRepository, times(1)).saveAndFlush(any(RetailFile.class));
     }
 
     @Test
@@ -108,14 +137,29 @@ class RetailFileServiceTest {
         createRequest.setUploadDate(null);
         createRequest.setStatus(null);
 
-        when(retailFileRepository.save(any(RetailFile.class))).thenReturn(testRetailFile);
+        when(retailFileRepository.saveAndFlush(any(RetailFile.class))).thenReturn(testRetailFile);
 
         // When
         RetailFile result = retailFileService.createRetailFile(createRequest);
 
         // Then
         assertNotNull(result);
-        verify(retailFileRepository, times(1)).save(any(RetailFile.class));
+        verify(retailFileRepository, times(1)).saveAndFlush(any(RetailFile.class));
+    }
+
+    @Test
+    void createRetailFile_ShouldNotDeriveChecksumFromUrl_WhenNoneIsProvided() {
+        // Given
+        createRequest.setChecksum(null);
+        when(retailFileRepository.saveAndFlush(any(RetailFile.class))).thenReturn(testRetailFile);
+
+        // When
+        retailFileService.createRetailFile(createRequest);
+
+        // Then
+        ArgumentCaptor<RetailFile> saved = ArgumentCaptor.forClass(RetailFile.class);
+        verify(retailFileRepository).saveAndFlush(saved.capture());
+        assertNull(saved.getValue().getChecksum());
     }
 
     @Test
@@ -167,6 +211,48 @@ class RetailFileServiceTest {
         verify(retailFileRepository, times(1)).findWithFilters(eq(FileProcessingStatus.PENDING), any(Pageable.class));
     }
 
+    @Test
+    void findAllAfterCursor_ShouldReturnNextCursor_WhenMoreRowsExist() {
+        // Given
+        RetailFile newer = fileUploadedAt(LocalDateTime.of(2024, 1, 16, 10, 0));
+        RetailFile older = fileUploadedAt(LocalDateTime.of(2024, 1, 15, 10, 0));
+        RetailFile oldest = fileUploadedAt(LocalDateTime.of(2024, 1, 14, 10, 0));
+        when(retailFileRepository.findFirstPage(Limit.of(3))).thenReturn(List.of(newer, older, oldest));
+
+        // When
+        CursorPage<RetailFile> result = retailFileService.findAllAfterCursor(null, null, 2);
+
+        // Then
+        assertEquals(List.of(newer, older), result.content());
+        assertTrue(result.hasMore());
+        assertEquals(RetailFileCursor.after(older), RetailFileCursor.decode(result.nextCursor()));
+        verify(retailFileRepository, never()).countWithFilters(any());
+    }
+
+    @Test
+    void findAllAfterCursor_ShouldSeekPastCursor_WhenStatusFilterIsSet() {
+        // Given
+        RetailFile last = fileUploadedAt(LocalDateTime.of(2024, 1, 15, 10, 0));
+        String cursor = RetailFileCursor.after(last).encode();
+        when(retailFileRepository.findPageByStatusAfter(FileProcessingStatus.PENDING, last.getUploadDate(), last.getId(), Limit.of(21)))
+                .thenReturn(List.of(testRetailFile));
+
+        // When
+        CursorPage<RetailFile> result = retailFileService.findAllAfterCursor(FileProcessingStatus.PENDING, cursor, 20);
+
+        // Then
+        assertEquals(1, result.content().size());
+        assertFalse(result.hasMore());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void findAllAfterCursor_ShouldThrow_WhenCursorIsMalformed() {
+        // When & Then
+        assertThrows(InvalidCursorException.class,
+                () -> retailFileService.findAllAfterCursor(null, "not-a-cursor", 20));
+    }
+
     @Test
     void updateRetailFile_ShouldUpdateAndReturnFile_WhenExists() {
         // Given
@@ -210,6 +296,45 @@ class RetailFileServiceTest {
         verify(retailFileRepository, times(1)).save(any(RetailFile.class));
     }
 
+    @Test
+    void updateFileStatus_ShouldReleaseLease_WhenLeavingProcessing() {
+        // Given
+        testRetailFile.setStatus(FileProcessingStatus.PROCESSING);
+        testRetailFile.setLeaseOwner("worker-1");
+        testRetailFile.setLeaseExpiresAt(LocalDateTime.now().plusMinutes(5));
+        when(retailFileRepository.findById(testId)).thenReturn(Optional.of(testRetailFile));
+        when(retailFileRepository.save(any(RetailFile.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // When
+        RetailFile result = retailFileService.updateFileStatus(testId, FileProcessingStatus.COMPLETED);
+
+        // Then
+        assertEquals(FileProcessingStatus.COMPLETED, result.getStatus());
+        assertNull(result.getLeaseOwner());
+        assertNull(result.getLeaseExpiresAt());
+    }
+
+    @Test
+    void updateFileStatus_ShouldRejectProcessing_WhenFileIsNotClaimed() {
+        // Given
+        when(retailFileRepository.findById(testId)).thenReturn(Optional.of(testRetailFile));
+
+        // When & Then
+        assertThrows(InvalidStatusException.class,
+                () -> retailFileService.updateFileStatus(testId, FileProcessingStatus.PROCESSING));
+        verify(retailFileRepository, never()).save(any(RetailFile.class));
+    }
+
+    @Test
+    void createRetailFile_ShouldRejectProcessingStatus() {
+        // Given
+        createRequest.setStatus(FileProcessingStatus.PROCESSING);
+
+        // When & Then
+        assertThrows(InvalidStatusException.class, () -> retailFileService.createRetailFile(createRequest));
+        verify(retailFileRepository, never()).saveAndFlush(any(RetailFile.class));
+    }
+
     @Test
     void deleteRetailFile_ShouldReturnTrue_WhenExists() {
         // Given
@@ -251,4 +376,218 @@ class RetailFileServiceTest {
         assertTrue(result);
         verify(retailFileRepository, times(1)).existsById(testId);
     }
-}
\ No newline at end of file
+
+    @Test
+    void createRetailFiles_ShouldReportCreatedDuplicateAndInvalidItems() {
+        // Given
+        UUID storeId = UUID.randomUUID();
+        CreateRetailFileRequest newFile = batchItem("new_file.csv", "checksum-new");
+        CreateRetailFileRequest invalidFile = batchItem("invalid_file.csv", "checksum-invalid");
+        invalidFile.setChainId(null);
+        CreateRetailFileRequest existingFile = batchItem("existing_file.csv", "checksum-existing");
+        CreateRetailFileRequest repeatedFile = batchItem("repeated_file.csv", "checksum-new");
+
+        when(retailFileRepository.findExistingChecksums(anyCollection())).thenReturn(List.of("checksum-existing"));
+        when(storeServiceClient.resolveStoreIds(anyCollection(), eq(true)))
+                .thenReturn(Map.of(new StoreKey("CHAIN001", 123), storeId));
+        when(retailFileWriter.insertAll(anyList())).thenAnswer(invocation -> {
+            List<RetailFile> files = invocation.getArgument(0);
+            files.forEach(file -> file.setId(UUID.randomUUID()));
+            return files;
+        });
+
+        // When
+        RetailFileBatchResponse response = retailFileService.createRetailFiles(
+                List.of(newFile, invalidFile, existingFile, repeatedFile));
+
+        // Then
+        assertEquals(1, response.getCreated());
+        assertEquals(2, response.getDuplicates());
+        assertEquals(1, response.getInvalid());
+        assertEquals(BatchItemStatus.CREATED, response.getResults().get(0).getStatus());
+        assertNotNull(response.getResults().get(0).getId());
+        assertEquals(BatchItemStatus.INVALID, response.getResults().get(1).getStatus());
+        assertTrue(response.getResults().get(1).getErrors().containsKey("chainId"));
+        assertEquals(BatchItemStatus.DUPLICATE, response.getResults().get(2).getStatus());
+        assertEquals(BatchItemStatus.DUPLICATE, response.getResults().get(3).getStatus());
+
+        verify(retailFileRepository, times(1)).findExistingChecksums(anyCollection());
+        verify(storeServiceClient, times(1)).resolveStoreIds(anyCollection(), eq(true));
+        verify(storeServiceClient, never()).getOrCreateStoreId(any(), any());
+        assertEquals(1.0, meterRegistry.get("retail_files_created_total").counter().count());
+        assertEquals(2.0, meterRegistry.get("duplicate_files_detected_total").counter().count());
+    }
+
+    @Test
+    void createRetailFiles_ShouldMarkItemInvalid_WhenStoreCannotBeResolved() {
+        // Given
+        when(retailFileRepository.findExistingChecksums(anyCollection())).thenReturn(List.of());
+        when(storeServiceClient.resolveStoreIds(anyCollection(), eq(true))).thenReturn(Map.of());
+
+        // When
+        RetailFileBatchResponse response = retailFileService.createRetailFiles(
+                List.of(batchItem("orphan_file.csv", "checksum-orphan")));
+
+        // Then
+        assertEquals(0, response.getCreated());
+        assertEquals(1, response.getInvalid());
+        assertTrue(response.getResults().get(0).getErrors().containsKey("store"));
+        verify(retailFileWriter, never()).insertAll(anyList());
+    }
+
+    @Test
+    void createRetailFiles_ShouldRetryRowByRow_WhenConcurrentInsertTakesAChecksum() {
+        // Given
+        UUID storeId = UUID.randomUUID();
+        when(retailFileRepository.findExistingChecksums(anyCollection())).thenReturn(List.of());
+        when(storeServiceClient.resolveStoreIds(anyCollection(), eq(true)))
+                .thenReturn(Map.of(new StoreKey("CHAIN001", 123), storeId));
+        when(retailFileWriter.insertAll(anyList())).thenThrow(checksumConflict());
+        when(retailFileWriter.insert(any(RetailFile.class))).thenAnswer(invocation -> {
+            RetailFile file = invocation.getArgument(0);
+            if (file.getChecksum().equals("checksum-raced")) {
+                throw checksumConflict();
+            }
+            file.setId(UUID.randomUUID());
+            return file;
+        });
+
+        // When
+        RetailFileBatchResponse response = retailFileService.createRetailFiles(List.of(
+                batchItem("raced_file.csv", "checksum-raced"),
+                batchItem("new_file.csv", "checksum-new")));
+
+        // Then
+        assertEquals(BatchItemStatus.DUPLICATE, response.getResults().get(0).getStatus());
+        assertEquals(BatchItemStatus.CREATED, response.getResults().get(1).getStatus());
+        verify(retailFileWriter, times(2)).insert(any(RetailFile.class));
+        assertEquals(1.0, meterRegistry.get("duplicate_files_detected_total").counter().count());
+    }
+
+    @Test
+    void createRetailFile_ShouldThrowDuplicate_WhenChecksumConstraintIsViolated() {
+        // Given
+        createRequest.setChecksum("known-checksum");
+        when(retailFileRepository.saveAndFlush(any(RetailFile.class))).thenThrow(checksumConflict());
+
+        // When & Then
+        assertThrows(DuplicateRetailFileException.class, () -> retailFileService.createRetailFile(createRequest));
+        verify(retailFileRepository, never()).existsByChecksum(any());
+        assertEquals(1.0, meterRegistry.get("duplicate_files_detected_total").counter().count());
+        assertEquals(0.0, meterRegistry.get("retail_files_created_total").counter().count());
+    }
+
+    @Test
+    void createRetailFile_ShouldRethrow_WhenOtherConstraintIsViolated() {
+        // Given
+        when(retailFileRepository.saveAndFlush(any(RetailFile.class)))
+                .thenThrow(new DataIntegrityViolationException("NULL not allowed for column \"FILE_NAME\""));
+
+        // When & Then
+        assertThrows(DataIntegrityViolationException.class, () -> retailFileService.createRetailFile(createRequest));
+        assertEquals(0.0, meterRegistry.get("duplicate_files_detected_total").counter().count());
+    }
+
+    @Test
+    void acceptRetailFile_ShouldQueueFileWithoutInserting() {
+        // Given
+        UUID mockStoreId = UUID.randomUUID();
+        when(storeServiceClient.getOrCreateStoreId("CHAIN001", 123)).thenReturn(mockStoreId);
+        when(retailFileWriteBehind.accept(any(RetailFile.class))).thenReturn(true);
+
+        // When
+        RetailFile result = retailFileService.acceptRetailFile(createRequest);
+
+        // Then
+        assertEquals(mockStoreId, result.getStoreId());
+        assertNotNull(result.getCreatedAt());
+        verify(retailFileWriteBehind).accept(result);
+        verify(retailFileRepository, never()).saveAndFlush(any(RetailFile.class));
+        assertEquals(1.0, meterRegistry.get("retail_files_created_total").counter().count());
+    }
+
+    @Test
+    void acceptRetailFile_ShouldThrowDuplicate_WhenChecksumIsAlreadyWaiting() {
+        // Given
+        createRequest.setChecksum("waiting-checksum");
+        when(storeServiceClient.getOrCreateStoreId("CHAIN001", 123)).thenReturn(UUID.randomUUID());
+        when(retailFileWriteBehind.accept(any(RetailFile.class))).thenReturn(false);
+
+        // When & Then
+        assertThrows(DuplicateRetailFileException.class, () -> retailFileService.acceptRetailFile(createRequest));
+        assertEquals(1.0, meterRegistry.get("duplicate_files_detected_total").counter().count());
+    }
+
+    @Test
+    void isDuplicateFileByChecksum_ShouldSkipDatabase_WhenChecksumFilterRulesItOut() {
+        // Given
+        checksumFilter.rebuild(1, Stream.of("some-other-checksum"));
+
+        // When
+        boolean result = retailFileService.isDuplicateFileByChecksum("new-checksum");
+
+        // Then
+        assertFalse(result);
+        verify(retailFileRepository, never()).existsByChecksum(any());
+    }
+
+    @Test
+    void isDuplicateFileByChecksum_ShouldQueryDatabase_WhenChecksumFilterMayContainIt() {
+        // Given
+        checksumFilter.rebuild(1, Stream.of("known-checksum"));
+        when(retailFileRepository.existsByChecksum("known-checksum")).thenReturn(true);
+
+        // When & Then
+        assertTrue(retailFileService.isDuplicateFileByChecksum("known-checksum"));
+    }
+
+    @Test
+    void rebuildChecksumFilter_ShouldLoadStoredChecksums() {
+        // Given
+        when(retailFileRepository.countByChecksumIsNotNull()).thenReturn(2L);
+        when(retailFileRepository.streamAllChecksums()).thenReturn(Stream.of("checksum-a", "checksum-b"));
+
+        // When
+        var status = retailFileService.rebuildChecksumFilter();
+
+        // Then
+        assertTrue(status.isReady());
+        assertEquals(2, status.getEntries());
+        assertTrue(checksumFilter.mightContain("checksum-a"));
+    }
+
+    @Test
+    void loadChecksumFilter_ShouldRebuildFilterFromStoredChecksums() {
+        // Given
+        when(retailFileRepository.countByChecksumIsNotNull()).thenReturn(1L);
+        when(retailFileRepository.streamAllChecksums()).thenReturn(Stream.of("checksum-a"));
+
+        // When
+        retailFileService.loadChecksumFilter();
+
+        // Then
+        assertTrue(checksumFilter.status().isReady());
+        assertTrue(checksumFilter.mightContain("checksum-a"));
+    }
+
+    private static RetailFile fileUploadedAt(LocalDateTime uploadDate) {
+        RetailFile file = new RetailFile("file.csv", "https://example.com/file.csv", uploadDate);
+        file.setId(UUID.randomUUID());
+        return file;
+    }
+
+    private static DataIntegrityViolationException checksumConflict() {
+        return new DataIntegrityViolationException("could not execute statement",
+                new RuntimeException("Unique index or primary key violation: \"PUBLIC.UK_RETAIL_FILES_CHECKSUM_INDEX_B ON PUBLIC.RETAIL_FILES(CHECKSUM)\""));
+    }
+
+    private CreateRetailFileRequest batchItem(String fileName, String checksum) {
+        CreateRetailFileRequest request = new CreateRetailFileRequest();
+        request.setFileName(fileName);
+        request.setFileUrl("https://example.com/" + fileName);
+        request.setChecksum(checksum);
+        request.setStoreNumber(123);
+        request.setChainId("CHAIN001");
+        return request;
+    }
+}
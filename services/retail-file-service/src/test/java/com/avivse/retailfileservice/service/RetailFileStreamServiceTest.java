@@ -0,0 +1,130 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.dto.CreateRetailFileRequest;
+import com.avivse.retailfileservice.dto.RetailFileBatchItemResult;
+import com.avivse.retailfileservice.dto.RetailFileBatchResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetailFileStreamServiceTest {
+
+    @Mock
+    private RetailFileService retailFileService;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    private RetailFileStreamService retailFileStreamService;
+
+    @BeforeEach
+    void setUp() {
+        retailFileStreamService = new RetailFileStreamService(retailFileService, objectMapper, 2);
+    }
+
+    @Test
+    void ingest_ShouldProcessRecordsInChunks_AndWriteOneResultPerLine() throws Exception {
+        // Given
+        when(retailFileService.createRetailFiles(anyList())).thenAnswer(invocation -> createdResults(invocation.getArgument(0)));
+
+        String body = record("a.csv") + "\n" + record("b.csv") + "\n" + record("c.csv") + "\n";
+
+        // When
+        List<JsonNode> lines = ingest(body);
+
+        // Then
+        assertEquals(3, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(i, lines.get(i).get("index").asInt());
+            assertEquals("CREATED", lines.get(i).get("status").asText());
+        }
+        verify(retailFileService, times(2)).createRetailFiles(anyList());
+    }
+
+    @Test
+    void ingest_ShouldReportUnbindableRecordsWithoutFailingTheChunk() throws Exception {
+        // Given
+        when(retailFileService.createRetailFiles(anyList())).thenAnswer(invocation -> createdResults(invocation.getArgument(0)));
+
+        String body = "[1, 2]\n" + record("a.csv") + "\n{\"store_number\": \"not-a-number\"}\n";
+
+        // When
+        List<JsonNode> lines = ingest(body);
+
+        // Then
+        assertEquals(3, lines.size());
+        assertEquals("INVALID", lines.get(0).get("status").asText());
+        assertEquals("CREATED", lines.get(1).get("status").asText());
+        assertEquals(1, lines.get(1).get("index").asInt());
+        assertEquals("INVALID", lines.get(2).get("status").asText());
+        assertEquals(2, lines.get(2).get("index").asInt());
+    }
+
+    @Test
+    void ingest_ShouldStopWithErrorLine_WhenJsonIsMalformed() throws Exception {
+        // Given
+        when(retailFileService.createRetailFiles(anyList())).thenAnswer(invocation -> createdResults(invocation.getArgument(0)));
+
+        String body = record("a.csv") + "\n{\"file_name\": \n" + record("b.csv") + "\n";
+
+        // When
+        List<JsonNode> lines = ingest(body);
+
+        // Then
+        assertEquals(2, lines.size());
+        assertEquals("CREATED", lines.get(0).get("status").asText());
+        assertEquals("INVALID", lines.get(1).get("status").asText());
+        assertTrue(lines.get(1).get("errors").get("record").asText().startsWith("Malformed JSON"));
+    }
+
+    @Test
+    void ingest_ShouldWriteNothing_WhenBodyIsEmpty() throws Exception {
+        // When
+        List<JsonNode> lines = ingest("");
+
+        // Then
+        assertTrue(lines.isEmpty());
+        verify(retailFileService, never()).createRetailFiles(anyList());
+    }
+
+    private List<JsonNode> ingest(String body) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        retailFileStreamService.ingest(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), output);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isBlank()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private static String record(String fileName) {
+        return "{\"file_name\": \"" + fileName + "\", \"file_url\": \"https://example.com/" + fileName + "\", " +
+                "\"store_number\": 123, \"chain_id\": \"CHAIN001\"}";
+    }
+
+    private static RetailFileBatchResponse createdResults(List<CreateRetailFileRequest> requests) {
+        List<RetailFileBatchItemResult> results = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            results.add(RetailFileBatchItemResult.created(i, UUID.randomUUID(), "checksum-" + i));
+        }
+        return new RetailFileBatchResponse(results);
+    }
+}
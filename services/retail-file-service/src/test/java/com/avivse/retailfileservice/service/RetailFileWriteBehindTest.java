@@ -0,0 +1,235 @@
+package com.avivse.retailfileservice.service;
+
+import com.avivse.retailfileservice.entity.RetailFile;
+import com.avivse.retailfileservice.enums.FileProcessingStatus;
+import com.avivse.retailfileservice.exception.WriteBufferFullException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RetailFileWriteBehindTest {
+
+    @Mock
+    private RetailFileWriter retailFileWriter;
+
+    @TempDir
+    Path journalDir;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ChecksumFilter checksumFilter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        checksumFilter = new ChecksumFilter(true, 1000, 0.01, meterRegistry);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void accept_ShouldWriteBatch_WhenFlushSizeIsReached() throws Exception {
+        // Given
+        RetailFileWriteBehind writeBehind = writeBehind(100, 2);
+        writeBehind.start();
+
+        // When
+        assertTrue(writeBehind.accept(file("checksum-1")));
+        assertTrue(writeBehind.accept(file("checksum-2")));
+
+        // Then
+        ArgumentCaptor<List<RetailFile>> written = ArgumentCaptor.forClass(List.class);
+        verify(retailFileWriter, timeout(5000)).insertAllWithIds(written.capture());
+        assertEquals(2, written.getValue().size());
+        assertNotNull(written.getValue().get(0).getId());
+
+        writeBehind.shutdown();
+        assertTrue(checksumFilter.mightContain("checksum-1"));
+        assertEquals(2.0, meterRegistry.get("retail_file_write_behind_written_total").counter().count());
+        assertEquals(0, journalSegments());
+    }
+
+    @Test
+    void accept_ShouldRefuseFile_WhenSameChecksumIsWaiting() throws Exception {
+        // Given
+        RetailFileWriteBehind writeBehind = writeBehind(100, 100);
+        writeBehind.start();
+        assertTrue(writeBehind.accept(file("checksum-1")));
+
+        // When
+        boolean accepted = writeBehind.accept(file("checksum-1"));
+
+        // Then
+        assertFalse(accepted);
+        writeBehind.shutdown();
+    }
+
+    @Test
+    void accept_ShouldThrow_WhenBufferIsFull() throws Exception {
+        // Given
+        RetailFileWriteBehind writeBehind = writeBehind(1, 100);
+        writeBehind.start();
+        writeBehind.accept(file("checksum-1"));
+
+        // When & Then
+        assertThrows(WriteBufferFullException.class, () -> writeBehind.accept(file("checksum-2")));
+        writeBehind.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void start_ShouldReplayJournal_WhenFilesWereNotWritten() throws Exception {
+        // Given - the database is down while the first instance runs
+        doThrow(new DataAccessResourceFailureException("down")).when(retailFileWriter).insertAllWithIds(anyList());
+        RetailFileWriteBehind first = writeBehind(100, 100);
+        first.start();
+        RetailFile accepted = file("checksum-1");
+        first.accept(accepted);
+        first.shutdown();
+        assertEquals(1, journalSegments());
+
+        // When
+        reset(retailFileWriter);
+        RetailFileWriteBehind second = writeBehind(100, 100);
+        second.start();
+        second.shutdown();
+
+        // Then
+        ArgumentCaptor<List<RetailFile>> written = ArgumentCaptor.forClass(List.class);
+        verify(retailFileWriter).insertAllWithIds(written.capture());
+        RetailFile replayed = written.getValue().get(0);
+        assertEquals(accepted.getId(), replayed.getId());
+        assertEquals("checksum-1", replayed.getChecksum());
+        assertEquals(accepted.getUploadDate(), replayed.getUploadDate());
+        assertEquals(accepted.getStoreId(), replayed.getStoreId());
+        assertEquals(0, journalSegments());
+    }
+
+    @Test
+    void shutdown_ShouldSkipFile_WhenItConflictsWithStoredRow() throws Exception {
+        // Given
+        doThrow(new DuplicateKeyException("uk_retail_files_checksum")).when(retailFileWriter).insertAllWithIds(anyList());
+        RetailFileWriteBehind writeBehind = writeBehind(100, 100);
+        writeBehind.start();
+        writeBehind.accept(file("checksum-1"));
+
+        // When
+        writeBehind.shutdown();
+
+        // Then - the batch and then the row alone were tried, and the file is dropped
+        verify(retailFileWriter, times(2)).insertAllWithIds(anyList());
+        assertEquals(1.0, meterRegistry.get("retail_file_write_behind_skipped_total").counter().count());
+        assertEquals(0, journalSegments());
+    }
+
+    @Test
+    void shutdown_ShouldKeepFileForRetry_WhenInsertFailsWithoutConflict() throws Exception {
+        // Given
+        doThrow(new DataIntegrityViolationException("NULL not allowed for column \"STATUS\""))
+                .when(retailFileWriter).insertAllWithIds(anyList());
+        RetailFileWriteBehind writeBehind = writeBehind(100, 100);
+        writeBehind.start();
+        writeBehind.accept(file("checksum-1"));
+
+        // When
+        writeBehind.shutdown();
+
+        // Then - no row-by-row fallback, nothing skipped, and the file is left for replay
+        verify(retailFileWriter).insertAllWithIds(anyList());
+        assertEquals(0.0, meterRegistry.get("retail_file_write_behind_skipped_total").counter().count());
+        assertEquals(1.0, meterRegistry.get("retail_file_write_behind_flush_failures_total").counter().count());
+        assertEquals(1, journalSegments());
+    }
+
+    @Test
+    void shutdown_ShouldResumeAfterWrittenRows_WhenRowFailsWithoutConflict() throws Exception {
+        // Given - the batch conflicts, the first row alone is written and the second fails
+        RetailFile first = file("checksum-1");
+        RetailFile second = file("checksum-2");
+        doThrow(new DuplicateKeyException("uk_retail_files_checksum")).when(retailFileWriter)
+                .insertAllWithIds(argThat(files -> files.size() == 2));
+        doNothing().when(retailFileWriter)
+                .insertAllWithIds(argThat(files -> files.size() == 1 && files.get(0) == first));
+        doThrow(new DataAccessResourceFailureException("down")).doNothing().when(retailFileWriter)
+                .insertAllWithIds(argThat(files -> files.size() == 1 && files.get(0) == second));
+        RetailFileWriteBehind writeBehind = writeBehind(100, 2);
+        writeBehind.start();
+        writeBehind.accept(first);
+        writeBehind.accept(second);
+        verify(retailFileWriter, timeout(5000))
+                .insertAllWithIds(argThat(files -> files.size() == 1 && files.get(0) == second));
+
+        // When
+        writeBehind.shutdown();
+
+        // Then - the retry wrote only the file that failed
+        verify(retailFileWriter, times(1))
+                .insertAllWithIds(argThat(files -> files.size() == 1 && files.get(0) == first));
+        verify(retailFileWriter, times(2))
+                .insertAllWithIds(argThat(files -> files.size() == 1 && files.get(0) == second));
+        assertEquals(1.0, meterRegistry.get("retail_file_write_behind_flush_failures_total").counter().count());
+        assertEquals(2.0, meterRegistry.get("retail_file_write_behind_written_total").counter().count());
+        assertEquals(0, journalSegments());
+    }
+
+    @Test
+    void accept_ShouldThrow_WhenFlusherWasInterrupted() throws Exception {
+        // Given
+        RetailFileWriteBehind writeBehind = writeBehind(100, 100);
+        writeBehind.start();
+        Thread flusher = Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("retail-file-write-behind"))
+                .findFirst().orElseThrow();
+
+        // When
+        flusher.interrupt();
+        flusher.join(5000);
+
+        // Then
+        assertFalse(flusher.isAlive());
+        assertThrows(IllegalStateException.class, () -> writeBehind.accept(file("checksum-1")));
+        writeBehind.shutdown();
+    }
+
+    private RetailFileWriteBehind writeBehind(int capacity, int flushSize) {
+        return new RetailFileWriteBehind(retailFileWriter, checksumFilter, true, journalDir, capacity, flushSize,
+                Duration.ofHours(1), meterRegistry);
+    }
+
+    private static RetailFile file(String checksum) {
+        RetailFile file = new RetailFile("prices.xml", "https://example.com/prices.xml",
+                LocalDateTime.of(2024, 1, 15, 10, 30));
+        file.setChecksum(checksum);
+        file.setStatus(FileProcessingStatus.PENDING);
+        file.setStoreId(UUID.randomUUID());
+        file.setCreatedAt(LocalDateTime.now());
+        file.setUpdatedAt(file.getCreatedAt());
+        return file;
+    }
+
+    private long journalSegments() throws Exception {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.avivse.storeservice.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many virtual threads hold a JDBC connection at once. Drivers such as H2 do their
+ * work inside synchronized methods, which pins a virtual thread to its carrier for the whole
+ * call; keeping the cap below the number of carriers leaves at least one carrier free for
+ * everything else. Platform threads are not counted.
+ * <p>
+ * A permit is per thread, not per connection: a thread can only pin one carrier, so one that
+ * already holds a connection (say, while a REQUIRES_NEW transaction opens a second) gets more
+ * without waiting. A thread that can't get a permit within acquire-timeout fails with an
+ * SQLException instead of waiting forever.
+ */
+public class PinningGuardDataSource extends DelegatingDataSource {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+    // Connections open per thread holding a permit
+    private final ConcurrentHashMap<Thread, Integer> holders = new ConcurrentHashMap<>();
+    private final Timer waitTimer;
+
+    public PinningGuardDataSource(DataSource target, int maxConcurrent, Duration acquireTimeout,
+                                  MeterRegistry meterRegistry) {
+        super(target);
+        this.permits = new Semaphore(maxConcurrent, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+
+        this.waitTimer = Timer.builder("jdbc_pinning_guard_wait")
+                .description("Time virtual threads waited for a JDBC connection permit")
+                .register(meterRegistry);
+
+        Gauge.builder("jdbc_pinning_guard_available", permits, Semaphore::availablePermits)
+                .description("JDBC connection permits left for virtual threads")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!Thread.currentThread().isVirtual()) {
+            return super.getConnection();
+        }
+        Thread owner = acquire();
+        try {
+            return guard(super.getConnection(), owner);
+        } catch (SQLException | RuntimeException e) {
+            release(owner);
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!Thread.currentThread().isVirtual()) {
+            return super.getConnection(username, password);
+        }
+        Thread owner = acquire();
+        try {
+            return guard(super.getConnection(username, password), owner);
+        } catch (SQLException | RuntimeException e) {
+            release(owner);
+            throw e;
+        }
+    }
+
+    // Counts one more connection for the current thread, taking a permit for its first
+    private Thread acquire() throws SQLException {
+        Thread owner = Thread.currentThread();
+        if (holders.computeIfPresent(owner, (thread, open) -> open + 1) != null) {
+            return owner;
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new SQLException("Timed out after " + Duration.ofNanos(acquireTimeoutNanos)
+                        + " waiting for a JDBC connection permit");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a JDBC connection permit", e);
+        } finally {
+            waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        holders.merge(owner, 1, Integer::sum);
+        return owner;
+    }
+
+    // The permit goes back with the thread's last open connection
+    private void release(Thread owner) {
+        AtomicBoolean last = new AtomicBoolean();
+        holders.computeIfPresent(owner, (thread, open) -> {
+            if (open > 1) {
+                return open - 1;
+            }
+            last.set(true);
+            return null;
+        });
+        if (last.get()) {
+            permits.release();
+        }
+    }
+
+    // The connection is counted off when it is closed, at most once
+    private Connection guard(Connection connection, Thread owner) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    if (!isClose(method)) {
+                        return invoke(connection, method, args);
+                    }
+                    try {
+                        return invoke(connection, method, args);
+                    } finally {
+                        if (released.compareAndSet(false, true)) {
+                            release(owner);
+                        }
+                    }
+                });
+    }
+
+    private static boolean isClose(Method method) {
+        return method.getName().equals("close") && method.getParameterCount() == 0;
+    }
+
+    private static Object invoke(Connection connection, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(connection, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.avivse.storeservice.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Streams the JVM's jdk.VirtualThreadPinned flight recorder events into a Micrometer timer.
+ * The JVM records an event when a virtual thread blocks for longer than the threshold while
+ * pinned to its carrier, typically inside a synchronized block. Each distinct pinning frame is
+ * logged once, so the offending code path can be found without a recording.
+ */
+public class VirtualThreadPinningMonitor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES_LIMIT = 1000;
+
+    private final RecordingStream stream;
+    private final Timer pinnedTimer;
+    private final Set<String> loggedFrames = ConcurrentHashMap.newKeySet();
+
+    public VirtualThreadPinningMonitor(Duration threshold, MeterRegistry meterRegistry) {
+        this.pinnedTimer = Timer.builder("jvm_virtual_threads_pinned")
+                .description("Times a virtual thread blocked while pinned to its carrier thread")
+                .register(meterRegistry);
+
+        this.stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedTimer.record(event.getDuration());
+
+        String frame = pinnedFrame(event.getStackTrace());
+        if (loggedFrames.size() < LOGGED_FRAMES_LIMIT && loggedFrames.add(frame)) {
+            logger.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), frame);
+        }
+    }
+
+    // The innermost application frame says more than the JDK frame that actually parked
+    private static String pinnedFrame(RecordedStackTrace stackTrace) {
+        if (stackTrace == null || stackTrace.getFrames().isEmpty()) {
+            return "unknown";
+        }
+        RecordedFrame first = stackTrace.getFrames().get(0);
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return first.getMethod().getType().getName() + "." + first.getMethod().getName();
+    }
+
+    @Override
+    public void close() {
+        stream.close();
+    }
+}
@@ -1,6 +1,12 @@
 package com.avivse.storeservice.controller;
 
+import com.avivse.storeservice.dto.CursorPage;
+import com.avivse.storeservice.dto.ResolvedStoreDTO;
+import com.avivse.storeservice.dto.StoreBulkUpsertRequestDTO;
+import com.avivse.storeservice.dto.StoreBulkUpsertResponseDTO;
 import com.avivse.storeservice.dto.StoreCreateDTO;
+import com.avivse.storeservice.dto.StoreResolveRequestDTO;
+import com.avivse.storeservice.dto.StoreResolveResponseDTO;
 import com.avivse.storeservice.dto.StoreResponseDTO;
 import com.avivse.storeservice.dto.StoreUpdateDTO;
 import com.avivse.storeservice.entity.Store;
@@ -19,12 +25,14 @@ import jakarta.validation.constraints.Size;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
@@ -67,6 +75,43 @@ public class StoreController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
+    @PostMapping("/resolve")
+    @Operation(summary = "Resolve stores by natural key",
+               description = "Resolves a batch of chainId/storeNumber pairs to store IDs, optionally creating the missing stores")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stores resolved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid request data"),
+        @ApiResponse(responseCode = "409", description = "Some stores were created concurrently, retry the request")
+    })
+    public ResponseEntity<StoreResolveResponseDTO> resolveStores(
+            @Valid @RequestBody StoreResolveRequestDTO request,
+            @RequestHeader(value = "X-Service-Name", required = false) String serviceName) {
+        logger.info("Resolving {} stores (createMissing: {}) from service: {}",
+                   request.getStores().size(), request.isCreateMissing(), serviceName);
+
+        String createdBy = serviceName != null && !serviceName.trim().isEmpty() ? serviceName : "unknown";
+        List<ResolvedStoreDTO> resolved = storeService.resolveStores(request.getStores(), request.isCreateMissing(), createdBy);
+
+        return ResponseEntity.ok(new StoreResolveResponseDTO(resolved));
+    }
+
+    @PutMapping("/bulk")
+    @Operation(summary = "Bulk upsert stores",
+               description = "Creates or updates a chain's store list in a single transaction")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Stores upserted successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid request data"),
+        @ApiResponse(responseCode = "409", description = "Some stores were created concurrently, retry the request")
+    })
+    public ResponseEntity<StoreBulkUpsertResponseDTO> upsertStores(
+            @Valid @RequestBody StoreBulkUpsertRequestDTO request,
+            @RequestHeader(value = "X-Service-Name", required = false) String serviceName) {
+        logger.info("Upserting {} stores from service: {}", request.getStores().size(), serviceName);
+
+        String modifiedBy = serviceName != null && !serviceName.trim().isEmpty() ? serviceName : "unknown";
+        return ResponseEntity.ok(storeService.upsertStores(request.getStores(), modifiedBy));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Get store by ID", description = "Retrieves a store by its UUID")
     @ApiResponses(value = {
@@ -124,26 +169,71 @@ public class StoreController {
             @Parameter(description = "Page number (1-based)")
             @RequestParam(defaultValue = "1") @Positive int page,
             @Parameter(description = "Page size")
-            @RequestParam(defaultValue = "20") @Positive int size) {
+            @RequestParam(defaultValue = "20") @Positive int size,
+            @Parameter(description = "Paging mode: offset (default) or cursor")
+            @RequestParam(defaultValue = "offset") String paging,
+            @Parameter(description = "next_cursor from the previous page; implies cursor paging")
+            @RequestParam(required = false) String cursor,
+            @Parameter(description = "Include the total count (defaults to true for offset paging, false for cursor paging)")
+            @RequestParam(value = "include_total", required = false) Boolean includeTotal) {
 
         logger.debug("Listing stores - page: {}, size: {}, chainId: {}, storeType: {}, subChainId: {}",
                     page, size, chainId, storeType, subChainId);
 
-        Page<Store> storePage = storeService.findAllWithFilters(chainId, storeType, subChainId, page, size);
+        if (cursor != null || "cursor".equalsIgnoreCase(paging)) {
+            return ResponseEntity.ok(listStoresByCursor(chainId, storeType, subChainId, cursor, size,
+                    Boolean.TRUE.equals(includeTotal)));
+        }
+
+        Map<String, Object> response = new HashMap<>();
+        Map<String, Object> pagination = new HashMap<>();
+
+        if (includeTotal == null || includeTotal) {
+            Page<Store> storePage = storeService.findAllWithFilters(chainId, storeType, subChainId, page, size);
+
+            response.put("data", storePage.getContent().stream()
+                    .map(storeMapper::toResponseDTO)
+                    .toList());
+
+            pagination.put("page", storePage.getNumber() + 1);
+            pagination.put("size", storePage.getSize());
+            pagination.put("total", storePage.getTotalElements());
+            pagination.put("totalPages", storePage.getTotalPages());
+        } else {
+            Slice<Store> storeSlice = storeService.findSliceWithFilters(chainId, storeType, subChainId, page, size);
+
+            response.put("data", storeSlice.getContent().stream()
+                    .map(storeMapper::toResponseDTO)
+                    .toList());
+
+            pagination.put("page", storeSlice.getNumber() + 1);
+            pagination.put("size", storeSlice.getSize());
+            pagination.put("has_more", storeSlice.hasNext());
+        }
+        response.put("pagination", pagination);
+
+        return ResponseEntity.ok(response);
+    }
+
+    private Map<String, Object> listStoresByCursor(String chainId, String storeType, Integer subChainId,
+                                                   String cursor, int size, boolean includeTotal) {
+        CursorPage<Store> storePage = storeService.findAllAfterCursor(chainId, storeType, subChainId, cursor, size);
 
         Map<String, Object> response = new HashMap<>();
-        response.put("data", storePage.getContent().stream()
+        response.put("data", storePage.content().stream()
                 .map(storeMapper::toResponseDTO)
                 .toList());
 
         Map<String, Object> pagination = new HashMap<>();
-        pagination.put("page", storePage.getNumber() + 1);
-        pagination.put("size", storePage.getSize());
-        pagination.put("total", storePage.getTotalElements());
-        pagination.put("totalPages", storePage.getTotalPages());
+        pagination.put("size", size);
+        pagination.put("next_cursor", storePage.nextCursor());
+        pagination.put("has_more", storePage.hasMore());
+        if (includeTotal) {
+            pagination.put("total", storeService.countWithFilters(chainId, storeType, subChainId));
+        }
         response.put("pagination", pagination);
 
-        return ResponseEntity.ok(response);
+        return response;
     }
 
     @PutMapping("/{id}")
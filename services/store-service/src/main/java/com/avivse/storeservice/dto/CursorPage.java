@@ -0,0 +1,13 @@
+package com.avivse.storeservice.dto;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is null on the last page.
+ */
+public record CursorPage<T>(List<T> content, String nextCursor) {
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
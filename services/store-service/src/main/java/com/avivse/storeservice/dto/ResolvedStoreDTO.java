@@ -0,0 +1,53 @@
+package com.avivse.storeservice.dto;
+
+import java.util.UUID;
+
+public class ResolvedStoreDTO {
+
+    private String chainId;
+    private Integer storeNumber;
+    private UUID id;
+    private boolean created;
+
+    public ResolvedStoreDTO() {
+    }
+
+    public ResolvedStoreDTO(String chainId, Integer storeNumber, UUID id, boolean created) {
+        this.chainId = chainId;
+        this.storeNumber = storeNumber;
+        this.id = id;
+        this.created = created;
+    }
+
+    public String getChainId() {
+        return chainId;
+    }
+
+    public void setChainId(String chainId) {
+        this.chainId = chainId;
+    }
+
+    public Integer getStoreNumber() {
+        return storeNumber;
+    }
+
+    public void setStoreNumber(Integer storeNumber) {
+        this.storeNumber = storeNumber;
+    }
+
+    public UUID getId() {
+        return id;
+    }
+
+    public void setId(UUID id) {
+        this.id = id;
+    }
+
+    public boolean isCreated() {
+        return created;
+    }
+
+    public void setCreated(boolean created) {
+        this.created = created;
+    }
+}
@@ -0,0 +1,28 @@
+package com.avivse.storeservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class StoreBulkUpsertRequestDTO {
+
+    // Comfortably above the largest chain's store list
+    public static final int MAX_STORES = 10000;
+
+    @NotEmpty(message = "At least one store is required")
+    @Size(max = MAX_STORES, message = "Cannot upsert more than 10000 stores per request")
+    private List<@Valid StoreUpsertDTO> stores;
+
+    public StoreBulkUpsertRequestDTO() {
+    }
+
+    public List<StoreUpsertDTO> getStores() {
+        return stores;
+    }
+
+    public void setStores(List<StoreUpsertDTO> stores) {
+        this.stores = stores;
+    }
+}
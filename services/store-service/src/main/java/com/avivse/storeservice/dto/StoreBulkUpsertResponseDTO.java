@@ -0,0 +1,53 @@
+package com.avivse.storeservice.dto;
+
+import java.util.List;
+
+public class StoreBulkUpsertResponseDTO {
+
+    private List<ResolvedStoreDTO> stores;
+    private int created;
+    private int updated;
+    private int unchanged;
+
+    public StoreBulkUpsertResponseDTO() {
+    }
+
+    public StoreBulkUpsertResponseDTO(List<ResolvedStoreDTO> stores, int updated) {
+        this.stores = stores;
+        this.created = (int) stores.stream().filter(ResolvedStoreDTO::isCreated).count();
+        this.updated = updated;
+        this.unchanged = stores.size() - created - updated;
+    }
+
+    public List<ResolvedStoreDTO> getStores() {
+        return stores;
+    }
+
+    public void setStores(List<ResolvedStoreDTO> stores) {
+        this.stores = stores;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+
+    public int getUpdated() {
+        return updated;
+    }
+
+    public void setUpdated(int updated) {
+        this.updated = updated;
+    }
+
+    public int getUnchanged() {
+        return unchanged;
+    }
+
+    public void setUnchanged(int unchanged) {
+        this.unchanged = unchanged;
+    }
+}
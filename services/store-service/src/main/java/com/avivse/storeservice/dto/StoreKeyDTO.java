@@ -0,0 +1,57 @@
+package com.avivse.storeservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.Objects;
+
+public class StoreKeyDTO {
+
+    @NotBlank(message = "Chain ID is required")
+    @Size(max = 20, message = "Chain ID cannot exceed 20 characters")
+    private String chainId;
+
+    @NotNull(message = "Store number is required")
+    private Integer storeNumber;
+
+    public StoreKeyDTO() {
+    }
+
+    public StoreKeyDTO(String chainId, Integer storeNumber) {
+        this.chainId = chainId;
+        this.storeNumber = storeNumber;
+    }
+
+    public String getChainId() {
+        return chainId;
+    }
+
+    public void setChainId(String chainId) {
+        this.chainId = chainId;
+    }
+
+    public Integer getStoreNumber() {
+        return storeNumber;
+    }
+
+    public void setStoreNumber(Integer storeNumber) {
+        this.storeNumber = storeNumber;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof StoreKeyDTO other)) {
+            return false;
+        }
+        return Objects.equals(chainId, other.chainId) && Objects.equals(storeNumber, other.storeNumber);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(chainId, storeNumber);
+    }
+}
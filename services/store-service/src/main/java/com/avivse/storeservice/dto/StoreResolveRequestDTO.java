@@ -0,0 +1,37 @@
+package com.avivse.storeservice.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class StoreResolveRequestDTO {
+
+    public static final int MAX_STORES = 1000;
+
+    @NotEmpty(message = "At least one store key is required")
+    @Size(max = MAX_STORES, message = "Cannot resolve more than 1000 stores per request")
+    private List<@Valid StoreKeyDTO> stores;
+
+    private boolean createMissing;
+
+    public StoreResolveRequestDTO() {
+    }
+
+    public List<StoreKeyDTO> getStores() {
+        return stores;
+    }
+
+    public void setStores(List<StoreKeyDTO> stores) {
+        this.stores = stores;
+    }
+
+    public boolean isCreateMissing() {
+        return createMissing;
+    }
+
+    public void setCreateMissing(boolean createMissing) {
+        this.createMissing = createMissing;
+    }
+}
@@ -0,0 +1,33 @@
+package com.avivse.storeservice.dto;
+
+import java.util.List;
+
+public class StoreResolveResponseDTO {
+
+    private List<ResolvedStoreDTO> stores;
+    private int created;
+
+    public StoreResolveResponseDTO() {
+    }
+
+    public StoreResolveResponseDTO(List<ResolvedStoreDTO> stores) {
+        this.stores = stores;
+        this.created = (int) stores.stream().filter(ResolvedStoreDTO::isCreated).count();
+    }
+
+    public List<ResolvedStoreDTO> getStores() {
+        return stores;
+    }
+
+    public void setStores(List<ResolvedStoreDTO> stores) {
+        this.stores = stores;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public void setCreated(int created) {
+        this.created = created;
+    }
+}
@@ -0,0 +1,76 @@
+package com.avivse.storeservice.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import jakarta.validation.constraints.Size;
+
+public class StoreUpsertDTO {
+
+    @NotBlank(message = "Chain ID is required")
+    @Size(max = 20, message = "Chain ID cannot exceed 20 characters")
+    private String chainId;
+
+    @NotNull(message = "Store number is required")
+    private Integer storeNumber;
+
+    @Size(max = 10, message = "Store type cannot exceed 10 characters")
+    private String storeType;
+
+    @Size(max = 100, message = "Store name cannot exceed 100 characters")
+    private String storeName;
+
+    @Positive(message = "Sub-chain ID must be positive")
+    private Integer subChainId;
+
+    public StoreUpsertDTO() {
+    }
+
+    public StoreUpsertDTO(String chainId, Integer storeNumber, String storeType, String storeName, Integer subChainId) {
+        this.chainId = chainId;
+        this.storeNumber = storeNumber;
+        this.storeType = storeType;
+        this.storeName = storeName;
+        this.subChainId = subChainId;
+    }
+
+    public String getChainId() {
+        return chainId;
+    }
+
+    public void setChainId(String chainId) {
+        this.chainId = chainId;
+    }
+
+    public Integer getStoreNumber() {
+        return storeNumber;
+    }
+
+    public void setStoreNumber(Integer storeNumber) {
+        this.storeNumber = storeNumber;
+    }
+
+    public String getStoreType() {
+        return storeType;
+    }
+
+    public void setStoreType(String storeType) {
+        this.storeType = storeType;
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public void setStoreName(String storeName) {
+        this.storeName = storeName;
+    }
+
+    public Integer getSubChainId() {
+        return subChainId;
+    }
+
+    public void setSubChainId(Integer subChainId) {
+        this.subChainId = subChainId;
+    }
+}
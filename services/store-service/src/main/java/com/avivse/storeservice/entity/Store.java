@@ -13,6 +13,11 @@ import java.util.UUID;
 @Entity
 @Table(name = "stores", uniqueConstraints = {
     @UniqueConstraint(name = "uk_store_number_chain_id", columnNames = {"storeNumber", "chainId"})
+}, indexes = {
+    // Keyset pagination: newest first, optionally filtered
+    @Index(name = "idx_stores_created_at_id", columnList = "created_at, id"),
+    @Index(name = "idx_stores_chain_id_created_at_id", columnList = "chain_id, created_at, id"),
+    @Index(name = "idx_stores_store_type_created_at_id", columnList = "store_type, created_at, id")
 })
 public class Store {
 
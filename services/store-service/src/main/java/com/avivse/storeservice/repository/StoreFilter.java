@@ -0,0 +1,7 @@
+package com.avivse.storeservice.repository;
+
+/**
+ * Optional listing filters; null fields are left out of the query entirely.
+ */
+public record StoreFilter(String chainId, String storeType, Integer subChainId) {
+}
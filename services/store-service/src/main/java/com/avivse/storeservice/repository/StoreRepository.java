@@ -3,19 +3,25 @@ package com.avivse.storeservice.repository;
 import com.avivse.storeservice.entity.Store;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface StoreRepository extends JpaRepository<Store, UUID> {
+public interface StoreRepository extends JpaRepository<Store, UUID>, StoreRepositoryCustom {
 
     Optional<Store> findByChainIdAndStoreNumber(String chainId, Integer storeNumber);
 
+    // Set-based lookup for bulk resolution; may return extra combinations, callers match exact pairs
+    List<Store> findByChainIdInAndStoreNumberIn(Collection<String> chainIds, Collection<Integer> storeNumbers);
+
     @Query("SELECT s FROM Store s WHERE " +
            "(:chainId IS NULL OR s.chainId = :chainId) AND " +
            "(:storeType IS NULL OR s.storeType = :storeType) AND " +
@@ -25,5 +31,15 @@ public interface StoreRepository extends JpaRepository<Store, UUID> {
                                @Param("subChainId") Integer subChainId,
                                Pageable pageable);
 
+    // Same as findWithFilters without the COUNT query
+    @Query("SELECT s FROM Store s WHERE " +
+           "(:chainId IS NULL OR s.chainId = :chainId) AND " +
+           "(:storeType IS NULL OR s.storeType = :storeType) AND " +
+           "(:subChainId IS NULL OR s.subChainId = :subChainId)")
+    Slice<Store> findSliceWithFilters(@Param("chainId") String chainId,
+                                      @Param("storeType") String storeType,
+                                      @Param("subChainId") Integer subChainId,
+                                      Pageable pageable);
+
     boolean existsByChainIdAndStoreNumber(String chainId, Integer storeNumber);
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.avivse.storeservice.repository;
+
+import com.avivse.storeservice.dto.StoreCursor;
+import com.avivse.storeservice.entity.Store;
+
+import java.util.List;
+
+public interface StoreRepositoryCustom {
+
+    /**
+     * Stores matching the filter, newest first, starting after the cursor (or from the newest when null).
+     */
+    List<Store> findPageAfter(StoreFilter filter, StoreCursor after, int limit);
+
+    long countWithFilter(StoreFilter filter);
+}
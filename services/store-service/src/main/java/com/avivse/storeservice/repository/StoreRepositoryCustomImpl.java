@@ -0,0 +1,77 @@
+package com.avivse.storeservice.repository;
+
+import com.avivse.storeservice.dto.StoreCursor;
+import com.avivse.storeservice.entity.Store;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Builds listing queries with a predicate only for each filter that is set, instead of
+ * {@code (:x IS NULL OR ...)}. Every filter combination becomes its own concrete statement,
+ * which the database can serve from the matching (filter, created_at, id) index.
+ */
+public class StoreRepositoryCustomImpl implements StoreRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Store> findPageAfter(StoreFilter filter, StoreCursor after, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Store> query = cb.createQuery(Store.class);
+        Root<Store> store = query.from(Store.class);
+        Path<LocalDateTime> createdAt = store.get("createdAt");
+        Path<UUID> id = store.get("id");
+
+        List<Predicate> predicates = filterPredicates(cb, store, filter);
+        if (after != null) {
+            predicates.add(cb.or(
+                    cb.lessThan(createdAt, after.createdAt()),
+                    cb.and(cb.equal(createdAt, after.createdAt()), cb.lessThan(id, after.id()))));
+        }
+
+        query.select(store)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.desc(createdAt), cb.desc(id));
+
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long countWithFilter(StoreFilter filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Store> store = query.from(Store.class);
+
+        query.select(cb.count(store))
+                .where(filterPredicates(cb, store, filter).toArray(Predicate[]::new));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private List<Predicate> filterPredicates(CriteriaBuilder cb, Root<Store> store, StoreFilter filter) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (filter.chainId() != null) {
+            predicates.add(cb.equal(store.get("chainId"), filter.chainId()));
+        }
+        if (filter.storeType() != null) {
+            predicates.add(cb.equal(store.get("storeType"), filter.storeType()));
+        }
+        if (filter.subChainId() != null) {
+            predicates.add(cb.equal(store.get("subChainId"), filter.subChainId()));
+        }
+        return predicates;
+    }
+}
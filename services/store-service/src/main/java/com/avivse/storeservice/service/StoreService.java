@@ -1,11 +1,18 @@
 package com.avivse.storeservice.service;
 
+import com.avivse.storeservice.dto.CursorPage;
+import com.avivse.storeservice.dto.ResolvedStoreDTO;
+import com.avivse.storeservice.dto.StoreBulkUpsertResponseDTO;
 import com.avivse.storeservice.dto.StoreCreateDTO;
+import com.avivse.storeservice.dto.StoreCursor;
+import com.avivse.storeservice.dto.StoreKeyDTO;
 import com.avivse.storeservice.dto.StoreUpdateDTO;
+import com.avivse.storeservice.dto.StoreUpsertDTO;
 import com.avivse.storeservice.entity.Store;
 import com.avivse.storeservice.exception.StoreAlreadyExistsException;
 import com.avivse.storeservice.exception.StoreNotFoundException;
 import com.avivse.storeservice.mapper.StoreMapper;
+import com.avivse.storeservice.repository.StoreFilter;
 import com.avivse.storeservice.repository.StoreRepository;
 import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
@@ -14,12 +21,23 @@ import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -75,6 +93,137 @@ public class StoreService {
         return storeRepository.findByChainIdAndStoreNumber(chainId, storeNumber);
     }
 
+    /**
+     * Resolve a batch of natural keys to store IDs with a single lookup query,
+     * optionally inserting the missing stores in one batched insert.
+     * Results follow the order of the (de-duplicated) keys.
+     */
+    public List<ResolvedStoreDTO> resolveStores(Collection<StoreKeyDTO> keys, boolean createMissing, String createdBy) {
+        Set<StoreKeyDTO> uniqueKeys = new LinkedHashSet<>(keys);
+        logger.debug("Resolving {} stores, createMissing: {}", uniqueKeys.size(), createMissing);
+
+        Set<String> chainIds = uniqueKeys.stream().map(StoreKeyDTO::getChainId).collect(Collectors.toSet());
+        Set<Integer> storeNumbers = uniqueKeys.stream().map(StoreKeyDTO::getStoreNumber).collect(Collectors.toSet());
+
+        Map<StoreKeyDTO, Store> existing = new HashMap<>();
+        for (Store store : storeRepository.findByChainIdInAndStoreNumberIn(chainIds, storeNumbers)) {
+            existing.put(new StoreKeyDTO(store.getChainId(), store.getStoreNumber()), store);
+        }
+
+        List<Store> missing = new ArrayList<>();
+        if (createMissing) {
+            for (StoreKeyDTO key : uniqueKeys) {
+                if (!existing.containsKey(key)) {
+                    Store store = new Store();
+                    store.setChainId(key.getChainId());
+                    store.setStoreNumber(key.getStoreNumber());
+                    store.setCreatedBy(createdBy);
+                    store.setLastModifiedBy(createdBy);
+                    missing.add(store);
+                }
+            }
+        }
+
+        Set<StoreKeyDTO> createdKeys = new LinkedHashSet<>();
+        if (!missing.isEmpty()) {
+            try {
+                for (Store saved : storeRepository.saveAllAndFlush(missing)) {
+                    StoreKeyDTO key = new StoreKeyDTO(saved.getChainId(), saved.getStoreNumber());
+                    existing.put(key, saved);
+                    createdKeys.add(key);
+                    meterRegistry.counter("store.created", "chain_id", saved.getChainId()).increment();
+                }
+            } catch (DataIntegrityViolationException e) {
+                // A concurrent request created some of these stores first; the caller can simply retry
+                logger.warn("Data integrity violation while bulk creating {} stores", missing.size());
+                throw new StoreAlreadyExistsException("Some of the stores were created concurrently, retry the request", e);
+            }
+            logger.info("Bulk created {} stores", createdKeys.size());
+        }
+
+        List<ResolvedStoreDTO> results = new ArrayList<>(uniqueKeys.size());
+        for (StoreKeyDTO key : uniqueKeys) {
+            Store store = existing.get(key);
+            results.add(new ResolvedStoreDTO(key.getChainId(), key.getStoreNumber(),
+                    store != null ? store.getId() : null, createdKeys.contains(key)));
+        }
+        return results;
+    }
+
+    /**
+     * Apply a chain's store list in one transaction: missing stores are inserted and
+     * existing ones updated where name, type or sub-chain changed, both as JDBC batches.
+     * A key listed more than once takes its last entry.
+     */
+    public StoreBulkUpsertResponseDTO upsertStores(Collection<StoreUpsertDTO> stores, String modifiedBy) {
+        Map<StoreKeyDTO, StoreUpsertDTO> byKey = new LinkedHashMap<>();
+        for (StoreUpsertDTO store : stores) {
+            byKey.put(new StoreKeyDTO(store.getChainId(), store.getStoreNumber()), store);
+        }
+        logger.info("Upserting {} stores", byKey.size());
+
+        Set<String> chainIds = byKey.keySet().stream().map(StoreKeyDTO::getChainId).collect(Collectors.toSet());
+        Set<Integer> storeNumbers = byKey.keySet().stream().map(StoreKeyDTO::getStoreNumber).collect(Collectors.toSet());
+
+        Map<StoreKeyDTO, Store> existing = new HashMap<>();
+        for (Store store : storeRepository.findByChainIdInAndStoreNumberIn(chainIds, storeNumbers)) {
+            existing.put(new StoreKeyDTO(store.getChainId(), store.getStoreNumber()), store);
+        }
+
+        List<Store> missing = new ArrayList<>();
+        int updated = 0;
+        for (Map.Entry<StoreKeyDTO, StoreUpsertDTO> entry : byKey.entrySet()) {
+            StoreUpsertDTO upsert = entry.getValue();
+            Store store = existing.get(entry.getKey());
+            if (store == null) {
+                store = new Store(upsert.getStoreNumber(), upsert.getStoreType(), upsert.getStoreName(),
+                        upsert.getChainId(), upsert.getSubChainId());
+                store.setCreatedBy(modifiedBy);
+                store.setLastModifiedBy(modifiedBy);
+                missing.add(store);
+            } else if (applyUpsert(store, upsert, modifiedBy)) {
+                // Dirty checking flushes the change as part of the update batch
+                updated++;
+                meterRegistry.counter("store.updated", "chain_id", store.getChainId()).increment();
+            }
+        }
+
+        Set<StoreKeyDTO> createdKeys = new LinkedHashSet<>();
+        try {
+            for (Store saved : storeRepository.saveAllAndFlush(missing)) {
+                StoreKeyDTO key = new StoreKeyDTO(saved.getChainId(), saved.getStoreNumber());
+                existing.put(key, saved);
+                createdKeys.add(key);
+                meterRegistry.counter("store.created", "chain_id", saved.getChainId()).increment();
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Data integrity violation while upserting {} stores", byKey.size());
+            throw new StoreAlreadyExistsException("Some of the stores were created concurrently, retry the request", e);
+        }
+        logger.info("Upserted stores: {} created, {} updated", createdKeys.size(), updated);
+
+        List<ResolvedStoreDTO> results = new ArrayList<>(byKey.size());
+        for (StoreKeyDTO key : byKey.keySet()) {
+            results.add(new ResolvedStoreDTO(key.getChainId(), key.getStoreNumber(),
+                    existing.get(key).getId(), createdKeys.contains(key)));
+        }
+        return new StoreBulkUpsertResponseDTO(results, updated);
+    }
+
+    // Only touch the entity when something changed, so unchanged stores cost no UPDATE
+    private boolean applyUpsert(Store store, StoreUpsertDTO upsert, String modifiedBy) {
+        if (Objects.equals(store.getStoreName(), upsert.getStoreName())
+                && Objects.equals(store.getStoreType(), upsert.getStoreType())
+                && Objects.equals(store.getSubChainId(), upsert.getSubChainId())) {
+            return false;
+        }
+        store.setStoreName(upsert.getStoreName());
+        store.setStoreType(upsert.getStoreType());
+        store.setSubChainId(upsert.getSubChainId());
+        store.setLastModifiedBy(modifiedBy);
+        return true;
+    }
+
     @Transactional(readOnly = true)
     public Page<Store> findAllWithFilters(String chainId, String storeType, Integer subChainId,
                                          int page, int size) {
@@ -85,6 +234,39 @@ public class StoreService {
         return storeRepository.findWithFilters(chainId, storeType, subChainId, pageable);
     }
 
+    @Transactional(readOnly = true)
+    public Slice<Store> findSliceWithFilters(String chainId, String storeType, Integer subChainId,
+                                             int page, int size) {
+        Pageable pageable = PageRequest.of(page - 1, size, Sort.by("createdAt").descending());
+        return storeRepository.findSliceWithFilters(chainId, storeType, subChainId, pageable);
+    }
+
+    /**
+     * Keyset-paginated listing, newest first. The cursor is the next_cursor of the previous
+     * page, or null for the first page. Fetches one extra row to tell whether more remain.
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<Store> findAllAfterCursor(String chainId, String storeType, Integer subChainId,
+                                                String cursor, int size) {
+        logger.debug("Finding stores after cursor - chainId: {}, storeType: {}, subChainId: {}, size: {}",
+                    chainId, storeType, subChainId, size);
+
+        StoreCursor after = cursor == null || cursor.isBlank() ? null : StoreCursor.decode(cursor);
+        List<Store> stores = storeRepository.findPageAfter(
+                new StoreFilter(chainId, storeType, subChainId), after, size + 1);
+
+        if (stores.size() <= size) {
+            return new CursorPage<>(stores, null);
+        }
+        List<Store> page = stores.subList(0, size);
+        return new CursorPage<>(page, StoreCursor.after(page.get(size - 1)).encode());
+    }
+
+    @Transactional(readOnly = true)
+    public long countWithFilters(String chainId, String storeType, Integer subChainId) {
+        return storeRepository.countWithFilter(new StoreFilter(chainId, storeType, subChainId));
+    }
+
     public Store updateStore(UUID id, StoreUpdateDTO updateDTO) {
         logger.info("Updating store with ID: {}", id);
 
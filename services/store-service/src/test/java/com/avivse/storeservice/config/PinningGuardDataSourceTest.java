@@ -0,0 +1,131 @@
+package com.avivse.storeservice.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PinningGuardDataSourceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private DataSource target;
+    private PinningGuardDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        target = mock(DataSource.class);
+        when(target.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource = new PinningGuardDataSource(target, 1, Duration.ofSeconds(5), meterRegistry);
+    }
+
+    @Test
+    void getConnection_ShouldWaitForPermit_WhenCalledFromVirtualThreads() throws Exception {
+        // Given - one virtual thread holds the only permit
+        AtomicReference<Connection> held = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> held.set(connect())).join();
+
+        AtomicReference<Connection> second = new AtomicReference<>();
+        Thread waiter = Thread.ofVirtual().start(() -> second.set(connect()));
+
+        // When
+        waiter.join(200);
+
+        // Then
+        assertNull(second.get());
+        assertEquals(0.0, meterRegistry.get("jdbc_pinning_guard_available").gauge().value());
+
+        held.get().close();
+        waiter.join(5000);
+        assertNotNull(second.get());
+    }
+
+    @Test
+    void getConnection_ShouldNotWait_WhenThreadAlreadyHoldsPermit() throws Exception {
+        // Given - a transaction holds a connection, and a REQUIRES_NEW one inside it asks for another
+        AtomicReference<Connection> outer = new AtomicReference<>();
+        AtomicReference<Connection> inner = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> {
+            outer.set(connect());
+            inner.set(connect());
+        }).join(5000);
+
+        // When
+        inner.get().close();
+
+        // Then - the permit is held until the outer connection closes too
+        assertNotNull(outer.get());
+        assertEquals(0.0, meterRegistry.get("jdbc_pinning_guard_available").gauge().value());
+        outer.get().close();
+        assertEquals(1.0, meterRegistry.get("jdbc_pinning_guard_available").gauge().value());
+    }
+
+    @Test
+    void getConnection_ShouldFail_WhenNoPermitFreesUpInTime() throws Exception {
+        // Given
+        PinningGuardDataSource guarded = new PinningGuardDataSource(target, 1, Duration.ofMillis(50), meterRegistry);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> {
+            try {
+                guarded.getConnection();
+            } catch (SQLException e) {
+                failure.set(e);
+            }
+        }).join();
+
+        // When
+        Thread.ofVirtual().start(() -> {
+            try {
+                guarded.getConnection();
+            } catch (SQLException e) {
+                failure.set(e);
+            }
+        }).join(5000);
+
+        // Then
+        assertInstanceOf(SQLException.class, failure.get());
+        assertTrue(failure.get().getMessage().startsWith("Timed out"));
+    }
+
+    @Test
+    void getConnection_ShouldNotTakePermit_WhenCalledFromPlatformThread() throws Exception {
+        // When
+        Connection first = dataSource.getConnection();
+        Connection second = dataSource.getConnection();
+
+        // Then
+        assertNotNull(first);
+        assertNotNull(second);
+        assertEquals(1.0, meterRegistry.get("jdbc_pinning_guard_available").gauge().value());
+    }
+
+    @Test
+    void close_ShouldReleasePermitOnce_WhenCalledTwice() throws Exception {
+        // Given
+        AtomicReference<Connection> held = new AtomicReference<>();
+        Thread.ofVirtual().start(() -> held.set(connect())).join();
+
+        // When
+        held.get().close();
+        held.get().close();
+
+        // Then
+        assertEquals(1.0, meterRegistry.get("jdbc_pinning_guard_available").gauge().value());
+    }
+
+    private Connection connect() {
+        try {
+            return dataSource.getConnection();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
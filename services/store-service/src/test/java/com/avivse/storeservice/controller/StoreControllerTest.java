@@ -1,9 +1,17 @@
 package com.avivse.storeservice.controller;
 
+import com.avivse.storeservice.dto.CursorPage;
+import com.avivse.storeservice.dto.ResolvedStoreDTO;
+import com.avivse.storeservice.dto.StoreBulkUpsertRequestDTO;
+import com.avivse.storeservice.dto.StoreBulkUpsertResponseDTO;
 import com.avivse.storeservice.dto.StoreCreateDTO;
+import com.avivse.storeservice.dto.StoreKeyDTO;
+import com.avivse.storeservice.dto.StoreResolveRequestDTO;
 import com.avivse.storeservice.dto.StoreResponseDTO;
 import com.avivse.storeservice.dto.StoreUpdateDTO;
+import com.avivse.storeservice.dto.StoreUpsertDTO;
 import com.avivse.storeservice.entity.Store;
+import com.avivse.storeservice.exception.InvalidCursorException;
 import com.avivse.storeservice.exception.StoreAlreadyExistsException;
 import com.avivse.storeservice.exception.StoreNotFoundException;
 import com.avivse.storeservice.mapper.StoreMapper;
@@ -17,6 +25,7 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -27,6 +36,9 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -241,6 +253,67 @@ class StoreControllerTest {
         verify(storeService).findAllWithFilters("CHAIN001", "MAIN", 1, 1, 20);
     }
 
+    @Test
+    void listStores_ShouldUseCursorPaging_WhenRequested() throws Exception {
+        when(storeService.findAllAfterCursor("CHAIN001", null, null, null, 20))
+                .thenReturn(new CursorPage<>(List.of(testStore), "next-token"));
+        when(storeMapper.toResponseDTO(testStore)).thenReturn(responseDTO);
+
+        mockMvc.perform(get("/api/v1/stores")
+                        .param("chain_id", "CHAIN001")
+                        .param("paging", "cursor"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(1))
+                .andExpect(jsonPath("$.pagination.next_cursor").value("next-token"))
+                .andExpect(jsonPath("$.pagination.has_more").value(true))
+                .andExpect(jsonPath("$.pagination.total").doesNotExist());
+
+        verify(storeService, never()).countWithFilters(any(), any(), any());
+        verify(storeService, never()).findAllWithFilters(any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void listStores_ShouldIncludeTotalInCursorMode_WhenRequested() throws Exception {
+        when(storeService.findAllAfterCursor(null, null, null, "some-token", 50))
+                .thenReturn(new CursorPage<>(List.of(testStore), null));
+        when(storeService.countWithFilters(null, null, null)).thenReturn(51L);
+        when(storeMapper.toResponseDTO(testStore)).thenReturn(responseDTO);
+
+        mockMvc.perform(get("/api/v1/stores")
+                        .param("cursor", "some-token")
+                        .param("size", "50")
+                        .param("include_total", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.has_more").value(false))
+                .andExpect(jsonPath("$.pagination.total").value(51));
+    }
+
+    @Test
+    void listStores_ShouldSkipCount_WhenTotalNotRequested() throws Exception {
+        when(storeService.findSliceWithFilters(null, null, null, 1, 20))
+                .thenReturn(new SliceImpl<>(List.of(testStore), PageRequest.of(0, 20), false));
+        when(storeMapper.toResponseDTO(testStore)).thenReturn(responseDTO);
+
+        mockMvc.perform(get("/api/v1/stores")
+                        .param("include_total", "false"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pagination.has_more").value(false))
+                .andExpect(jsonPath("$.pagination.total").doesNotExist());
+
+        verify(storeService, never()).findAllWithFilters(any(), any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void listStores_ShouldReturn400_WhenCursorIsInvalid() throws Exception {
+        when(storeService.findAllAfterCursor(null, null, null, "garbage", 20))
+                .thenThrow(new InvalidCursorException("garbage"));
+
+        mockMvc.perform(get("/api/v1/stores")
+                        .param("cursor", "garbage"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.code").value("INVALID_CURSOR"));
+    }
+
     @Test
     void updateStore_ShouldReturn200_WhenStoreExists() throws Exception {
         StoreUpdateDTO updateDTO = new StoreUpdateDTO();
@@ -376,4 +449,69 @@ class StoreControllerTest {
         assertEquals("unknown", capturedDTO.getCreatedBy());
         verify(storeService).createStore(any(StoreCreateDTO.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void resolveStores_ShouldReturn200WithResolvedStores() throws Exception {
+        StoreResolveRequestDTO request = new StoreResolveRequestDTO();
+        request.setStores(List.of(new StoreKeyDTO("CHAIN001", 123)));
+        request.setCreateMissing(true);
+
+        when(storeService.resolveStores(anyList(), eq(true), eq("retail-file-service")))
+                .thenReturn(List.of(new ResolvedStoreDTO("CHAIN001", 123, testId, true)));
+
+        mockMvc.perform(post("/api/v1/stores/resolve")
+                        .header("X-Service-Name", "retail-file-service")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stores[0].id").value(testId.toString()))
+                .andExpect(jsonPath("$.stores[0].chain_id").value("CHAIN001"))
+                .andExpect(jsonPath("$.stores[0].created").value(true))
+                .andExpect(jsonPath("$.created").value(1));
+    }
+
+    @Test
+    void resolveStores_ShouldReturn400_WhenKeyIsInvalid() throws Exception {
+        StoreResolveRequestDTO request = new StoreResolveRequestDTO();
+        request.setStores(List.of(new StoreKeyDTO(null, 123)));
+
+        mockMvc.perform(post("/api/v1/stores/resolve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(storeService, never()).resolveStores(anyList(), anyBoolean(), any());
+    }
+
+    @Test
+    void upsertStores_ShouldReturn200WithCounts() throws Exception {
+        StoreBulkUpsertRequestDTO request = new StoreBulkUpsertRequestDTO();
+        request.setStores(List.of(new StoreUpsertDTO("CHAIN001", 123, "MAIN", "Test Store", 1)));
+
+        when(storeService.upsertStores(anyList(), eq("retail-file-service")))
+                .thenReturn(new StoreBulkUpsertResponseDTO(
+                        List.of(new ResolvedStoreDTO("CHAIN001", 123, testId, true)), 0));
+
+        mockMvc.perform(put("/api/v1/stores/bulk")
+                        .header("X-Service-Name", "retail-file-service")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stores[0].id").value(testId.toString()))
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.updated").value(0));
+    }
+
+    @Test
+    void upsertStores_ShouldReturn400_WhenStoreIsInvalid() throws Exception {
+        StoreBulkUpsertRequestDTO request = new StoreBulkUpsertRequestDTO();
+        request.setStores(List.of(new StoreUpsertDTO("CHAIN001", null, null, null, null)));
+
+        mockMvc.perform(put("/api/v1/stores/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        verify(storeService, never()).upsertStores(anyList(), any());
+    }
+}
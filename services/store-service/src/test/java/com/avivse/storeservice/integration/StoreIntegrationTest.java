@@ -1,8 +1,14 @@
 package com.avivse.storeservice.integration;
 
+import com.avivse.storeservice.dto.StoreBulkUpsertRequestDTO;
+import com.avivse.storeservice.dto.StoreBulkUpsertResponseDTO;
 import com.avivse.storeservice.dto.StoreCreateDTO;
+import com.avivse.storeservice.dto.StoreKeyDTO;
+import com.avivse.storeservice.dto.StoreResolveRequestDTO;
+import com.avivse.storeservice.dto.StoreResolveResponseDTO;
 import com.avivse.storeservice.dto.StoreResponseDTO;
 import com.avivse.storeservice.dto.StoreUpdateDTO;
+import com.avivse.storeservice.dto.StoreUpsertDTO;
 import com.avivse.storeservice.entity.Store;
 import com.avivse.storeservice.repository.StoreRepository;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -329,4 +335,49 @@ class StoreIntegrationTest {
                 baseUrl + "/" + storeId, String.class);
         assertEquals(HttpStatus.NOT_FOUND, getAfterDeleteResponse.getStatusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void resolveStores_ShouldResolveExistingAndCreateMissing() {
+        ResponseEntity<StoreResponseDTO> createResponse = restTemplate.postForEntity(
+                baseUrl, createDTO, StoreResponseDTO.class);
+        UUID existingId = createResponse.getBody().getId();
+
+        StoreResolveRequestDTO request = new StoreResolveRequestDTO();
+        request.setStores(List.of(new StoreKeyDTO("CHAIN001", 123), new StoreKeyDTO("CHAIN001", 124),
+                new StoreKeyDTO("CHAIN002", 123)));
+        request.setCreateMissing(true);
+
+        ResponseEntity<StoreResolveResponseDTO> response = restTemplate.postForEntity(
+                baseUrl + "/resolve", request, StoreResolveResponseDTO.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(3, response.getBody().getStores().size());
+        assertEquals(2, response.getBody().getCreated());
+        assertEquals(existingId, response.getBody().getStores().get(0).getId());
+        assertFalse(response.getBody().getStores().get(0).isCreated());
+        assertNotNull(response.getBody().getStores().get(1).getId());
+        assertEquals(3, storeRepository.count());
+    }
+
+    @Test
+    void upsertStores_ShouldCreateAndUpdateInOneCall() {
+        restTemplate.postForEntity(baseUrl, createDTO, StoreResponseDTO.class);
+
+        StoreBulkUpsertRequestDTO request = new StoreBulkUpsertRequestDTO();
+        request.setStores(List.of(
+                new StoreUpsertDTO("CHAIN001", 123, "MAIN", "Renamed Store", 2),
+                new StoreUpsertDTO("CHAIN001", 124, "EXPRESS", "Second Store", 2)));
+
+        ResponseEntity<StoreBulkUpsertResponseDTO> response = restTemplate.exchange(
+                baseUrl + "/bulk", HttpMethod.PUT, new HttpEntity<>(request), StoreBulkUpsertResponseDTO.class);
+
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertNotNull(response.getBody());
+        assertEquals(1, response.getBody().getCreated());
+        assertEquals(1, response.getBody().getUpdated());
+        assertEquals(2, storeRepository.count());
+        assertEquals("Renamed Store",
+                storeRepository.findByChainIdAndStoreNumber("CHAIN001", 123).orElseThrow().getStoreName());
+    }
+}
@@ -1,5 +1,6 @@
 package com.avivse.storeservice.repository;
 
+import com.avivse.storeservice.dto.StoreCursor;
 import com.avivse.storeservice.entity.Store;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -12,7 +13,12 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 
+import java.util.HashSet;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -207,4 +213,56 @@ class StoreRepositoryTest {
         assertEquals(2, result.getContent().size());
         assertEquals(3, result.getTotalPages());
     }
-}
\ No newline at end of file
+
+    @Test
+    void findByChainIdInAndStoreNumberIn_ShouldReturnMatchingStores() {
+        entityManager.persistAndFlush(testStore1);
+        entityManager.persistAndFlush(testStore2);
+
+        List<Store> result = storeRepository.findByChainIdInAndStoreNumberIn(
+                List.of("CHAIN001", "CHAIN003"), List.of(123, 456));
+
+        assertEquals(1, result.size());
+        assertEquals("Main Store", result.get(0).getStoreName());
+    }
+
+    @Test
+    void findPageAfter_ShouldWalkAllMatchingStoresNewestFirst() {
+        for (int i = 0; i < 5; i++) {
+            Store store = new Store();
+            store.setStoreNumber(i);
+            store.setStoreType("TEST");
+            store.setChainId("TEST_CHAIN");
+            entityManager.persistAndFlush(store);
+        }
+        entityManager.persistAndFlush(testStore2);
+
+        StoreFilter filter = new StoreFilter("TEST_CHAIN", null, null);
+        List<Store> firstPage = storeRepository.findPageAfter(filter, null, 2);
+        List<Store> secondPage = storeRepository.findPageAfter(filter, StoreCursor.after(firstPage.get(1)), 2);
+        List<Store> lastPage = storeRepository.findPageAfter(filter, StoreCursor.after(secondPage.get(1)), 2);
+
+        assertEquals(2, firstPage.size());
+        assertEquals(2, secondPage.size());
+        assertEquals(1, lastPage.size());
+
+        Set<UUID> seen = new HashSet<>();
+        Stream.of(firstPage, secondPage, lastPage).flatMap(List::stream).forEach(store -> {
+            assertEquals("TEST_CHAIN", store.getChainId());
+            seen.add(store.getId());
+        });
+        assertEquals(5, seen.size());
+        assertFalse(firstPage.get(0).getCreatedAt().isBefore(lastPage.get(0).getCreatedAt()));
+    }
+
+    @Test
+    void countWithFilter_ShouldOnlyApplyPresentFilters() {
+        entityManager.persistAndFlush(testStore1);
+        entityManager.persistAndFlush(testStore2);
+
+        assertEquals(2, storeRepository.countWithFilter(new StoreFilter(null, null, null)));
+        assertEquals(1, storeRepository.countWithFilter(new StoreFilter("CHAIN001", null, null)));
+        assertEquals(0, storeRepository.countWithFilter(new StoreFilter("CHAIN001", "OUTLET", null)));
+        assertEquals(1, storeRepository.countWithFilter(new StoreFilter(null, "OUTLET", 2)));
+    }
+}
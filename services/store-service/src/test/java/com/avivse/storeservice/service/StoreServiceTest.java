@@ -1,16 +1,25 @@
 package com.avivse.storeservice.service;
 
+import com.avivse.storeservice.dto.CursorPage;
+import com.avivse.storeservice.dto.ResolvedStoreDTO;
+import com.avivse.storeservice.dto.StoreBulkUpsertResponseDTO;
 import com.avivse.storeservice.dto.StoreCreateDTO;
+import com.avivse.storeservice.dto.StoreCursor;
+import com.avivse.storeservice.dto.StoreKeyDTO;
 import com.avivse.storeservice.dto.StoreUpdateDTO;
+import com.avivse.storeservice.dto.StoreUpsertDTO;
 import com.avivse.storeservice.entity.Store;
+import com.avivse.storeservice.exception.InvalidCursorException;
 import com.avivse.storeservice.exception.StoreAlreadyExistsException;
 import com.avivse.storeservice.exception.StoreNotFoundException;
 import com.avivse.storeservice.mapper.StoreMapper;
+import com.avivse.storeservice.repository.StoreFilter;
 import com.avivse.storeservice.repository.StoreRepository;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.dao.DataIntegrityViolationException;
@@ -26,6 +35,9 @@ import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -181,6 +193,42 @@ class StoreServiceTest {
         verify(storeRepository).findWithFilters(eq("CHAIN001"), eq("MAIN"), eq(1), any(Pageable.class));
     }
 
+    @Test
+    void findAllAfterCursor_ShouldReturnNextCursor_WhenMoreStoresExist() {
+        Store newer = storeCreatedAt(LocalDateTime.of(2024, 1, 16, 10, 0));
+        Store older = storeCreatedAt(LocalDateTime.of(2024, 1, 15, 10, 0));
+        Store oldest = storeCreatedAt(LocalDateTime.of(2024, 1, 14, 10, 0));
+        when(storeRepository.findPageAfter(new StoreFilter("CHAIN001", null, null), null, 3))
+                .thenReturn(List.of(newer, older, oldest));
+
+        CursorPage<Store> result = storeService.findAllAfterCursor("CHAIN001", null, null, null, 2);
+
+        assertEquals(List.of(newer, older), result.content());
+        assertTrue(result.hasMore());
+        assertEquals(StoreCursor.after(older), StoreCursor.decode(result.nextCursor()));
+        verify(storeRepository, never()).countWithFilter(any());
+    }
+
+    @Test
+    void findAllAfterCursor_ShouldSeekPastDecodedCursor() {
+        StoreCursor cursor = new StoreCursor(LocalDateTime.of(2024, 1, 15, 10, 0), UUID.randomUUID());
+        when(storeRepository.findPageAfter(new StoreFilter(null, "MAIN", null), cursor, 21))
+                .thenReturn(List.of(testStore));
+
+        CursorPage<Store> result = storeService.findAllAfterCursor(null, "MAIN", null, cursor.encode(), 20);
+
+        assertEquals(1, result.content().size());
+        assertFalse(result.hasMore());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    void findAllAfterCursor_ShouldThrow_WhenCursorIsMalformed() {
+        assertThrows(InvalidCursorException.class,
+                () -> storeService.findAllAfterCursor(null, null, null, "not-a-cursor", 20));
+        verify(storeRepository, never()).findPageAfter(any(), any(), anyInt());
+    }
+
     @Test
     void updateStore_ShouldUpdateAndReturnStore_WhenExists() {
         when(storeRepository.findById(testId)).thenReturn(Optional.of(testStore));
@@ -269,4 +317,106 @@ class StoreServiceTest {
         assertFalse(result);
         verify(storeRepository).existsByChainIdAndStoreNumber("CHAIN001", 123);
     }
-}
\ No newline at end of file
+
+    @Test
+    void resolveStores_ShouldReturnExistingAndCreateMissingInOneBatch() {
+        StoreKeyDTO existingKey = new StoreKeyDTO("CHAIN001", 123);
+        StoreKeyDTO missingKey = new StoreKeyDTO("CHAIN001", 456);
+        UUID createdId = UUID.randomUUID();
+
+        when(storeRepository.findByChainIdInAndStoreNumberIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(testStore));
+        when(storeRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Store> stores = invocation.getArgument(0);
+            stores.forEach(store -> store.setId(createdId));
+            return stores;
+        });
+
+        List<ResolvedStoreDTO> result = storeService.resolveStores(
+                List.of(existingKey, missingKey, existingKey), true, "retail-file-service");
+
+        assertEquals(2, result.size());
+        assertEquals(testId, result.get(0).getId());
+        assertFalse(result.get(0).isCreated());
+        assertEquals(createdId, result.get(1).getId());
+        assertTrue(result.get(1).isCreated());
+
+        verify(storeRepository, times(1)).findByChainIdInAndStoreNumberIn(anyCollection(), anyCollection());
+        verify(storeRepository, times(1)).saveAllAndFlush(anyList());
+        assertEquals(1.0, meterRegistry.counter("store.created", "chain_id", "CHAIN001").count());
+    }
+
+    @Test
+    void resolveStores_ShouldNotCreate_WhenCreateMissingIsFalse() {
+        when(storeRepository.findByChainIdInAndStoreNumberIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of());
+
+        List<ResolvedStoreDTO> result = storeService.resolveStores(
+                List.of(new StoreKeyDTO("CHAIN001", 456)), false, "retail-file-service");
+
+        assertEquals(1, result.size());
+        assertNull(result.get(0).getId());
+        assertFalse(result.get(0).isCreated());
+        verify(storeRepository, never()).saveAllAndFlush(anyList());
+    }
+
+    @Test
+    void resolveStores_ShouldThrowException_OnConcurrentCreation() {
+        when(storeRepository.findByChainIdInAndStoreNumberIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of());
+        when(storeRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("Duplicate"));
+
+        assertThrows(StoreAlreadyExistsException.class, () -> storeService.resolveStores(
+                List.of(new StoreKeyDTO("CHAIN001", 456)), true, "retail-file-service"));
+    }
+
+    @Test
+    void upsertStores_ShouldInsertMissingAndUpdateChangedStores() {
+        Store unchangedStore = new Store(789, "MAIN", "Unchanged", "CHAIN001", 1);
+        unchangedStore.setId(UUID.randomUUID());
+        UUID createdId = UUID.randomUUID();
+
+        when(storeRepository.findByChainIdInAndStoreNumberIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of(testStore, unchangedStore));
+        when(storeRepository.saveAllAndFlush(anyList())).thenAnswer(invocation -> {
+            List<Store> stores = invocation.getArgument(0);
+            stores.forEach(store -> store.setId(createdId));
+            return stores;
+        });
+
+        StoreBulkUpsertResponseDTO result = storeService.upsertStores(List.of(
+                new StoreUpsertDTO("CHAIN001", 123, "MAIN", "Renamed Store", 1),
+                new StoreUpsertDTO("CHAIN001", 456, "EXPRESS", "New Store", 2),
+                new StoreUpsertDTO("CHAIN001", 789, "MAIN", "Unchanged", 1)), "retail-file-service");
+
+        assertEquals(1, result.getCreated());
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getUnchanged());
+        assertEquals(testId, result.getStores().get(0).getId());
+        assertEquals(createdId, result.getStores().get(1).getId());
+        assertEquals("Renamed Store", testStore.getStoreName());
+        assertEquals("retail-file-service", testStore.getLastModifiedBy());
+
+        ArgumentCaptor<List<Store>> inserted = ArgumentCaptor.forClass(List.class);
+        verify(storeRepository, times(1)).saveAllAndFlush(inserted.capture());
+        assertEquals(1, inserted.getValue().size());
+        assertEquals("New Store", inserted.getValue().get(0).getStoreName());
+    }
+
+    @Test
+    void upsertStores_ShouldThrowException_OnConcurrentCreation() {
+        when(storeRepository.findByChainIdInAndStoreNumberIn(anyCollection(), anyCollection()))
+                .thenReturn(List.of());
+        when(storeRepository.saveAllAndFlush(anyList())).thenThrow(new DataIntegrityViolationException("Duplicate"));
+
+        assertThrows(StoreAlreadyExistsException.class, () -> storeService.upsertStores(
+                List.of(new StoreUpsertDTO("CHAIN001", 456, null, "New Store", null)), "retail-file-service"));
+    }
+
+    private static Store storeCreatedAt(LocalDateTime createdAt) {
+        Store store = new Store(1, "MAIN", "Store", "CHAIN001", null);
+        store.setId(UUID.randomUUID());
+        store.setCreatedAt(createdAt);
+        return store;
+    }
+}